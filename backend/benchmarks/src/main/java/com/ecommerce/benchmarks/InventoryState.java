@@ -0,0 +1,106 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.inventoryservice.InventoryServiceApplication;
+import com.ecommerce.inventoryservice.service.InventoryService;
+import com.ecommerce.inventoryservice.service.StockLedger;
+import com.ecommerce.inventoryservice.service.StripedStockService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A running inventory service backed by an in-memory H2 database, shared by all benchmark threads.
+ * Every product starts with enough stock and reservations that no operation in a run fails for
+ * lack of stock, so the numbers measure contention rather than rejections.
+ */
+@State(Scope.Benchmark)
+public class InventoryState {
+
+    static final int INITIAL_QUANTITY = 1_000_000_000;
+    static final int INITIAL_RESERVED = 500_000_000;
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final int STRIPED_PRODUCTS = 16;
+    private static final int STRIPE_BUCKETS = 16;
+
+    /**
+     * {@code database} runs every operation as a row update; {@code striped} does the same with the
+     * hottest products split into stock buckets; {@code ledger} uses the in-memory stock ledger.
+     */
+    @Param({"database", "striped", "ledger"})
+    public String mode;
+
+    @Param({"10000"})
+    public int products;
+
+    @Param({"UNIFORM", "ZIPFIAN", "HOT"})
+    public KeySkew skew;
+
+    InventoryService inventoryService;
+    KeySkew.Chooser chooser;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(InventoryServiceApplication.class)
+            .web(WebApplicationType.NONE)
+            .logStartupInfo(false)
+            .run(
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:inventory-bench;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.hikari.maximum-pool-size=80",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--logging.level.root=WARN",
+                "--logging.level.com.ecommerce.inventoryservice=WARN",
+                "--inventory.ledger.enabled=" + "ledger".equals(mode),
+                "--inventory.reorder.cron=-");
+        seed(context.getBean(JdbcTemplate.class));
+        if ("striped".equals(mode)) {
+            // Product ids are ranked by popularity, so these are the hot ones under every skew
+            StripedStockService stripedStock = context.getBean(StripedStockService.class);
+            for (long productId = 1; productId <= Math.min(STRIPED_PRODUCTS, products); productId++) {
+                stripedStock.enable(productId, STRIPE_BUCKETS);
+            }
+        }
+        inventoryService = context.getBean(InventoryService.class);
+        chooser = skew.chooser(products);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        // Write out what the ledger still holds so shutdown does not race the closing pool
+        context.getBean(StockLedger.class).flush();
+        context.close();
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (long productId = 1; productId <= products; productId++) {
+            batch.add(new Object[] {productId, "SKU-" + productId, INITIAL_QUANTITY, INITIAL_RESERVED, now, now});
+            if (batch.size() == SEED_BATCH_SIZE || productId == products) {
+                jdbcTemplate.batchUpdate(
+                    "INSERT INTO inventory (product_id, product_sku, quantity, reserved_quantity, reorder_level, " +
+                    "reorder_quantity, version, created_at, updated_at) VALUES (?, ?, ?, ?, 10, 50, 0, ?, ?)",
+                    batch);
+                batch = new ArrayList<>(SEED_BATCH_SIZE);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * How benchmark threads pick the product they operate on.
+ */
+public enum KeySkew {
+
+    /** Every product equally likely. */
+    UNIFORM,
+
+    /** Zipf-distributed with exponent 0.99, so a few products take most of the traffic. */
+    ZIPFIAN,
+
+    /** Every operation targets the same product. */
+    HOT;
+
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    /**
+     * Returns a chooser over product ids {@code 1..products}. The chooser holds no per-thread
+     * state; callers pass their own random source.
+     */
+    public Chooser chooser(int products) {
+        switch (this) {
+            case UNIFORM:
+                return random -> 1 + random.nextInt(products);
+            case ZIPFIAN:
+                double[] cdf = zipfCdf(products);
+                return random -> {
+                    int index = Arrays.binarySearch(cdf, random.nextDouble());
+                    return 1 + (index >= 0 ? index : -index - 1);
+                };
+            case HOT:
+                return random -> 1L;
+            default:
+                throw new IllegalStateException("Unknown key skew " + this);
+        }
+    }
+
+    private static double[] zipfCdf(int products) {
+        double[] cdf = new double[products];
+        double total = 0;
+        for (int rank = 1; rank <= products; rank++) {
+            total += 1.0 / Math.pow(rank, ZIPF_EXPONENT);
+            cdf[rank - 1] = total;
+        }
+        for (int i = 0; i < products; i++) {
+            cdf[i] /= total;
+        }
+        cdf[products - 1] = 1.0;
+        return cdf;
+    }
+
+    @FunctionalInterface
+    public interface Chooser {
+        long next(SplittableRandom random);
+    }
+}
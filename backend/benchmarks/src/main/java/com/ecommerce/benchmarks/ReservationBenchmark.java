@@ -0,0 +1,84 @@
+package com.ecommerce.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserve, release and deduct of one unit against a product picked by the configured key skew.
+ * Thread counts are set per run, see {@link BenchmarkRunner}. Throughput and sampled latency are
+ * reported together; run with the {@code gc} profiler for allocation rate.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ReservationBenchmark {
+
+    @State(Scope.Thread)
+    public static class Keys {
+        private SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void seed() {
+            random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+        }
+
+        long next(InventoryState inventory) {
+            return inventory.chooser.next(random);
+        }
+    }
+
+    /**
+     * Operations that gave up after exhausting optimistic-lock retries, reported next to the
+     * throughput so a fast but failing configuration is visible.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Conflicts {
+        public long exhausted;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            exhausted = 0;
+        }
+    }
+
+    @Benchmark
+    public boolean reserve(InventoryState inventory, Keys keys) {
+        return inventory.inventoryService.reserveStock(keys.next(inventory), 1);
+    }
+
+    @Benchmark
+    public void release(InventoryState inventory, Keys keys, Conflicts conflicts) {
+        try {
+            inventory.inventoryService.releaseStock(keys.next(inventory), 1);
+        } catch (OptimisticLockingFailureException ex) {
+            conflicts.exhausted++;
+        }
+    }
+
+    @Benchmark
+    public void deduct(InventoryState inventory, Keys keys, Conflicts conflicts) {
+        try {
+            inventory.inventoryService.deductStock(keys.next(inventory), 1);
+        } catch (OptimisticLockingFailureException ex) {
+            conflicts.exhausted++;
+        }
+    }
+}
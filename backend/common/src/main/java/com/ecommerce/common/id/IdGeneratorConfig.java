@@ -0,0 +1,29 @@
+package com.ecommerce.common.id;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Node id lease and Snowflake generator for services that issue ids. Picked up by adding this
+ * package to the service's component scan; also registers {@link IdGeneratorNode} with the
+ * service's entities.
+ */
+@Configuration
+@AutoConfigurationPackage(basePackageClasses = IdGeneratorNode.class)
+public class IdGeneratorConfig {
+
+    @Bean
+    public NodeIdLease nodeIdLease(JdbcTemplate jdbcTemplate,
+                                   @Value("${id-generator.lease-ms:60000}") long leaseMillis) {
+        return new NodeIdLease(jdbcTemplate, leaseMillis);
+    }
+
+    @Bean
+    public SnowflakeIdGenerator idGenerator(NodeIdLease nodeIdLease,
+                                            @Value("${id-generator.node-id:-1}") int nodeId) {
+        return nodeIdLease.acquire(nodeId);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.common.id;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * Lease on one Snowflake node id, managed by {@link NodeIdLease}.
+ * {@code validUntil} is epoch milliseconds; a row without an owner is free.
+ */
+@Entity
+@Table(name = "id_generator_nodes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdGeneratorNode {
+    
+    @Id
+    private Integer nodeId;
+    
+    @Column(length = 200)
+    private String owner;
+    
+    @Column(nullable = false)
+    private Long validUntil;
+}
@@ -0,0 +1,169 @@
+package com.ecommerce.common.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Leases Snowflake node ids from the {@code id_generator_nodes} table, so two running instances
+ * never issue ids with the same node id. Each row keeps the epoch millisecond its lease runs until;
+ * the holder issues no ids at or past it, and the next holder of the node id starts its ids there.
+ * That also holds across a restart on a clock that is behind, without reading old ids back. The
+ * lease is renewed in the background and released on close.
+ */
+@Slf4j
+public class NodeIdLease implements AutoCloseable {
+
+    private static final String SELECT_SQL = "SELECT node_id, owner, valid_until FROM id_generator_nodes";
+    private static final String TAKE_SQL =
+        "UPDATE id_generator_nodes SET owner = ?, valid_until = ? " +
+        "WHERE node_id = ? AND valid_until = ? AND (owner IS NULL OR valid_until <= ?)";
+    private static final String INSERT_SQL = "INSERT INTO id_generator_nodes (node_id, owner, valid_until) VALUES (?, ?, ?)";
+    private static final String RENEW_SQL = "UPDATE id_generator_nodes SET valid_until = ? WHERE node_id = ? AND owner = ?";
+    private static final String RELEASE_SQL =
+        "UPDATE id_generator_nodes SET owner = NULL, valid_until = ? WHERE node_id = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long leaseMillis;
+    private final LongSupplier clock;
+    private final String owner;
+    private ScheduledExecutorService renewer;
+    private SnowflakeIdGenerator generator;
+    private int nodeId = -1;
+    private long leasedUntil;
+
+    public NodeIdLease(JdbcTemplate jdbcTemplate, long leaseMillis) {
+        this(jdbcTemplate, leaseMillis, System::currentTimeMillis);
+    }
+
+    NodeIdLease(JdbcTemplate jdbcTemplate, long leaseMillis, LongSupplier clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaseMillis = leaseMillis;
+        this.clock = clock;
+        this.owner = hostName() + ":" + UUID.randomUUID();
+    }
+
+    /**
+     * Generator on the lowest free node id.
+     */
+    public synchronized SnowflakeIdGenerator acquire() {
+        return acquire(-1);
+    }
+
+    /**
+     * Generator on {@code requestedNodeId}, or on the lowest free node id when it is negative.
+     * Fails when the requested node id is leased by another running instance.
+     */
+    public synchronized SnowflakeIdGenerator acquire(int requestedNodeId) {
+        if (generator != null) {
+            throw new IllegalStateException("Node id " + nodeId + " is already leased");
+        }
+        if (requestedNodeId > SnowflakeIdGenerator.MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + SnowflakeIdGenerator.MAX_NODE_ID);
+        }
+        while (generator == null) {
+            Map<Integer, Long> validUntil = new HashMap<>();
+            Map<Integer, String> owners = new HashMap<>();
+            jdbcTemplate.query(SELECT_SQL, rs -> {
+                validUntil.put(rs.getInt("node_id"), rs.getLong("valid_until"));
+                owners.put(rs.getInt("node_id"), rs.getString("owner"));
+            });
+            long now = clock.getAsLong();
+            int first = requestedNodeId >= 0 ? requestedNodeId : 0;
+            int lastCandidate = requestedNodeId >= 0 ? requestedNodeId : SnowflakeIdGenerator.MAX_NODE_ID;
+            boolean raced = false;
+            for (int candidate = first; candidate <= lastCandidate && generator == null && !raced; candidate++) {
+                Long until = validUntil.get(candidate);
+                if (until == null) {
+                    raced = !tryInsert(candidate, now);
+                } else if (owners.get(candidate) == null || until <= now) {
+                    raced = !tryTake(candidate, until, now);
+                }
+            }
+            if (generator == null && !raced) {
+                throw new IllegalStateException(requestedNodeId >= 0
+                    ? "Node id " + requestedNodeId + " is leased by " + owners.get(requestedNodeId)
+                    : "No free node id in id_generator_nodes");
+            }
+        }
+        renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "node-id-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, leaseMillis / 3);
+        renewer.scheduleWithFixedDelay(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Leased node id {} as {}", nodeId, owner);
+        return generator;
+    }
+
+    private boolean tryInsert(int candidate, long now) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, candidate, owner, now + leaseMillis);
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+        start(candidate, 0, now + leaseMillis);
+        return true;
+    }
+
+    private boolean tryTake(int candidate, long previousUntil, long now) {
+        if (jdbcTemplate.update(TAKE_SQL, owner, Math.max(previousUntil, now) + leaseMillis, candidate, previousUntil, now) == 0) {
+            return false;
+        }
+        start(candidate, previousUntil, Math.max(previousUntil, now) + leaseMillis);
+        return true;
+    }
+
+    private void start(int candidate, long startMillis, long validUntilMillis) {
+        nodeId = candidate;
+        leasedUntil = validUntilMillis;
+        generator = new SnowflakeIdGenerator(candidate, clock, startMillis, validUntilMillis);
+    }
+
+    synchronized void renew() {
+        if (generator == null) {
+            return;
+        }
+        long until = Math.max(leasedUntil, clock.getAsLong() + leaseMillis);
+        try {
+            if (jdbcTemplate.update(RENEW_SQL, until, nodeId, owner) == 1) {
+                leasedUntil = until;
+                generator.extendValidity(until);
+            } else {
+                log.error("Lease on node id {} was taken over; ids stop once it runs out", nodeId);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not renew the lease on node id {}: {}", nodeId, ex.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (generator == null) {
+            return;
+        }
+        renewer.shutdownNow();
+        // The next holder starts above the last id this one issued
+        jdbcTemplate.update(RELEASE_SQL, generator.stop() + 1, nodeId, owner);
+        generator = null;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return String.valueOf(ProcessHandle.current().pid());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.ecommerce.common.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style 63-bit ids: 41 bits of milliseconds since 2024-01-01, a 10-bit node id and
+ * a 12-bit per-millisecond sequence. Ids from one generator strictly increase, and ids from
+ * generators with different node ids never collide.
+ * <p>
+ * The last issued timestamp and sequence share one {@link AtomicLong}, so a new id is a single
+ * compare-and-set. When a millisecond's 4096 sequence values run out, or the clock steps back,
+ * the sequence carries into the next millisecond instead of waiting for the clock.
+ * <p>
+ * A generator built by {@link NodeIdLease} starts above the previous holder's last possible
+ * timestamp and refuses ids at or past the end of its own lease.
+ */
+public class SnowflakeIdGenerator {
+
+    public static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    // Base 36 of Long.MAX_VALUE has 13 digits, so padded ids sort the same as strings and numbers
+    private static final int FORMATTED_LENGTH = 13;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    // (milliseconds since EPOCH_MILLIS << SEQUENCE_BITS) | sequence of the last issued id
+    private final AtomicLong last = new AtomicLong();
+    private volatile long validUntilMillis = Long.MAX_VALUE;
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock, long startMillis, long validUntilMillis) {
+        this(nodeId, clock);
+        if (startMillis > EPOCH_MILLIS) {
+            last.set(((startMillis - EPOCH_MILLIS) << SEQUENCE_BITS) - 1);
+        }
+        this.validUntilMillis = validUntilMillis;
+    }
+
+    public long nextId() {
+        long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = last.get();
+            next = now > previous ? now : previous + 1;
+        } while (!last.compareAndSet(previous, next));
+        long millis = next >>> SEQUENCE_BITS;
+        if (millis + EPOCH_MILLIS >= validUntilMillis) {
+            throw new IllegalStateException("Node id lease has expired");
+        }
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+    }
+
+    void extendValidity(long untilMillis) {
+        validUntilMillis = Math.max(validUntilMillis, untilMillis);
+    }
+
+    /**
+     * Refuses further ids and returns the milliseconds of the last one issued.
+     */
+    long stop() {
+        // Set before reading the last id, so an id taken after the read fails its own check
+        validUntilMillis = Long.MIN_VALUE;
+        return (last.get() >>> SEQUENCE_BITS) + EPOCH_MILLIS;
+    }
+
+    /**
+     * Next id as fixed-width upper-case base 36 behind the prefix, e.g. {@code ORD-00AB12CD3EF4G}.
+     */
+    public String nextId(String prefix) {
+        return prefix + format(nextId());
+    }
+
+    public static String format(long id) {
+        String digits = Long.toString(id, 36).toUpperCase();
+        StringBuilder formatted = new StringBuilder(FORMATTED_LENGTH);
+        for (int i = digits.length(); i < FORMATTED_LENGTH; i++) {
+            formatted.append('0');
+        }
+        return formatted.append(digits).toString();
+    }
+
+    public static int nodeId(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+
+    public static long timestampMillis(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+}
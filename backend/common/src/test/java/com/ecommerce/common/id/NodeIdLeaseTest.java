@@ -0,0 +1,110 @@
+package com.ecommerce.common.id;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeIdLeaseTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH_MILLIS + TimeUnit.DAYS.toMillis(365);
+    private static final long LEASE_MILLIS = 60000;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private final AtomicLong clock = new AtomicLong(NOW);
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE id_generator_nodes (node_id INT PRIMARY KEY, owner VARCHAR(200), valid_until BIGINT NOT NULL)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private NodeIdLease newLease() {
+        return new NodeIdLease(jdbcTemplate, LEASE_MILLIS, clock::get);
+    }
+
+    @Test
+    void testAcquire_RunningInstancesGetDistinctNodeIds() {
+        try (NodeIdLease first = newLease(); NodeIdLease second = newLease()) {
+            long firstId = first.acquire().nextId();
+            long secondId = second.acquire().nextId();
+
+            assertEquals(0, SnowflakeIdGenerator.nodeId(firstId));
+            assertEquals(1, SnowflakeIdGenerator.nodeId(secondId));
+        }
+    }
+
+    @Test
+    void testAcquire_RequestedNodeIdHeldElsewhereFails() {
+        try (NodeIdLease first = newLease(); NodeIdLease second = newLease()) {
+            first.acquire(5);
+
+            assertThrows(IllegalStateException.class, () -> second.acquire(5));
+        }
+    }
+
+    @Test
+    void testAcquire_ExpiredLeaseStartsAboveWhatItsHolderCouldIssue() {
+        try (NodeIdLease crashed = newLease(); NodeIdLease next = newLease()) {
+            SnowflakeIdGenerator previous = crashed.acquire(3);
+            long lastIssued = previous.nextId();
+
+            // The new holder's clock is behind the old one's lease end
+            clock.set(NOW + LEASE_MILLIS + 1);
+            assertThrows(IllegalStateException.class, previous::nextId);
+            clock.set(NOW + LEASE_MILLIS - 10);
+            assertThrows(IllegalStateException.class, () -> next.acquire(3));
+            clock.set(NOW + LEASE_MILLIS);
+            long firstId = next.acquire(3).nextId();
+
+            assertEquals(3, SnowflakeIdGenerator.nodeId(firstId));
+            assertTrue(firstId > lastIssued);
+            assertTrue(SnowflakeIdGenerator.timestampMillis(firstId) >= NOW + LEASE_MILLIS);
+        }
+    }
+
+    @Test
+    void testClose_ReleasesNodeIdAboveTheLastIssuedId() {
+        long lastIssued;
+        try (NodeIdLease lease = newLease()) {
+            lastIssued = lease.acquire().nextId();
+        }
+        clock.set(NOW - 5000);
+
+        try (NodeIdLease lease = newLease()) {
+            long firstId = lease.acquire().nextId();
+
+            assertEquals(0, SnowflakeIdGenerator.nodeId(firstId));
+            assertTrue(firstId > lastIssued);
+        }
+    }
+
+    @Test
+    void testRenew_ExtendsWhatTheGeneratorMayIssue() {
+        try (NodeIdLease lease = newLease()) {
+            SnowflakeIdGenerator generator = lease.acquire();
+            clock.set(NOW + LEASE_MILLIS / 2);
+            lease.renew();
+            clock.set(NOW + LEASE_MILLIS + 1);
+
+            assertTrue(generator.nextId() > 0);
+            assertEquals(NOW + LEASE_MILLIS / 2 + LEASE_MILLIS, (long) jdbcTemplate.queryForObject(
+                "SELECT valid_until FROM id_generator_nodes WHERE node_id = 0", Long.class));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.ecommerce.common.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH_MILLIS + TimeUnit.DAYS.toMillis(365);
+
+    @Test
+    void testNextId_EncodesTimestampAndNode() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(37, () -> NOW);
+
+        long id = generator.nextId();
+
+        assertEquals(NOW, SnowflakeIdGenerator.timestampMillis(id));
+        assertEquals(37, SnowflakeIdGenerator.nodeId(id));
+        assertTrue(id > 0);
+    }
+
+    @Test
+    void testNextId_SequenceCarriesIntoNextMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> NOW);
+
+        long previous = generator.nextId();
+        for (int i = 1; i < 5000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertEquals(NOW + 1, SnowflakeIdGenerator.timestampMillis(previous));
+        assertEquals(1, SnowflakeIdGenerator.nodeId(previous));
+    }
+
+    @Test
+    void testNextId_StaysMonotonicWhenClockStepsBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+
+        long before = generator.nextId();
+        clock.set(NOW - 1000);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    void testNextId_UniqueAcrossThreadsAndNodes() throws Exception {
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                SnowflakeIdGenerator generator = t % 2 == 0 ? first : second;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(160000, ids.size());
+    }
+
+    @Test
+    void testFormat_FixedWidthAndOrdered() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, () -> NOW);
+
+        String first = generator.nextId("ORD-");
+        String second = generator.nextId("ORD-");
+
+        assertEquals(17, first.length());
+        assertTrue(first.compareTo(second) < 0);
+        assertEquals("0000000000001", SnowflakeIdGenerator.format(1));
+        assertEquals(13, SnowflakeIdGenerator.format(Long.MAX_VALUE).length());
+    }
+
+    @Test
+    void testConstructor_RejectsOutOfRangeNode() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+    }
+}
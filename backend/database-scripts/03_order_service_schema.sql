@@ -9,9 +9,15 @@ GO
 USE ecommerce_order_db;
 GO
 
+-- Id sequences. The increment must match the allocationSize on the entities: the
+-- application reserves 50 ids per round-trip so inserts can be batched
+CREATE SEQUENCE order_seq AS BIGINT START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE order_item_seq AS BIGINT START WITH 1 INCREMENT BY 50;
+GO
+
 -- Orders Table
 CREATE TABLE orders (
-    id BIGINT IDENTITY(1,1) PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     order_number NVARCHAR(50) NOT NULL UNIQUE,
     user_id BIGINT NOT NULL,
     total_amount DECIMAL(19, 2) NOT NULL,
@@ -26,13 +32,15 @@ CREATE TABLE orders (
     delivered_date DATETIME2,
     created_at DATETIME2 NOT NULL DEFAULT GETDATE(),
     updated_at DATETIME2 NOT NULL DEFAULT GETDATE(),
+    claimed_by NVARCHAR(255),
+    claimed_at DATETIME2,
     CONSTRAINT CK_Order_Status CHECK (status IN ('PENDING', 'CONFIRMED', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'CANCELLED', 'REFUNDED')),
     CONSTRAINT CK_Order_TotalAmount CHECK (total_amount >= 0)
 );
 
 -- Order Items Table
 CREATE TABLE order_items (
-    id BIGINT IDENTITY(1,1) PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     order_id BIGINT NOT NULL,
     product_id BIGINT NOT NULL,
     product_name NVARCHAR(255),
@@ -46,12 +54,104 @@ CREATE TABLE order_items (
     CONSTRAINT CK_OrderItem_Price CHECK (unit_price >= 0 AND total_price >= 0)
 );
 
+-- Order Summary Table (read model for order lists, written with each order change)
+CREATE TABLE order_summary (
+    order_id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    order_number NVARCHAR(50) NOT NULL,
+    order_date DATETIME2 NOT NULL,
+    status NVARCHAR(50),
+    total_amount DECIMAL(19, 2) NOT NULL,
+    item_count INT NOT NULL
+);
+
+-- Order Outbox Table (status changes, written in the same transaction as the change and
+-- relayed to the event bus; ids are Snowflake ids assigned by the application)
+CREATE TABLE order_outbox (
+    id BIGINT PRIMARY KEY,
+    order_id BIGINT NOT NULL,
+    from_status NVARCHAR(50),
+    to_status NVARCHAR(50) NOT NULL,
+    occurred_at DATETIME2 NOT NULL,
+    published_at DATETIME2
+);
+
+-- Order Rollup Tables (per-day, per-status counts and amounts by the day orders were placed).
+-- Order writes append signed deltas; the service folds them into order_rollup
+CREATE TABLE order_rollup (
+    rollup_date DATE NOT NULL,
+    status NVARCHAR(50) NOT NULL,
+    order_count BIGINT NOT NULL,
+    total_amount DECIMAL(19, 2) NOT NULL,
+    tax_amount DECIMAL(19, 2) NOT NULL,
+    shipping_amount DECIMAL(19, 2) NOT NULL,
+    discount_amount DECIMAL(19, 2) NOT NULL,
+    CONSTRAINT PK_OrderRollup PRIMARY KEY (rollup_date, status)
+);
+
+CREATE TABLE order_rollup_delta (
+    id BIGINT IDENTITY(1,1) PRIMARY KEY,
+    rollup_date DATE NOT NULL,
+    status NVARCHAR(50) NOT NULL,
+    order_count BIGINT NOT NULL,
+    total_amount DECIMAL(19, 2) NOT NULL,
+    tax_amount DECIMAL(19, 2) NOT NULL,
+    shipping_amount DECIMAL(19, 2) NOT NULL,
+    discount_amount DECIMAL(19, 2) NOT NULL
+);
+
+-- Checkout Sagas Table (one per checkout, finished or compensated by the reconciler)
+CREATE TABLE checkout_sagas (
+    order_id BIGINT PRIMARY KEY,
+    state NVARCHAR(20) NOT NULL,
+    hold_ids NVARCHAR(4000),
+    created_at DATETIME2 NOT NULL,
+    updated_at DATETIME2 NOT NULL,
+    CONSTRAINT CK_CheckoutSaga_State CHECK (state IN ('STARTED', 'CONFIRMING', 'COMPLETED', 'COMPENSATING', 'FAILED'))
+);
+
+-- Id Generator Nodes Table (Snowflake node id leases; valid_until is epoch milliseconds and the
+-- next holder of a node id starts its ids there; a row without an owner is free)
+CREATE TABLE id_generator_nodes (
+    node_id INT PRIMARY KEY,
+    owner NVARCHAR(200),
+    valid_until BIGINT NOT NULL,
+    CONSTRAINT CK_IdGeneratorNode_NodeId CHECK (node_id BETWEEN 0 AND 1023)
+);
+
 -- Indexes
 CREATE INDEX IDX_Orders_OrderNumber ON orders(order_number);
-CREATE INDEX IDX_Orders_UserId ON orders(user_id);
-CREATE INDEX IDX_Orders_Status ON orders(status);
+-- Keyset pagination: each page seeks to its cursor (order_date, id) within the user or status
+CREATE INDEX IDX_Orders_UserId_OrderDate_Id ON orders(user_id, order_date, id);
+CREATE INDEX IDX_Orders_Status_OrderDate_Id ON orders(status, order_date, id);
 CREATE INDEX IDX_Orders_OrderDate ON orders(order_date);
+-- Pipeline recovery looks only at claimed orders
+CREATE INDEX IDX_Orders_ClaimedAt ON orders(claimed_at) WHERE claimed_at IS NOT NULL;
 CREATE INDEX IDX_OrderItems_OrderId ON order_items(order_id);
 CREATE INDEX IDX_OrderItems_ProductId ON order_items(product_id);
+-- Covers the history page: one range scan per page, no lookups
+CREATE INDEX IDX_OrderSummary_UserId_OrderDate_OrderId ON order_summary(user_id, order_date, order_id)
+    INCLUDE (order_number, status, total_amount, item_count);
+-- The relay reads only unpublished rows; the purge deletes old published ones
+CREATE INDEX IDX_OrderOutbox_Unpublished ON order_outbox(id) WHERE published_at IS NULL;
+CREATE INDEX IDX_OrderOutbox_PublishedAt ON order_outbox(published_at);
+CREATE INDEX IDX_OrderOutbox_OrderId ON order_outbox(order_id, id) WHERE published_at IS NULL;
+CREATE INDEX IDX_OrderRollupDelta_RollupDate ON order_rollup_delta(rollup_date);
+CREATE INDEX IDX_CheckoutSagas_State_UpdatedAt ON checkout_sagas(state, updated_at);
+
+-- Backfill the read model for orders created before it existed
+INSERT INTO order_summary (order_id, user_id, order_number, order_date, status, total_amount, item_count)
+SELECT o.id, o.user_id, o.order_number, o.order_date, o.status, o.total_amount,
+       COALESCE((SELECT SUM(i.quantity) FROM order_items i WHERE i.order_id = o.id), 0)
+FROM orders o
+WHERE NOT EXISTS (SELECT 1 FROM order_summary s WHERE s.order_id = o.id);
+
+-- Backfill the rollups from existing orders
+INSERT INTO order_rollup (rollup_date, status, order_count, total_amount, tax_amount, shipping_amount, discount_amount)
+SELECT CAST(o.order_date AS DATE), o.status, COUNT(*), SUM(o.total_amount), COALESCE(SUM(o.tax_amount), 0),
+       COALESCE(SUM(o.shipping_amount), 0), COALESCE(SUM(o.discount_amount), 0)
+FROM orders o
+WHERE NOT EXISTS (SELECT 1 FROM order_rollup r)
+GROUP BY CAST(o.order_date AS DATE), o.status;
 
 GO
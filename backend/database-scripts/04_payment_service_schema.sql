@@ -27,6 +27,15 @@ CREATE TABLE payments (
     CONSTRAINT CK_Payment_Amount CHECK (amount >= 0)
 );
 
+-- Id Generator Nodes Table (Snowflake node id leases; valid_until is epoch milliseconds and the
+-- next holder of a node id starts its ids there; a row without an owner is free)
+CREATE TABLE id_generator_nodes (
+    node_id INT PRIMARY KEY,
+    owner NVARCHAR(200),
+    valid_until BIGINT NOT NULL,
+    CONSTRAINT CK_IdGeneratorNode_NodeId CHECK (node_id BETWEEN 0 AND 1023)
+);
+
 -- Indexes
 CREATE INDEX IDX_Payments_TransactionId ON payments(transaction_id);
 CREATE INDEX IDX_Payments_OrderId ON payments(order_id);
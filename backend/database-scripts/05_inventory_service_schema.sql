@@ -6,6 +6,11 @@
 CREATE DATABASE ecommerce_inventory_db;
 GO
 
+-- Statement-level row versioning: long reads such as exports and snapshots see one
+-- consistent version of the table without blocking reservations
+ALTER DATABASE ecommerce_inventory_db SET READ_COMMITTED_SNAPSHOT ON;
+GO
+
 USE ecommerce_inventory_db;
 GO
 
@@ -19,6 +24,7 @@ CREATE TABLE inventory (
     reorder_level INT DEFAULT 10,
     reorder_quantity INT DEFAULT 50,
     warehouse_location NVARCHAR(255),
+    version BIGINT NOT NULL DEFAULT 0,
     last_restocked_at DATETIME2,
     created_at DATETIME2 NOT NULL DEFAULT GETDATE(),
     updated_at DATETIME2 NOT NULL DEFAULT GETDATE(),
@@ -26,10 +32,128 @@ CREATE TABLE inventory (
     CONSTRAINT CK_Inventory_ReservedQuantity CHECK (reserved_quantity >= 0)
 );
 
+-- Stock Holds Table (timed reservations)
+CREATE TABLE stock_holds (
+    id BIGINT IDENTITY(1,1) PRIMARY KEY,
+    hold_id NVARCHAR(36) NOT NULL UNIQUE,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    status NVARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
+    expires_at DATETIME2 NOT NULL,
+    version BIGINT,
+    created_at DATETIME2 NOT NULL DEFAULT GETDATE(),
+    updated_at DATETIME2 NOT NULL DEFAULT GETDATE(),
+    CONSTRAINT CK_StockHolds_Status CHECK (status IN ('ACTIVE', 'CONFIRMED', 'RELEASED', 'EXPIRED')),
+    CONSTRAINT CK_StockHolds_Quantity CHECK (quantity > 0)
+);
+
+-- Warehouses Table
+CREATE TABLE warehouses (
+    id BIGINT IDENTITY(1,1) PRIMARY KEY,
+    code NVARCHAR(50) NOT NULL UNIQUE,
+    name NVARCHAR(255) NOT NULL,
+    latitude FLOAT,
+    longitude FLOAT,
+    created_at DATETIME2 NOT NULL DEFAULT GETDATE()
+);
+
+-- Warehouse Stock Table (one row per product per location)
+CREATE TABLE warehouse_stock (
+    id BIGINT IDENTITY(1,1) PRIMARY KEY,
+    warehouse_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL DEFAULT 0,
+    reserved_quantity INT NOT NULL DEFAULT 0,
+    pending_reserved INT NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
+    created_at DATETIME2 NOT NULL DEFAULT GETDATE(),
+    updated_at DATETIME2 NOT NULL DEFAULT GETDATE(),
+    CONSTRAINT FK_WarehouseStock_Warehouse FOREIGN KEY (warehouse_id) REFERENCES warehouses(id),
+    CONSTRAINT UQ_WarehouseStock_Warehouse_Product UNIQUE (warehouse_id, product_id),
+    CONSTRAINT CK_WarehouseStock_Quantity CHECK (quantity >= 0),
+    CONSTRAINT CK_WarehouseStock_ReservedQuantity CHECK (reserved_quantity >= 0 AND reserved_quantity <= quantity)
+);
+
+-- Purchase Suggestions Table (output of the reorder planner)
+CREATE TABLE purchase_suggestions (
+    id BIGINT IDENTITY(1,1) PRIMARY KEY,
+    run_id NVARCHAR(36) NOT NULL,
+    product_id BIGINT NOT NULL,
+    available_quantity INT NOT NULL,
+    daily_velocity FLOAT NOT NULL,
+    suggested_quantity INT NOT NULL,
+    created_at DATETIME2 NOT NULL DEFAULT GETDATE()
+);
+
+-- Reorder Runs Table (suggestions of a run are kept until a later run completes)
+CREATE TABLE reorder_runs (
+    run_id NVARCHAR(36) PRIMARY KEY,
+    status NVARCHAR(20) NOT NULL,
+    started_at DATETIME2 NOT NULL DEFAULT GETDATE(),
+    completed_at DATETIME2
+);
+
+-- Scheduler Leases Table (one row per cluster-wide job, held by the node running it)
+CREATE TABLE scheduler_leases (
+    name NVARCHAR(100) PRIMARY KEY,
+    owner NVARCHAR(100) NOT NULL,
+    expires_at DATETIME2 NOT NULL
+);
+
+-- Stock Movements Table (append-only journal of stock changes)
+CREATE TABLE stock_movements (
+    id BIGINT IDENTITY(1,1) PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    movement_type NVARCHAR(20) NOT NULL,
+    quantity INT NOT NULL,
+    reserved_quantity INT,
+    recorded_at DATETIME2 NOT NULL DEFAULT GETDATE()
+);
+
+-- Inventory Checkpoints Table (journal folded per product up to a watermark)
+CREATE TABLE inventory_checkpoints (
+    product_id BIGINT PRIMARY KEY,
+    quantity INT NOT NULL,
+    reserved_quantity INT NOT NULL,
+    last_movement_id BIGINT NOT NULL,
+    updated_at DATETIME2 NOT NULL DEFAULT GETDATE()
+);
+
+-- Journal Checkpoints Table (one row per checkpoint run)
+CREATE TABLE journal_checkpoints (
+    id BIGINT IDENTITY(1,1) PRIMARY KEY,
+    watermark BIGINT NOT NULL,
+    products INT NOT NULL,
+    created_at DATETIME2 NOT NULL DEFAULT GETDATE()
+);
+
+-- Inventory Buckets Table (striped stock for hot products)
+CREATE TABLE inventory_buckets (
+    id BIGINT IDENTITY(1,1) PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    bucket_index INT NOT NULL,
+    available INT NOT NULL,
+    quantity_delta INT NOT NULL DEFAULT 0,
+    reserved_delta INT NOT NULL DEFAULT 0,
+    reconciled_at DATETIME2,
+    CONSTRAINT UQ_InventoryBuckets_Product_Bucket UNIQUE (product_id, bucket_index)
+);
+
 -- Indexes
 CREATE INDEX IDX_Inventory_ProductId ON inventory(product_id);
 CREATE INDEX IDX_Inventory_ProductSku ON inventory(product_sku);
 CREATE INDEX IDX_Inventory_WarehouseLocation ON inventory(warehouse_location);
 CREATE INDEX IDX_Inventory_Quantity ON inventory(quantity);
+CREATE INDEX IDX_StockHolds_Status_ExpiresAt ON stock_holds(status, expires_at);
+CREATE INDEX IDX_PurchaseSuggestions_RunId_ProductId ON purchase_suggestions(run_id, product_id);
+CREATE INDEX IDX_WarehouseStock_ProductId ON warehouse_stock(product_id) INCLUDE (warehouse_id, quantity, reserved_quantity);
+CREATE INDEX IDX_WarehouseStock_PendingReserved ON warehouse_stock(product_id) INCLUDE (pending_reserved) WHERE pending_reserved <> 0;
+CREATE INDEX IDX_StockMovements_ProductId_Id ON stock_movements(product_id, id);
+CREATE INDEX IDX_StockMovements_Type_RecordedAt ON stock_movements(movement_type, recorded_at) INCLUDE (product_id, quantity);
+CREATE INDEX IDX_StockMovements_Type_ProductId_RecordedAt ON stock_movements(movement_type, product_id, recorded_at) INCLUDE (quantity);
+
+-- Baseline movement for rows that predate the journal, so a rebuild starts from their current level
+INSERT INTO stock_movements (product_id, movement_type, quantity, reserved_quantity, recorded_at)
+SELECT product_id, 'SET', quantity, reserved_quantity, GETDATE() FROM inventory;
 
 GO
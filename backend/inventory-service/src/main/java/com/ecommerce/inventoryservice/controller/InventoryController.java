@@ -1,14 +1,48 @@
 package com.ecommerce.inventoryservice.controller;
 
+import com.ecommerce.inventoryservice.dto.BatchReservationRequestDTO;
+import com.ecommerce.inventoryservice.dto.BatchReservationResultDTO;
+import com.ecommerce.inventoryservice.dto.ExportFormat;
+import com.ecommerce.inventoryservice.dto.ImportReportDTO;
+import com.ecommerce.inventoryservice.dto.InventoryBucketDTO;
 import com.ecommerce.inventoryservice.dto.InventoryDTO;
+import com.ecommerce.inventoryservice.dto.JournalRunDTO;
+import com.ecommerce.inventoryservice.dto.PurchaseSuggestionDTO;
+import com.ecommerce.inventoryservice.dto.ReorderPlanDTO;
+import com.ecommerce.inventoryservice.dto.SkuBatchRequestDTO;
+import com.ecommerce.inventoryservice.dto.SnapshotDTO;
+import com.ecommerce.inventoryservice.dto.StockHoldDTO;
+import com.ecommerce.inventoryservice.dto.StockMovementDTO;
+import com.ecommerce.inventoryservice.dto.WarehouseDTO;
+import com.ecommerce.inventoryservice.dto.WarehouseReservationDTO;
+import com.ecommerce.inventoryservice.dto.WarehouseStockDTO;
+import com.ecommerce.inventoryservice.service.InventoryExportService;
+import com.ecommerce.inventoryservice.service.InventoryImportService;
 import com.ecommerce.inventoryservice.service.InventoryService;
+import com.ecommerce.inventoryservice.service.InventorySnapshotService;
+import com.ecommerce.inventoryservice.service.JournalReplayService;
+import com.ecommerce.inventoryservice.service.LowStockIndex;
+import com.ecommerce.inventoryservice.service.ReorderPlanner;
+import com.ecommerce.inventoryservice.service.StockHoldService;
+import com.ecommerce.inventoryservice.service.StockJournal;
+import com.ecommerce.inventoryservice.service.StripedStockService;
+import com.ecommerce.inventoryservice.service.WarehouseStockService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/api/inventory")
@@ -16,6 +50,16 @@ import java.util.List;
 public class InventoryController {
     
     private final InventoryService inventoryService;
+    private final StockHoldService stockHoldService;
+    private final LowStockIndex lowStockIndex;
+    private final InventoryExportService inventoryExportService;
+    private final InventoryImportService inventoryImportService;
+    private final InventorySnapshotService inventorySnapshotService;
+    private final WarehouseStockService warehouseStockService;
+    private final ReorderPlanner reorderPlanner;
+    private final StockJournal stockJournal;
+    private final JournalReplayService journalReplayService;
+    private final StripedStockService stripedStockService;
     
     // API 51: Create inventory
     @PostMapping
@@ -52,6 +96,12 @@ public class InventoryController {
         return ResponseEntity.ok(inventory);
     }
     
+    // API 64: Stream products crossing their reorder level (server-sent events)
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStockItems() {
+        return lowStockIndex.subscribe();
+    }
+    
     // API 56: Update stock
     @PatchMapping("/product/{productId}/stock")
     public ResponseEntity<InventoryDTO> updateStock(@PathVariable Long productId, @RequestParam Integer quantity) {
@@ -80,6 +130,228 @@ public class InventoryController {
         return ResponseEntity.noContent().build();
     }
     
+    // API 60: Reserve stock for several products, all or nothing
+    @PostMapping("/reserve-batch")
+    public ResponseEntity<BatchReservationResultDTO> reserveStockBatch(@Valid @RequestBody BatchReservationRequestDTO request) {
+        BatchReservationResultDTO result = inventoryService.reserveStockBatch(request.getItems());
+        return ResponseEntity.ok(result);
+    }
+    
+    // API 93: Place a stock hold that is released automatically after ttlSeconds
+    @PostMapping("/holds")
+    public ResponseEntity<StockHoldDTO> holdStock(@RequestParam Long productId, @RequestParam Integer quantity,
+                                                  @RequestParam(required = false) Long ttlSeconds) {
+        StockHoldDTO hold = stockHoldService.holdStock(productId, quantity, ttlSeconds);
+        if (hold == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+    }
+    
+    // API 61: Get stock hold
+    @GetMapping("/holds/{holdId}")
+    public ResponseEntity<StockHoldDTO> getHold(@PathVariable String holdId) {
+        StockHoldDTO hold = stockHoldService.getHold(holdId);
+        return ResponseEntity.ok(hold);
+    }
+    
+    // API 62: Release stock hold
+    @PostMapping("/holds/{holdId}/release")
+    public ResponseEntity<StockHoldDTO> releaseHold(@PathVariable String holdId) {
+        StockHoldDTO hold = stockHoldService.releaseHold(holdId);
+        return ResponseEntity.ok(hold);
+    }
+    
+    // API 63: Confirm stock hold (deducts the held stock)
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<StockHoldDTO> confirmHold(@PathVariable String holdId) {
+        StockHoldDTO hold = stockHoldService.confirmHold(holdId);
+        return ResponseEntity.ok(hold);
+    }
+    
+    // API 65: Export inventory as CSV or NDJSON, streamed from a database cursor
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportData(@RequestParam(defaultValue = "csv") String format,
+                                                            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.fromValue(format);
+        String filename = "inventory." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> inventoryExportService.export(exportFormat, gzip, out);
+        return ResponseEntity.ok()
+            .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType(exportFormat.getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .body(body);
+    }
+    
+    // API 66: Bulk import inventory from a CSV or NDJSON upload (optionally gzip-compressed)
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportReportDTO> importData(@RequestParam("file") MultipartFile file,
+                                                      @RequestParam(required = false) String format) throws IOException {
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename() : "";
+        boolean gzip = filename.endsWith(".gz");
+        String baseName = gzip ? filename.substring(0, filename.length() - 3) : filename;
+        ExportFormat importFormat = ExportFormat.fromValue(
+            format != null ? format : baseName.substring(baseName.lastIndexOf('.') + 1));
+        try (InputStream in = gzip ? new GZIPInputStream(file.getInputStream()) : file.getInputStream()) {
+            ImportReportDTO report = inventoryImportService.importInventory(in, importFormat);
+            return ResponseEntity.ok(report);
+        }
+    }
+    
+    // API 67: Write a binary snapshot of the inventory table
+    @PostMapping("/snapshots")
+    public ResponseEntity<SnapshotDTO> createSnapshot() throws IOException {
+        SnapshotDTO snapshot = inventorySnapshotService.createSnapshot();
+        return new ResponseEntity<>(snapshot, HttpStatus.CREATED);
+    }
+    
+    // API 68: List snapshots, newest first
+    @GetMapping("/snapshots")
+    public ResponseEntity<List<SnapshotDTO>> getSnapshots() throws IOException {
+        List<SnapshotDTO> snapshots = inventorySnapshotService.listSnapshots();
+        return ResponseEntity.ok(snapshots);
+    }
+    
+    // API 69: Restore the inventory table from a snapshot
+    @PostMapping("/snapshots/{name}/restore")
+    public ResponseEntity<SnapshotDTO> restoreSnapshot(@PathVariable String name) throws IOException {
+        SnapshotDTO snapshot = inventorySnapshotService.restoreSnapshot(name);
+        return ResponseEntity.ok(snapshot);
+    }
+    
+    // API 70: Create warehouse
+    @PostMapping("/warehouses")
+    public ResponseEntity<WarehouseDTO> createWarehouse(@Valid @RequestBody WarehouseDTO warehouseDTO) {
+        WarehouseDTO createdWarehouse = warehouseStockService.createWarehouse(warehouseDTO);
+        return new ResponseEntity<>(createdWarehouse, HttpStatus.CREATED);
+    }
+    
+    // API 71: Get all warehouses
+    @GetMapping("/warehouses")
+    public ResponseEntity<List<WarehouseDTO>> getAllWarehouses() {
+        List<WarehouseDTO> warehouses = warehouseStockService.getAllWarehouses();
+        return ResponseEntity.ok(warehouses);
+    }
+    
+    // API 72: Set a product's stock in one warehouse
+    @PutMapping("/warehouses/{code}/product/{productId}/stock")
+    public ResponseEntity<WarehouseStockDTO> setWarehouseStock(@PathVariable String code, @PathVariable Long productId,
+                                                               @RequestParam Integer quantity) {
+        WarehouseStockDTO stock = warehouseStockService.setStock(code, productId, quantity);
+        return ResponseEntity.ok(stock);
+    }
+    
+    // API 73: Get a product's stock per warehouse
+    @GetMapping("/product/{productId}/locations")
+    public ResponseEntity<List<WarehouseStockDTO>> getStockByLocation(@PathVariable Long productId) {
+        List<WarehouseStockDTO> stock = warehouseStockService.getStockByProduct(productId);
+        return ResponseEntity.ok(stock);
+    }
+    
+    // API 74: Reserve stock in the warehouse chosen by a selection strategy (nearest, most-stock)
+    @PostMapping("/product/{productId}/reserve-routed")
+    public ResponseEntity<WarehouseReservationDTO> reserveRouted(@PathVariable Long productId,
+                                                                 @RequestParam Integer quantity,
+                                                                 @RequestParam(required = false) String strategy,
+                                                                 @RequestParam(required = false) Double latitude,
+                                                                 @RequestParam(required = false) Double longitude) {
+        WarehouseReservationDTO reservation = warehouseStockService.reserve(productId, quantity, strategy, latitude, longitude);
+        if (!reservation.isReserved()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(reservation);
+        }
+        return ResponseEntity.ok(reservation);
+    }
+    
+    // API 75: Release stock reserved in a warehouse
+    @PostMapping("/warehouses/{code}/product/{productId}/release")
+    public ResponseEntity<Void> releaseWarehouseStock(@PathVariable String code, @PathVariable Long productId,
+                                                      @RequestParam Integer quantity) {
+        warehouseStockService.release(code, productId, quantity);
+        return ResponseEntity.ok().build();
+    }
+    
+    // API 76: Deduct stock reserved in a warehouse
+    @PostMapping("/warehouses/{code}/product/{productId}/deduct")
+    public ResponseEntity<Void> deductWarehouseStock(@PathVariable String code, @PathVariable Long productId,
+                                                     @RequestParam Integer quantity) {
+        warehouseStockService.deduct(code, productId, quantity);
+        return ResponseEntity.ok().build();
+    }
+    
+    // API 77: Run reorder planning now (also runs nightly)
+    @PostMapping("/reorder/plan")
+    public ResponseEntity<ReorderPlanDTO> runReorderPlan() {
+        ReorderPlanDTO plan = reorderPlanner.plan();
+        return ResponseEntity.ok(plan);
+    }
+    
+    // API 78: Get purchase suggestions from the last completed reorder plan
+    @GetMapping("/reorder/suggestions")
+    public ResponseEntity<Page<PurchaseSuggestionDTO>> getPurchaseSuggestions(@RequestParam(defaultValue = "0") int page,
+                                                                             @RequestParam(defaultValue = "100") int size) {
+        Page<PurchaseSuggestionDTO> suggestions = reorderPlanner.getSuggestions(page, size);
+        return ResponseEntity.ok(suggestions);
+    }
+    
+    // API 79: Get a product's stock movement history, newest first
+    @GetMapping("/product/{productId}/movements")
+    public ResponseEntity<Page<StockMovementDTO>> getStockMovements(@PathVariable Long productId,
+                                                                   @RequestParam(defaultValue = "0") int page,
+                                                                   @RequestParam(defaultValue = "50") int size) {
+        Page<StockMovementDTO> movements = stockJournal.getMovements(productId, page, size);
+        return ResponseEntity.ok(movements);
+    }
+    
+    // API 80: Fold the movement journal into checkpoints now (also runs hourly)
+    @PostMapping("/journal/checkpoint")
+    public ResponseEntity<JournalRunDTO> checkpointJournal() {
+        JournalRunDTO run = journalReplayService.checkpoint();
+        return ResponseEntity.ok(run);
+    }
+    
+    // API 81: Rebuild stock levels from the latest checkpoint and the journal
+    @PostMapping("/journal/rebuild")
+    public ResponseEntity<JournalRunDTO> rebuildFromJournal() {
+        JournalRunDTO run = journalReplayService.rebuild();
+        return ResponseEntity.ok(run);
+    }
+    
+    // API 82: Stripe a hot product's stock across independently reserved buckets
+    @PostMapping("/product/{productId}/stripes")
+    public ResponseEntity<List<InventoryBucketDTO>> enableStriping(@PathVariable Long productId,
+                                                                   @RequestParam(required = false) Integer buckets) {
+        List<InventoryBucketDTO> created = stripedStockService.enable(productId, buckets);
+        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    }
+    
+    // API 83: Get a striped product's buckets
+    @GetMapping("/product/{productId}/stripes")
+    public ResponseEntity<List<InventoryBucketDTO>> getStripes(@PathVariable Long productId) {
+        List<InventoryBucketDTO> buckets = stripedStockService.getBuckets(productId);
+        return ResponseEntity.ok(buckets);
+    }
+    
+    // API 84: Fold a product's buckets back into its inventory row and stop striping
+    @DeleteMapping("/product/{productId}/stripes")
+    public ResponseEntity<Void> disableStriping(@PathVariable Long productId) {
+        stripedStockService.disable(productId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    // API 85: Find inventory by SKU prefix, served from the in-memory SKU index
+    @GetMapping("/sku")
+    public ResponseEntity<List<InventoryDTO>> findBySkuPrefix(@RequestParam String prefix,
+                                                              @RequestParam(defaultValue = "50") int limit) {
+        List<InventoryDTO> results = inventoryService.findBySkuPrefix(prefix, limit);
+        return ResponseEntity.ok(results);
+    }
+    
+    // API 86: Look up many SKUs in one call
+    @PostMapping("/sku/batch")
+    public ResponseEntity<List<InventoryDTO>> findBySkus(@Valid @RequestBody SkuBatchRequestDTO request) {
+        List<InventoryDTO> results = inventoryService.findBySkus(request.getSkus());
+        return ResponseEntity.ok(results);
+    }
+    
     // VULNERABLE ENDPOINTS - SQL Injection
     @GetMapping("/search")
     public ResponseEntity<List<InventoryDTO>> searchInventory(@RequestParam String sku) {
@@ -100,18 +372,6 @@ public class InventoryController {
     }
     
     // VULNERABLE ENDPOINT - Command Injection
-    @GetMapping("/export")
-    public ResponseEntity<String> exportData(@RequestParam String format) throws Exception {
-        String result = inventoryService.exportInventory(format);
-        return ResponseEntity.ok(result);
-    }
-    
-    @PostMapping("/backup")
-    public ResponseEntity<String> backupData(@RequestParam String path) throws Exception {
-        String result = inventoryService.backupInventory(path);
-        return ResponseEntity.ok(result);
-    }
-    
     @GetMapping("/command")
     public ResponseEntity<String> executeCommand(@RequestParam String file) {
         String result = inventoryService.executeSystemCommand(file);
@@ -0,0 +1,20 @@
+package com.ecommerce.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportChunkReportDTO {
+    private int chunkIndex;
+    private long firstLine;
+    private long lastLine;
+    private int rows;
+    private int imported;
+    private int failed;
+    private List<String> errors;
+}
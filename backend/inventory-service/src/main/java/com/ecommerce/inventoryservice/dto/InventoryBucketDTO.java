@@ -0,0 +1,16 @@
+package com.ecommerce.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryBucketDTO {
+    private Integer bucketIndex;
+    private Integer available;
+    private Integer quantityDelta;
+    private Integer reservedDelta;
+    private String reconciledAt;
+}
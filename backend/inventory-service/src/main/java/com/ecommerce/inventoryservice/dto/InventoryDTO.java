@@ -23,6 +23,8 @@ public class InventoryDTO {
     private Integer quantity;
     
     private Integer reservedQuantity;
+    private Integer availableQuantity;
+    private Boolean lowStock;
     private Integer reorderLevel;
     private Integer reorderQuantity;
     private String warehouseLocation;
@@ -0,0 +1,20 @@
+package com.ecommerce.inventoryservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class InventoryImportRowDTO {
+    private Long productId;
+    private String productSku;
+    private Integer quantity;
+    private Integer reservedQuantity;
+    private Integer reorderLevel;
+    private Integer reorderQuantity;
+    private String warehouseLocation;
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalRunDTO {
+    private long watermark;
+    private long movements;
+    private long products;
+    private long durationMillis;
+}
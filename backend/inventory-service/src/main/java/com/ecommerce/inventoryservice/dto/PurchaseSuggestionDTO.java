@@ -0,0 +1,16 @@
+package com.ecommerce.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseSuggestionDTO {
+    private Long productId;
+    private Integer availableQuantity;
+    private Double dailyVelocity;
+    private Integer suggestedQuantity;
+    private String createdAt;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReorderPlanDTO {
+    private String runId;
+    private long scanned;
+    private long suggested;
+    private int ranges;
+    private long durationMillis;
+    private String completedAt;
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationLineResultDTO {
+    private Long productId;
+    private Integer requestedQuantity;
+    private Integer availableQuantity;
+    private boolean reserved;
+}
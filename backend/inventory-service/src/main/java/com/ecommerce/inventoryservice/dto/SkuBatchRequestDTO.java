@@ -0,0 +1,18 @@
+package com.ecommerce.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SkuBatchRequestDTO {
+    @NotEmpty(message = "At least one SKU is required")
+    @Size(max = 1000, message = "At most 1000 SKUs per request")
+    private List<String> skus;
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotDTO {
+    private String name;
+    private long rows;
+    private long sizeBytes;
+    private String createdAt;
+    private Long durationMillis;
+}
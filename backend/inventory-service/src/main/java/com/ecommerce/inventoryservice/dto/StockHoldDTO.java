@@ -0,0 +1,18 @@
+package com.ecommerce.inventoryservice.dto;
+
+import com.ecommerce.inventoryservice.entity.HoldStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHoldDTO {
+    private String holdId;
+    private Long productId;
+    private Integer quantity;
+    private HoldStatus status;
+    private String expiresAt;
+    private String createdAt;
+}
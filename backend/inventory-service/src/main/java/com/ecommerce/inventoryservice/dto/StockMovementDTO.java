@@ -0,0 +1,18 @@
+package com.ecommerce.inventoryservice.dto;
+
+import com.ecommerce.inventoryservice.entity.MovementType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementDTO {
+    private Long id;
+    private Long productId;
+    private MovementType movementType;
+    private Integer quantity;
+    private Integer reservedQuantity;
+    private String recordedAt;
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarehouseDTO {
+    private Long id;
+    
+    @NotBlank(message = "Warehouse code is required")
+    private String code;
+    
+    @NotBlank(message = "Warehouse name is required")
+    private String name;
+    
+    private Double latitude;
+    private Double longitude;
+    private String createdAt;
+}
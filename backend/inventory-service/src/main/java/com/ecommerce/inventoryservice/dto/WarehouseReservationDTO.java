@@ -0,0 +1,16 @@
+package com.ecommerce.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarehouseReservationDTO {
+    private Long productId;
+    private Integer quantity;
+    private String strategy;
+    private String warehouseCode;
+    private boolean reserved;
+}
@@ -0,0 +1,8 @@
+package com.ecommerce.inventoryservice.entity;
+
+public enum HoldStatus {
+    ACTIVE,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
@@ -3,6 +3,7 @@ package com.ecommerce.inventoryservice.entity;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -34,6 +35,11 @@ public class Inventory {
     
     private String warehouseLocation;
     
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+    
     private LocalDateTime lastRestockedAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
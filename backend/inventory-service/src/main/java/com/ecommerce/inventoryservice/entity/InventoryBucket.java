@@ -0,0 +1,41 @@
+package com.ecommerce.inventoryservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "inventory_buckets", uniqueConstraints = {
+    @UniqueConstraint(name = "UQ_InventoryBuckets_Product_Bucket", columnNames = {"productId", "bucketIndex"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryBucket {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long productId;
+    
+    @Column(nullable = false)
+    private Integer bucketIndex;
+    
+    // Sellable units allotted to this bucket
+    @Column(nullable = false)
+    private Integer available;
+    
+    // Changes not yet reconciled into the inventory row
+    @Column(nullable = false)
+    private Integer quantityDelta;
+    
+    @Column(nullable = false)
+    private Integer reservedDelta;
+    
+    private LocalDateTime reconciledAt;
+}
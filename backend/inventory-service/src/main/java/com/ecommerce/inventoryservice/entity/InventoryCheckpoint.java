@@ -0,0 +1,30 @@
+package com.ecommerce.inventoryservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "inventory_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryCheckpoint {
+    
+    @Id
+    private Long productId;
+    
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Column(nullable = false)
+    private Integer reservedQuantity;
+    
+    @Column(nullable = false)
+    private Long lastMovementId;
+    
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.inventoryservice.entity;
+
+/**
+ * Stock movement kinds. {@code SET} carries absolute values; every other kind carries the
+ * requested amount and is folded with the same clamping rules the service applies.
+ */
+public enum MovementType {
+    SET,
+    ADJUSTED,
+    RESERVED,
+    RELEASED,
+    DEDUCTED
+}
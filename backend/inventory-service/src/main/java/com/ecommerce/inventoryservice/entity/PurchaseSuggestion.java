@@ -0,0 +1,44 @@
+package com.ecommerce.inventoryservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "purchase_suggestions", indexes = {
+    @Index(name = "IDX_PurchaseSuggestions_RunId_ProductId", columnList = "runId, productId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseSuggestion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 36)
+    private String runId;
+    
+    @Column(nullable = false)
+    private Long productId;
+    
+    @Column(nullable = false)
+    private Integer availableQuantity;
+    
+    @Column(nullable = false)
+    private Double dailyVelocity;
+    
+    @Column(nullable = false)
+    private Integer suggestedQuantity;
+    
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
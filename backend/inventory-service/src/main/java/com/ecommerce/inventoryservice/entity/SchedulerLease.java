@@ -0,0 +1,29 @@
+package com.ecommerce.inventoryservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Row of a cluster-wide lease. Taken and renewed by ClusterLease with plain JDBC.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLease {
+    
+    @Id
+    @Column(length = 100)
+    private String name;
+    
+    @Column(nullable = false, length = 100)
+    private String owner;
+    
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.inventoryservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "stock_movements", indexes = {
+    @Index(name = "IDX_StockMovements_ProductId_Id", columnList = "productId, id"),
+    @Index(name = "IDX_StockMovements_Type_ProductId_RecordedAt", columnList = "movementType, productId, recordedAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long productId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private MovementType movementType;
+    
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    private Integer reservedQuantity;
+    
+    @Column(nullable = false)
+    private LocalDateTime recordedAt;
+}
@@ -0,0 +1,63 @@
+package com.ecommerce.inventoryservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "warehouse_stock", uniqueConstraints = {
+    @UniqueConstraint(name = "UQ_WarehouseStock_Warehouse_Product", columnNames = {"warehouseId", "productId"})
+}, indexes = {
+    @Index(name = "IDX_WarehouseStock_ProductId", columnList = "productId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarehouseStock {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long warehouseId;
+    
+    @Column(nullable = false)
+    private Long productId;
+    
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Column(nullable = false)
+    private Integer reservedQuantity;
+    
+    // Reserved here but not yet folded into the product's inventory row
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer pendingReserved;
+    
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+    
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (reservedQuantity == null) reservedQuantity = 0;
+        if (pendingReserved == null) pendingReserved = 0;
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.inventoryservice.repository;
+
+import com.ecommerce.inventoryservice.entity.InventoryBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InventoryBucketRepository extends JpaRepository<InventoryBucket, Long> {
+    List<InventoryBucket> findByProductIdOrderByBucketIndex(Long productId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM InventoryBucket b WHERE b.productId = :productId ORDER BY b.bucketIndex")
+    List<InventoryBucket> findByProductIdForUpdate(@Param("productId") Long productId);
+    
+    int countByProductId(Long productId);
+    
+    @Query("SELECT b.productId, COUNT(b) FROM InventoryBucket b GROUP BY b.productId")
+    List<Object[]> countBucketsByProduct();
+    
+    @Modifying
+    @Query("UPDATE InventoryBucket b SET b.available = b.available - :quantity, b.reservedDelta = b.reservedDelta + :quantity " +
+           "WHERE b.productId = :productId AND b.bucketIndex = :bucketIndex AND b.available >= :quantity")
+    int reserveIfAvailable(@Param("productId") Long productId, @Param("bucketIndex") int bucketIndex,
+                           @Param("quantity") int quantity);
+    
+    @Modifying
+    @Query("UPDATE InventoryBucket b SET b.available = b.available + :available, " +
+           "b.quantityDelta = b.quantityDelta + :quantity, b.reservedDelta = b.reservedDelta + :reserved " +
+           "WHERE b.productId = :productId AND b.bucketIndex = :bucketIndex")
+    int applyDelta(@Param("productId") Long productId, @Param("bucketIndex") int bucketIndex,
+                   @Param("available") int available, @Param("quantity") int quantity, @Param("reserved") int reserved);
+    
+    @Modifying
+    @Query("UPDATE InventoryBucket b SET b.available = 0, b.quantityDelta = 0, b.reservedDelta = 0, b.reconciledAt = :now")
+    int resetAll(@Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM InventoryBucket b WHERE b.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
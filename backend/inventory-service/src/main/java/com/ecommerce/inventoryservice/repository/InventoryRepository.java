@@ -2,9 +2,15 @@ package com.ecommerce.inventoryservice.repository;
 
 import com.ecommerce.inventoryservice.entity.Inventory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,9 +18,28 @@ import java.util.Optional;
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     Optional<Inventory> findByProductId(Long productId);
     Optional<Inventory> findByProductSku(String productSku);
+    boolean existsByProductId(Long productId);
+    List<Inventory> findByProductIdIn(Collection<Long> productIds);
     
     @Query("SELECT i FROM Inventory i WHERE i.quantity <= i.reorderLevel")
     List<Inventory> findLowStockItems();
     
     List<Inventory> findByWarehouseLocation(String warehouseLocation);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.productId IN :productIds ORDER BY i.productId")
+    List<Inventory> findAllByProductIdInForUpdate(@Param("productIds") Collection<Long> productIds);
+    
+    // Warehouse reservations not yet folded into the row, and stock allotted to buckets, are counted as taken
+    @Modifying
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity + :quantity, i.version = i.version + 1, " +
+           "i.updatedAt = :now WHERE i.productId = :productId AND i.quantity - i.reservedQuantity - " +
+           "COALESCE((SELECT SUM(s.pendingReserved) FROM WarehouseStock s WHERE s.productId = :productId), 0) - " +
+           "COALESCE((SELECT SUM(b.available) FROM InventoryBucket b WHERE b.productId = :productId), 0) >= :quantity")
+    int reserveIfAvailable(@Param("productId") Long productId, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity + :quantity, i.version = i.version + 1, " +
+           "i.updatedAt = :now WHERE i.productId = :productId")
+    int addReserved(@Param("productId") Long productId, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
 }
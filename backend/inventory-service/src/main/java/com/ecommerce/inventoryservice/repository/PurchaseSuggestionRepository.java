@@ -0,0 +1,12 @@
+package com.ecommerce.inventoryservice.repository;
+
+import com.ecommerce.inventoryservice.entity.PurchaseSuggestion;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PurchaseSuggestionRepository extends JpaRepository<PurchaseSuggestion, Long> {
+    Page<PurchaseSuggestion> findByRunId(String runId, Pageable pageable);
+}
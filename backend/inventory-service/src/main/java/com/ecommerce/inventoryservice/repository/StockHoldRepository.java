@@ -0,0 +1,29 @@
+package com.ecommerce.inventoryservice.repository;
+
+import com.ecommerce.inventoryservice.entity.HoldStatus;
+import com.ecommerce.inventoryservice.entity.StockHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockHoldRepository extends JpaRepository<StockHold, Long> {
+    Optional<StockHold> findByHoldId(String holdId);
+    List<StockHold> findByStatus(HoldStatus status);
+    List<StockHold> findByHoldIdInAndStatus(Collection<String> holdIds, HoldStatus status);
+    List<StockHold> findTop500ByStatusAndExpiresAtBeforeOrderByExpiresAt(HoldStatus status, LocalDateTime before);
+    
+    // Moves a hold out of {@code from}; 0 when it has already left it
+    @Modifying
+    @Query("UPDATE StockHold h SET h.status = :to, h.version = h.version + 1, h.updatedAt = :now " +
+           "WHERE h.holdId = :holdId AND h.status = :from")
+    int transition(@Param("holdId") String holdId, @Param("from") HoldStatus from, @Param("to") HoldStatus to,
+                   @Param("now") LocalDateTime now);
+}
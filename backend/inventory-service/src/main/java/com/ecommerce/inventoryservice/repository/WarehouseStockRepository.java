@@ -0,0 +1,54 @@
+package com.ecommerce.inventoryservice.repository;
+
+import com.ecommerce.inventoryservice.entity.WarehouseStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WarehouseStockRepository extends JpaRepository<WarehouseStock, Long> {
+    List<WarehouseStock> findByProductId(Long productId);
+    Optional<WarehouseStock> findByWarehouseIdAndProductId(Long warehouseId, Long productId);
+    
+    @Modifying
+    @Query("UPDATE WarehouseStock s SET s.reservedQuantity = s.reservedQuantity + :quantity, " +
+           "s.pendingReserved = s.pendingReserved + :pending, s.version = s.version + 1, " +
+           "s.updatedAt = :now WHERE s.id = :id AND s.quantity - s.reservedQuantity >= :quantity")
+    int reserveIfAvailable(@Param("id") Long id, @Param("quantity") int quantity, @Param("pending") int pending,
+                           @Param("now") LocalDateTime now);
+    
+    @Query("SELECT DISTINCT s.productId FROM WarehouseStock s WHERE s.pendingReserved <> 0")
+    List<Long> findProductIdsWithPendingReservations();
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM WarehouseStock s WHERE s.productId = :productId ORDER BY s.id")
+    List<WarehouseStock> findByProductIdForUpdate(@Param("productId") Long productId);
+    
+    @Modifying
+    @Query("UPDATE WarehouseStock s SET s.pendingReserved = 0 WHERE s.productId = :productId")
+    int clearPendingReservations(@Param("productId") Long productId);
+    
+    @Modifying
+    @Query(value = "UPDATE warehouse_stock SET reserved_quantity = CASE WHEN reserved_quantity > :quantity " +
+                   "THEN reserved_quantity - :quantity ELSE 0 END, version = version + 1, updated_at = :now " +
+                   "WHERE warehouse_id = :warehouseId AND product_id = :productId", nativeQuery = true)
+    int release(@Param("warehouseId") Long warehouseId, @Param("productId") Long productId,
+                @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query(value = "UPDATE warehouse_stock SET quantity = quantity - :quantity, reserved_quantity = CASE " +
+                   "WHEN reserved_quantity > :quantity THEN reserved_quantity - :quantity ELSE 0 END, " +
+                   "version = version + 1, updated_at = :now " +
+                   "WHERE warehouse_id = :warehouseId AND product_id = :productId AND quantity >= :quantity",
+           nativeQuery = true)
+    int deduct(@Param("warehouseId") Long warehouseId, @Param("productId") Long productId,
+               @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,57 @@
+package com.ecommerce.inventoryservice.service;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A named row of {@code scheduler_leases}, held by one node at a time until it expires.
+ * The holder keeps it by acquiring again before it expires.
+ */
+public class ClusterLease {
+
+    private static final String RENEW_SQL =
+        "UPDATE scheduler_leases SET owner = ?, expires_at = ? WHERE name = ? AND (owner = ? OR expires_at < ?)";
+    private static final String INSERT_SQL =
+        "INSERT INTO scheduler_leases (name, owner, expires_at) VALUES (?, ?, ?)";
+    private static final String RELEASE_SQL =
+        "UPDATE scheduler_leases SET expires_at = ? WHERE name = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String name;
+    private final long leaseSeconds;
+    private final String owner = UUID.randomUUID().toString();
+
+    public ClusterLease(JdbcTemplate jdbcTemplate, String name, long leaseSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.name = name;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * Takes the lease if it is free or expired, or renews it if this node holds it.
+     */
+    public boolean acquire() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp expiresAt = Timestamp.valueOf(now.plusSeconds(leaseSeconds));
+        if (jdbcTemplate.update(RENEW_SQL, owner, expiresAt, name, owner, Timestamp.valueOf(now)) > 0) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update(INSERT_SQL, name, owner, expiresAt) > 0;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    public void release() {
+        jdbcTemplate.update(RELEASE_SQL, Timestamp.valueOf(LocalDateTime.now()), name, owner);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
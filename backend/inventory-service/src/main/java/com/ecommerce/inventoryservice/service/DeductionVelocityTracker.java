@@ -0,0 +1,86 @@
+package com.ecommerce.inventoryservice.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Recent deduction velocity per product as an exponentially decayed rate, so older sales
+ * fade out without keeping a per-product history. Only products that have sold take space.
+ */
+@Component
+public class DeductionVelocityTracker {
+
+    private static final double MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final Map<Long, Rate> rates = new ConcurrentHashMap<>();
+    private final double halfLifeHours;
+    private final double decayPerMilli;
+    private final LongSupplier clock;
+
+    @Autowired
+    public DeductionVelocityTracker(@Value("${inventory.reorder.velocity-half-life-hours:72}") double halfLifeHours) {
+        this(halfLifeHours, System::currentTimeMillis);
+    }
+
+    DeductionVelocityTracker(double halfLifeHours, LongSupplier clock) {
+        this.halfLifeHours = halfLifeHours;
+        this.decayPerMilli = Math.log(2) / (halfLifeHours * TimeUnit.HOURS.toMillis(1));
+        this.clock = clock;
+    }
+
+    public void record(Long productId, int quantity) {
+        record(productId, quantity, clock.getAsLong());
+    }
+
+    public void record(Long productId, int quantity, long atMillis) {
+        rates.computeIfAbsent(productId, id -> new Rate(atMillis)).add(quantity, atMillis, decayPerMilli);
+    }
+
+    /**
+     * Units deducted per day, weighted towards recent deductions.
+     */
+    public double dailyRate(Long productId) {
+        Rate rate = rates.get(productId);
+        return rate != null ? rate.perMilli(clock.getAsLong(), decayPerMilli) * MILLIS_PER_DAY : 0.0;
+    }
+
+    /**
+     * An empty tracker with the same half-life and clock, for folding deductions read elsewhere.
+     */
+    public DeductionVelocityTracker detached() {
+        return new DeductionVelocityTracker(halfLifeHours, clock);
+    }
+
+    public void clear() {
+        rates.clear();
+    }
+
+    private static final class Rate {
+        // Decayed sum of units; dividing by the mean lifetime of a unit gives a rate
+        private double units;
+        private long updatedAt;
+
+        private Rate(long updatedAt) {
+            this.updatedAt = updatedAt;
+        }
+
+        private synchronized void add(int quantity, long atMillis, double decayPerMilli) {
+            if (atMillis >= updatedAt) {
+                units = units * Math.exp(-decayPerMilli * (atMillis - updatedAt)) + quantity;
+                updatedAt = atMillis;
+            } else {
+                units += quantity * Math.exp(-decayPerMilli * (updatedAt - atMillis));
+            }
+        }
+
+        private synchronized double perMilli(long nowMillis, double decayPerMilli) {
+            return units * Math.exp(-decayPerMilli * Math.max(0, nowMillis - updatedAt)) * decayPerMilli;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.InventoryDTO;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded near-cache of fully converted inventory records keyed by productId, so hot product
+ * lookups skip both the database and DTO formatting. Entries expire after a short TTL as a
+ * backstop; every stock mutation evicts its product immediately and, when it runs inside a
+ * transaction, again once that transaction completes so a concurrent reload cannot re-cache
+ * the pre-commit row. Every eviction also bumps a version for the product, and a load that
+ * saw an older version drops what it cached, so a read that started before the commit cannot
+ * outlive the eviction either. Cached records are shared and must not be modified by callers.
+ */
+@Component
+public class InventoryAvailabilityCache {
+
+    private static final int VERSION_STRIPES = 1024;
+
+    private final Cache<Long, InventoryDTO> cache;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    public InventoryAvailabilityCache(MeterRegistry meterRegistry,
+                                      @Value("${inventory.cache.maximum-size:50000}") long maximumSize,
+                                      @Value("${inventory.cache.expire-after-write-ms:30000}") long expireAfterWriteMillis) {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(Duration.ofMillis(expireAfterWriteMillis))
+            .recordStats()
+            .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "inventory.availability");
+    }
+
+    public InventoryDTO get(Long productId, Supplier<InventoryDTO> loader) {
+        long version = version(productId);
+        InventoryDTO dto;
+        try {
+            dto = cache.get(productId, loader::get);
+        } catch (UncheckedExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        } catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        }
+        discardIfStale(productId, dto, version);
+        return dto;
+    }
+
+    /**
+     * Returns the records for every id that exists, loading all misses with one call to {@code loader}.
+     */
+    public Map<Long, InventoryDTO> getAll(Collection<Long> productIds,
+                                          Function<Collection<Long>, Map<Long, InventoryDTO>> loader) {
+        Map<Long, InventoryDTO> found = new HashMap<>(cache.getAllPresent(productIds));
+        Map<Long, Long> missing = new HashMap<>();
+        for (Long productId : productIds) {
+            if (!found.containsKey(productId)) {
+                missing.put(productId, version(productId));
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, InventoryDTO> loaded = loader.apply(missing.keySet());
+            cache.putAll(loaded);
+            loaded.forEach((productId, dto) -> discardIfStale(productId, dto, missing.get(productId)));
+            found.putAll(loaded);
+        }
+        return found;
+    }
+
+    public void invalidate(Long productId) {
+        evict(productId);
+        afterCompletion(() -> evict(productId));
+    }
+
+    public void invalidateAll(Collection<Long> productIds) {
+        productIds.forEach(this::evict);
+        afterCompletion(() -> productIds.forEach(this::evict));
+    }
+
+    public void clear() {
+        evictAll();
+        afterCompletion(this::evictAll);
+    }
+
+    private void evict(Long productId) {
+        versions.incrementAndGet(stripe(productId));
+        cache.invalidate(productId);
+    }
+
+    private void evictAll() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    private void discardIfStale(Long productId, InventoryDTO dto, long version) {
+        if (version(productId) != version) {
+            // Evicted while loading: the record may predate the change, so only the eviction stands
+            cache.asMap().remove(productId, dto);
+        }
+    }
+
+    private long version(Long productId) {
+        return versions.get(stripe(productId));
+    }
+
+    private static int stripe(Long productId) {
+        return Math.floorMod(Long.hashCode(productId), VERSION_STRIPES);
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.ExportFormat;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the inventory table to an output stream one row at a time. Rows are read through a
+ * forward-only, read-only cursor with a bounded fetch size and written straight out, so memory
+ * use does not grow with the table and the header reaches the client before the first fetch.
+ */
+@Service
+public class InventoryExportService {
+
+    static final String[] COLUMNS = {
+        "id", "productId", "productSku", "quantity", "reservedQuantity", "reorderLevel",
+        "reorderQuantity", "warehouseLocation", "lastRestockedAt", "createdAt", "updatedAt"
+    };
+
+    // Ordered by the clustered key, so the cursor walks the table without a sort
+    private static final String EXPORT_SQL =
+        "SELECT id, product_id, product_sku, quantity, reserved_quantity, reorder_level, reorder_quantity, " +
+        "warehouse_location, last_restocked_at, created_at, updated_at FROM inventory ORDER BY id";
+
+    private final JdbcTemplate cursorTemplate;
+    private final StockLedger stockLedger;
+    private final StripedStockService stripedStock;
+    private final ObjectMapper objectMapper;
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public InventoryExportService(DataSource dataSource,
+                                  StockLedger stockLedger,
+                                  StripedStockService stripedStock,
+                                  ObjectMapper objectMapper,
+                                  @Value("${inventory.export.fetch-size:1000}") int fetchSize) {
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+        this.stockLedger = stockLedger;
+        this.stripedStock = stripedStock;
+        this.objectMapper = objectMapper;
+    }
+
+    public void export(ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 8192, true) : out;
+        if (format == ExportFormat.CSV) {
+            exportCsv(target);
+        } else {
+            exportNdjson(target);
+        }
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+        out.flush();
+    }
+
+    private void exportCsv(OutputStream out) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", COLUMNS));
+        writer.newLine();
+        writer.flush();
+        cursorTemplate.query(EXPORT_SQL, rs -> {
+            try {
+                Object[] values = readRow(rs);
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(csvValue(values[i]));
+                }
+                writer.newLine();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        writer.flush();
+    }
+
+    private void exportNdjson(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.setRootValueSeparator(null);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.flush();
+        cursorTemplate.query(EXPORT_SQL, rs -> {
+            try {
+                Object[] values = readRow(rs);
+                generator.writeStartObject();
+                for (int i = 0; i < values.length; i++) {
+                    generator.writeFieldName(COLUMNS[i]);
+                    generator.writeObject(values[i]);
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        generator.close();
+    }
+
+    private Object[] readRow(ResultSet rs) throws SQLException {
+        long productId = rs.getLong("product_id");
+        Integer storedQuantity = rs.getObject("quantity", Integer.class);
+        Integer storedReserved = rs.getObject("reserved_quantity", Integer.class);
+        Integer reorderLevel = rs.getObject("reorder_level", Integer.class);
+        Integer quantity = storedQuantity;
+        Integer reserved = storedReserved;
+        Optional<StockLedger.Level> level = stockLedger.level(productId).or(() -> stripedStock.level(productId,
+            storedQuantity != null ? storedQuantity : 0, storedReserved != null ? storedReserved : 0, reorderLevel));
+        if (level.isPresent()) {
+            quantity = level.get().getQuantity();
+            reserved = level.get().getReservedQuantity();
+        }
+        return new Object[] {
+            rs.getLong("id"),
+            productId,
+            rs.getString("product_sku"),
+            quantity,
+            reserved,
+            reorderLevel,
+            rs.getObject("reorder_quantity", Integer.class),
+            rs.getString("warehouse_location"),
+            format(rs.getTimestamp("last_restocked_at")),
+            format(rs.getTimestamp("created_at")),
+            format(rs.getTimestamp("updated_at"))
+        };
+    }
+
+    private String format(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().format(formatter) : null;
+    }
+
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,302 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.ExportFormat;
+import com.ecommerce.inventoryservice.dto.ImportChunkReportDTO;
+import com.ecommerce.inventoryservice.dto.ImportReportDTO;
+import com.ecommerce.inventoryservice.dto.InventoryImportRowDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk inventory import. The upload is read line by line and cut into fixed-size chunks; each
+ * chunk is parsed and upserted on a bounded worker pool in its own transaction, so a bad chunk
+ * only rolls back itself. When every worker is busy the reading thread runs the next chunk
+ * itself, which keeps at most a few chunks in memory regardless of file size. Quoted CSV
+ * values may contain commas and quotes but not line breaks.
+ */
+@Slf4j
+@Service
+public class InventoryImportService {
+
+    private static final int MAX_ERRORS_PER_CHUNK = 20;
+
+    private final InventoryUpsertWriter upsertWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final StockLedger stockLedger;
+    private final StockJournal stockJournal;
+    private final InventoryService inventoryService;
+    private final StripedStockService stripedStock;
+    private final SkuIndex skuIndex;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final ThreadPoolExecutor workers;
+
+    public InventoryImportService(InventoryUpsertWriter upsertWriter,
+                                  TransactionTemplate transactionTemplate,
+                                  StockLedger stockLedger,
+                                  StockJournal stockJournal,
+                                  InventoryService inventoryService,
+                                  StripedStockService stripedStock,
+                                  SkuIndex skuIndex,
+                                  ObjectMapper objectMapper,
+                                  @Value("${inventory.import.chunk-size:5000}") int chunkSize,
+                                  @Value("${inventory.import.threads:4}") int threads) {
+        this.upsertWriter = upsertWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.stockLedger = stockLedger;
+        this.stockJournal = stockJournal;
+        this.inventoryService = inventoryService;
+        this.stripedStock = stripedStock;
+        this.skuIndex = skuIndex;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(threads),
+            runnable -> {
+                Thread thread = new Thread(runnable, "inventory-import-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public ImportReportDTO importInventory(InputStream in, ExportFormat format) throws IOException {
+        long start = System.currentTimeMillis();
+        List<Future<ImportChunkReportDTO>> pending = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            Map<String, Integer> header = format == ExportFormat.CSV ? readHeader(reader) : null;
+            long lineNumber = header != null ? 1 : 0;
+            List<String> lines = new ArrayList<>(chunkSize);
+            long firstLine = lineNumber + 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                if (lines.isEmpty()) {
+                    firstLine = lineNumber;
+                }
+                lines.add(line);
+                if (lines.size() >= chunkSize) {
+                    pending.add(submit(pending.size(), firstLine, lineNumber, lines, format, header));
+                    lines = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!lines.isEmpty()) {
+                pending.add(submit(pending.size(), firstLine, lineNumber, lines, format, header));
+            }
+        }
+
+        List<ImportChunkReportDTO> chunks = new ArrayList<>(pending.size());
+        for (Future<ImportChunkReportDTO> future : pending) {
+            chunks.add(await(future));
+        }
+        // Thresholds may have moved for any imported product, so rebuild the index once
+        inventoryService.loadLowStockIndex();
+        skuIndex.reload();
+
+        long imported = chunks.stream().mapToLong(ImportChunkReportDTO::getImported).sum();
+        long failed = chunks.stream().mapToLong(ImportChunkReportDTO::getFailed).sum();
+        return new ImportReportDTO(format, imported + failed, imported, failed,
+            System.currentTimeMillis() - start, chunks);
+    }
+
+    private Future<ImportChunkReportDTO> submit(int chunkIndex, long firstLine, long lastLine, List<String> lines,
+                                                ExportFormat format, Map<String, Integer> header) {
+        return workers.submit(() -> importChunk(chunkIndex, firstLine, lastLine, lines, format, header));
+    }
+
+    ImportChunkReportDTO importChunk(int chunkIndex, long firstLine, long lastLine, List<String> lines,
+                                     ExportFormat format, Map<String, Integer> header) {
+        List<String> errors = new ArrayList<>();
+        List<InventoryImportRowDTO> rows = new ArrayList<>(lines.size());
+        int failed = 0;
+        long lineNumber = firstLine;
+        for (String line : lines) {
+            try {
+                InventoryImportRowDTO row = format == ExportFormat.CSV ? parseCsv(line, header) : parseJson(line);
+                validate(row);
+                rows.add(row);
+            } catch (RuntimeException | IOException ex) {
+                failed++;
+                addError(errors, "Line " + lineNumber + ": " + ex.getMessage());
+            }
+            lineNumber++;
+        }
+
+        int imported = 0;
+        if (!rows.isEmpty()) {
+            try {
+                upsertWriter.resolveProductIds(rows);
+                List<Long> productIds = rows.stream()
+                    .map(InventoryImportRowDTO::getProductId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .collect(Collectors.toList());
+                // Ledger deltas for these products are written with the upsert, and none can be taken until it commits
+                int[] counts = stockLedger.rewrite(productIds, () -> transactionTemplate.execute(status -> {
+                    // Bucket stock would otherwise count again on top of the imported quantity
+                    stripedStock.drainBuckets(productIds);
+                    int[] updated = upsertWriter.upsert(rows);
+                    // Picks up SKUs whose rows were created after the lookup above and matched by the upsert
+                    upsertWriter.resolveProductIds(rows);
+                    stockJournal.appendUpserted(rows, updated);
+                    return updated;
+                }));
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        failed++;
+                        addError(errors, "No inventory found for SKU " + rows.get(i).getProductSku());
+                    } else {
+                        imported++;
+                    }
+                }
+                inventoryService.evictCachedInventory(rows.stream()
+                    .map(InventoryImportRowDTO::getProductId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .collect(Collectors.toList()));
+            } catch (RuntimeException ex) {
+                log.warn("Inventory import chunk {} (lines {}-{}) failed", chunkIndex, firstLine, lastLine, ex);
+                failed += rows.size() - imported;
+                imported = 0;
+                addError(errors, "Chunk rolled back: " + ex.getMessage());
+            }
+        }
+        log.info("Inventory import chunk {} (lines {}-{}): {} imported, {} failed",
+            chunkIndex, firstLine, lastLine, imported, failed);
+        return new ImportChunkReportDTO(chunkIndex, firstLine, lastLine, lines.size(), imported, failed, errors);
+    }
+
+    private Map<String, Integer> readHeader(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            throw new RuntimeException("Import file is empty");
+        }
+        List<String> columns = splitCsv(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim(), i);
+        }
+        if (!header.containsKey("quantity") || (!header.containsKey("productId") && !header.containsKey("productSku"))) {
+            throw new RuntimeException("Import header must contain quantity and productId or productSku");
+        }
+        return header;
+    }
+
+    private InventoryImportRowDTO parseCsv(String line, Map<String, Integer> header) {
+        List<String> values = splitCsv(line);
+        InventoryImportRowDTO row = new InventoryImportRowDTO();
+        String productId = column(values, header, "productId");
+        row.setProductId(productId != null ? Long.valueOf(productId) : null);
+        row.setProductSku(column(values, header, "productSku"));
+        row.setQuantity(intColumn(values, header, "quantity"));
+        row.setReorderLevel(intColumn(values, header, "reorderLevel"));
+        row.setReorderQuantity(intColumn(values, header, "reorderQuantity"));
+        row.setWarehouseLocation(column(values, header, "warehouseLocation"));
+        return row;
+    }
+
+    private InventoryImportRowDTO parseJson(String line) throws IOException {
+        InventoryImportRowDTO row = objectMapper.readValue(line, InventoryImportRowDTO.class);
+        // Reservations belong to this service, never to the warehouse feed
+        row.setReservedQuantity(null);
+        return row;
+    }
+
+    private void validate(InventoryImportRowDTO row) {
+        if (row.getProductId() == null && (row.getProductSku() == null || row.getProductSku().isEmpty())) {
+            throw new RuntimeException("productId or productSku is required");
+        }
+        if (row.getQuantity() == null || row.getQuantity() < 0) {
+            throw new RuntimeException("quantity must be zero or more");
+        }
+    }
+
+    private ImportChunkReportDTO await(Future<ImportChunkReportDTO> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while importing inventory", ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Inventory import failed", ex.getCause());
+        }
+    }
+
+    private static void addError(List<String> errors, String error) {
+        if (errors.size() < MAX_ERRORS_PER_CHUNK) {
+            errors.add(error);
+        }
+    }
+
+    private static String column(List<String> values, Map<String, Integer> header, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+        return values.get(index);
+    }
+
+    private static Integer intColumn(List<String> values, Map<String, Integer> header, String name) {
+        String value = column(values, header, name);
+        return value != null ? Integer.valueOf(value.trim()) : null;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
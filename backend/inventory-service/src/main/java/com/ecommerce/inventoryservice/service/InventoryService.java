@@ -1,34 +1,69 @@
 package com.ecommerce.inventoryservice.service;
 
+import com.ecommerce.inventoryservice.dto.BatchReservationResultDTO;
 import com.ecommerce.inventoryservice.dto.InventoryDTO;
+import com.ecommerce.inventoryservice.dto.ReservationLineResultDTO;
+import com.ecommerce.inventoryservice.dto.StockReservationLineDTO;
 import com.ecommerce.inventoryservice.entity.Inventory;
+import com.ecommerce.inventoryservice.entity.MovementType;
 import com.ecommerce.inventoryservice.repository.InventoryRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.security.MessageDigest;
 import java.util.Random;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class InventoryService {
     
     private final InventoryRepository inventoryRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockLedger stockLedger;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final LowStockIndex lowStockIndex;
+    private final InventoryAvailabilityCache availabilityCache;
+    private final DeductionVelocityTracker velocityTracker;
+    private final StockJournal stockJournal;
+    private final StripedStockService stripedStock;
+    private final SkuIndex skuIndex;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
+    private static final int MAX_SKU_PREFIX_RESULTS = 500;
+    private static final int PRODUCT_ID_CHUNK_SIZE = 1000;
+    
     // Hardcoded credentials - SECURITY ISSUE
     private static final String DB_PASSWORD = "admin123";
     private static final String API_KEY = "sk-1234567890abcdef";
@@ -46,7 +81,13 @@ public class InventoryService {
         inventory.setWarehouseLocation(inventoryDTO.getWarehouseLocation());
         
         Inventory savedInventory = inventoryRepository.save(inventory);
-        return convertToDTO(savedInventory);
+        stockJournal.append(savedInventory.getProductId(), MovementType.SET,
+            savedInventory.getQuantity(), savedInventory.getReservedQuantity());
+        availabilityCache.invalidate(savedInventory.getProductId());
+        afterCommit(() -> skuIndex.put(savedInventory.getProductSku(), savedInventory.getProductId()));
+        InventoryDTO savedDTO = convertToDTO(savedInventory);
+        lowStockIndex.record(savedDTO, () -> latestLevel(savedInventory.getProductId()));
+        return savedDTO;
     }
     
     public InventoryDTO getInventoryById(Long id) {
@@ -56,9 +97,48 @@ public class InventoryService {
     }
     
     public InventoryDTO getInventoryByProductId(Long productId) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-            .orElseThrow(() -> new RuntimeException("Inventory not found for product"));
-        return convertToDTO(inventory);
+        return availabilityCache.get(productId, () -> {
+            Inventory inventory = inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new RuntimeException("Inventory not found for product"));
+            return convertToDTO(inventory);
+        });
+    }
+    
+    public List<InventoryDTO> findBySkuPrefix(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty()) {
+            throw new RuntimeException("SKU prefix is required");
+        }
+        List<Long> productIds = skuIndex.findByPrefix(prefix, Math.min(Math.max(limit, 1), MAX_SKU_PREFIX_RESULTS));
+        // The index may briefly lag a SKU change, so matches are checked against the records
+        return getInventoryByProductIds(productIds).stream()
+            .filter(dto -> dto.getProductSku() != null && dto.getProductSku().startsWith(prefix))
+            .collect(Collectors.toList());
+    }
+    
+    public List<InventoryDTO> findBySkus(List<String> skus) {
+        Set<String> requested = new HashSet<>(skus);
+        return getInventoryByProductIds(skuIndex.findBySkus(skus)).stream()
+            .filter(dto -> requested.contains(dto.getProductSku()))
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Cached records for the given products in the order given, loading every miss in one query per chunk.
+     */
+    public List<InventoryDTO> getInventoryByProductIds(Collection<Long> productIds) {
+        Map<Long, InventoryDTO> found = availabilityCache.getAll(productIds, missing -> {
+            Map<Long, InventoryDTO> loaded = new HashMap<>();
+            List<Long> ids = new ArrayList<>(missing);
+            for (int from = 0; from < ids.size(); from += PRODUCT_ID_CHUNK_SIZE) {
+                inventoryRepository.findByProductIdIn(ids.subList(from, Math.min(from + PRODUCT_ID_CHUNK_SIZE, ids.size())))
+                    .forEach(inventory -> loaded.put(inventory.getProductId(), convertToDTO(inventory)));
+            }
+            return loaded;
+        });
+        return productIds.stream()
+            .map(found::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
     }
     
     public List<InventoryDTO> getAllInventory() {
@@ -78,59 +158,325 @@ public class InventoryService {
         });
     }
     
-    public List<InventoryDTO> getLowStockItems() {
-        return inventoryRepository.findLowStockItems().stream()
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${inventory.low-stock.refresh-interval-ms:30000}")
+    public void loadLowStockIndex() {
+        Map<Long, Inventory> candidates = new HashMap<>();
+        inventoryRepository.findLowStockItems().forEach(inventory -> candidates.put(inventory.getProductId(), inventory));
+        // Ledger and bucket levels are not in the row, so products tracked by either are rechecked by id
+        Set<Long> recheck = lowStockIndex.productIds();
+        recheck.addAll(stripedStock.stripedProductIds());
+        recheck.removeAll(candidates.keySet());
+        if (!recheck.isEmpty()) {
+            inventoryRepository.findByProductIdIn(recheck)
+                .forEach(inventory -> candidates.put(inventory.getProductId(), inventory));
+        }
+        lowStockIndex.load(candidates.values().stream()
             .map(this::convertToDTO)
-            .collect(Collectors.toList());
+            .filter(dto -> Boolean.TRUE.equals(dto.getLowStock()))
+            .collect(Collectors.toList()));
+    }
+    
+    private InventoryDTO latestLevel(Long productId) {
+        return inventoryRepository.findByProductId(productId).map(this::convertToDTO).orElse(null);
+    }
+    
+    /**
+     * Drops cached records for rows that were rewritten outside this service's mutation methods.
+     */
+    public void evictCachedInventory(Collection<Long> productIds) {
+        availabilityCache.invalidateAll(productIds);
+    }
+    
+    /**
+     * Drops every cached record, after the whole table was rewritten.
+     */
+    public void evictAllCachedInventory() {
+        availabilityCache.clear();
+    }
+    
+    public List<InventoryDTO> getLowStockItems() {
+        return lowStockIndex.items();
     }
     
-    @Transactional
     public InventoryDTO updateStock(Long productId, Integer quantity) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-            .orElseThrow(() -> new RuntimeException("Inventory not found for product"));
-        
-        inventory.setQuantity(inventory.getQuantity() + quantity);
-        if (quantity > 0) {
-            inventory.setLastRestockedAt(LocalDateTime.now());
+        if (stockLedger.isEnabled()) {
+            Inventory inventory = inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new RuntimeException("Inventory not found for product"));
+            stockLedger.adjust(productId, quantity);
+            onRollback(productId, () -> stockLedger.adjust(productId, -quantity));
+            availabilityCache.invalidate(productId);
+            InventoryDTO updatedDTO = convertToDTO(inventory);
+            lowStockIndex.record(updatedDTO, () -> latestLevel(productId));
+            return updatedDTO;
         }
-        
-        Inventory updatedInventory = inventoryRepository.save(inventory);
-        return convertToDTO(updatedInventory);
+        InventoryDTO updatedDTO = optimisticLockRetry.execute(status -> {
+            if (stripedStock.isStriped(productId)) {
+                Optional<Inventory> adjusted = stripedStock.adjust(productId, quantity);
+                if (adjusted.isPresent()) {
+                    stockJournal.append(productId, MovementType.ADJUSTED, quantity, null);
+                    return convertToDTO(adjusted.get());
+                }
+            }
+            Inventory inventory = inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new RuntimeException("Inventory not found for product"));
+            
+            inventory.setQuantity(inventory.getQuantity() + quantity);
+            if (quantity > 0) {
+                inventory.setLastRestockedAt(LocalDateTime.now());
+            }
+            
+            Inventory updatedInventory = inventoryRepository.save(inventory);
+            stockJournal.append(productId, MovementType.ADJUSTED, quantity, null);
+            return convertToDTO(updatedInventory);
+        });
+        availabilityCache.invalidate(productId);
+        lowStockIndex.record(updatedDTO, () -> latestLevel(productId));
+        return updatedDTO;
     }
     
-    @Transactional
     public boolean reserveStock(Long productId, Integer quantity) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-            .orElseThrow(() -> new RuntimeException("Inventory not found for product"));
-        
-        int availableQuantity = inventory.getQuantity() - inventory.getReservedQuantity();
-        
-        if (availableQuantity < quantity) {
-            return false;
+        boolean reserved;
+        if (stockLedger.isEnabled()) {
+            reserved = stockLedger.reserve(productId, quantity);
+            if (reserved) {
+                releaseOnRollback(productId, quantity);
+            }
+        } else {
+            reserved = transactionTemplate.execute(status -> {
+                boolean taken = stripedStock.isStriped(productId)
+                    ? stripedStock.reserve(productId, quantity)
+                    : inventoryRepository.reserveIfAvailable(productId, quantity, LocalDateTime.now()) == 1
+                        // The row excludes bucket stock, so a product striped elsewhere since the last poll lands here
+                        || stripedStock.discover(productId) && stripedStock.reserve(productId, quantity);
+                if (taken) {
+                    stockJournal.append(productId, MovementType.RESERVED, quantity, null);
+                    return true;
+                }
+                if (!inventoryRepository.existsByProductId(productId)) {
+                    throw new RuntimeException("Inventory not found for product");
+                }
+                return false;
+            });
+        }
+        if (reserved) {
+            availabilityCache.invalidate(productId);
+        }
+        return reserved;
+    }
+    
+    /**
+     * Ledger reservations are not part of the caller's transaction, so one taken inside a
+     * transaction that rolls back is handed back explicitly.
+     */
+    private void releaseOnRollback(Long productId, Integer quantity) {
+        onRollback(productId, () -> releaseStock(productId, quantity));
+    }
+    
+    /**
+     * Reverses a ledger change made inside a transaction that rolls back, so a retried caller
+     * does not apply it twice.
+     */
+    private void onRollback(Long productId, Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                try {
+                    compensation.run();
+                    availabilityCache.invalidate(productId);
+                } catch (RuntimeException ex) {
+                    log.error("Failed to reverse ledger change for product {} after rollback", productId, ex);
+                }
+            }
+        });
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    public BatchReservationResultDTO reserveStockBatch(List<StockReservationLineDTO> lines) {
+        // Sorted by productId so row locks are always acquired in the same order
+        Map<Long, Integer> requested = new TreeMap<>();
+        for (StockReservationLineDTO line : lines) {
+            requested.merge(line.getProductId(), line.getQuantity(), Integer::sum);
         }
         
-        inventory.setReservedQuantity(inventory.getReservedQuantity() + quantity);
-        inventoryRepository.save(inventory);
-        return true;
+        BatchReservationResultDTO result;
+        if (stockLedger.isEnabled()) {
+            Map<Long, Integer> available = new HashMap<>();
+            boolean reserved = stockLedger.reserveAll(requested, available);
+            result = toBatchResult(requested, available, reserved);
+        } else {
+            result = reserveBatchInDatabase(requested);
+        }
+        if (result.isReserved()) {
+            availabilityCache.invalidateAll(requested.keySet());
+        }
+        return result;
+    }
+    
+    private BatchReservationResultDTO reserveBatchInDatabase(Map<Long, Integer> requested) {
+        return transactionTemplate.execute(status -> {
+            Map<Long, Inventory> locked = inventoryRepository.findAllByProductIdInForUpdate(requested.keySet()).stream()
+                .collect(Collectors.toMap(Inventory::getProductId, Function.identity()));
+            
+            Map<Long, Integer> heldOutside = heldOutsideRow(requested.keySet());
+            Map<Long, Integer> available = new HashMap<>();
+            Map<Long, Integer> rowUpdates = new TreeMap<>();
+            boolean reserved = locked.size() == requested.size();
+            for (Map.Entry<Long, Integer> line : requested.entrySet()) {
+                Inventory inventory = locked.get(line.getKey());
+                if (inventory == null) {
+                    continue;
+                }
+                boolean striped = stripedStock.isStriped(line.getKey());
+                if (!striped) {
+                    rowUpdates.put(line.getKey(), line.getValue());
+                }
+                int availableQuantity = striped
+                    ? stripedStock.available(line.getKey())
+                    : inventory.getQuantity() - inventory.getReservedQuantity() - heldOutside.getOrDefault(line.getKey(), 0);
+                available.put(line.getKey(), availableQuantity);
+                if (availableQuantity < line.getValue()) {
+                    reserved = false;
+                }
+            }
+            
+            if (reserved) {
+                for (Map.Entry<Long, Integer> line : requested.entrySet()) {
+                    if (!rowUpdates.containsKey(line.getKey()) && !stripedStock.reserve(line.getKey(), line.getValue())) {
+                        // Buckets were drained by a concurrent caller after the availability check
+                        status.setRollbackOnly();
+                        available.put(line.getKey(), stripedStock.available(line.getKey()));
+                        return toBatchResult(requested, available, false);
+                    }
+                }
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                List<Object[]> updates = new ArrayList<>();
+                rowUpdates.forEach((productId, quantity) -> updates.add(new Object[] {quantity, now, productId}));
+                jdbcTemplate.batchUpdate(
+                    "UPDATE inventory SET reserved_quantity = reserved_quantity + ?, version = version + 1, updated_at = ? WHERE product_id = ?",
+                    updates);
+                requested.forEach((productId, quantity) ->
+                    stockJournal.append(productId, MovementType.RESERVED, quantity, null));
+            }
+            return toBatchResult(requested, available, reserved);
+        });
+    }
+    
+    // Warehouse reservations not yet folded into the row, and stock allotted to buckets, are not free on the row
+    private Map<Long, Integer> heldOutsideRow(Collection<Long> productIds) {
+        Map<Long, Integer> held = new HashMap<>();
+        String placeholders = productIds.stream().map(id -> "?").collect(Collectors.joining(","));
+        List<Object> args = new ArrayList<>(productIds);
+        args.addAll(productIds);
+        jdbcTemplate.query("SELECT product_id, SUM(held) AS held FROM (" +
+            "SELECT product_id, pending_reserved AS held FROM warehouse_stock WHERE product_id IN (" + placeholders +
+            ") AND pending_reserved <> 0 UNION ALL " +
+            "SELECT product_id, available AS held FROM inventory_buckets WHERE product_id IN (" + placeholders + ")" +
+            ") h GROUP BY product_id",
+            rs -> {
+                held.put(rs.getLong("product_id"), rs.getInt("held"));
+            }, args.toArray());
+        return held;
+    }
+    
+    /**
+     * Adds reservations already taken on warehouse rows to the product's total. Joins the caller's
+     * transaction.
+     */
+    public void applyLocatedReservations(Long productId, int quantity) {
+        inventoryRepository.addReserved(productId, quantity, LocalDateTime.now());
+        stockJournal.append(productId, MovementType.RESERVED, quantity, null);
+        afterCommit(() -> availabilityCache.invalidate(productId));
+    }
+    
+    /**
+     * Each line reports whether its own product had enough stock; the batch flag reports whether
+     * anything was taken, which is only the case when every line could be satisfied.
+     */
+    private BatchReservationResultDTO toBatchResult(Map<Long, Integer> requested, Map<Long, Integer> available, boolean reserved) {
+        List<ReservationLineResultDTO> results = new ArrayList<>();
+        requested.forEach((productId, quantity) -> {
+            Integer availableQuantity = available.get(productId);
+            boolean satisfiable = availableQuantity != null && availableQuantity >= quantity;
+            results.add(new ReservationLineResultDTO(productId, quantity,
+                availableQuantity != null ? availableQuantity : 0, satisfiable));
+        });
+        return new BatchReservationResultDTO(reserved, results);
     }
     
-    @Transactional
     public void releaseStock(Long productId, Integer quantity) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-            .orElseThrow(() -> new RuntimeException("Inventory not found for product"));
-        
-        inventory.setReservedQuantity(Math.max(0, inventory.getReservedQuantity() - quantity));
-        inventoryRepository.save(inventory);
+        if (stockLedger.isEnabled()) {
+            // Not part of the caller's transaction, so only released once the caller commits
+            afterCommit(() -> {
+                stockLedger.release(productId, quantity);
+                availabilityCache.invalidate(productId);
+            });
+            return;
+        }
+        optimisticLockRetry.execute(status -> {
+            if (stripedStock.isStriped(productId) && stripedStock.release(productId, quantity)) {
+                stockJournal.append(productId, MovementType.RELEASED, quantity, null);
+                return null;
+            }
+            Inventory inventory = inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new RuntimeException("Inventory not found for product"));
+            
+            int released = Math.min(quantity, inventory.getReservedQuantity());
+            inventory.setReservedQuantity(inventory.getReservedQuantity() - released);
+            stockJournal.append(productId, MovementType.RELEASED, released, null);
+            return inventoryRepository.save(inventory);
+        });
+        availabilityCache.invalidate(productId);
     }
     
-    @Transactional
     public void deductStock(Long productId, Integer quantity) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-            .orElseThrow(() -> new RuntimeException("Inventory not found for product"));
-        
-        inventory.setQuantity(inventory.getQuantity() - quantity);
-        inventory.setReservedQuantity(Math.max(0, inventory.getReservedQuantity() - quantity));
-        inventoryRepository.save(inventory);
+        if (stockLedger.isEnabled()) {
+            StockLedger.Level level = stockLedger.deduct(productId, quantity);
+            onRollback(productId, () -> stockLedger.undoDeduct(productId, quantity, level.getConsumed()));
+            availabilityCache.invalidate(productId);
+            velocityTracker.record(productId, quantity);
+            lowStockIndex.recordLevel(productId, level.getQuantity(), level.getReservedQuantity(), level.getReorderLevel(),
+                () -> getInventoryByProductId(productId));
+            return;
+        }
+        Inventory updatedInventory = optimisticLockRetry.execute(status -> {
+            Inventory inventory = inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new RuntimeException("Inventory not found for product"));
+            if (stripedStock.isStriped(productId) && stripedStock.deduct(productId, quantity)) {
+                stockJournal.append(productId, MovementType.DEDUCTED, quantity, quantity);
+                return inventory;
+            }
+            if (inventory.getQuantity() < quantity) {
+                throw new RuntimeException("Insufficient stock for product");
+            }
+            
+            int consumed = Math.min(quantity, inventory.getReservedQuantity());
+            inventory.setQuantity(inventory.getQuantity() - quantity);
+            inventory.setReservedQuantity(inventory.getReservedQuantity() - consumed);
+            stockJournal.append(productId, MovementType.DEDUCTED, quantity, consumed);
+            return inventoryRepository.save(inventory);
+        });
+        availabilityCache.invalidate(productId);
+        velocityTracker.record(productId, quantity);
+        lowStockIndex.record(convertToDTO(updatedInventory), () -> latestLevel(productId));
     }
     
     private InventoryDTO convertToDTO(Inventory inventory) {
@@ -140,7 +486,13 @@ public class InventoryService {
         dto.setProductSku(inventory.getProductSku());
         dto.setQuantity(inventory.getQuantity());
         dto.setReservedQuantity(inventory.getReservedQuantity());
+        stockLedger.level(inventory.getProductId()).or(() -> stripedStock.level(inventory)).ifPresent(level -> {
+            dto.setQuantity(level.getQuantity());
+            dto.setReservedQuantity(level.getReservedQuantity());
+        });
         dto.setReorderLevel(inventory.getReorderLevel());
+        dto.setAvailableQuantity(dto.getQuantity() - (dto.getReservedQuantity() != null ? dto.getReservedQuantity() : 0));
+        dto.setLowStock(dto.getReorderLevel() != null && dto.getQuantity() <= dto.getReorderLevel());
         dto.setReorderQuantity(inventory.getReorderQuantity());
         dto.setWarehouseLocation(inventory.getWarehouseLocation());
         dto.setLastRestockedAt(inventory.getLastRestockedAt() != null ? inventory.getLastRestockedAt().format(formatter) : null);
@@ -164,12 +516,17 @@ public class InventoryService {
     // More SQL Injection patterns
     public int deleteInventoryByQuery(String condition) {
         String deleteQuery = "DELETE FROM inventory WHERE " + condition;
-        return jdbcTemplate.update(deleteQuery);
+        int deleted = jdbcTemplate.update(deleteQuery);
+        availabilityCache.clear();
+        skuIndex.reload();
+        return deleted;
     }
     
     public void updateInventoryDynamic(String field, String value, Long id) {
         String updateSql = "UPDATE inventory SET " + field + " = '" + value + "' WHERE id = " + id;
         jdbcTemplate.execute(updateSql);
+        availabilityCache.clear();
+        skuIndex.reload();
     }
     
     // Command Injection vulnerability - SECURITY ISSUE
@@ -183,19 +540,6 @@ public class InventoryService {
         }
     }
     
-    // More Command Injection patterns
-    public String backupInventory(String backupPath) throws IOException {
-        String cmd = "cp /var/inventory/data.db " + backupPath;
-        Runtime.getRuntime().exec(cmd);
-        return "Backup created at: " + backupPath;
-    }
-    
-    public String exportInventory(String format) throws IOException {
-        String[] command = {"/bin/sh", "-c", "export_tool --format=" + format};
-        Runtime.getRuntime().exec(command);
-        return "Export completed";
-    }
-    
     // Path Traversal vulnerability - SECURITY ISSUE
     public String readInventoryFile(String filename) {
         try {
@@ -0,0 +1,398 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.InventoryImportRowDTO;
+import com.ecommerce.inventoryservice.dto.SnapshotDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshots of the inventory table.
+ * <p>
+ * A snapshot is read with a single forward-only SELECT, which under read-committed snapshot
+ * isolation sees one consistent version of the table without taking shared locks, so
+ * reservations keep running. Rows are encoded into a direct buffer and written through a
+ * {@link FileChannel} to a temporary file that is fsynced and atomically renamed into place.
+ * Restores memory-map the file, verify its checksum and replay it through the batched upsert
+ * in a single transaction.
+ * <p>
+ * Layout: magic {@code INVSNAP1}, int format version, long creation time (epoch millis), long
+ * row count, then one record per row, then a long CRC32 of the record bytes. A record is
+ * productId (long), quantity, reservedQuantity, reorderLevel, reorderQuantity (ints, -1 for
+ * null) and productSku, warehouseLocation (short byte length, -1 for null, then UTF-8 bytes).
+ */
+@Slf4j
+@Service
+public class InventorySnapshotService {
+
+    private static final byte[] MAGIC = "INVSNAP1".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = MAGIC.length + Integer.BYTES + Long.BYTES + Long.BYTES;
+    private static final int ROW_COUNT_OFFSET = MAGIC.length + Integer.BYTES + Long.BYTES;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int RESTORE_BATCH_SIZE = 5000;
+    private static final String SUFFIX = ".snap";
+    private static final Pattern NAME_PATTERN = Pattern.compile("inventory-\\d{8}-\\d{6}-\\d{3}\\.snap");
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private static final String HELD_SQL =
+        "SELECT product_id, SUM(quantity) AS held FROM stock_holds WHERE status = 'ACTIVE' GROUP BY product_id";
+
+    // Unreconciled bucket deltas are folded into striped rows by the same consistent read
+    private static final String SNAPSHOT_SQL =
+        "SELECT i.product_id, i.product_sku, i.quantity + COALESCE(b.quantity_delta, 0) AS quantity, " +
+        "CASE WHEN b.product_id IS NULL THEN i.reserved_quantity " +
+        "WHEN COALESCE(i.reserved_quantity, 0) + b.reserved_delta < 0 THEN 0 " +
+        "ELSE COALESCE(i.reserved_quantity, 0) + b.reserved_delta END AS reserved_quantity, " +
+        "i.reorder_level, i.reorder_quantity, i.warehouse_location FROM inventory i LEFT JOIN (" +
+        "SELECT product_id, SUM(quantity_delta) AS quantity_delta, SUM(reserved_delta) AS reserved_delta " +
+        "FROM inventory_buckets GROUP BY product_id) b ON b.product_id = i.product_id";
+
+    private final JdbcTemplate cursorTemplate;
+    private final InventoryUpsertWriter upsertWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final StockLedger stockLedger;
+    private final StockJournal stockJournal;
+    private final InventoryService inventoryService;
+    private final StripedStockService stripedStock;
+    private final SkuIndex skuIndex;
+    private final Path directory;
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public InventorySnapshotService(DataSource dataSource,
+                                    InventoryUpsertWriter upsertWriter,
+                                    TransactionTemplate transactionTemplate,
+                                    StockLedger stockLedger,
+                                    StockJournal stockJournal,
+                                    InventoryService inventoryService,
+                                    StripedStockService stripedStock,
+                                    SkuIndex skuIndex,
+                                    @Value("${inventory.snapshot.directory:/var/inventory/snapshots}") String directory,
+                                    @Value("${inventory.snapshot.fetch-size:5000}") int fetchSize) {
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+        this.upsertWriter = upsertWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.stockLedger = stockLedger;
+        this.stockJournal = stockJournal;
+        this.inventoryService = inventoryService;
+        this.stripedStock = stripedStock;
+        this.skuIndex = skuIndex;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+    }
+
+    public SnapshotDTO createSnapshot() throws IOException {
+        long start = System.currentTimeMillis();
+        // Counts still held by the ledger would otherwise be missing from the image
+        stockLedger.flush();
+        Files.createDirectories(directory);
+        LocalDateTime createdAt = LocalDateTime.now();
+        Path target = directory.resolve("inventory-" + createdAt.format(NAME_FORMAT) + SUFFIX);
+        Path temp = Files.createTempFile(directory, "inventory-", ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SnapshotWriter writer = new SnapshotWriter(channel);
+            writer.writeHeader(createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            cursorTemplate.query(SNAPSHOT_SQL, rs -> {
+                try {
+                    writer.writeRow(
+                        rs.getLong("product_id"),
+                        rs.getString("product_sku"),
+                        rs.getObject("quantity", Integer.class),
+                        rs.getObject("reserved_quantity", Integer.class),
+                        rs.getObject("reorder_level", Integer.class),
+                        rs.getObject("reorder_quantity", Integer.class),
+                        rs.getString("warehouse_location"));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            writer.finish();
+            channel.force(true);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote inventory snapshot {} with {} rows", target.getFileName(), writer.rows);
+            return new SnapshotDTO(target.getFileName().toString(), writer.rows, Files.size(target),
+                createdAt.format(formatter), System.currentTimeMillis() - start);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public List<SnapshotDTO> listSnapshots() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<SnapshotDTO> snapshots = new ArrayList<>();
+            for (Path file : files.filter(path -> NAME_PATTERN.matcher(path.getFileName().toString()).matches())
+                    .sorted(Comparator.reverseOrder())
+                    .collect(Collectors.toList())) {
+                snapshots.add(describe(file));
+            }
+            return snapshots;
+        }
+    }
+
+    /**
+     * Restores the table to the snapshot in one transaction. Rows created after the snapshot are
+     * emptied, reserved quantities never drop below what active holds still cover, and stock
+     * buckets are reset so they are spread again from the restored rows. The buckets are reset
+     * first, which keeps them locked so no delta can land on them while the rows are rewritten.
+     */
+    public SnapshotDTO restoreSnapshot(String name) throws IOException {
+        long start = System.currentTimeMillis();
+        Path file = resolve(name);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new RuntimeException("Snapshot is too large to map");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long createdAtMillis = readHeader(buffer);
+            long rows = buffer.getLong(ROW_COUNT_OFFSET);
+            verifyChecksum(buffer);
+
+            stockLedger.rewriteAll(() -> transactionTemplate.execute(status -> {
+                restoreRows(buffer, rows);
+                return null;
+            }));
+            inventoryService.evictAllCachedInventory();
+            inventoryService.loadLowStockIndex();
+            skuIndex.reload();
+            log.info("Restored {} inventory rows from snapshot {}", rows, name);
+            return new SnapshotDTO(name, rows, channel.size(),
+                format(createdAtMillis), System.currentTimeMillis() - start);
+        }
+    }
+
+    private void restoreRows(ByteBuffer buffer, long rows) {
+        stripedStock.resetBuckets();
+        Map<Long, Integer> held = new HashMap<>();
+        cursorTemplate.query(HELD_SQL, rs -> {
+            held.put(rs.getLong("product_id"), rs.getInt("held"));
+        });
+
+        Set<Long> restored = new HashSet<>();
+        buffer.position(HEADER_BYTES);
+        List<InventoryImportRowDTO> batch = new ArrayList<>(RESTORE_BATCH_SIZE);
+        for (long i = 0; i < rows; i++) {
+            InventoryImportRowDTO row = readRow(buffer);
+            restored.add(row.getProductId());
+            batch.add(row);
+            if (batch.size() == RESTORE_BATCH_SIZE) {
+                restoreBatch(batch, held);
+                batch = new ArrayList<>(RESTORE_BATCH_SIZE);
+            }
+        }
+
+        // Collected first: the cursor cannot stay open while the same connection writes
+        List<Long> absent = new ArrayList<>();
+        cursorTemplate.query("SELECT product_id FROM inventory", rs -> {
+            long productId = rs.getLong("product_id");
+            if (!restored.contains(productId)) {
+                absent.add(productId);
+            }
+        });
+        for (Long productId : absent) {
+            batch.add(new InventoryImportRowDTO(productId, null, 0, 0, null, null, null));
+            if (batch.size() == RESTORE_BATCH_SIZE) {
+                restoreBatch(batch, held);
+                batch = new ArrayList<>(RESTORE_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            restoreBatch(batch, held);
+        }
+    }
+
+    private void restoreBatch(List<InventoryImportRowDTO> batch, Map<Long, Integer> held) {
+        for (InventoryImportRowDTO row : batch) {
+            int reserved = row.getReservedQuantity() != null ? row.getReservedQuantity() : 0;
+            row.setReservedQuantity(Math.max(reserved, held.getOrDefault(row.getProductId(), 0)));
+        }
+        stockJournal.appendUpserted(batch, upsertWriter.upsert(batch));
+    }
+
+    private SnapshotDTO describe(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            long createdAtMillis = readHeader(header);
+            return new SnapshotDTO(file.getFileName().toString(), header.getLong(ROW_COUNT_OFFSET), channel.size(),
+                format(createdAtMillis), null);
+        }
+    }
+
+    private Path resolve(String name) {
+        if (name == null || !NAME_PATTERN.matcher(name).matches()) {
+            throw new RuntimeException("Snapshot not found");
+        }
+        Path file = directory.resolve(name);
+        if (!Files.isRegularFile(file)) {
+            throw new RuntimeException("Snapshot not found");
+        }
+        return file;
+    }
+
+    private static long readHeader(ByteBuffer buffer) {
+        if (buffer.limit() < HEADER_BYTES) {
+            throw new RuntimeException("Snapshot file is truncated");
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i]) {
+                throw new RuntimeException("Not an inventory snapshot");
+            }
+        }
+        int version = buffer.getInt(MAGIC.length);
+        if (version != FORMAT_VERSION) {
+            throw new RuntimeException("Unsupported snapshot format version " + version);
+        }
+        return buffer.getLong(MAGIC.length + Integer.BYTES);
+    }
+
+    private static void verifyChecksum(ByteBuffer buffer) {
+        int end = buffer.limit() - Long.BYTES;
+        if (end < HEADER_BYTES) {
+            throw new RuntimeException("Snapshot file is truncated");
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer records = buffer.duplicate();
+        records.position(HEADER_BYTES).limit(end);
+        crc.update(records);
+        if (crc.getValue() != buffer.getLong(end)) {
+            throw new RuntimeException("Snapshot checksum mismatch");
+        }
+    }
+
+    private static InventoryImportRowDTO readRow(ByteBuffer buffer) {
+        InventoryImportRowDTO row = new InventoryImportRowDTO();
+        row.setProductId(buffer.getLong());
+        row.setQuantity(readInt(buffer));
+        row.setReservedQuantity(readInt(buffer));
+        row.setReorderLevel(readInt(buffer));
+        row.setReorderQuantity(readInt(buffer));
+        row.setProductSku(readString(buffer));
+        row.setWarehouseLocation(readString(buffer));
+        return row;
+    }
+
+    private static Integer readInt(ByteBuffer buffer) {
+        int value = buffer.getInt();
+        return value >= 0 ? value : null;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String format(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()).format(formatter);
+    }
+
+    private static final class SnapshotWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final CRC32 crc = new CRC32();
+        private long rows;
+
+        private SnapshotWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void writeHeader(long createdAtMillis) throws IOException {
+            buffer.put(MAGIC).putInt(FORMAT_VERSION).putLong(createdAtMillis).putLong(0);
+            drain(false);
+        }
+
+        private void writeRow(long productId, String productSku, Integer quantity, Integer reservedQuantity,
+                              Integer reorderLevel, Integer reorderQuantity, String warehouseLocation) throws IOException {
+            byte[] sku = productSku != null ? productSku.getBytes(StandardCharsets.UTF_8) : null;
+            byte[] location = warehouseLocation != null ? warehouseLocation.getBytes(StandardCharsets.UTF_8) : null;
+            int size = Long.BYTES + 4 * Integer.BYTES + 2 * Short.BYTES
+                + (sku != null ? sku.length : 0) + (location != null ? location.length : 0);
+            if (buffer.remaining() < size) {
+                drain(true);
+            }
+            buffer.putLong(productId);
+            putInt(quantity);
+            putInt(reservedQuantity);
+            putInt(reorderLevel);
+            putInt(reorderQuantity);
+            putBytes(sku);
+            putBytes(location);
+            rows++;
+        }
+
+        private void finish() throws IOException {
+            drain(true);
+            buffer.putLong(crc.getValue());
+            drain(false);
+            ByteBuffer rowCount = ByteBuffer.allocate(Long.BYTES).putLong(0, rows);
+            channel.write(rowCount, ROW_COUNT_OFFSET);
+        }
+
+        private void putInt(Integer value) {
+            buffer.putInt(value != null ? value : -1);
+        }
+
+        private void putBytes(byte[] bytes) {
+            if (bytes == null) {
+                buffer.putShort((short) -1);
+                return;
+            }
+            if (bytes.length > Short.MAX_VALUE) {
+                throw new RuntimeException("Snapshot value is too long");
+            }
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+
+        private void drain(boolean checksummed) throws IOException {
+            buffer.flip();
+            if (checksummed) {
+                crc.update(buffer.duplicate());
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
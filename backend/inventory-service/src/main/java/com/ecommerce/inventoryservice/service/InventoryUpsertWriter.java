@@ -0,0 +1,104 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.InventoryImportRowDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes inventory rows with one batched {@code MERGE} per call. Rows match on product id, or on
+ * SKU when the row carries no product id; unmatched rows without a product id cannot be inserted
+ * and report an update count of zero. Columns left null in a row keep their current value.
+ * Callers own the transaction.
+ */
+@Component
+public class InventoryUpsertWriter {
+
+    private static final String MERGE_SQL =
+        "MERGE inventory WITH (HOLDLOCK) AS target " +
+        "USING (VALUES (?, ?, ?, ?, ?, ?, ?)) AS source " +
+        "(product_id, product_sku, quantity, reserved_quantity, reorder_level, reorder_quantity, warehouse_location) " +
+        "ON target.product_id = source.product_id " +
+        "OR (source.product_id IS NULL AND target.product_sku = source.product_sku) " +
+        "WHEN MATCHED THEN UPDATE SET " +
+        "product_sku = COALESCE(source.product_sku, target.product_sku), " +
+        "quantity = source.quantity, " +
+        "reserved_quantity = COALESCE(source.reserved_quantity, target.reserved_quantity), " +
+        "reorder_level = COALESCE(source.reorder_level, target.reorder_level), " +
+        "reorder_quantity = COALESCE(source.reorder_quantity, target.reorder_quantity), " +
+        "warehouse_location = COALESCE(source.warehouse_location, target.warehouse_location), " +
+        "version = target.version + 1, updated_at = ? " +
+        "WHEN NOT MATCHED AND source.product_id IS NOT NULL THEN INSERT " +
+        "(product_id, product_sku, quantity, reserved_quantity, reorder_level, reorder_quantity, warehouse_location, " +
+        "version, created_at, updated_at) VALUES " +
+        "(source.product_id, source.product_sku, source.quantity, COALESCE(source.reserved_quantity, 0), " +
+        "COALESCE(source.reorder_level, 10), COALESCE(source.reorder_quantity, 50), source.warehouse_location, 0, ?, ?);";
+
+    private static final int[] ARGUMENT_TYPES = {
+        Types.BIGINT, Types.NVARCHAR, Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.NVARCHAR,
+        Types.TIMESTAMP, Types.TIMESTAMP, Types.TIMESTAMP
+    };
+
+    private static final int SKU_CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InventoryUpsertWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Fills in the product id of rows that only carry a SKU, where the SKU is known, so every
+     * row that will match can be located before it is written.
+     */
+    public void resolveProductIds(List<InventoryImportRowDTO> rows) {
+        Map<String, List<InventoryImportRowDTO>> bySku = new HashMap<>();
+        for (InventoryImportRowDTO row : rows) {
+            if (row.getProductId() == null && row.getProductSku() != null) {
+                bySku.computeIfAbsent(row.getProductSku(), sku -> new ArrayList<>()).add(row);
+            }
+        }
+        List<String> skus = new ArrayList<>(bySku.keySet());
+        for (int from = 0; from < skus.size(); from += SKU_CHUNK_SIZE) {
+            List<String> chunk = skus.subList(from, Math.min(from + SKU_CHUNK_SIZE, skus.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("SELECT product_id, product_sku FROM inventory WHERE product_sku IN (" + placeholders + ")",
+                rs -> {
+                    long productId = rs.getLong("product_id");
+                    bySku.get(rs.getString("product_sku")).forEach(row -> row.setProductId(productId));
+                },
+                chunk.toArray());
+        }
+    }
+
+    /**
+     * Returns the update count of each row, in order.
+     */
+    public int[] upsert(List<InventoryImportRowDTO> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(rows.size());
+        for (InventoryImportRowDTO row : rows) {
+            batch.add(new Object[] {
+                row.getProductId(),
+                row.getProductSku(),
+                row.getQuantity(),
+                row.getReservedQuantity(),
+                row.getReorderLevel(),
+                row.getReorderQuantity(),
+                row.getWarehouseLocation(),
+                now,
+                now,
+                now
+            });
+        }
+        return jdbcTemplate.batchUpdate(MERGE_SQL, batch, ARGUMENT_TYPES);
+    }
+}
@@ -0,0 +1,242 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.JournalRunDTO;
+import com.ecommerce.inventoryservice.entity.MovementType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Folds the stock movement journal into per-product checkpoints and rebuilds inventory levels
+ * from them. A checkpoint covers movements up to a watermark id that trails the head of the
+ * journal by a configurable lag, so transactions still in flight when it is taken cannot commit
+ * movements below it. A rebuild starts from the latest checkpoint and replays only the tail.
+ */
+@Slf4j
+@Service
+public class JournalReplayService {
+
+    private static final String TAIL_SQL =
+        "SELECT m.id, m.product_id, m.movement_type, m.quantity, m.reserved_quantity, " +
+        "c.quantity AS checkpoint_quantity, c.reserved_quantity AS checkpoint_reserved " +
+        "FROM stock_movements m LEFT JOIN inventory_checkpoints c ON c.product_id = m.product_id " +
+        "WHERE m.id > ? AND m.id <= ? ORDER BY m.id";
+    private static final String UPDATE_CHECKPOINT_SQL =
+        "UPDATE inventory_checkpoints SET quantity = ?, reserved_quantity = ?, last_movement_id = ?, updated_at = ? " +
+        "WHERE product_id = ?";
+    private static final String INSERT_CHECKPOINT_SQL =
+        "INSERT INTO inventory_checkpoints (quantity, reserved_quantity, last_movement_id, updated_at, product_id) " +
+        "VALUES (?, ?, ?, ?, ?)";
+    private static final String REBUILD_SQL =
+        "UPDATE inventory SET quantity = ?, reserved_quantity = ?, version = version + 1, updated_at = ? WHERE product_id = ?";
+
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockJournal stockJournal;
+    private final StockLedger stockLedger;
+    private final InventoryService inventoryService;
+    private final StripedStockService stripedStock;
+    private final DeductionVelocityTracker velocityTracker;
+    private final long checkpointLagMillis;
+    private final int batchSize;
+    private final int velocityWarmupDays;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public JournalReplayService(DataSource dataSource,
+                                TransactionTemplate transactionTemplate,
+                                StockJournal stockJournal,
+                                StockLedger stockLedger,
+                                InventoryService inventoryService,
+                                StripedStockService stripedStock,
+                                DeductionVelocityTracker velocityTracker,
+                                @Value("${inventory.journal.checkpoint-lag-ms:60000}") long checkpointLagMillis,
+                                @Value("${inventory.journal.batch-size:500}") int batchSize,
+                                @Value("${inventory.journal.fetch-size:5000}") int fetchSize,
+                                @Value("${inventory.journal.velocity-warmup-days:14}") int velocityWarmupDays) {
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = transactionTemplate;
+        this.stockJournal = stockJournal;
+        this.stockLedger = stockLedger;
+        this.inventoryService = inventoryService;
+        this.stripedStock = stripedStock;
+        this.velocityTracker = velocityTracker;
+        this.checkpointLagMillis = checkpointLagMillis;
+        this.batchSize = batchSize;
+        this.velocityWarmupDays = velocityWarmupDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmVelocityTracker() {
+        if (!stockJournal.isEnabled()) {
+            return;
+        }
+        Timestamp since = Timestamp.valueOf(LocalDateTime.now().minusDays(velocityWarmupDays));
+        int[] count = {0};
+        cursorTemplate.query(
+            "SELECT product_id, quantity, recorded_at FROM stock_movements WHERE movement_type = ? AND recorded_at >= ? " +
+            "ORDER BY recorded_at",
+            rs -> {
+                velocityTracker.record(rs.getLong("product_id"), rs.getInt("quantity"), rs.getTimestamp("recorded_at").getTime());
+                count[0]++;
+            },
+            MovementType.DEDUCTED.name(), since);
+        log.info("Warmed deduction velocities from {} journaled deductions", count[0]);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.journal.checkpoint-interval-ms:3600000}",
+               initialDelayString = "${inventory.journal.checkpoint-interval-ms:3600000}")
+    public void scheduledCheckpoint() {
+        if (!stockJournal.isEnabled() || running.get()) {
+            return;
+        }
+        checkpoint();
+    }
+
+    /**
+     * Folds movements recorded since the previous checkpoint into {@code inventory_checkpoints}.
+     */
+    public JournalRunDTO checkpoint() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A journal checkpoint or rebuild is already running");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            stockJournal.flush();
+            long previous = lastWatermark();
+            Timestamp cutoff = new Timestamp(System.currentTimeMillis() - checkpointLagMillis);
+            Long head = cursorTemplate.queryForObject(
+                "SELECT MAX(id) FROM stock_movements WHERE recorded_at < ?", Long.class, cutoff);
+            if (head == null || head <= previous) {
+                return new JournalRunDTO(previous, 0, 0, System.currentTimeMillis() - start);
+            }
+
+            JournalRunDTO run = transactionTemplate.execute(status -> {
+                Map<Long, Level> levels = new HashMap<>();
+                long movements = foldTail(previous, head, levels);
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                List<Object[]> updates = new ArrayList<>();
+                List<Object[]> inserts = new ArrayList<>();
+                levels.forEach((productId, level) -> {
+                    Object[] row = {level.values[0], level.values[1], level.lastMovementId, now, productId};
+                    (level.checkpointed ? updates : inserts).add(row);
+                });
+                cursorTemplate.batchUpdate(UPDATE_CHECKPOINT_SQL, updates);
+                cursorTemplate.batchUpdate(INSERT_CHECKPOINT_SQL, inserts);
+                cursorTemplate.update("INSERT INTO journal_checkpoints (watermark, products, created_at) VALUES (?, ?, ?)",
+                    head, levels.size(), now);
+                return new JournalRunDTO(head, movements, levels.size(), System.currentTimeMillis() - start);
+            });
+            log.info("Journal checkpoint at {} folded {} movements for {} products in {} ms",
+                run.getWatermark(), run.getMovements(), run.getProducts(), run.getDurationMillis());
+            return run;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Rewrites quantity and reserved quantity of every journaled product from the latest checkpoint
+     * plus the movements after it, in one transaction with every ledger stripe locked. Stock buckets
+     * are emptied, since their unreconciled changes are already in the journal. Meant for recovery:
+     * concurrent stock changes made outside the ledger while the rebuild is writing can be overwritten.
+     */
+    public JournalRunDTO rebuild() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A journal checkpoint or rebuild is already running");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            // Movements queued outside a transaction would otherwise be missing
+            stockJournal.flush();
+            long watermark = lastWatermark();
+
+            // Pending ledger deltas and their movements are written first, in the same transaction
+            JournalRunDTO run = stockLedger.rewriteAll(() -> transactionTemplate.execute(status -> {
+                Map<Long, Level> levels = new HashMap<>();
+                cursorTemplate.query("SELECT product_id, quantity, reserved_quantity, last_movement_id FROM inventory_checkpoints",
+                    rs -> {
+                        Level level = new Level(rs.getInt("quantity"), rs.getInt("reserved_quantity"));
+                        level.lastMovementId = rs.getLong("last_movement_id");
+                        levels.put(rs.getLong("product_id"), level);
+                    });
+                Long head = cursorTemplate.queryForObject("SELECT MAX(id) FROM stock_movements", Long.class);
+                long movements = head != null && head > watermark ? foldTail(watermark, head, levels) : 0;
+
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                List<Object[]> batch = new ArrayList<>(batchSize);
+                for (Map.Entry<Long, Level> entry : levels.entrySet()) {
+                    batch.add(new Object[] {entry.getValue().values[0], entry.getValue().values[1], now, entry.getKey()});
+                    if (batch.size() >= batchSize) {
+                        cursorTemplate.batchUpdate(REBUILD_SQL, batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    cursorTemplate.batchUpdate(REBUILD_SQL, batch);
+                }
+                stripedStock.resetBuckets();
+                return new JournalRunDTO(head != null ? head : watermark, movements, levels.size(),
+                    System.currentTimeMillis() - start);
+            }));
+            inventoryService.evictAllCachedInventory();
+            inventoryService.loadLowStockIndex();
+
+            log.info("Rebuilt {} products from checkpoint {} and {} journaled movements in {} ms",
+                run.getProducts(), watermark, run.getMovements(), run.getDurationMillis());
+            return run;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long lastWatermark() {
+        Long watermark = cursorTemplate.queryForObject("SELECT MAX(watermark) FROM journal_checkpoints", Long.class);
+        return watermark != null ? watermark : 0L;
+    }
+
+    private long foldTail(long afterId, long throughId, Map<Long, Level> levels) {
+        long[] count = {0};
+        cursorTemplate.query(TAIL_SQL, rs -> {
+            Long productId = rs.getLong("product_id");
+            Level level = levels.get(productId);
+            if (level == null) {
+                Integer quantity = rs.getObject("checkpoint_quantity", Integer.class);
+                level = quantity != null
+                    ? new Level(quantity, rs.getInt("checkpoint_reserved"))
+                    : new Level(0, 0);
+                level.checkpointed = quantity != null;
+                levels.put(productId, level);
+            }
+            StockJournal.apply(level.values, MovementType.valueOf(rs.getString("movement_type")),
+                rs.getInt("quantity"), rs.getObject("reserved_quantity", Integer.class));
+            level.lastMovementId = rs.getLong("id");
+            count[0]++;
+        }, afterId, throughId);
+        return count[0];
+    }
+
+    private static final class Level {
+        private final int[] values;
+        private long lastMovementId;
+        private boolean checkpointed;
+
+        private Level(int quantity, int reservedQuantity) {
+            this.values = new int[] {quantity, reservedQuantity};
+        }
+    }
+}
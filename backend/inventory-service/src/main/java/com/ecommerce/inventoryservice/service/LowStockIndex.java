@@ -0,0 +1,177 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.InventoryDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Set of products at or below their reorder level, maintained on every stock mutation so
+ * reads cost O(result) instead of a table scan. Products crossing the threshold in either
+ * direction are pushed to server-sent-event subscribers.
+ * <p>
+ * The index is per node: it is periodically reloaded from the table, which also publishes the
+ * crossings made by other nodes. A crossing seen on a mutation is confirmed against the latest
+ * level first, so a record applied out of order cannot flip a product back.
+ */
+@Slf4j
+@Component
+public class LowStockIndex {
+
+    private final ConcurrentNavigableMap<Long, InventoryDTO> lowStock = new ConcurrentSkipListMap<>();
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "low-stock-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long emitterTimeoutMillis;
+
+    public LowStockIndex(@Value("${inventory.low-stock.sse-timeout-ms:1800000}") long emitterTimeoutMillis) {
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+    }
+
+    public void load(Collection<InventoryDTO> items) {
+        Map<Long, InventoryDTO> loaded = new HashMap<>();
+        items.forEach(item -> loaded.put(item.getProductId(), item));
+        for (Long productId : lowStock.keySet()) {
+            if (!loaded.containsKey(productId)) {
+                lowStock.computeIfPresent(productId, (id, current) -> {
+                    InventoryDTO restocked = new InventoryDTO();
+                    BeanUtils.copyProperties(current, restocked);
+                    restocked.setLowStock(false);
+                    publish("restocked", restocked);
+                    return null;
+                });
+            }
+        }
+        loaded.values().forEach(this::apply);
+    }
+
+    public List<InventoryDTO> items() {
+        return new ArrayList<>(lowStock.values());
+    }
+
+    public Set<Long> productIds() {
+        return new HashSet<>(lowStock.keySet());
+    }
+
+    /**
+     * Records a product's level after a mutation. {@code latest} reads the current level and is
+     * called only when the record would cross the threshold.
+     */
+    public void record(InventoryDTO item, Supplier<InventoryDTO> latest) {
+        boolean low = isLow(item.getQuantity(), item.getReorderLevel());
+        if (low == lowStock.containsKey(item.getProductId())) {
+            if (low) {
+                lowStock.computeIfPresent(item.getProductId(), (id, current) -> item);
+            }
+            return;
+        }
+        InventoryDTO confirmed;
+        try {
+            confirmed = latest.get();
+        } catch (RuntimeException ex) {
+            log.debug("Could not confirm low-stock crossing for product {}", item.getProductId(), ex);
+            return;
+        }
+        if (confirmed == null) {
+            remove(item.getProductId());
+            return;
+        }
+        apply(confirmed);
+    }
+
+    /**
+     * Records a quantity change known only as counts. The full record is loaded only when the
+     * product newly crosses below its reorder level.
+     */
+    public void recordLevel(Long productId, int quantity, int reservedQuantity, Integer reorderLevel,
+                            Supplier<InventoryDTO> loader) {
+        InventoryDTO current = lowStock.get(productId);
+        if (current == null) {
+            if (isLow(quantity, reorderLevel)) {
+                apply(loader.get());
+            }
+            return;
+        }
+        InventoryDTO updated = new InventoryDTO();
+        BeanUtils.copyProperties(current, updated);
+        updated.setQuantity(quantity);
+        updated.setReservedQuantity(reservedQuantity);
+        updated.setAvailableQuantity(quantity - reservedQuantity);
+        updated.setLowStock(isLow(quantity, reorderLevel));
+        record(updated, loader);
+    }
+
+    public void remove(Long productId) {
+        lowStock.remove(productId);
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(error -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdownNow();
+        subscribers.forEach(SseEmitter::complete);
+    }
+
+    private void apply(InventoryDTO item) {
+        boolean low = isLow(item.getQuantity(), item.getReorderLevel());
+        lowStock.compute(item.getProductId(), (id, current) -> {
+            if (low && current == null) {
+                publish("low-stock", item);
+            } else if (!low && current != null) {
+                publish("restocked", item);
+            }
+            return low ? item : null;
+        });
+    }
+
+    private void publish(String eventName, InventoryDTO item) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        // Sends block on slow clients, so keep them off the mutating thread
+        notifier.execute(() -> {
+            for (SseEmitter emitter : subscribers) {
+                try {
+                    emitter.send(SseEmitter.event().name(eventName).data(item));
+                } catch (IOException | IllegalStateException ex) {
+                    log.debug("Dropping low-stock subscriber", ex);
+                    subscribers.remove(emitter);
+                }
+            }
+        });
+    }
+
+    private static boolean isLow(Integer quantity, Integer reorderLevel) {
+        return quantity != null && reorderLevel != null && quantity <= reorderLevel;
+    }
+
+}
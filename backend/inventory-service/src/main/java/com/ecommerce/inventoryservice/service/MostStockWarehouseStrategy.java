@@ -0,0 +1,28 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.entity.Warehouse;
+import com.ecommerce.inventoryservice.entity.WarehouseStock;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Component
+public class MostStockWarehouseStrategy implements WarehouseSelectionStrategy {
+
+    static final Comparator<WarehouseStock> MOST_AVAILABLE_FIRST =
+        Comparator.comparingInt((WarehouseStock stock) -> stock.getQuantity() - stock.getReservedQuantity()).reversed();
+
+    @Override
+    public String getName() {
+        return "most-stock";
+    }
+
+    @Override
+    public List<WarehouseStock> rank(List<WarehouseStock> candidates, Map<Long, Warehouse> warehouses,
+                                     Double latitude, Double longitude) {
+        return candidates.stream().sorted(MOST_AVAILABLE_FIRST).collect(Collectors.toList());
+    }
+}
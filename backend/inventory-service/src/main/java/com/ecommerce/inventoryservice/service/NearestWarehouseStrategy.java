@@ -0,0 +1,50 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.entity.Warehouse;
+import com.ecommerce.inventoryservice.entity.WarehouseStock;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Prefers the warehouse closest to the delivery coordinates by great-circle distance.
+ * Warehouses without coordinates, or requests without an origin, fall back to most stock first.
+ */
+@Component
+public class NearestWarehouseStrategy implements WarehouseSelectionStrategy {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    @Override
+    public String getName() {
+        return "nearest";
+    }
+
+    @Override
+    public List<WarehouseStock> rank(List<WarehouseStock> candidates, Map<Long, Warehouse> warehouses,
+                                     Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return candidates.stream().sorted(MostStockWarehouseStrategy.MOST_AVAILABLE_FIRST).collect(Collectors.toList());
+        }
+        Comparator<WarehouseStock> byDistance = Comparator.comparingDouble(
+            stock -> distanceKm(warehouses.get(stock.getWarehouseId()), latitude, longitude));
+        return candidates.stream()
+            .sorted(byDistance.thenComparing(MostStockWarehouseStrategy.MOST_AVAILABLE_FIRST))
+            .collect(Collectors.toList());
+    }
+
+    static double distanceKm(Warehouse warehouse, double latitude, double longitude) {
+        if (warehouse == null || warehouse.getLatitude() == null || warehouse.getLongitude() == null) {
+            return Double.MAX_VALUE;
+        }
+        double dLat = Math.toRadians(warehouse.getLatitude() - latitude);
+        double dLon = Math.toRadians(warehouse.getLongitude() - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(warehouse.getLatitude()))
+            * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+}
@@ -0,0 +1,342 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.PurchaseSuggestionDTO;
+import com.ecommerce.inventoryservice.dto.ReorderPlanDTO;
+import com.ecommerce.inventoryservice.entity.MovementType;
+import com.ecommerce.inventoryservice.entity.PurchaseSuggestion;
+import com.ecommerce.inventoryservice.repository.PurchaseSuggestionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Nightly purchase planning. Products are split into key ranges of {@code range-size} existing
+ * ids that are evaluated in parallel on a dedicated worker pool. Each range is read with one short autocommit SELECT,
+ * so no transaction spans the run and readers never block writers. A product is suggested when
+ * the stock left after the supplier lead time, at its recent deduction rate, falls to its
+ * reorder level. Deduction rates are folded from the shared movement journal so every node
+ * plans from the same history. Suggestions are inserted in JDBC batches, each in its own
+ * transaction.
+ * <p>
+ * Only one node plans at a time: a run holds the {@code reorder-planner} row of
+ * {@code scheduler_leases}, renewed as ranges complete. Runs are recorded in
+ * {@code reorder_runs}; once a run completes, only suggestions of earlier completed runs are
+ * removed, and a failed run removes its own.
+ */
+@Slf4j
+@Service
+public class ReorderPlanner {
+
+    private static final String LEASE_NAME = "reorder-planner";
+    private static final String RUNNING = "RUNNING";
+    private static final String COMPLETED = "COMPLETED";
+    private static final String FAILED = "FAILED";
+
+    private static final String RANGE_SQL =
+        "SELECT product_id, quantity, reserved_quantity, reorder_level, reorder_quantity FROM inventory " +
+        "WHERE product_id BETWEEN ? AND ?";
+    private static final String RANGE_END_SQL =
+        "SELECT product_id FROM inventory WHERE product_id >= ? ORDER BY product_id OFFSET ? ROWS FETCH NEXT 1 ROWS ONLY";
+    private static final String DEDUCTIONS_SQL =
+        "SELECT product_id, quantity, recorded_at FROM stock_movements " +
+        "WHERE movement_type = ? AND recorded_at >= ? AND product_id BETWEEN ? AND ?";
+    private static final String INSERT_SQL =
+        "INSERT INTO purchase_suggestions (run_id, product_id, available_quantity, daily_velocity, suggested_quantity, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SUPERSEDED_SUGGESTIONS_SQL =
+        "DELETE FROM purchase_suggestions WHERE run_id IN " +
+        "(SELECT run_id FROM reorder_runs WHERE status = 'COMPLETED' AND run_id <> ? AND completed_at <= ?)";
+    private static final String SUPERSEDED_RUNS_SQL =
+        "DELETE FROM reorder_runs WHERE status <> 'RUNNING' AND run_id <> ? AND completed_at <= ?";
+    private static final String LATEST_RUN_SQL =
+        "SELECT run_id FROM reorder_runs WHERE status = 'COMPLETED' " +
+        "AND completed_at = (SELECT MAX(completed_at) FROM reorder_runs WHERE status = 'COMPLETED')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PurchaseSuggestionRepository purchaseSuggestionRepository;
+    private final DeductionVelocityTracker velocityTracker;
+    private final StockJournal stockJournal;
+    private final StockLedger stockLedger;
+    private final long rangeSize;
+    private final int batchSize;
+    private final double leadTimeDays;
+    private final int velocityWindowDays;
+    private final ClusterLease lease;
+    private final ThreadPoolExecutor workers;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private volatile ReorderPlanDTO lastPlan;
+
+    public ReorderPlanner(JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          PurchaseSuggestionRepository purchaseSuggestionRepository,
+                          DeductionVelocityTracker velocityTracker,
+                          StockJournal stockJournal,
+                          StockLedger stockLedger,
+                          @Value("${inventory.reorder.range-size:50000}") long rangeSize,
+                          @Value("${inventory.reorder.batch-size:1000}") int batchSize,
+                          @Value("${inventory.reorder.lead-time-days:7}") double leadTimeDays,
+                          @Value("${inventory.reorder.parallelism:4}") int parallelism,
+                          @Value("${inventory.reorder.velocity-window-days:14}") int velocityWindowDays,
+                          @Value("${inventory.reorder.lease-seconds:3600}") long leaseSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.purchaseSuggestionRepository = purchaseSuggestionRepository;
+        this.velocityTracker = velocityTracker;
+        this.stockJournal = stockJournal;
+        this.stockLedger = stockLedger;
+        this.rangeSize = rangeSize;
+        this.batchSize = batchSize;
+        this.leadTimeDays = leadTimeDays;
+        this.velocityWindowDays = velocityWindowDays;
+        this.lease = new ClusterLease(jdbcTemplate, LEASE_NAME, leaseSeconds);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "reorder-planner-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Scheduled(cron = "${inventory.reorder.cron:0 0 2 * * *}")
+    public void scheduledPlan() {
+        if (running.get()) {
+            log.info("Skipping scheduled reorder planning, a run is already in progress");
+            return;
+        }
+        if (!tryPlan().isPresent()) {
+            log.info("Skipping scheduled reorder planning, another node holds the lease");
+        }
+    }
+
+    public ReorderPlanDTO plan() {
+        return tryPlan().orElseThrow(() -> new RuntimeException("Reorder planning is already running on another node"));
+    }
+
+    private Optional<ReorderPlanDTO> tryPlan() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Reorder planning is already running");
+        }
+        try {
+            if (!acquireLease()) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(runPlan());
+            } finally {
+                releaseLease();
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ReorderPlanDTO runPlan() {
+        long start = System.currentTimeMillis();
+        String runId = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO reorder_runs (run_id, status, started_at) VALUES (?, ?, ?)",
+            runId, RUNNING, Timestamp.valueOf(LocalDateTime.now()));
+        RangeResult result = new RangeResult();
+        try {
+            Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(product_id) AS lo, MAX(product_id) AS hi FROM inventory");
+            if (bounds.get("lo") != null) {
+                long lo = ((Number) bounds.get("lo")).longValue();
+                long hi = ((Number) bounds.get("hi")).longValue();
+                List<Future<RangeResult>> pending = new ArrayList<>();
+                for (long from = lo; from <= hi; ) {
+                    long rangeLo = from;
+                    long rangeHi = rangeEnd(from, hi);
+                    pending.add(workers.submit(() -> planRange(runId, rangeLo, rangeHi)));
+                    from = rangeHi + 1;
+                }
+                for (Future<RangeResult> future : pending) {
+                    result.merge(await(future, pending));
+                    if (!acquireLease()) {
+                        pending.forEach(other -> other.cancel(true));
+                        throw new RuntimeException("Reorder planning lease was taken over by another node");
+                    }
+                }
+            }
+        } catch (RuntimeException ex) {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM purchase_suggestions WHERE run_id = ?", runId);
+                jdbcTemplate.update("UPDATE reorder_runs SET status = ?, completed_at = ? WHERE run_id = ?",
+                    FAILED, Timestamp.valueOf(LocalDateTime.now()), runId);
+            });
+            throw ex;
+        }
+        Timestamp completedAt = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE reorder_runs SET status = ?, completed_at = ? WHERE run_id = ?",
+                COMPLETED, completedAt, runId);
+            jdbcTemplate.update(SUPERSEDED_SUGGESTIONS_SQL, runId, completedAt);
+            jdbcTemplate.update(SUPERSEDED_RUNS_SQL, runId, completedAt);
+        });
+
+        ReorderPlanDTO plan = new ReorderPlanDTO(runId, result.scanned, result.suggested, result.ranges,
+            System.currentTimeMillis() - start, LocalDateTime.now().format(formatter));
+        lastPlan = plan;
+        log.info("Reorder plan {} scanned {} products in {} ranges and suggested {} in {} ms",
+            runId, plan.getScanned(), plan.getRanges(), plan.getSuggested(), plan.getDurationMillis());
+        return plan;
+    }
+
+    // Ranges end on the range-size'th existing id, so sparse id spaces don't yield empty ranges
+    private long rangeEnd(long from, long hi) {
+        return jdbcTemplate.queryForList(RANGE_END_SQL, Long.class, from, rangeSize - 1).stream()
+            .findFirst().orElse(hi);
+    }
+
+    boolean acquireLease() {
+        return lease.acquire();
+    }
+
+    private void releaseLease() {
+        lease.release();
+    }
+
+    private RangeResult planRange(String runId, long lo, long hi) {
+        RangeResult result = new RangeResult();
+        List<Object[]> suggestions = evaluateRange(runId, lo, hi, result);
+        write(suggestions);
+        result.suggested = suggestions.size();
+        result.ranges = 1;
+        return result;
+    }
+
+    private RangeResult await(Future<RangeResult> future, List<Future<RangeResult>> pending) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            pending.forEach(other -> other.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while planning reorders", ex);
+        } catch (ExecutionException ex) {
+            pending.forEach(other -> other.cancel(true));
+            throw new RuntimeException("Reorder planning failed", ex.getCause());
+        }
+    }
+
+    public ReorderPlanDTO getLastPlan() {
+        return lastPlan;
+    }
+
+    public Page<PurchaseSuggestionDTO> getSuggestions(int page, int size) {
+        // Read from the database rather than lastPlan, since the run may have completed on another node
+        String runId = jdbcTemplate.queryForList(LATEST_RUN_SQL, String.class).stream().findFirst().orElse(null);
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by("productId"));
+        if (runId == null) {
+            return new PageImpl<>(new ArrayList<>(), pageRequest, 0);
+        }
+        return purchaseSuggestionRepository.findByRunId(runId, pageRequest).map(this::convertToDTO);
+    }
+
+    List<Object[]> evaluateRange(String runId, long lo, long hi, RangeResult result) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        DeductionVelocityTracker velocities = velocitiesFor(lo, hi);
+        List<Object[]> suggestions = new ArrayList<>();
+        jdbcTemplate.query(RANGE_SQL, rs -> {
+            long productId = rs.getLong("product_id");
+            int quantity = rs.getInt("quantity");
+            int reserved = rs.getInt("reserved_quantity");
+            Optional<StockLedger.Level> level = stockLedger.level(productId);
+            if (level.isPresent()) {
+                quantity = level.get().getQuantity();
+                reserved = level.get().getReservedQuantity();
+            }
+            result.scanned++;
+            double velocity = velocities.dailyRate(productId);
+            int suggestedQuantity = suggestedQuantity(quantity - reserved, velocity,
+                rs.getInt("reorder_level"), rs.getInt("reorder_quantity"));
+            if (suggestedQuantity > 0) {
+                suggestions.add(new Object[] {runId, productId, quantity - reserved, velocity, suggestedQuantity, now});
+            }
+        }, lo, hi);
+        return suggestions;
+    }
+
+    private DeductionVelocityTracker velocitiesFor(long lo, long hi) {
+        if (!stockJournal.isEnabled()) {
+            // Without the journal only this node's own deductions are known
+            return velocityTracker;
+        }
+        DeductionVelocityTracker velocities = velocityTracker.detached();
+        Timestamp since = Timestamp.valueOf(LocalDateTime.now().minusDays(velocityWindowDays));
+        jdbcTemplate.query(DEDUCTIONS_SQL, (RowCallbackHandler) rs ->
+            velocities.record(rs.getLong("product_id"), rs.getInt("quantity"), rs.getTimestamp("recorded_at").getTime()),
+            MovementType.DEDUCTED.name(), since, lo, hi);
+        return velocities;
+    }
+
+    int suggestedQuantity(int available, double dailyVelocity, int reorderLevel, int reorderQuantity) {
+        double demand = dailyVelocity * leadTimeDays;
+        if (available - demand > reorderLevel) {
+            return 0;
+        }
+        // Cover lead-time demand and refill to the reorder level, never ordering less than the usual lot
+        return Math.max(reorderQuantity, (int) Math.ceil(reorderLevel + demand - available));
+    }
+
+    private void write(List<Object[]> suggestions) {
+        for (int from = 0; from < suggestions.size(); from += batchSize) {
+            List<Object[]> batch = suggestions.subList(from, Math.min(from + batchSize, suggestions.size()));
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+        }
+    }
+
+    private PurchaseSuggestionDTO convertToDTO(PurchaseSuggestion suggestion) {
+        PurchaseSuggestionDTO dto = new PurchaseSuggestionDTO();
+        dto.setProductId(suggestion.getProductId());
+        dto.setAvailableQuantity(suggestion.getAvailableQuantity());
+        dto.setDailyVelocity(suggestion.getDailyVelocity());
+        dto.setSuggestedQuantity(suggestion.getSuggestedQuantity());
+        dto.setCreatedAt(suggestion.getCreatedAt() != null ? suggestion.getCreatedAt().format(formatter) : null);
+        return dto;
+    }
+
+    static final class RangeResult {
+        private long scanned;
+        private long suggested;
+        private int ranges;
+
+        private RangeResult merge(RangeResult other) {
+            scanned += other.scanned;
+            suggested += other.suggested;
+            ranges += other.ranges;
+            return this;
+        }
+    }
+}
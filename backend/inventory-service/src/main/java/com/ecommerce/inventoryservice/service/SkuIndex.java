@@ -0,0 +1,195 @@
+package com.ecommerce.inventoryservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+/**
+ * In-memory index from SKU to productId, held as two parallel arrays sorted by SKU so exact and
+ * prefix lookups are binary searches with no per-entry objects besides the SKU strings. Single
+ * inserts go to a small sorted overflow set that lookups merge with the arrays, so an insert
+ * never copies them; a periodic reload rebuilds the arrays from the table, which also picks up
+ * rows written by other instances, and starts a new overflow.
+ */
+@Slf4j
+@Component
+public class SkuIndex {
+
+    private static final Comparator<Entry> ORDER =
+        Comparator.comparing((Entry entry) -> entry.sku).thenComparingLong(entry -> entry.productId);
+
+    private final JdbcTemplate cursorTemplate;
+    private final Object reloadLock = new Object();
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new long[0]);
+    // Guarded by this; puts made while a reload scans the table, carried into the new overflow
+    private List<Entry> putsDuringReload;
+
+    public SkuIndex(DataSource dataSource,
+                    @Value("${inventory.sku-index.fetch-size:5000}") int fetchSize) {
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${inventory.sku-index.refresh-interval-ms:300000}",
+               initialDelayString = "${inventory.sku-index.refresh-interval-ms:300000}")
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                putsDuringReload = new ArrayList<>();
+            }
+            try {
+                List<Entry> entries = new ArrayList<>();
+                cursorTemplate.query("SELECT product_sku, product_id FROM inventory WHERE product_sku IS NOT NULL",
+                    rs -> {
+                        entries.add(new Entry(rs.getString("product_sku"), rs.getLong("product_id")));
+                    });
+                entries.sort(ORDER);
+                String[] skus = new String[entries.size()];
+                long[] productIds = new long[entries.size()];
+                for (int i = 0; i < entries.size(); i++) {
+                    skus[i] = entries.get(i).sku;
+                    productIds[i] = entries.get(i).productId;
+                }
+                synchronized (this) {
+                    Snapshot loaded = new Snapshot(skus, productIds);
+                    for (Entry entry : putsDuringReload) {
+                        loaded.add(entry);
+                    }
+                    snapshot = loaded;
+                }
+                log.debug("SKU index loaded with {} entries", skus.length);
+            } finally {
+                synchronized (this) {
+                    putsDuringReload = null;
+                }
+            }
+        }
+    }
+
+    public synchronized void put(String sku, long productId) {
+        if (sku == null) {
+            return;
+        }
+        Entry entry = new Entry(sku, productId);
+        if (putsDuringReload != null) {
+            putsDuringReload.add(entry);
+        }
+        snapshot.add(entry);
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current.skus.length + current.overflow.size();
+    }
+
+    /**
+     * Product ids whose SKU starts with {@code prefix}, in SKU order.
+     */
+    public List<Long> findByPrefix(String prefix, int limit) {
+        List<Long> productIds = new ArrayList<>(Math.min(limit, 64));
+        snapshot.scan(prefix, sku -> sku.startsWith(prefix), productIds, limit);
+        return productIds;
+    }
+
+    /**
+     * Product ids of every exact SKU match, in request order without duplicates.
+     */
+    public Set<Long> findBySkus(Collection<String> skus) {
+        Snapshot current = snapshot;
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (String sku : skus) {
+            if (sku != null) {
+                current.scan(sku, sku::equals, productIds, Integer.MAX_VALUE);
+            }
+        }
+        return productIds;
+    }
+
+    private static int lowerBound(String[] skus, String key) {
+        int index = Arrays.binarySearch(skus, key);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // Step back to the first of several rows sharing this SKU
+        while (index > 0 && skus[index - 1].equals(key)) {
+            index--;
+        }
+        return index;
+    }
+
+    private static final class Snapshot {
+        private final String[] skus;
+        private final long[] productIds;
+        private final NavigableSet<Entry> overflow = new ConcurrentSkipListSet<>(ORDER);
+
+        private Snapshot(String[] skus, long[] productIds) {
+            this.skus = skus;
+            this.productIds = productIds;
+        }
+
+        private void add(Entry entry) {
+            for (int i = lowerBound(skus, entry.sku); i < skus.length && skus[i].equals(entry.sku); i++) {
+                if (productIds[i] == entry.productId) {
+                    return;
+                }
+            }
+            overflow.add(entry);
+        }
+
+        /**
+         * Walks the arrays and the overflow together in SKU order from {@code from}, collecting
+         * product ids while {@code matches} holds.
+         */
+        private void scan(String from, Predicate<String> matches, Collection<Long> into, int limit) {
+            int i = lowerBound(skus, from);
+            Iterator<Entry> extra = overflow.tailSet(new Entry(from, Long.MIN_VALUE)).iterator();
+            Entry next = extra.hasNext() ? extra.next() : null;
+            while (into.size() < limit) {
+                boolean fromArray = i < skus.length && (next == null || precedes(skus[i], productIds[i], next));
+                String sku = fromArray ? skus[i] : next != null ? next.sku : null;
+                if (sku == null || !matches.test(sku)) {
+                    return;
+                }
+                if (fromArray) {
+                    into.add(productIds[i++]);
+                } else {
+                    into.add(next.productId);
+                    next = extra.hasNext() ? extra.next() : null;
+                }
+            }
+        }
+
+        private static boolean precedes(String sku, long productId, Entry entry) {
+            int order = sku.compareTo(entry.sku);
+            return order < 0 || order == 0 && productId < entry.productId;
+        }
+    }
+
+    private static final class Entry {
+        private final String sku;
+        private final long productId;
+
+        private Entry(String sku, long productId) {
+            this.sku = sku;
+            this.productId = productId;
+        }
+    }
+}
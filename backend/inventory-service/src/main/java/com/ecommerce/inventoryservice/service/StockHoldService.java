@@ -0,0 +1,204 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.StockHoldDTO;
+import com.ecommerce.inventoryservice.entity.HoldStatus;
+import com.ecommerce.inventoryservice.entity.StockHold;
+import com.ecommerce.inventoryservice.repository.StockHoldRepository;
+import com.ecommerce.inventoryservice.util.HashedTimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class StockHoldService {
+
+    private static final int EXPIRY_CHUNK_SIZE = 500;
+    private static final long EXPIRY_RETRY_DELAY_MS = 5000;
+
+    private final StockHoldRepository stockHoldRepository;
+    private final InventoryService inventoryService;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final HashedTimingWheel<String> expiryWheel;
+    private final long defaultTtlSeconds;
+    private final long maxTtlSeconds;
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public StockHoldService(StockHoldRepository stockHoldRepository,
+                            InventoryService inventoryService,
+                            OptimisticLockRetry optimisticLockRetry,
+                            @Value("${inventory.holds.default-ttl-seconds:900}") long defaultTtlSeconds,
+                            @Value("${inventory.holds.max-ttl-seconds:3600}") long maxTtlSeconds,
+                            @Value("${inventory.holds.tick-ms:100}") long tickMillis,
+                            @Value("${inventory.holds.wheel-size:512}") int wheelSize) {
+        this.stockHoldRepository = stockHoldRepository;
+        this.inventoryService = inventoryService;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.expiryWheel = new HashedTimingWheel<>(tickMillis, wheelSize, this::expireHolds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Re-arm holds that were active when the service last stopped; overdue ones fire on the first tick
+        LocalDateTime now = LocalDateTime.now();
+        for (StockHold hold : stockHoldRepository.findByStatus(HoldStatus.ACTIVE)) {
+            expiryWheel.schedule(hold.getHoldId(), Duration.between(now, hold.getExpiresAt()).toMillis());
+        }
+        expiryWheel.start("stock-hold-expiry");
+    }
+
+    @PreDestroy
+    public void stop() {
+        expiryWheel.stop();
+    }
+
+    /**
+     * Reserves stock under a hold that is released automatically once its TTL elapses. The
+     * reservation and the hold commit together. Returns {@code null} when there is not enough stock.
+     */
+    @Transactional
+    public StockHoldDTO holdStock(Long productId, Integer quantity, Long ttlSeconds) {
+        long ttl = Math.min(ttlSeconds != null && ttlSeconds > 0 ? ttlSeconds : defaultTtlSeconds, maxTtlSeconds);
+        if (!inventoryService.reserveStock(productId, quantity)) {
+            return null;
+        }
+
+        StockHold hold = new StockHold();
+        hold.setHoldId(UUID.randomUUID().toString());
+        hold.setProductId(productId);
+        hold.setQuantity(quantity);
+        hold.setStatus(HoldStatus.ACTIVE);
+        hold.setExpiresAt(LocalDateTime.now().plusSeconds(ttl));
+
+        StockHold savedHold = stockHoldRepository.saveAndFlush(hold);
+        afterCommit(() -> expiryWheel.schedule(savedHold.getHoldId(), ttl * 1000));
+        return convertToDTO(savedHold);
+    }
+
+    public StockHoldDTO getHold(String holdId) {
+        StockHold hold = stockHoldRepository.findByHoldId(holdId)
+            .orElseThrow(() -> new RuntimeException("Stock hold not found"));
+        return convertToDTO(hold);
+    }
+
+    public StockHoldDTO releaseHold(String holdId) {
+        return optimisticLockRetry.execute(status -> {
+            StockHoldDTO hold = settle(holdId, HoldStatus.RELEASED);
+            inventoryService.releaseStock(hold.getProductId(), hold.getQuantity());
+            return hold;
+        });
+    }
+
+    public StockHoldDTO confirmHold(String holdId) {
+        return optimisticLockRetry.execute(status -> {
+            StockHoldDTO hold = settle(holdId, HoldStatus.CONFIRMED);
+            inventoryService.deductStock(hold.getProductId(), hold.getQuantity());
+            return hold;
+        });
+    }
+
+    /**
+     * Expires holds whose TTL has passed without a wheel firing for them, e.g. holds placed by a
+     * node that has stopped.
+     */
+    @Scheduled(fixedDelayString = "${inventory.holds.sweep-interval-ms:60000}")
+    public void sweepExpiredHolds() {
+        List<StockHold> due;
+        int expired;
+        do {
+            due = stockHoldRepository.findTop500ByStatusAndExpiresAtBeforeOrderByExpiresAt(
+                HoldStatus.ACTIVE, LocalDateTime.now());
+            expired = expireHolds(due.stream().map(StockHold::getHoldId).collect(Collectors.toList()));
+        } while (due.size() == EXPIRY_CHUNK_SIZE && expired > 0);
+    }
+
+    int expireHolds(List<String> holdIds) {
+        int expired = 0;
+        for (int from = 0; from < holdIds.size(); from += EXPIRY_CHUNK_SIZE) {
+            List<String> chunk = holdIds.subList(from, Math.min(from + EXPIRY_CHUNK_SIZE, holdIds.size()));
+            try {
+                int chunkExpired = optimisticLockRetry.execute(status -> expireChunk(chunk));
+                expired += chunkExpired;
+                log.debug("Expired {} of {} due stock holds", chunkExpired, chunk.size());
+            } catch (RuntimeException ex) {
+                log.warn("Failed to expire {} stock holds, retrying later", chunk.size(), ex);
+                chunk.forEach(holdId -> expiryWheel.schedule(holdId, EXPIRY_RETRY_DELAY_MS));
+            }
+        }
+        return expired;
+    }
+
+    private int expireChunk(List<String> holdIds) {
+        List<StockHold> holds = stockHoldRepository.findByHoldIdInAndStatus(holdIds, HoldStatus.ACTIVE);
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Integer> releasedByProduct = new HashMap<>();
+        int expired = 0;
+        for (StockHold hold : holds) {
+            // Another node's sweep or a release or confirm may have settled the hold since it was read
+            if (stockHoldRepository.transition(hold.getHoldId(), HoldStatus.ACTIVE, HoldStatus.EXPIRED, now) == 1) {
+                releasedByProduct.merge(hold.getProductId(), hold.getQuantity(), Integer::sum);
+                expired++;
+            }
+        }
+        releasedByProduct.forEach(inventoryService::releaseStock);
+        return expired;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Moves an active hold to {@code to}. The update is conditional on the hold still being
+     * active, so of two concurrent settlements only one moves its stock.
+     */
+    private StockHoldDTO settle(String holdId, HoldStatus to) {
+        StockHold hold = stockHoldRepository.findByHoldId(holdId)
+            .orElseThrow(() -> new RuntimeException("Stock hold not found"));
+        if (hold.getStatus() != HoldStatus.ACTIVE
+                || stockHoldRepository.transition(holdId, HoldStatus.ACTIVE, to, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("Stock hold is no longer active");
+        }
+        StockHoldDTO dto = convertToDTO(hold);
+        dto.setStatus(to);
+        return dto;
+    }
+
+    private StockHoldDTO convertToDTO(StockHold hold) {
+        StockHoldDTO dto = new StockHoldDTO();
+        dto.setHoldId(hold.getHoldId());
+        dto.setProductId(hold.getProductId());
+        dto.setQuantity(hold.getQuantity());
+        dto.setStatus(hold.getStatus());
+        dto.setExpiresAt(hold.getExpiresAt() != null ? hold.getExpiresAt().format(formatter) : null);
+        dto.setCreatedAt(hold.getCreatedAt() != null ? hold.getCreatedAt().format(formatter) : null);
+        return dto;
+    }
+}
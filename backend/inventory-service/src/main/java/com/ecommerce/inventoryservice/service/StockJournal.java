@@ -0,0 +1,235 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.InventoryImportRowDTO;
+import com.ecommerce.inventoryservice.dto.StockMovementDTO;
+import com.ecommerce.inventoryservice.entity.MovementType;
+import com.ecommerce.inventoryservice.entity.StockMovement;
+import com.ecommerce.inventoryservice.repository.StockMovementRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Append-only journal of stock movements.
+ * <p>
+ * Movements recorded inside a transaction are buffered and written as one JDBC batch just
+ * before that transaction commits, so they commit or roll back together with the change
+ * they describe. Movements of the in-memory ledger are held with its pending deltas and
+ * written by the transaction that flushes them, so ids follow the order in which the
+ * {@code inventory} rows took the changes. Movements recorded outside any transaction are
+ * queued and written behind in batches, in the order they were recorded.
+ * <p>
+ * Releases and deductions record the reservation they actually gave back, so a replay applies
+ * every movement as recorded.
+ */
+@Slf4j
+@Component
+public class StockJournal {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO stock_movements (product_id, movement_type, quantity, reserved_quantity, recorded_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockMovementRepository stockMovementRepository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Queue<Object[]> pending = new ConcurrentLinkedQueue<>();
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private List<Object[]> failedBatch;
+
+    public StockJournal(JdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate,
+                        StockMovementRepository stockMovementRepository,
+                        @Value("${inventory.journal.enabled:true}") boolean enabled,
+                        @Value("${inventory.journal.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.stockMovementRepository = stockMovementRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a movement made through the database. Inside a transaction the movement is
+     * written with it; otherwise it is queued.
+     */
+    public void append(Long productId, MovementType type, int quantity, Integer reservedQuantity) {
+        if (!enabled) {
+            return;
+        }
+        Object[] row = row(productId, type, quantity, reservedQuantity);
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()) {
+            transactionBuffer().add(row);
+        } else {
+            pending.add(row);
+        }
+    }
+
+    /**
+     * Records rows written through the batched upsert as absolute levels. {@code counts} are the
+     * upsert's update counts; rows it did not write are skipped. Product ids of rows matched by
+     * SKU must have been resolved first.
+     */
+    public void appendUpserted(List<InventoryImportRowDTO> rows, int[] counts) {
+        for (int i = 0; i < rows.size(); i++) {
+            InventoryImportRowDTO row = rows.get(i);
+            if (counts[i] == 0 || row.getQuantity() == null) {
+                continue;
+            }
+            if (row.getProductId() == null) {
+                throw new RuntimeException("Product id of SKU " + row.getProductSku() + " was not resolved");
+            }
+            append(row.getProductId(), MovementType.SET, row.getQuantity(), row.getReservedQuantity());
+        }
+    }
+
+    /**
+     * Writes movements the in-memory ledger held with its deltas. Joins the ledger's flush
+     * transaction.
+     */
+    void writeFlushed(List<Object[]> rows, Timestamp recordedAt) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        for (Object[] row : rows) {
+            row[4] = recordedAt;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    public Page<StockMovementDTO> getMovements(Long productId, int page, int size) {
+        return stockMovementRepository.findByProductIdOrderByIdDesc(productId, PageRequest.of(page, size))
+            .map(this::convertToDTO);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.journal.flush-interval-ms:200}")
+    public synchronized void flush() {
+        if (failedBatch != null) {
+            // Retry the failed batch first so queued movements keep their order
+            if (!writeBehind(failedBatch)) {
+                return;
+            }
+            failedBatch = null;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        Object[] row;
+        while ((row = pending.poll()) != null) {
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                if (!writeBehind(batch)) {
+                    failedBatch = batch;
+                    return;
+                }
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty() && !writeBehind(batch)) {
+            failedBatch = batch;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private boolean writeBehind(List<Object[]> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+            return true;
+        } catch (DataAccessException ex) {
+            log.warn("Journal write of {} movements failed, retrying on the next flush", batch.size(), ex);
+            return false;
+        }
+    }
+
+    static Object[] row(Long productId, MovementType type, int quantity, Integer reservedQuantity) {
+        return new Object[] {productId, type.name(), quantity, reservedQuantity, Timestamp.valueOf(LocalDateTime.now())};
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> transactionBuffer() {
+        List<Object[]> buffer = (List<Object[]>) TransactionSynchronizationManager.getResource(this);
+        if (buffer != null) {
+            return buffer;
+        }
+        List<Object[]> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(StockJournal.this);
+            }
+        });
+        return created;
+    }
+
+    private StockMovementDTO convertToDTO(StockMovement movement) {
+        StockMovementDTO dto = new StockMovementDTO();
+        dto.setId(movement.getId());
+        dto.setProductId(movement.getProductId());
+        dto.setMovementType(movement.getMovementType());
+        dto.setQuantity(movement.getQuantity());
+        dto.setReservedQuantity(movement.getReservedQuantity());
+        dto.setRecordedAt(movement.getRecordedAt() != null ? movement.getRecordedAt().format(formatter) : null);
+        return dto;
+    }
+
+    /**
+     * Applies one movement to a {quantity, reserved} pair as it was recorded.
+     */
+    static void apply(int[] level, MovementType type, int quantity, Integer reservedQuantity) {
+        switch (type) {
+            case SET:
+                level[0] = quantity;
+                if (reservedQuantity != null) {
+                    level[1] = reservedQuantity;
+                }
+                break;
+            case ADJUSTED:
+                level[0] += quantity;
+                break;
+            case RESERVED:
+                level[1] += quantity;
+                break;
+            case RELEASED:
+                level[1] -= quantity;
+                break;
+            case DEDUCTED:
+                level[0] -= quantity;
+                // Deductions journaled before the consumed reservation was recorded fall back to the service rule
+                level[1] = reservedQuantity != null ? level[1] - reservedQuantity : Math.max(0, level[1] - quantity);
+                break;
+            default:
+                throw new IllegalStateException("Unknown movement type " + type);
+        }
+    }
+}
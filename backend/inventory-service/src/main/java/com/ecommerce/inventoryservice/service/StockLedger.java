@@ -0,0 +1,684 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.entity.Inventory;
+import com.ecommerce.inventoryservice.entity.MovementType;
+import com.ecommerce.inventoryservice.repository.InventoryRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * In-memory stock ledger used when {@code inventory.ledger.enabled=true}.
+ * <p>
+ * Available and reserved counts are kept per product in lock-striped maps and are the
+ * source of truth for admission decisions on this node. Changes are accumulated as
+ * deltas and flushed to the {@code inventory} table in coalesced JDBC batches, so any
+ * number of reservations against a product between two flushes costs one UPDATE. Journal
+ * movements are held with the deltas and written in the same transaction.
+ * <p>
+ * Counts are loaded once and never re-read, so only one node may admit against them: the
+ * ledger works only while this node holds the {@code stock-ledger} row of
+ * {@code scheduler_leases}. On a node without it every stock change fails until the lease is
+ * free, and a node that takes the lease over drops whatever it had loaded before.
+ */
+@Slf4j
+@Component
+public class StockLedger {
+
+    private static final String LEASE_NAME = "stock-ledger";
+    private static final String FLUSH_SQL =
+        "UPDATE inventory SET quantity = quantity + ?, reserved_quantity = reserved_quantity + ?, " +
+        "last_restocked_at = COALESCE(?, last_restocked_at), version = version + 1, updated_at = ? WHERE product_id = ?";
+
+    private final InventoryRepository inventoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockJournal stockJournal;
+    private final boolean enabled;
+    private final int flushBatchSize;
+    private final Stripe[] stripes;
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Object[]> deadLetters = new ConcurrentHashMap<>();
+    // Deltas drained by a flush or evict must reach the table before a rewrite replaces the rows, so
+    // drains hold this exclusively; rewrites share it and otherwise only lock their own stripes
+    private final ReadWriteLock drainLock = new ReentrantReadWriteLock();
+    private final ClusterLease lease;
+    private final long leaseMillis;
+    private volatile long leaseValidUntil;
+
+    public StockLedger(InventoryRepository inventoryRepository,
+                       JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       StockJournal stockJournal,
+                       @Value("${inventory.ledger.enabled:false}") boolean enabled,
+                       @Value("${inventory.ledger.stripes:64}") int stripeCount,
+                       @Value("${inventory.ledger.flush-batch-size:500}") int flushBatchSize,
+                       @Value("${inventory.ledger.lease-seconds:30}") long leaseSeconds) {
+        this.inventoryRepository = inventoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.stockJournal = stockJournal;
+        this.enabled = enabled;
+        this.flushBatchSize = flushBatchSize;
+        this.lease = new ClusterLease(jdbcTemplate, LEASE_NAME, leaseSeconds);
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(leaseSeconds);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes or renews the ledger lease; runs from startup on.
+     */
+    @Scheduled(fixedDelayString = "${inventory.ledger.lease-renew-interval-ms:10000}")
+    public void renewLease() {
+        if (!enabled) {
+            return;
+        }
+        long since = System.currentTimeMillis();
+        boolean held;
+        try {
+            held = lease.acquire();
+        } catch (DataAccessException ex) {
+            log.warn("Could not renew the stock ledger lease", ex);
+            return;
+        }
+        if (!held) {
+            if (leaseValidUntil != 0) {
+                log.error("Stock ledger lease is held by another node; stock changes fail on this node");
+            }
+            leaseValidUntil = 0;
+            return;
+        }
+        if (leaseValidUntil <= since) {
+            // Another node may have changed stock since anything was loaded here
+            rewriteAll(() -> null);
+            log.info("Stock ledger lease taken");
+        }
+        leaseValidUntil = since + leaseMillis;
+    }
+
+    public boolean reserve(Long productId, int quantity) {
+        Stripe stripe = stripeFor(productId);
+        Entry entry = entryFor(productId, stripe);
+        stripe.lock.lock();
+        try {
+            if (entry.quantity - entry.reserved < quantity) {
+                return false;
+            }
+            entry.changeReserved(quantity);
+            journal(entry, MovementType.RESERVED, quantity, null);
+        } finally {
+            stripe.lock.unlock();
+        }
+        dirty.add(productId);
+        return true;
+    }
+
+    /**
+     * Reserves every product in {@code requested} or none of them. Stripe locks are taken in
+     * ascending stripe order so concurrent batches cannot deadlock. The stock available to
+     * each known product before the call is written to {@code available}.
+     */
+    public boolean reserveAll(Map<Long, Integer> requested, Map<Long, Integer> available) {
+        Map<Long, Entry> entries = new HashMap<>();
+        TreeSet<Integer> stripeIndexes = new TreeSet<>();
+        for (Long productId : requested.keySet()) {
+            int index = stripeIndex(productId);
+            // An unknown product is reported as unavailable below
+            findEntry(productId, stripes[index]).ifPresent(entry -> {
+                entries.put(productId, entry);
+                stripeIndexes.add(index);
+            });
+        }
+
+        for (Integer index : stripeIndexes) {
+            stripes[index].lock.lock();
+        }
+        boolean reserved = entries.size() == requested.size();
+        try {
+            for (Map.Entry<Long, Entry> item : entries.entrySet()) {
+                Entry entry = item.getValue();
+                int free = entry.quantity - entry.reserved;
+                available.put(item.getKey(), free);
+                if (free < requested.get(item.getKey())) {
+                    reserved = false;
+                }
+            }
+            if (reserved) {
+                for (Map.Entry<Long, Entry> item : entries.entrySet()) {
+                    item.getValue().changeReserved(requested.get(item.getKey()));
+                    journal(item.getValue(), MovementType.RESERVED, requested.get(item.getKey()), null);
+                }
+            }
+        } finally {
+            for (Integer index : stripeIndexes.descendingSet()) {
+                stripes[index].lock.unlock();
+            }
+        }
+        if (reserved) {
+            dirty.addAll(requested.keySet());
+        }
+        return reserved;
+    }
+
+    public void release(Long productId, int quantity) {
+        Stripe stripe = stripeFor(productId);
+        Entry entry = entryFor(productId, stripe);
+        stripe.lock.lock();
+        try {
+            int released = Math.min(quantity, entry.reserved);
+            entry.changeReserved(-released);
+            journal(entry, MovementType.RELEASED, released, null);
+        } finally {
+            stripe.lock.unlock();
+        }
+        dirty.add(productId);
+    }
+
+    public Level deduct(Long productId, int quantity) {
+        Stripe stripe = stripeFor(productId);
+        Entry entry = entryFor(productId, stripe);
+        Level level;
+        stripe.lock.lock();
+        try {
+            if (entry.quantity < quantity) {
+                throw new RuntimeException("Insufficient stock for product");
+            }
+            int consumed = Math.min(quantity, entry.reserved);
+            entry.changeQuantity(-quantity);
+            entry.changeReserved(-consumed);
+            journal(entry, MovementType.DEDUCTED, quantity, consumed);
+            level = entry.level();
+            level.consumed = consumed;
+        } finally {
+            stripe.lock.unlock();
+        }
+        dirty.add(productId);
+        return level;
+    }
+
+    /**
+     * Reverses a {@link #deduct} whose caller rolled back: the stock comes back together with the
+     * reservation it consumed.
+     */
+    public void undoDeduct(Long productId, int quantity, int consumed) {
+        Stripe stripe = stripeFor(productId);
+        Entry entry = entryFor(productId, stripe);
+        stripe.lock.lock();
+        try {
+            entry.changeQuantity(quantity);
+            entry.changeReserved(consumed);
+            journal(entry, MovementType.ADJUSTED, quantity, null);
+            if (consumed > 0) {
+                journal(entry, MovementType.RESERVED, consumed, null);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        dirty.add(productId);
+    }
+
+    public Level adjust(Long productId, int quantity) {
+        Stripe stripe = stripeFor(productId);
+        Entry entry = entryFor(productId, stripe);
+        Level level;
+        stripe.lock.lock();
+        try {
+            if (entry.quantity + quantity < 0) {
+                throw new RuntimeException("Insufficient stock for product");
+            }
+            entry.changeQuantity(quantity);
+            if (quantity > 0) {
+                entry.restockedAt = LocalDateTime.now();
+            }
+            journal(entry, MovementType.ADJUSTED, quantity, null);
+            level = entry.level();
+        } finally {
+            stripe.lock.unlock();
+        }
+        dirty.add(productId);
+        return level;
+    }
+
+    /**
+     * Returns the ledger's view of a product if it is currently tracked, without loading it.
+     */
+    public Optional<Level> level(Long productId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Stripe stripe = stripeFor(productId);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(productId);
+            return entry != null ? Optional.of(entry.level()) : Optional.empty();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:200}")
+    public void flush() {
+        if (!enabled || dirty.isEmpty()) {
+            return;
+        }
+        drainLock.writeLock().lock();
+        try {
+            drainDirty();
+        } finally {
+            drainLock.writeLock().unlock();
+        }
+    }
+
+    private void drainDirty() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Pending> batch = new ArrayList<>();
+        Iterator<Long> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            Long productId = iterator.next();
+            iterator.remove();
+            Stripe stripe = stripeFor(productId);
+            stripe.lock.lock();
+            try {
+                Entry entry = stripe.entries.get(productId);
+                if (entry == null || !entry.hasPending()) {
+                    continue;
+                }
+                batch.add(entry.drainPending(now));
+            } finally {
+                stripe.lock.unlock();
+            }
+            if (batch.size() >= flushBatchSize) {
+                write(batch, Collections.emptyMap());
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, Collections.emptyMap());
+        }
+    }
+
+    /**
+     * Writes any pending deltas for the given products and drops them from the ledger, so the
+     * next access reloads the row. Used before rows are rewritten directly in the table. An
+     * entry whose deltas cannot be written is put back so they are retried by the next flush.
+     */
+    public void evict(Collection<Long> productIds) {
+        if (!enabled) {
+            return;
+        }
+        drainLock.writeLock().lock();
+        try {
+            drainEntries(productIds);
+        } finally {
+            drainLock.writeLock().unlock();
+        }
+    }
+
+    private void drainEntries(Collection<Long> productIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Pending> batch = new ArrayList<>();
+        Map<Long, Entry> evicted = new HashMap<>();
+        for (Long productId : productIds) {
+            Stripe stripe = stripeFor(productId);
+            stripe.lock.lock();
+            try {
+                Entry entry = stripe.entries.remove(productId);
+                if (entry != null && entry.hasPending()) {
+                    batch.add(entry.drainPending(now));
+                    evicted.put(productId, entry);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, evicted);
+        }
+    }
+
+    /**
+     * Runs {@code rewrite}, which overwrites the given products' rows in the table, with their stripes
+     * locked so no reservation can land between the rewrite and the reload. Pending deltas are written
+     * in the same transaction first, and the entries are dropped once it commits so the next access
+     * reloads the rewritten rows.
+     */
+    public <T> T rewrite(Collection<Long> productIds, Supplier<T> rewrite) {
+        if (!enabled) {
+            return rewrite.get();
+        }
+        TreeSet<Integer> stripeIndexes = new TreeSet<>();
+        for (Long productId : productIds) {
+            stripeIndexes.add(stripeIndex(productId));
+        }
+        Set<Long> affected = new HashSet<>(productIds);
+        return rewriteLocked(stripeIndexes, affected::contains, rewrite);
+    }
+
+    /**
+     * Same as {@link #rewrite} for a rewrite of the whole table; every stripe is locked.
+     */
+    public <T> T rewriteAll(Supplier<T> rewrite) {
+        if (!enabled) {
+            return rewrite.get();
+        }
+        TreeSet<Integer> stripeIndexes = new TreeSet<>();
+        for (int i = 0; i < stripes.length; i++) {
+            stripeIndexes.add(i);
+        }
+        return rewriteLocked(stripeIndexes, productId -> true, rewrite);
+    }
+
+    private <T> T rewriteLocked(TreeSet<Integer> stripeIndexes, Predicate<Long> affected, Supplier<T> rewrite) {
+        drainLock.readLock().lock();
+        for (Integer index : stripeIndexes) {
+            stripes[index].lock.lock();
+        }
+        try {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Pending> pending = new ArrayList<>();
+            for (Integer index : stripeIndexes) {
+                for (Entry entry : stripes[index].entries.values()) {
+                    if (affected.test(entry.productId) && entry.hasPending()) {
+                        pending.add(entry.pending(now));
+                    }
+                }
+            }
+            T result = transactionTemplate.execute(status -> {
+                if (!pending.isEmpty()) {
+                    apply(pending);
+                }
+                return rewrite.get();
+            });
+            for (Integer index : stripeIndexes) {
+                stripes[index].entries.keySet().removeIf(affected);
+                // Loads that read the table before the rewrite must not be cached
+                stripes[index].generation++;
+            }
+            return result;
+        } finally {
+            for (Integer index : stripeIndexes.descendingSet()) {
+                stripes[index].lock.unlock();
+            }
+            drainLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Products whose deltas the table rejected, with the rejected row. Their entries are dropped
+     * so the ledger reloads what the table actually holds.
+     */
+    public Map<Long, Object[]> deadLetters() {
+        return Collections.unmodifiableMap(deadLetters);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (leaseValidUntil != 0) {
+            leaseValidUntil = 0;
+            lease.release();
+        }
+    }
+
+    private void write(List<Pending> batch, Map<Long, Entry> evicted) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(batch));
+            return;
+        } catch (DataAccessException ex) {
+            log.warn("Ledger flush of {} products failed, retrying row by row", batch.size(), ex);
+        }
+        // One row per transaction, so a row the table rejects cannot hold back the rest
+        for (Pending pending : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(Collections.singletonList(pending)));
+            } catch (DataIntegrityViolationException ex) {
+                deadLetter(pending.row, ex);
+            } catch (DataAccessException ex) {
+                requeue(pending, evicted.get((Long) pending.row[4]));
+            }
+        }
+    }
+
+    private void apply(List<Pending> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        List<Object[]> movements = new ArrayList<>();
+        for (Pending pending : batch) {
+            rows.add(pending.row);
+            movements.addAll(pending.movements);
+        }
+        jdbcTemplate.batchUpdate(FLUSH_SQL, rows);
+        // After the row updates, whose locks order these movements against other writers of the same rows
+        stockJournal.writeFlushed(movements, (Timestamp) rows.get(0)[3]);
+    }
+
+    private void journal(Entry entry, MovementType type, int quantity, Integer reservedQuantity) {
+        if (stockJournal.isEnabled()) {
+            entry.movements.add(StockJournal.row(entry.productId, type, quantity, reservedQuantity));
+        }
+    }
+
+    private void requeue(Pending pending, Entry evicted) {
+        Object[] row = pending.row;
+        Long productId = (Long) row[4];
+        int quantityDelta = (Integer) row[0];
+        int reservedDelta = (Integer) row[1];
+        LocalDateTime restockedAt = row[2] != null ? ((Timestamp) row[2]).toLocalDateTime() : null;
+        Stripe stripe = stripeFor(productId);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(productId);
+            if (entry == null && evicted != null) {
+                // The evicted entry's counts already include the unwritten deltas
+                entry = evicted;
+                stripe.entries.put(productId, entry);
+                entry.pendingQuantity += quantityDelta;
+                entry.pendingReserved += reservedDelta;
+            } else if (entry != null && evicted != null && entry != evicted) {
+                // Reloaded from the table since the eviction, so the deltas are not in its counts yet
+                entry.changeQuantity(quantityDelta);
+                entry.changeReserved(reservedDelta);
+            } else if (entry != null) {
+                entry.pendingQuantity += quantityDelta;
+                entry.pendingReserved += reservedDelta;
+            } else {
+                log.error("Lost ledger deltas and {} journal movements for evicted product {}: quantity {}, reserved {}",
+                    pending.movements.size(), productId, quantityDelta, reservedDelta);
+                return;
+            }
+            if (restockedAt != null && (entry.restockedAt == null || entry.restockedAt.isBefore(restockedAt))) {
+                entry.restockedAt = restockedAt;
+            }
+            // Ahead of movements taken since the drain, which happened after these
+            entry.movements.addAll(0, pending.movements);
+        } finally {
+            stripe.lock.unlock();
+        }
+        dirty.add(productId);
+    }
+
+    private void deadLetter(Object[] row, DataIntegrityViolationException ex) {
+        Long productId = (Long) row[4];
+        Stripe stripe = stripeFor(productId);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.remove(productId);
+            if (entry != null && entry.hasPending()) {
+                // Deltas taken since the drain were made against the same rejected counts
+                row[0] = (Integer) row[0] + entry.pendingQuantity;
+                row[1] = (Integer) row[1] + entry.pendingReserved;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        deadLetters.put(productId, row);
+        log.error("Ledger deltas for product {} rejected by the table and dead-lettered: quantity {}, reserved {}",
+            productId, row[0], row[1], ex);
+    }
+
+    private Entry entryFor(Long productId, Stripe stripe) {
+        return findEntry(productId, stripe)
+            .orElseThrow(() -> new RuntimeException("Inventory not found for product"));
+    }
+
+    private Optional<Entry> findEntry(Long productId, Stripe stripe) {
+        if (System.currentTimeMillis() >= leaseValidUntil) {
+            throw new RuntimeException("Stock ledger lease is not held by this node");
+        }
+        while (true) {
+            long generation;
+            stripe.lock.lock();
+            try {
+                Entry entry = stripe.entries.get(productId);
+                if (entry != null) {
+                    return Optional.of(entry);
+                }
+                generation = stripe.generation;
+            } finally {
+                stripe.lock.unlock();
+            }
+
+            // Load outside the stripe lock so a slow read does not block unrelated products.
+            Optional<Inventory> inventory = inventoryRepository.findByProductId(productId);
+            if (inventory.isEmpty()) {
+                return Optional.empty();
+            }
+            Entry loaded = new Entry(productId, inventory.get().getQuantity(),
+                inventory.get().getReservedQuantity() != null ? inventory.get().getReservedQuantity() : 0,
+                inventory.get().getReorderLevel());
+
+            stripe.lock.lock();
+            try {
+                if (stripe.generation == generation) {
+                    return Optional.of(stripe.entries.computeIfAbsent(productId, id -> loaded));
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private Stripe stripeFor(Long productId) {
+        return stripes[stripeIndex(productId)];
+    }
+
+    private int stripeIndex(Long productId) {
+        return Math.floorMod(Long.hashCode(productId) * 0x9E3779B9, stripes.length);
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private long generation;
+    }
+
+    private static final class Entry {
+        private final Long productId;
+        private final Integer reorderLevel;
+        private final List<Object[]> movements = new ArrayList<>();
+        private int quantity;
+        private int reserved;
+        private int pendingQuantity;
+        private int pendingReserved;
+        private LocalDateTime restockedAt;
+
+        private Entry(Long productId, int quantity, int reserved, Integer reorderLevel) {
+            this.productId = productId;
+            this.reorderLevel = reorderLevel;
+            this.quantity = quantity;
+            this.reserved = reserved;
+        }
+
+        private void changeQuantity(int delta) {
+            quantity += delta;
+            pendingQuantity += delta;
+        }
+
+        private void changeReserved(int delta) {
+            reserved += delta;
+            pendingReserved += delta;
+        }
+
+        private boolean hasPending() {
+            return pendingQuantity != 0 || pendingReserved != 0 || restockedAt != null || !movements.isEmpty();
+        }
+
+        private Pending pending(Timestamp now) {
+            return new Pending(new Object[] {
+                pendingQuantity,
+                pendingReserved,
+                restockedAt != null ? Timestamp.valueOf(restockedAt) : null,
+                now,
+                productId
+            }, new ArrayList<>(movements));
+        }
+
+        private Pending drainPending(Timestamp now) {
+            Pending pending = pending(now);
+            pendingQuantity = 0;
+            pendingReserved = 0;
+            restockedAt = null;
+            movements.clear();
+            return pending;
+        }
+
+        private Level level() {
+            return new Level(productId, quantity, reserved, reorderLevel);
+        }
+    }
+
+    /**
+     * A drained entry: the {@code FLUSH_SQL} row and the journal movements behind it.
+     */
+    @RequiredArgsConstructor
+    private static final class Pending {
+        private final Object[] row;
+        private final List<Object[]> movements;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Level {
+        private final Long productId;
+        private final int quantity;
+        private final int reservedQuantity;
+        private final Integer reorderLevel;
+        // Reserved units a deduct took along with the stock
+        private int consumed;
+    }
+}
@@ -0,0 +1,411 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.InventoryBucketDTO;
+import com.ecommerce.inventoryservice.entity.Inventory;
+import com.ecommerce.inventoryservice.entity.InventoryBucket;
+import com.ecommerce.inventoryservice.entity.MovementType;
+import com.ecommerce.inventoryservice.repository.InventoryBucketRepository;
+import com.ecommerce.inventoryservice.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Savepoint;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Opt-in striping for hot products. A striped product's sellable stock is split across
+ * {@code inventory_buckets} rows that are reserved independently, so concurrent reservations
+ * lock different rows instead of queueing on the product's {@code inventory} row. Bucket changes
+ * are kept as deltas and folded back into the inventory row by a periodic reconcile, which also
+ * spreads the remaining stock evenly again. A reservation that no single bucket can satisfy
+ * triggers the same fold immediately.
+ * <p>
+ * Stock allotted to buckets is excluded from reservations made on the row, so an instance that
+ * has not yet learned a product is striped cannot take the same units.
+ * <p>
+ * Lock order is always the inventory row, then the product's buckets in index order. Each
+ * fast-path bucket attempt runs under its own savepoint, so an attempt that waited on a bucket
+ * and found it drained holds no lock when the fold takes the row. Methods that change stock join
+ * the caller's transaction.
+ */
+@Slf4j
+@Service
+public class StripedStockService {
+
+    private final InventoryBucketRepository bucketRepository;
+    private final InventoryRepository inventoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final StockLedger stockLedger;
+    private final InventoryAvailabilityCache availabilityCache;
+    private final StockJournal stockJournal;
+    private final int defaultBuckets;
+    private final int maxBuckets;
+    private final Map<Long, Integer> bucketCounts = new ConcurrentHashMap<>();
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public StripedStockService(InventoryBucketRepository bucketRepository,
+                               InventoryRepository inventoryRepository,
+                               TransactionTemplate transactionTemplate,
+                               JdbcTemplate jdbcTemplate,
+                               StockLedger stockLedger,
+                               InventoryAvailabilityCache availabilityCache,
+                               StockJournal stockJournal,
+                               @Value("${inventory.striping.default-buckets:8}") int defaultBuckets,
+                               @Value("${inventory.striping.max-buckets:64}") int maxBuckets) {
+        this.bucketRepository = bucketRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.stockLedger = stockLedger;
+        this.availabilityCache = availabilityCache;
+        this.stockJournal = stockJournal;
+        this.defaultBuckets = defaultBuckets;
+        this.maxBuckets = maxBuckets;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadStripedProducts() {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Object[] row : bucketRepository.countBucketsByProduct()) {
+            counts.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        if (!counts.isEmpty() && stockLedger.isEnabled()) {
+            log.warn("{} products have stock buckets but the stock ledger is enabled; buckets are ignored", counts.size());
+            return;
+        }
+        bucketCounts.keySet().retainAll(counts.keySet());
+        bucketCounts.putAll(counts);
+    }
+
+    public boolean isStriped(Long productId) {
+        return !bucketCounts.isEmpty() && bucketCounts.containsKey(productId);
+    }
+
+    /**
+     * Registers a product striped by another instance since the last poll. Returns whether the
+     * product is striped.
+     */
+    public boolean discover(Long productId) {
+        if (stockLedger.isEnabled()) {
+            return false;
+        }
+        int count = bucketRepository.countByProductId(productId);
+        if (count == 0) {
+            return false;
+        }
+        bucketCounts.put(productId, count);
+        return true;
+    }
+
+    public Set<Long> stripedProductIds() {
+        return new HashSet<>(bucketCounts.keySet());
+    }
+
+    public List<InventoryBucketDTO> enable(Long productId, Integer buckets) {
+        if (stockLedger.isEnabled()) {
+            throw new RuntimeException("Stock striping is not available while the stock ledger is enabled");
+        }
+        int count = buckets != null && buckets > 0 ? Math.min(buckets, maxBuckets) : defaultBuckets;
+        // Registered first so reservations racing the switch take the bucket path and wait on the row lock below
+        boolean added = bucketCounts.putIfAbsent(productId, count) == null;
+        try {
+            // Committed empty, so every node sees the product as striped before any stock moves into the buckets
+            transactionTemplate.executeWithoutResult(status -> {
+                lockInventory(productId);
+                if (!bucketRepository.findByProductIdOrderByBucketIndex(productId).isEmpty()) {
+                    throw new RuntimeException("Product stock is already striped");
+                }
+                List<InventoryBucket> rows = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    rows.add(new InventoryBucket(null, productId, i, 0, 0, 0, LocalDateTime.now()));
+                }
+                bucketRepository.saveAll(rows);
+            });
+        } catch (RuntimeException ex) {
+            if (added) {
+                bucketCounts.remove(productId);
+            }
+            throw ex;
+        }
+        reconcile(productId);
+        return getBuckets(productId);
+    }
+
+    public void disable(Long productId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Inventory inventory = lockInventory(productId);
+            List<InventoryBucket> buckets = bucketRepository.findByProductIdForUpdate(productId);
+            if (buckets.isEmpty()) {
+                throw new RuntimeException("Product stock is not striped");
+            }
+            fold(inventory, buckets, 0, 0);
+            bucketRepository.deleteByProductId(productId);
+        });
+        bucketCounts.remove(productId);
+        availabilityCache.invalidate(productId);
+    }
+
+    public List<InventoryBucketDTO> getBuckets(Long productId) {
+        return bucketRepository.findByProductIdOrderByBucketIndex(productId).stream()
+            .map(this::convertToDTO)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Reserves from one bucket, starting at a random one so concurrent callers spread out. When no
+     * bucket holds enough on its own, stock is folded and the reservation is taken from the total.
+     */
+    public boolean reserve(Long productId, int quantity) {
+        int bucketCount = Math.max(1, bucketCount(productId));
+        int start = ThreadLocalRandom.current().nextInt(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            if (reserveFromBucket(productId, (start + i) % bucketCount, quantity)) {
+                return true;
+            }
+        }
+
+        Inventory inventory = lockInventory(productId);
+        List<InventoryBucket> buckets = bucketRepository.findByProductIdForUpdate(productId);
+        if (buckets.isEmpty()) {
+            // Striping was switched off meanwhile; the row is the only stock record again
+            return inventoryRepository.reserveIfAvailable(productId, quantity, LocalDateTime.now()) == 1;
+        }
+        return fold(inventory, buckets, 0, quantity);
+    }
+
+    /**
+     * Returns {@code false} when the product is not striped and the caller should update the row.
+     */
+    public boolean release(Long productId, int quantity) {
+        return applyToRandomBucket(productId, quantity, 0, -quantity);
+    }
+
+    public boolean deduct(Long productId, int quantity) {
+        return applyToRandomBucket(productId, 0, -quantity, -quantity);
+    }
+
+    /**
+     * Folds the buckets and applies a quantity change to the row, then spreads the new stock.
+     * Empty when the product is not striped.
+     */
+    public Optional<Inventory> adjust(Long productId, int quantity) {
+        Inventory inventory = lockInventory(productId);
+        List<InventoryBucket> buckets = bucketRepository.findByProductIdForUpdate(productId);
+        if (buckets.isEmpty()) {
+            return Optional.empty();
+        }
+        if (quantity > 0) {
+            inventory.setLastRestockedAt(LocalDateTime.now());
+        }
+        fold(inventory, buckets, quantity, 0);
+        return Optional.of(inventory);
+    }
+
+    /**
+     * Empties every bucket and drops its unreconciled deltas, after the inventory rows were rewritten
+     * wholesale. The next reservation or reconcile spreads each row's free stock over its buckets again.
+     * Joins the caller's transaction.
+     */
+    public void resetBuckets() {
+        bucketRepository.resetAll(LocalDateTime.now());
+    }
+
+    /**
+     * Folds the buckets of any striped product among {@code productIds} into its row and empties
+     * them, before the rows are overwritten with absolute counts. Reservations taken from the
+     * buckets are kept on the row; the next reservation or reconcile spreads the written stock
+     * again. Joins the caller's transaction.
+     */
+    public void drainBuckets(Collection<Long> productIds) {
+        if (stockLedger.isEnabled()) {
+            return;
+        }
+        // Read from the table, since another instance may have striped a product since the last poll
+        Set<Long> striped = new TreeSet<>();
+        for (Object[] row : bucketRepository.countBucketsByProduct()) {
+            if (productIds.contains((Long) row[0])) {
+                striped.add((Long) row[0]);
+            }
+        }
+        for (Long productId : striped) {
+            Inventory inventory = lockInventory(productId);
+            List<InventoryBucket> buckets = bucketRepository.findByProductIdForUpdate(productId);
+            if (!buckets.isEmpty()) {
+                fold(inventory, buckets, 0, 0);
+                buckets.forEach(bucket -> bucket.setAvailable(0));
+                bucketRepository.saveAll(buckets);
+            }
+        }
+    }
+
+    /**
+     * Stock still free in a striped product's buckets.
+     */
+    public int available(Long productId) {
+        return bucketRepository.findByProductIdOrderByBucketIndex(productId).stream()
+            .mapToInt(InventoryBucket::getAvailable)
+            .sum();
+    }
+
+    /**
+     * The row's counts with unreconciled bucket deltas applied, for striped products only.
+     */
+    public Optional<StockLedger.Level> level(Inventory inventory) {
+        return level(inventory.getProductId(), inventory.getQuantity(), reservedOf(inventory), inventory.getReorderLevel());
+    }
+
+    public Optional<StockLedger.Level> level(Long productId, int quantity, int reserved, Integer reorderLevel) {
+        if (!isStriped(productId)) {
+            return Optional.empty();
+        }
+        List<InventoryBucket> buckets = bucketRepository.findByProductIdOrderByBucketIndex(productId);
+        if (buckets.isEmpty()) {
+            return Optional.empty();
+        }
+        int quantityDelta = buckets.stream().mapToInt(InventoryBucket::getQuantityDelta).sum();
+        int reservedDelta = buckets.stream().mapToInt(InventoryBucket::getReservedDelta).sum();
+        return Optional.of(new StockLedger.Level(productId, quantity + quantityDelta,
+            Math.max(0, reserved + reservedDelta), reorderLevel));
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.striping.reconcile-interval-ms:1000}")
+    public void reconcileAll() {
+        if (stockLedger.isEnabled()) {
+            return;
+        }
+        // Picks up products striped or unstriped by other instances
+        loadStripedProducts();
+        for (Long productId : new ArrayList<>(bucketCounts.keySet())) {
+            try {
+                reconcile(productId);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to reconcile stock buckets for product {}", productId, ex);
+            }
+        }
+    }
+
+    public void reconcile(Long productId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Inventory inventory = lockInventory(productId);
+            List<InventoryBucket> buckets = bucketRepository.findByProductIdForUpdate(productId);
+            if (!buckets.isEmpty()) {
+                fold(inventory, buckets, 0, 0);
+            }
+        });
+        availabilityCache.invalidate(productId);
+    }
+
+    /**
+     * Moves bucket deltas into the row, applies {@code adjustment} to the quantity, reserves
+     * {@code reserve} units from the total if possible, and spreads what is left over the
+     * buckets. Returns whether the reservation was made.
+     */
+    private boolean fold(Inventory inventory, List<InventoryBucket> buckets, int adjustment, int reserve) {
+        int quantityDelta = 0;
+        int reservedDelta = 0;
+        for (InventoryBucket bucket : buckets) {
+            quantityDelta += bucket.getQuantityDelta();
+            reservedDelta += bucket.getReservedDelta();
+        }
+        inventory.setQuantity(inventory.getQuantity() + quantityDelta + adjustment);
+        int reservedTotal = reservedOf(inventory) + reservedDelta;
+        if (reservedTotal < 0) {
+            // Bucket releases and deductions are journaled in full; record what the row could not give back
+            stockJournal.append(inventory.getProductId(), MovementType.RESERVED, -reservedTotal, null);
+        }
+        inventory.setReservedQuantity(Math.max(0, reservedTotal));
+
+        int free = Math.max(0, inventory.getQuantity() - inventory.getReservedQuantity());
+        boolean reserved = reserve > 0 && free >= reserve;
+        if (reserved) {
+            inventory.setReservedQuantity(inventory.getReservedQuantity() + reserve);
+            free -= reserve;
+        }
+        inventoryRepository.save(inventory);
+
+        int[] shares = split(free, buckets.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < buckets.size(); i++) {
+            InventoryBucket bucket = buckets.get(i);
+            bucket.setAvailable(shares[i]);
+            bucket.setQuantityDelta(0);
+            bucket.setReservedDelta(0);
+            bucket.setReconciledAt(now);
+        }
+        bucketRepository.saveAll(buckets);
+        return reserved;
+    }
+
+    private boolean reserveFromBucket(Long productId, int bucketIndex, int quantity) {
+        // Runs on the transaction's connection; the savepoint is left for the commit to drop
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            if (bucketRepository.reserveIfAvailable(productId, bucketIndex, quantity) == 1) {
+                return true;
+            }
+            // Some databases keep the row lock of an update that waited and then matched nothing
+            connection.rollback(savepoint);
+            return false;
+        });
+    }
+
+    private boolean applyToRandomBucket(Long productId, int available, int quantity, int reserved) {
+        int bucketCount = bucketCount(productId);
+        if (bucketCount == 0) {
+            return false;
+        }
+        int bucketIndex = ThreadLocalRandom.current().nextInt(bucketCount);
+        return bucketRepository.applyDelta(productId, bucketIndex, available, quantity, reserved) == 1;
+    }
+
+    private int bucketCount(Long productId) {
+        return bucketCounts.getOrDefault(productId, 0);
+    }
+
+    private Inventory lockInventory(Long productId) {
+        List<Inventory> rows = inventoryRepository.findAllByProductIdInForUpdate(Collections.singletonList(productId));
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Inventory not found for product");
+        }
+        return rows.get(0);
+    }
+
+    private static int reservedOf(Inventory inventory) {
+        return inventory.getReservedQuantity() != null ? inventory.getReservedQuantity() : 0;
+    }
+
+    private static int[] split(int total, int parts) {
+        int[] shares = new int[parts];
+        for (int i = 0; i < parts; i++) {
+            shares[i] = total / parts + (i < total % parts ? 1 : 0);
+        }
+        return shares;
+    }
+
+    private InventoryBucketDTO convertToDTO(InventoryBucket bucket) {
+        return new InventoryBucketDTO(bucket.getBucketIndex(), bucket.getAvailable(), bucket.getQuantityDelta(),
+            bucket.getReservedDelta(), bucket.getReconciledAt() != null ? bucket.getReconciledAt().format(formatter) : null);
+    }
+}
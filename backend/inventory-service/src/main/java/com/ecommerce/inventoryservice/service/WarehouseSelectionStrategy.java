@@ -0,0 +1,19 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.entity.Warehouse;
+import com.ecommerce.inventoryservice.entity.WarehouseStock;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders the locations that can fill a reservation. Reservations are attempted in the returned
+ * order until one location accepts, so a strategy only decides preference, never admission.
+ */
+public interface WarehouseSelectionStrategy {
+
+    String getName();
+
+    List<WarehouseStock> rank(List<WarehouseStock> candidates, Map<Long, Warehouse> warehouses,
+                              Double latitude, Double longitude);
+}
@@ -0,0 +1,252 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.WarehouseDTO;
+import com.ecommerce.inventoryservice.dto.WarehouseReservationDTO;
+import com.ecommerce.inventoryservice.dto.WarehouseStockDTO;
+import com.ecommerce.inventoryservice.entity.Warehouse;
+import com.ecommerce.inventoryservice.entity.WarehouseStock;
+import com.ecommerce.inventoryservice.repository.WarehouseRepository;
+import com.ecommerce.inventoryservice.repository.WarehouseStockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-location stock. Each (warehouse, product) pair is its own row, and every reservation is a
+ * single-row conditional UPDATE by primary key in its own short transaction, so reservations in
+ * one warehouse never wait on another. The location is chosen by a pluggable
+ * {@link WarehouseSelectionStrategy}; if the preferred location loses a race for its last
+ * units the next one in the ranking is tried.
+ * <p>
+ * The {@code inventory} row stays the product's total: located stock is part of it. A warehouse
+ * reservation is kept as pending on its own row and folded into the total in the background, so
+ * it never takes the total's row lock; unlocated reservations count pending ones as taken.
+ * Releases, deductions and stock changes fold the product's pending reservations first and then
+ * change the total in the same transaction. With the stock ledger enabled the total lives in
+ * memory, so reservations take it directly and need free stock in it. Stock reserved or
+ * deducted without a location never shows up in a warehouse row.
+ */
+@Slf4j
+@Service
+public class WarehouseStockService {
+
+    private final WarehouseRepository warehouseRepository;
+    private final WarehouseStockRepository warehouseStockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final InventoryService inventoryService;
+    private final StockLedger stockLedger;
+    private final Map<String, WarehouseSelectionStrategy> strategies;
+    private final String defaultStrategy;
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public WarehouseStockService(WarehouseRepository warehouseRepository,
+                                 WarehouseStockRepository warehouseStockRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 OptimisticLockRetry optimisticLockRetry,
+                                 InventoryService inventoryService,
+                                 StockLedger stockLedger,
+                                 List<WarehouseSelectionStrategy> strategies,
+                                 @Value("${inventory.warehouse.default-strategy:most-stock}") String defaultStrategy) {
+        this.warehouseRepository = warehouseRepository;
+        this.warehouseStockRepository = warehouseStockRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.inventoryService = inventoryService;
+        this.stockLedger = stockLedger;
+        this.strategies = strategies.stream()
+            .collect(Collectors.toMap(WarehouseSelectionStrategy::getName, Function.identity()));
+        this.defaultStrategy = defaultStrategy;
+    }
+
+    public WarehouseDTO createWarehouse(WarehouseDTO warehouseDTO) {
+        if (warehouseRepository.existsByCode(warehouseDTO.getCode())) {
+            throw new RuntimeException("Warehouse already exists");
+        }
+        Warehouse warehouse = new Warehouse();
+        warehouse.setCode(warehouseDTO.getCode());
+        warehouse.setName(warehouseDTO.getName());
+        warehouse.setLatitude(warehouseDTO.getLatitude());
+        warehouse.setLongitude(warehouseDTO.getLongitude());
+        return convertToDTO(warehouseRepository.save(warehouse));
+    }
+
+    public List<WarehouseDTO> getAllWarehouses() {
+        return warehouseRepository.findAll().stream()
+            .map(this::convertToDTO)
+            .collect(Collectors.toList());
+    }
+
+    public List<WarehouseStockDTO> getStockByProduct(Long productId) {
+        List<WarehouseStock> stock = warehouseStockRepository.findByProductId(productId);
+        Map<Long, Warehouse> warehouses = warehousesFor(stock);
+        return stock.stream()
+            .map(item -> convertToDTO(item, warehouses.get(item.getWarehouseId())))
+            .collect(Collectors.toList());
+    }
+
+    public WarehouseStockDTO setStock(String warehouseCode, Long productId, Integer quantity) {
+        Warehouse warehouse = findWarehouse(warehouseCode);
+        return optimisticLockRetry.execute(status -> {
+            foldPending(productId);
+            WarehouseStock stock = warehouseStockRepository.findByWarehouseIdAndProductId(warehouse.getId(), productId)
+                .orElseGet(() -> {
+                    WarehouseStock created = new WarehouseStock();
+                    created.setWarehouseId(warehouse.getId());
+                    created.setProductId(productId);
+                    return created;
+                });
+            int reserved = stock.getReservedQuantity() != null ? stock.getReservedQuantity() : 0;
+            if (quantity < reserved) {
+                throw new RuntimeException("Quantity cannot be below reserved stock");
+            }
+            int change = quantity - (stock.getQuantity() != null ? stock.getQuantity() : 0);
+            stock.setQuantity(quantity);
+            WarehouseStock saved = warehouseStockRepository.save(stock);
+            if (change != 0) {
+                inventoryService.updateStock(productId, change);
+            }
+            return convertToDTO(saved, warehouse);
+        });
+    }
+
+    public WarehouseReservationDTO reserve(Long productId, Integer quantity, String strategyName,
+                                           Double latitude, Double longitude) {
+        String name = strategyName != null ? strategyName : defaultStrategy;
+        WarehouseSelectionStrategy strategy = strategies.get(name);
+        if (strategy == null) {
+            throw new RuntimeException("Unknown warehouse selection strategy: " + name);
+        }
+        List<WarehouseStock> candidates = warehouseStockRepository.findByProductId(productId).stream()
+            .filter(stock -> stock.getQuantity() - stock.getReservedQuantity() >= quantity)
+            .collect(Collectors.toList());
+        Map<Long, Warehouse> warehouses = warehousesFor(candidates);
+
+        for (WarehouseStock candidate : strategy.rank(candidates, warehouses, latitude, longitude)) {
+            Boolean located = stockLedger.isEnabled()
+                ? reserveWithTotal(candidate, productId, quantity)
+                : transactionTemplate.execute(status ->
+                    warehouseStockRepository.reserveIfAvailable(candidate.getId(), quantity, quantity, LocalDateTime.now()) == 1);
+            if (located == null) {
+                break;
+            }
+            if (located) {
+                return new WarehouseReservationDTO(productId, quantity, name,
+                    warehouses.get(candidate.getWarehouseId()).getCode(), true);
+            }
+        }
+        return new WarehouseReservationDTO(productId, quantity, name, null, false);
+    }
+
+    /**
+     * Reserves at the location and in the ledger's total together; {@code null} when the total is short.
+     */
+    private Boolean reserveWithTotal(WarehouseStock candidate, Long productId, Integer quantity) {
+        return transactionTemplate.execute(status -> {
+            if (warehouseStockRepository.reserveIfAvailable(candidate.getId(), quantity, 0, LocalDateTime.now()) != 1) {
+                return false;
+            }
+            if (!inventoryService.reserveStock(productId, quantity)) {
+                // The total is short, so no other location can be used either
+                status.setRollbackOnly();
+                return null;
+            }
+            return true;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.warehouse.fold-interval-ms:1000}")
+    public void foldPendingReservations() {
+        if (stockLedger.isEnabled()) {
+            return;
+        }
+        for (Long productId : warehouseStockRepository.findProductIdsWithPendingReservations()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> foldPending(productId));
+            } catch (RuntimeException ex) {
+                log.warn("Failed to fold warehouse reservations for product {}", productId, ex);
+            }
+        }
+    }
+
+    /**
+     * Moves the product's pending warehouse reservations into its total. Locks the product's
+     * warehouse rows before the total, the same order every other change takes them in.
+     */
+    private void foldPending(Long productId) {
+        if (stockLedger.isEnabled()) {
+            return;
+        }
+        int pending = warehouseStockRepository.findByProductIdForUpdate(productId).stream()
+            .mapToInt(WarehouseStock::getPendingReserved)
+            .sum();
+        if (pending != 0) {
+            warehouseStockRepository.clearPendingReservations(productId);
+            inventoryService.applyLocatedReservations(productId, pending);
+        }
+    }
+
+    public void release(String warehouseCode, Long productId, Integer quantity) {
+        Warehouse warehouse = findWarehouse(warehouseCode);
+        transactionTemplate.executeWithoutResult(status -> {
+            foldPending(productId);
+            if (warehouseStockRepository.release(warehouse.getId(), productId, quantity, LocalDateTime.now()) == 0) {
+                throw new RuntimeException("Warehouse stock not found");
+            }
+            inventoryService.releaseStock(productId, quantity);
+        });
+    }
+
+    public void deduct(String warehouseCode, Long productId, Integer quantity) {
+        Warehouse warehouse = findWarehouse(warehouseCode);
+        transactionTemplate.executeWithoutResult(status -> {
+            foldPending(productId);
+            if (warehouseStockRepository.deduct(warehouse.getId(), productId, quantity, LocalDateTime.now()) == 0) {
+                throw new RuntimeException("Insufficient warehouse stock");
+            }
+            inventoryService.deductStock(productId, quantity);
+        });
+    }
+
+    private Warehouse findWarehouse(String code) {
+        return warehouseRepository.findByCode(code)
+            .orElseThrow(() -> new RuntimeException("Warehouse not found"));
+    }
+
+    private Map<Long, Warehouse> warehousesFor(List<WarehouseStock> stock) {
+        List<Long> ids = stock.stream().map(WarehouseStock::getWarehouseId).distinct().collect(Collectors.toList());
+        return warehouseRepository.findByIdIn(ids).stream()
+            .collect(Collectors.toMap(Warehouse::getId, Function.identity()));
+    }
+
+    private WarehouseDTO convertToDTO(Warehouse warehouse) {
+        WarehouseDTO dto = new WarehouseDTO();
+        dto.setId(warehouse.getId());
+        dto.setCode(warehouse.getCode());
+        dto.setName(warehouse.getName());
+        dto.setLatitude(warehouse.getLatitude());
+        dto.setLongitude(warehouse.getLongitude());
+        dto.setCreatedAt(warehouse.getCreatedAt() != null ? warehouse.getCreatedAt().format(formatter) : null);
+        return dto;
+    }
+
+    private WarehouseStockDTO convertToDTO(WarehouseStock stock, Warehouse warehouse) {
+        WarehouseStockDTO dto = new WarehouseStockDTO();
+        dto.setProductId(stock.getProductId());
+        dto.setWarehouseCode(warehouse != null ? warehouse.getCode() : null);
+        dto.setQuantity(stock.getQuantity());
+        dto.setReservedQuantity(stock.getReservedQuantity());
+        dto.setAvailableQuantity(stock.getQuantity() - stock.getReservedQuantity());
+        dto.setUpdatedAt(stock.getUpdatedAt() != null ? stock.getUpdatedAt().format(formatter) : null);
+        return dto;
+    }
+}
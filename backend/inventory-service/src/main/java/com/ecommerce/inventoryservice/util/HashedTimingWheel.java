@@ -0,0 +1,134 @@
+package com.ecommerce.inventoryservice.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timing wheel in the style of Varghese and Lauck: timeouts are hashed into a fixed
+ * ring of buckets by deadline tick, and one ticker thread sweeps a single bucket per tick.
+ * Scheduling is O(1) and lock-free; everything due in the same sweep is handed to the
+ * expiry handler as one batch. Timeouts are never cancelled here, so the handler must
+ * tolerate items that are no longer relevant.
+ */
+@Slf4j
+public class HashedTimingWheel<T> {
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Queue<Timeout<T>>> wheel;
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<List<T>> expiryHandler;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private ScheduledExecutorService ticker;
+    private long tick;
+
+    public HashedTimingWheel(long tickMillis, int wheelSize, Consumer<List<T>> expiryHandler) {
+        this(tickMillis, wheelSize, expiryHandler, System::nanoTime);
+    }
+
+    public HashedTimingWheel(long tickMillis, int wheelSize, Consumer<List<T>> expiryHandler, LongSupplier nanoClock) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = wheelSize - 1;
+        this.wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.add(new ArrayDeque<>());
+        }
+        this.expiryHandler = expiryHandler;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+    }
+
+    public void schedule(T item, long delayMillis) {
+        long deadlineNanos = nanoClock.getAsLong() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        long deadlineTick = (deadlineNanos + tickNanos - 1) / tickNanos;
+        pending.add(new Timeout<>(item, deadlineTick));
+    }
+
+    public synchronized void start(String threadName) {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::safeAdvance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Sweeps every tick that has elapsed since the last call. Only the ticker thread (or a
+     * test driving the clock) may call this.
+     */
+    public void advance() {
+        long currentTick = (nanoClock.getAsLong() - startNanos) / tickNanos;
+        List<T> expired = new ArrayList<>();
+        while (tick <= currentTick) {
+            transferPending();
+            Iterator<Timeout<T>> iterator = wheel.get((int) (tick & mask)).iterator();
+            while (iterator.hasNext()) {
+                Timeout<T> timeout = iterator.next();
+                if (timeout.rounds <= 0) {
+                    iterator.remove();
+                    expired.add(timeout.item);
+                } else {
+                    timeout.rounds--;
+                }
+            }
+            tick++;
+        }
+        if (!expired.isEmpty()) {
+            expiryHandler.accept(expired);
+        }
+    }
+
+    private void safeAdvance() {
+        try {
+            advance();
+        } catch (RuntimeException ex) {
+            log.error("Timing wheel expiry handler failed", ex);
+        }
+    }
+
+    private void transferPending() {
+        Timeout<T> timeout;
+        while ((timeout = pending.poll()) != null) {
+            long effectiveTick = Math.max(timeout.deadlineTick, tick);
+            timeout.rounds = (effectiveTick - tick) / wheel.size();
+            wheel.get((int) (effectiveTick & mask)).add(timeout);
+        }
+    }
+
+    private static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private long rounds;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
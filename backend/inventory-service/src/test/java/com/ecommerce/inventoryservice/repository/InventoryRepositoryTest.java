@@ -0,0 +1,78 @@
+package com.ecommerce.inventoryservice.repository;
+
+import com.ecommerce.inventoryservice.entity.Inventory;
+import com.ecommerce.inventoryservice.entity.InventoryBucket;
+import com.ecommerce.inventoryservice.entity.WarehouseStock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class InventoryRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    private Inventory testInventory;
+
+    @BeforeEach
+    void setUp() {
+        testInventory = new Inventory();
+        testInventory.setProductId(1L);
+        testInventory.setProductSku("SKU-001");
+        testInventory.setQuantity(10);
+        testInventory.setReservedQuantity(4);
+        entityManager.persistAndFlush(testInventory);
+    }
+
+    @Test
+    void testReserveIfAvailable_UpdatesWhenStockSuffices() {
+        int updated = inventoryRepository.reserveIfAvailable(1L, 6, LocalDateTime.now());
+        entityManager.clear();
+
+        Inventory found = inventoryRepository.findByProductId(1L).orElseThrow();
+        assertThat(updated).isEqualTo(1);
+        assertThat(found.getReservedQuantity()).isEqualTo(10);
+        assertThat(found.getVersion()).isEqualTo(testInventory.getVersion() + 1);
+    }
+
+    @Test
+    void testReserveIfAvailable_RejectsWhenStockInsufficient() {
+        int updated = inventoryRepository.reserveIfAvailable(1L, 7, LocalDateTime.now());
+        entityManager.clear();
+
+        assertThat(updated).isZero();
+        assertThat(inventoryRepository.findByProductId(1L).orElseThrow().getReservedQuantity()).isEqualTo(4);
+    }
+
+    @Test
+    void testReserveIfAvailable_CountsUnfoldedWarehouseReservations() {
+        WarehouseStock located = new WarehouseStock();
+        located.setWarehouseId(1L);
+        located.setProductId(1L);
+        located.setQuantity(10);
+        located.setReservedQuantity(2);
+        located.setPendingReserved(2);
+        entityManager.persistAndFlush(located);
+
+        assertThat(inventoryRepository.reserveIfAvailable(1L, 5, LocalDateTime.now())).isZero();
+        assertThat(inventoryRepository.reserveIfAvailable(1L, 4, LocalDateTime.now())).isEqualTo(1);
+    }
+
+    @Test
+    void testReserveIfAvailable_ExcludesStockAllottedToBuckets() {
+        entityManager.persistAndFlush(new InventoryBucket(null, 1L, 0, 3, 0, 0, LocalDateTime.now()));
+
+        assertThat(inventoryRepository.reserveIfAvailable(1L, 4, LocalDateTime.now())).isZero();
+        assertThat(inventoryRepository.reserveIfAvailable(1L, 3, LocalDateTime.now())).isEqualTo(1);
+    }
+}
@@ -0,0 +1,73 @@
+package com.ecommerce.inventoryservice.repository;
+
+import com.ecommerce.inventoryservice.entity.Warehouse;
+import com.ecommerce.inventoryservice.entity.WarehouseStock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class WarehouseStockRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private WarehouseStockRepository warehouseStockRepository;
+
+    private Warehouse east;
+    private Warehouse west;
+
+    @BeforeEach
+    void setUp() {
+        east = entityManager.persist(new Warehouse(null, "EAST", "East", 40.7, -74.0, null));
+        west = entityManager.persist(new Warehouse(null, "WEST", "West", 34.0, -118.2, null));
+        entityManager.persist(stock(east, 1L, 10, 8));
+        entityManager.persist(stock(west, 1L, 10, 0));
+        entityManager.flush();
+    }
+
+    @Test
+    void testReserveIfAvailable_OnlyTouchesOneLocation() {
+        WarehouseStock eastStock = warehouseStockRepository.findByWarehouseIdAndProductId(east.getId(), 1L).orElseThrow();
+
+        assertThat(warehouseStockRepository.reserveIfAvailable(eastStock.getId(), 3, 3, LocalDateTime.now())).isZero();
+        assertThat(warehouseStockRepository.reserveIfAvailable(eastStock.getId(), 2, 2, LocalDateTime.now())).isEqualTo(1);
+        entityManager.clear();
+
+        WarehouseStock reserved = warehouseStockRepository.findByWarehouseIdAndProductId(east.getId(), 1L).orElseThrow();
+        assertThat(reserved.getReservedQuantity()).isEqualTo(10);
+        assertThat(reserved.getPendingReserved()).isEqualTo(2);
+        assertThat(warehouseStockRepository.findProductIdsWithPendingReservations()).containsExactly(1L);
+        assertThat(warehouseStockRepository.findByWarehouseIdAndProductId(west.getId(), 1L).orElseThrow()
+            .getReservedQuantity()).isZero();
+    }
+
+    @Test
+    void testReleaseAndDeduct() {
+        assertThat(warehouseStockRepository.release(east.getId(), 1L, 20, LocalDateTime.now())).isEqualTo(1);
+        assertThat(warehouseStockRepository.deduct(west.getId(), 1L, 11, LocalDateTime.now())).isZero();
+        assertThat(warehouseStockRepository.deduct(west.getId(), 1L, 4, LocalDateTime.now())).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(warehouseStockRepository.findByWarehouseIdAndProductId(east.getId(), 1L).orElseThrow()
+            .getReservedQuantity()).isZero();
+        assertThat(warehouseStockRepository.findByWarehouseIdAndProductId(west.getId(), 1L).orElseThrow()
+            .getQuantity()).isEqualTo(6);
+    }
+
+    private WarehouseStock stock(Warehouse warehouse, Long productId, int quantity, int reserved) {
+        WarehouseStock stock = new WarehouseStock();
+        stock.setWarehouseId(warehouse.getId());
+        stock.setProductId(productId);
+        stock.setQuantity(quantity);
+        stock.setReservedQuantity(reserved);
+        return stock;
+    }
+}
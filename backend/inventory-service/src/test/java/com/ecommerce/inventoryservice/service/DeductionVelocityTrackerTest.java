@@ -0,0 +1,29 @@
+package com.ecommerce.inventoryservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeductionVelocityTrackerTest {
+
+    @Test
+    void testDailyRate_ConvergesToSteadyRateAndDecays() {
+        AtomicLong now = new AtomicLong(0);
+        DeductionVelocityTracker tracker = new DeductionVelocityTracker(24, now::get);
+
+        // Ten units every hour for two weeks
+        for (int hour = 0; hour < 24 * 14; hour++) {
+            now.set(TimeUnit.HOURS.toMillis(hour));
+            tracker.record(1L, 10);
+        }
+
+        assertEquals(240, tracker.dailyRate(1L), 10);
+        assertEquals(0.0, tracker.dailyRate(2L));
+
+        now.addAndGet(TimeUnit.HOURS.toMillis(24));
+        assertEquals(120, tracker.dailyRate(1L), 6);
+    }
+}
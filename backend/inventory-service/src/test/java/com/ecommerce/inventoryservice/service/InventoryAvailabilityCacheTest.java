@@ -0,0 +1,107 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.InventoryDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryAvailabilityCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryAvailabilityCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new InventoryAvailabilityCache(meterRegistry, 100, 60000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testGet_LoadsOnceUntilInvalidated() {
+        cache.get(1L, this::load);
+        cache.get(1L, this::load);
+        assertEquals(1, loads.get());
+
+        cache.invalidate(1L);
+        cache.get(1L, this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "inventory.availability").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void testInvalidate_RepeatsAfterTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidate(1L);
+        // A concurrent reader re-caches the row before the mutating transaction commits
+        cache.get(1L, this::load);
+
+        TransactionSynchronizationManager.getSynchronizations()
+            .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        cache.get(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGet_DropsRecordLoadedAcrossAnEviction() {
+        // The load reads the row, then the change commits and evicts before the load returns
+        cache.get(1L, () -> {
+            InventoryDTO stale = load();
+            cache.invalidate(1L);
+            return stale;
+        });
+        cache.get(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetAll_DropsRecordsLoadedAcrossAnEviction() {
+        cache.getAll(List.of(1L, 2L), missing -> {
+            Map<Long, InventoryDTO> loaded = new HashMap<>();
+            missing.forEach(productId -> loaded.put(productId, load()));
+            cache.invalidate(2L);
+            return loaded;
+        });
+        cache.getAll(List.of(1L, 2L), missing -> {
+            assertEquals(List.of(2L), List.copyOf(missing));
+            return Map.of(2L, load());
+        });
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testGet_PropagatesLoaderException() {
+        RuntimeException ex = assertThrows(RuntimeException.class,
+            () -> cache.get(1L, () -> { throw new RuntimeException("Inventory not found for product"); }));
+
+        assertEquals("Inventory not found for product", ex.getMessage());
+    }
+
+    private InventoryDTO load() {
+        loads.incrementAndGet();
+        InventoryDTO dto = new InventoryDTO();
+        dto.setProductId(1L);
+        return dto;
+    }
+}
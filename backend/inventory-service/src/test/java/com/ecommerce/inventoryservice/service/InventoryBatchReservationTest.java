@@ -0,0 +1,139 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.BatchReservationResultDTO;
+import com.ecommerce.inventoryservice.dto.ReservationLineResultDTO;
+import com.ecommerce.inventoryservice.dto.StockReservationLineDTO;
+import com.ecommerce.inventoryservice.entity.Inventory;
+import com.ecommerce.inventoryservice.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryBatchReservationTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OptimisticLockRetry optimisticLockRetry;
+
+    @Mock
+    private LowStockIndex lowStockIndex;
+
+    @Mock
+    private InventoryAvailabilityCache availabilityCache;
+
+    @Mock
+    private DeductionVelocityTracker velocityTracker;
+
+    @Mock
+    private StockJournal stockJournal;
+
+    @Mock
+    private StripedStockService stripedStock;
+
+    @Mock
+    private SkuIndex skuIndex;
+
+    private StockLedger stockLedger;
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        stockLedger = new StockLedger(inventoryRepository, jdbcTemplate, transactionTemplate, stockJournal, true, 16, 500, 30);
+        when(jdbcTemplate.update(startsWith("UPDATE scheduler_leases"), (Object[]) any())).thenReturn(1);
+        stockLedger.renewLease();
+        lenient().when(stockJournal.isEnabled()).thenReturn(true);
+        inventoryService = new InventoryService(inventoryRepository, jdbcTemplate, transactionTemplate, stockLedger,
+            optimisticLockRetry, lowStockIndex, availabilityCache, velocityTracker, stockJournal, stripedStock, skuIndex);
+
+        stock(1L, 100);
+        stock(2L, 3);
+    }
+
+    @Test
+    void testReserveBatch_ReservesNothingWhenOneLineIsShort() {
+        BatchReservationResultDTO result = inventoryService.reserveStockBatch(List.of(
+            new StockReservationLineDTO(1L, 5), new StockReservationLineDTO(2L, 4)));
+
+        assertFalse(result.isReserved());
+        assertEquals(0, stockLedger.level(1L).orElseThrow().getReservedQuantity());
+        assertEquals(0, stockLedger.level(2L).orElseThrow().getReservedQuantity());
+        stockLedger.flush();
+        verify(stockJournal, never()).writeFlushed(anyList(), any());
+        verify(availabilityCache, never()).invalidateAll(any());
+    }
+
+    @Test
+    void testReserveBatch_ReportsEachLineOutcome() {
+        when(inventoryRepository.findByProductId(3L)).thenReturn(Optional.empty());
+
+        BatchReservationResultDTO result = inventoryService.reserveStockBatch(List.of(
+            new StockReservationLineDTO(1L, 5), new StockReservationLineDTO(2L, 4), new StockReservationLineDTO(3L, 1)));
+
+        assertFalse(result.isReserved());
+        assertLine(result.getLines().get(0), 1L, 100, true);
+        assertLine(result.getLines().get(1), 2L, 3, false);
+        assertLine(result.getLines().get(2), 3L, 0, false);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReserveBatch_ReservesEveryLineWhenAllFit() {
+        BatchReservationResultDTO result = inventoryService.reserveStockBatch(List.of(
+            new StockReservationLineDTO(1L, 5), new StockReservationLineDTO(2L, 3), new StockReservationLineDTO(1L, 2)));
+
+        assertTrue(result.isReserved());
+        assertEquals(2, result.getLines().size());
+        assertTrue(result.getLines().stream().allMatch(ReservationLineResultDTO::isReserved));
+        assertEquals(7, stockLedger.level(1L).orElseThrow().getReservedQuantity());
+        assertEquals(3, stockLedger.level(2L).orElseThrow().getReservedQuantity());
+        stockLedger.flush();
+        ArgumentCaptor<List<Object[]>> movements = ArgumentCaptor.forClass(List.class);
+        verify(stockJournal).writeFlushed(movements.capture(), any());
+        assertEquals(2, movements.getValue().size());
+        Map<Object, Object> reserved = movements.getValue().stream()
+            .filter(row -> "RESERVED".equals(row[1]))
+            .collect(Collectors.toMap(row -> row[0], row -> row[2]));
+        assertEquals(Map.of(1L, 7, 2L, 3), reserved);
+    }
+
+    private void stock(Long productId, int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(productId);
+        inventory.setQuantity(quantity);
+        inventory.setReservedQuantity(0);
+        when(inventoryRepository.findByProductId(productId)).thenReturn(Optional.of(inventory));
+    }
+
+    private void assertLine(ReservationLineResultDTO line, Long productId, int available, boolean reserved) {
+        assertEquals(productId, line.getProductId());
+        assertEquals(available, line.getAvailableQuantity());
+        assertEquals(reserved, line.isReserved());
+    }
+}
@@ -0,0 +1,90 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.ExportFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class InventoryExportServiceTest {
+
+    private EmbeddedDatabase database;
+    private StockLedger stockLedger;
+    private InventoryExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE inventory (id BIGINT PRIMARY KEY, product_id BIGINT, product_sku VARCHAR(255), " +
+            "quantity INT, reserved_quantity INT, reorder_level INT, reorder_quantity INT, warehouse_location VARCHAR(255), " +
+            "last_restocked_at TIMESTAMP, created_at TIMESTAMP, updated_at TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO inventory VALUES (1, 101, 'SKU-101', 40, 5, 10, 50, 'Aisle 1, Bay \"A\"', NULL, NULL, NULL)");
+        jdbcTemplate.update("INSERT INTO inventory VALUES (2, 102, 'SKU-102', 8, 0, 10, 50, 'WH-2', NULL, NULL, NULL)");
+
+        stockLedger = mock(StockLedger.class);
+        when(stockLedger.level(anyLong())).thenReturn(Optional.empty());
+        exportService = new InventoryExportService(database, stockLedger, mock(StripedStockService.class), new ObjectMapper(), 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testExportCsv_QuotesValuesAndOverlaysLedger() throws Exception {
+        when(stockLedger.level(102L)).thenReturn(Optional.of(new StockLedger.Level(102L, 6, 2, 10)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(ExportFormat.CSV, false, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8.name()).lines().collect(Collectors.toList());
+        assertEquals(3, lines.size());
+        assertEquals(String.join(",", InventoryExportService.COLUMNS), lines.get(0));
+        assertEquals("1,101,SKU-101,40,5,10,50,\"Aisle 1, Bay \"\"A\"\"\",,,", lines.get(1));
+        assertEquals("2,102,SKU-102,6,2,10,50,WH-2,,,", lines.get(2));
+    }
+
+    @Test
+    void testExportNdjson_Gzipped() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(ExportFormat.NDJSON, true, out);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())), StandardCharsets.UTF_8))) {
+            List<JsonNode> rows = reader.lines().map(line -> {
+                try {
+                    return objectMapper.readTree(line);
+                } catch (Exception ex) {
+                    throw new AssertionError(ex);
+                }
+            }).collect(Collectors.toList());
+            assertEquals(2, rows.size());
+            assertEquals(101L, rows.get(0).get("productId").asLong());
+            assertEquals("WH-2", rows.get(1).get("warehouseLocation").asText());
+            assertTrue(rows.get(1).get("lastRestockedAt").isNull());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.ExportFormat;
+import com.ecommerce.inventoryservice.dto.ImportReportDTO;
+import com.ecommerce.inventoryservice.dto.InventoryImportRowDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryImportServiceTest {
+
+    @Mock
+    private InventoryUpsertWriter upsertWriter;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private StripedStockService stripedStock;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InventoryImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new InventoryImportService(upsertWriter, new TransactionTemplate(transactionManager),
+            stockLedger, mock(StockJournal.class), inventoryService, stripedStock, mock(SkuIndex.class), new ObjectMapper(), 2, 2);
+        lenient().when(stockLedger.rewrite(anyCollection(), any())).thenAnswer(invocation ->
+            invocation.<Supplier<?>>getArgument(1).get());
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testImportCsv_ReportsRowErrorsPerChunk() throws Exception {
+        when(upsertWriter.upsert(anyList())).thenAnswer(invocation -> {
+            List<InventoryImportRowDTO> rows = invocation.getArgument(0);
+            return rows.stream().mapToInt(row -> row.getProductId() != null ? 1 : 0).toArray();
+        });
+        String csv = "productId,productSku,quantity,warehouseLocation\n" +
+            "101,SKU-101,40,\"Aisle 1, Bay \"\"A\"\"\"\n" +
+            "102,SKU-102,abc,WH-2\n" +
+            ",SKU-999,5,\n";
+
+        ImportReportDTO report = importService.importInventory(
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ExportFormat.CSV);
+
+        assertEquals(3, report.getTotalRows());
+        assertEquals(1, report.getImportedRows());
+        assertEquals(2, report.getFailedRows());
+        assertEquals(2, report.getChunks().size());
+        assertEquals(2L, report.getChunks().get(0).getFirstLine());
+        assertTrue(report.getChunks().get(0).getErrors().get(0).startsWith("Line 3"));
+        assertEquals("No inventory found for SKU SKU-999", report.getChunks().get(1).getErrors().get(0));
+
+        ArgumentCaptor<List<InventoryImportRowDTO>> rows = ArgumentCaptor.forClass(List.class);
+        verify(upsertWriter, times(2)).upsert(rows.capture());
+        InventoryImportRowDTO first = rows.getAllValues().stream()
+            .flatMap(List::stream)
+            .filter(row -> Long.valueOf(101L).equals(row.getProductId()))
+            .findFirst().orElseThrow(AssertionError::new);
+        assertEquals("Aisle 1, Bay \"A\"", first.getWarehouseLocation());
+        verify(inventoryService).loadLowStockIndex();
+    }
+
+    @Test
+    void testImportNdjson_RollsBackFailedChunkOnly() throws Exception {
+        when(upsertWriter.upsert(anyList()))
+            .thenReturn(new int[] {1, 1})
+            .thenThrow(new DataIntegrityViolationException("constraint"));
+        String ndjson = "{\"productId\":1,\"quantity\":5,\"reservedQuantity\":3}\n" +
+            "{\"productId\":2,\"quantity\":6}\n" +
+            "{\"productId\":3,\"quantity\":7}\n";
+        importService.shutdown();
+        importService = new InventoryImportService(upsertWriter, new TransactionTemplate(transactionManager),
+            stockLedger, mock(StockJournal.class), inventoryService, stripedStock, mock(SkuIndex.class), new ObjectMapper(), 2, 1);
+
+        ImportReportDTO report = importService.importInventory(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), ExportFormat.NDJSON);
+
+        assertEquals(2, report.getImportedRows());
+        assertEquals(1, report.getFailedRows());
+        assertTrue(report.getChunks().get(1).getErrors().get(0).startsWith("Chunk rolled back"));
+        verify(stockLedger).rewrite(eq(Arrays.asList(1L, 2L)), any());
+        verify(inventoryService).evictCachedInventory(Arrays.asList(1L, 2L));
+        verify(inventoryService, never()).evictCachedInventory(Arrays.asList(3L));
+    }
+
+    @Test
+    void testSplitCsv_HandlesQuotedValues() {
+        assertEquals(Arrays.asList("1", "a,b", "say \"hi\"", ""),
+            InventoryImportService.splitCsv("1,\"a,b\",\"say \"\"hi\"\"\","));
+    }
+
+    @Test
+    void testImportCsv_ResolvesSkuOnlyRowsBeforeWriting() throws Exception {
+        doAnswer(invocation -> {
+            List<InventoryImportRowDTO> rows = invocation.getArgument(0);
+            rows.stream().filter(row -> "SKU-7".equals(row.getProductSku())).forEach(row -> row.setProductId(7L));
+            return null;
+        }).when(upsertWriter).resolveProductIds(anyList());
+        when(upsertWriter.upsert(anyList())).thenReturn(new int[] {1, 1});
+        String csv = "productId,productSku,quantity\n" +
+            "5,SKU-5,40\n" +
+            ",SKU-7,12\n";
+
+        ImportReportDTO report = importService.importInventory(
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ExportFormat.CSV);
+
+        assertEquals(2, report.getImportedRows());
+        verify(stockLedger).rewrite(eq(Arrays.asList(5L, 7L)), any());
+        verify(stripedStock).drainBuckets(Arrays.asList(5L, 7L));
+        verify(inventoryService).evictCachedInventory(Arrays.asList(5L, 7L));
+    }
+}
@@ -0,0 +1,141 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.InventoryImportRowDTO;
+import com.ecommerce.inventoryservice.dto.SnapshotDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class InventorySnapshotServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedDatabase database;
+    private InventoryUpsertWriter upsertWriter;
+    private StockLedger stockLedger;
+    private InventoryService inventoryService;
+    private StripedStockService stripedStock;
+    private JdbcTemplate jdbcTemplate;
+    private InventorySnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE inventory (product_id BIGINT PRIMARY KEY, product_sku VARCHAR(255), " +
+            "quantity INT, reserved_quantity INT, reorder_level INT, reorder_quantity INT, warehouse_location VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO inventory VALUES (101, 'SKU-101', 40, 5, 10, 50, 'Entrepôt A')");
+        jdbcTemplate.update("INSERT INTO inventory VALUES (102, NULL, 8, 0, NULL, 50, NULL)");
+        jdbcTemplate.execute("CREATE TABLE stock_holds (hold_id VARCHAR(36), product_id BIGINT, quantity INT, status VARCHAR(20))");
+        jdbcTemplate.execute("CREATE TABLE inventory_buckets (product_id BIGINT, bucket_index INT, available INT, " +
+            "quantity_delta INT, reserved_delta INT)");
+
+        upsertWriter = mock(InventoryUpsertWriter.class);
+        stockLedger = mock(StockLedger.class);
+        inventoryService = mock(InventoryService.class);
+        stripedStock = mock(StripedStockService.class);
+        when(stockLedger.rewriteAll(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        snapshotService = new InventorySnapshotService(database, upsertWriter,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), stockLedger, mock(StockJournal.class), inventoryService,
+            stripedStock, mock(SkuIndex.class), directory.toString(), 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSnapshot_RoundTripsRows() throws Exception {
+        SnapshotDTO created = snapshotService.createSnapshot();
+
+        assertEquals(2, created.getRows());
+        verify(stockLedger).flush();
+        assertEquals(1, snapshotService.listSnapshots().size());
+
+        SnapshotDTO restored = snapshotService.restoreSnapshot(created.getName());
+
+        assertEquals(2, restored.getRows());
+        ArgumentCaptor<List<InventoryImportRowDTO>> rows = ArgumentCaptor.forClass(List.class);
+        verify(upsertWriter).upsert(rows.capture());
+        assertEquals(new InventoryImportRowDTO(101L, "SKU-101", 40, 5, 10, 50, "Entrepôt A"), rows.getValue().get(0));
+        assertEquals(new InventoryImportRowDTO(102L, null, 8, 0, null, 50, null), rows.getValue().get(1));
+        verify(inventoryService).loadLowStockIndex();
+        verify(inventoryService).evictAllCachedInventory();
+        verify(stripedStock).resetBuckets();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRestore_EmptiesRowsMissingFromSnapshotAndKeepsHeldStock() throws Exception {
+        SnapshotDTO created = snapshotService.createSnapshot();
+        jdbcTemplate.update("INSERT INTO inventory VALUES (103, 'SKU-103', 12, 2, 10, 50, NULL)");
+        jdbcTemplate.update("INSERT INTO stock_holds VALUES ('h-1', 101, 4, 'ACTIVE'), ('h-2', 101, 3, 'ACTIVE'), " +
+            "('h-3', 102, 6, 'EXPIRED'), ('h-4', 103, 2, 'ACTIVE')");
+
+        snapshotService.restoreSnapshot(created.getName());
+
+        ArgumentCaptor<List<InventoryImportRowDTO>> rows = ArgumentCaptor.forClass(List.class);
+        verify(upsertWriter).upsert(rows.capture());
+        assertEquals(3, rows.getValue().size());
+        assertEquals(7, rows.getValue().get(0).getReservedQuantity());
+        assertEquals(0, rows.getValue().get(1).getReservedQuantity());
+        assertEquals(new InventoryImportRowDTO(103L, null, 0, 2, null, null, null), rows.getValue().get(2));
+        verify(stockLedger).rewriteAll(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSnapshot_FoldsUnreconciledBucketDeltas() throws Exception {
+        jdbcTemplate.update("INSERT INTO inventory_buckets VALUES (101, 0, 10, -3, 2), (101, 1, 10, -1, -9)");
+
+        SnapshotDTO created = snapshotService.createSnapshot();
+        snapshotService.restoreSnapshot(created.getName());
+
+        ArgumentCaptor<List<InventoryImportRowDTO>> rows = ArgumentCaptor.forClass(List.class);
+        verify(upsertWriter).upsert(rows.capture());
+        assertEquals(36, rows.getValue().get(0).getQuantity());
+        assertEquals(0, rows.getValue().get(0).getReservedQuantity());
+        assertEquals(8, rows.getValue().get(1).getQuantity());
+    }
+
+    @Test
+    void testRestore_RejectsCorruptedSnapshot() throws Exception {
+        SnapshotDTO created = snapshotService.createSnapshot();
+        try (FileChannel channel = FileChannel.open(directory.resolve(created.getName()), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42}), 40);
+        }
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> snapshotService.restoreSnapshot(created.getName()));
+
+        assertEquals("Snapshot checksum mismatch", ex.getMessage());
+        verify(upsertWriter, never()).upsert(anyList());
+    }
+
+    @Test
+    void testRestore_RejectsNamesOutsideDirectory() {
+        assertThrows(RuntimeException.class, () -> snapshotService.restoreSnapshot("../inventory-20240101-000000-000.snap"));
+    }
+}
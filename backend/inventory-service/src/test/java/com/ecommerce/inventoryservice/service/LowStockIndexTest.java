@@ -0,0 +1,85 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.InventoryDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LowStockIndexTest {
+
+    private LowStockIndex lowStockIndex;
+
+    @BeforeEach
+    void setUp() {
+        lowStockIndex = new LowStockIndex(1000);
+    }
+
+    @Test
+    void testRecord_TracksThresholdCrossings() {
+        lowStockIndex.record(inventory(1L, 5, 10), () -> inventory(1L, 5, 10));
+        lowStockIndex.record(inventory(2L, 50, 10), () -> inventory(2L, 50, 10));
+
+        assertEquals(1, lowStockIndex.items().size());
+        assertEquals(1L, lowStockIndex.items().get(0).getProductId());
+
+        lowStockIndex.record(inventory(1L, 20, 10), () -> inventory(1L, 20, 10));
+
+        assertTrue(lowStockIndex.items().isEmpty());
+    }
+
+    @Test
+    void testRecord_ConfirmsCrossingAgainstLatestLevel() {
+        lowStockIndex.record(inventory(1L, 5, 10), () -> inventory(1L, 5, 10));
+
+        // A stale restock recorded after a newer deduction must not drop the product
+        lowStockIndex.record(inventory(1L, 20, 10), () -> inventory(1L, 4, 10));
+
+        assertEquals(1, lowStockIndex.items().size());
+        assertEquals(4, lowStockIndex.items().get(0).getQuantity());
+    }
+
+    @Test
+    void testRecordLevel_LoadsOnlyOnNewCrossing() {
+        AtomicInteger loads = new AtomicInteger();
+        lowStockIndex.recordLevel(1L, 50, 0, 10, () -> {
+            loads.incrementAndGet();
+            return inventory(1L, 50, 10);
+        });
+        assertEquals(0, loads.get());
+
+        lowStockIndex.recordLevel(1L, 8, 0, 10, () -> {
+            loads.incrementAndGet();
+            return inventory(1L, 8, 10);
+        });
+        lowStockIndex.recordLevel(1L, 3, 1, 10, () -> {
+            loads.incrementAndGet();
+            return inventory(1L, 3, 10);
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals(3, lowStockIndex.items().get(0).getQuantity());
+        assertEquals(1, lowStockIndex.items().get(0).getReservedQuantity());
+    }
+
+    @Test
+    void testLoad_ReplacesContents() {
+        lowStockIndex.record(inventory(1L, 5, 10), () -> inventory(1L, 5, 10));
+        lowStockIndex.load(Collections.singletonList(inventory(2L, 1, 10)));
+
+        assertEquals(1, lowStockIndex.items().size());
+        assertEquals(2L, lowStockIndex.items().get(0).getProductId());
+    }
+
+    private InventoryDTO inventory(Long productId, int quantity, int reorderLevel) {
+        InventoryDTO dto = new InventoryDTO();
+        dto.setProductId(productId);
+        dto.setQuantity(quantity);
+        dto.setReservedQuantity(0);
+        dto.setReorderLevel(reorderLevel);
+        return dto;
+    }
+}
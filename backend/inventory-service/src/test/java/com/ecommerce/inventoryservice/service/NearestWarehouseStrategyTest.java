@@ -0,0 +1,53 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.entity.Warehouse;
+import com.ecommerce.inventoryservice.entity.WarehouseStock;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearestWarehouseStrategyTest {
+
+    private final NearestWarehouseStrategy strategy = new NearestWarehouseStrategy();
+
+    @Test
+    void testRank_NearestFirstWithMostStockFallback() {
+        Map<Long, Warehouse> warehouses = new HashMap<>();
+        warehouses.put(1L, new Warehouse(1L, "NYC", "New York", 40.71, -74.0, null));
+        warehouses.put(2L, new Warehouse(2L, "LAX", "Los Angeles", 34.05, -118.24, null));
+        warehouses.put(3L, new Warehouse(3L, "UNK", "Unmapped", null, null, null));
+        List<WarehouseStock> candidates = Arrays.asList(stock(1L, 1L, 5), stock(2L, 2L, 50), stock(3L, 3L, 500));
+
+        List<WarehouseStock> fromBoston = strategy.rank(candidates, warehouses, 42.36, -71.06);
+        List<WarehouseStock> noOrigin = strategy.rank(candidates, warehouses, null, null);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(fromBoston));
+        assertEquals(Arrays.asList(3L, 2L, 1L), ids(noOrigin));
+    }
+
+    @Test
+    void testDistanceKm() {
+        Warehouse nyc = new Warehouse(1L, "NYC", "New York", 40.71, -74.0, null);
+
+        assertEquals(3936, NearestWarehouseStrategy.distanceKm(nyc, 34.05, -118.24), 20);
+    }
+
+    private WarehouseStock stock(Long id, Long warehouseId, int available) {
+        WarehouseStock stock = new WarehouseStock();
+        stock.setId(id);
+        stock.setWarehouseId(warehouseId);
+        stock.setProductId(1L);
+        stock.setQuantity(available);
+        stock.setReservedQuantity(0);
+        return stock;
+    }
+
+    private List<Long> ids(List<WarehouseStock> ranked) {
+        return Arrays.asList(ranked.stream().map(WarehouseStock::getId).toArray(Long[]::new));
+    }
+}
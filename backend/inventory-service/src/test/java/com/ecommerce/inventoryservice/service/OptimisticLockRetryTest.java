@@ -0,0 +1,58 @@
+package com.ecommerce.inventoryservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class OptimisticLockRetryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticLockRetry optimisticLockRetry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        optimisticLockRetry = new OptimisticLockRetry(
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry, 3, 0);
+    }
+
+    @Test
+    void testExecute_RetriesAfterConflict() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = optimisticLockRetry.execute(status -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Inventory", 1L);
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, meterRegistry.counter("inventory.optimistic.conflicts").count());
+        assertEquals(2.0, meterRegistry.counter("inventory.optimistic.retries").count());
+        assertEquals(0.0, meterRegistry.counter("inventory.optimistic.exhausted").count());
+    }
+
+    @Test
+    void testExecute_GivesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> optimisticLockRetry.execute(status -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("Inventory", 1L);
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(3.0, meterRegistry.counter("inventory.optimistic.conflicts").count());
+        assertEquals(1.0, meterRegistry.counter("inventory.optimistic.exhausted").count());
+    }
+}
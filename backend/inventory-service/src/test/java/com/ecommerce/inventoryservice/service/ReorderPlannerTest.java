@@ -0,0 +1,154 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.ReorderPlanDTO;
+import com.ecommerce.inventoryservice.repository.PurchaseSuggestionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class ReorderPlannerTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private DeductionVelocityTracker velocityTracker;
+    private StockLedger stockLedger;
+    private ReorderPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE inventory (product_id BIGINT PRIMARY KEY, quantity INT, reserved_quantity INT, " +
+            "reorder_level INT, reorder_quantity INT)");
+        jdbcTemplate.execute("CREATE TABLE purchase_suggestions (id BIGINT AUTO_INCREMENT PRIMARY KEY, run_id VARCHAR(36), " +
+            "product_id BIGINT, available_quantity INT, daily_velocity DOUBLE, suggested_quantity INT, created_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE reorder_runs (run_id VARCHAR(36) PRIMARY KEY, status VARCHAR(20), " +
+            "started_at TIMESTAMP, completed_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE scheduler_leases (name VARCHAR(100) PRIMARY KEY, owner VARCHAR(100), expires_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE stock_movements (id BIGINT AUTO_INCREMENT PRIMARY KEY, product_id BIGINT, " +
+            "movement_type VARCHAR(20), quantity INT, reserved_quantity INT, recorded_at TIMESTAMP)");
+        for (long productId = 1; productId <= 1000; productId++) {
+            // Every tenth product is below its reorder level
+            int quantity = productId % 10 == 0 ? 5 : 100;
+            jdbcTemplate.update("INSERT INTO inventory VALUES (?, ?, 0, 10, 50)", productId, quantity);
+        }
+        // Plenty on hand, but reservations and sales will run it down within the lead time
+        jdbcTemplate.update("UPDATE inventory SET reserved_quantity = 65 WHERE product_id = 7");
+
+        // About 4.5 units a day at a 72 hour half-life, recorded by another node
+        jdbcTemplate.update("INSERT INTO stock_movements (product_id, movement_type, quantity, recorded_at) VALUES (7, 'DEDUCTED', 20, ?)",
+            Timestamp.valueOf(LocalDateTime.now().minusHours(1)));
+        jdbcTemplate.update("INSERT INTO stock_movements (product_id, movement_type, quantity, recorded_at) VALUES (8, 'DEDUCTED', 500, ?)",
+            Timestamp.valueOf(LocalDateTime.now().minusDays(30)));
+
+        velocityTracker = new DeductionVelocityTracker(72);
+        stockLedger = mock(StockLedger.class);
+        when(stockLedger.level(anyLong())).thenReturn(Optional.empty());
+        planner = newPlanner();
+    }
+
+    private ReorderPlanner newPlanner() {
+        StockJournal stockJournal = mock(StockJournal.class);
+        when(stockJournal.isEnabled()).thenReturn(true);
+        return new ReorderPlanner(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(database)),
+            mock(PurchaseSuggestionRepository.class), velocityTracker, stockJournal, stockLedger, 64, 7, 7, 4, 14, 3600);
+    }
+
+    @AfterEach
+    void tearDown() {
+        planner.shutdown();
+        database.shutdown();
+    }
+
+    @Test
+    void testPlan_SuggestsAcrossAllRanges() {
+        ReorderPlanDTO plan = planner.plan();
+
+        assertEquals(1000, plan.getScanned());
+        assertEquals(101, plan.getSuggested());
+        assertEquals(16, plan.getRanges());
+        List<Map<String, Object>> velocitySuggestion = jdbcTemplate.queryForList(
+            "SELECT suggested_quantity FROM purchase_suggestions WHERE product_id = 7");
+        // 35 available - 28 lead-time demand drops below the reorder level; the shortfall is under the usual lot of 50
+        assertEquals(50, ((Number) velocitySuggestion.get(0).get("SUGGESTED_QUANTITY")).intValue());
+    }
+
+    @Test
+    void testPlan_SplitsSparseIdsIntoFullRanges() {
+        jdbcTemplate.update("INSERT INTO inventory VALUES (5000000000, 5, 0, 10, 50)");
+
+        ReorderPlanDTO plan = planner.plan();
+
+        assertEquals(1001, plan.getScanned());
+        assertEquals(102, plan.getSuggested());
+        assertEquals(16, plan.getRanges());
+    }
+
+    @Test
+    void testPlan_ReplacesPreviousRun() {
+        String firstRun = planner.plan().getRunId();
+        String secondRun = planner.plan().getRunId();
+
+        assertEquals(0, (int) jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM purchase_suggestions WHERE run_id = ?", Integer.class, firstRun));
+        assertEquals(101, (int) jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM purchase_suggestions WHERE run_id = ?", Integer.class, secondRun));
+    }
+
+    @Test
+    void testPlan_KeepsSuggestionsOfUnfinishedRuns() {
+        jdbcTemplate.update("INSERT INTO reorder_runs (run_id, status, started_at) VALUES ('other', 'RUNNING', ?)",
+            Timestamp.valueOf(LocalDateTime.now()));
+        jdbcTemplate.update("INSERT INTO purchase_suggestions (run_id, product_id, available_quantity, daily_velocity, " +
+            "suggested_quantity) VALUES ('other', 1, 0, 0, 50)");
+
+        String runId = planner.plan().getRunId();
+
+        assertEquals(1, (int) jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM purchase_suggestions WHERE run_id = 'other'", Integer.class));
+        assertEquals(101, (int) jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM purchase_suggestions WHERE run_id = ?", Integer.class, runId));
+        assertEquals(runId, jdbcTemplate.queryForObject(
+            "SELECT run_id FROM reorder_runs WHERE status = 'COMPLETED'", String.class));
+    }
+
+    @Test
+    void testPlan_SkipsWhileAnotherNodeHoldsTheLease() {
+        ReorderPlanner otherNode = newPlanner();
+        try {
+            assertTrue(otherNode.acquireLease());
+
+            assertThrows(RuntimeException.class, () -> planner.plan());
+            planner.scheduledPlan();
+            assertEquals(0, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reorder_runs", Integer.class));
+
+            jdbcTemplate.update("UPDATE scheduler_leases SET expires_at = ?", Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)));
+            assertEquals(101, planner.plan().getSuggested());
+        } finally {
+            otherNode.shutdown();
+        }
+    }
+
+    @Test
+    void testSuggestedQuantity_CoversLeadTimeDemand() {
+        assertEquals(0, planner.suggestedQuantity(100, 1.0, 10, 50));
+        assertEquals(50, planner.suggestedQuantity(10, 0.0, 10, 50));
+        assertEquals(80, planner.suggestedQuantity(0, 10.0, 10, 50));
+    }
+}
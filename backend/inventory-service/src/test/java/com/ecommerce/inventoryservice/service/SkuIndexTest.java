@@ -0,0 +1,72 @@
+package com.ecommerce.inventoryservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkuIndexTest {
+
+    private EmbeddedDatabase database;
+    private SkuIndex skuIndex;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE inventory (product_id BIGINT PRIMARY KEY, product_sku VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO inventory VALUES (1, 'LAP-001'), (2, 'LAP-002'), (3, 'MON-001'), " +
+            "(4, 'LAP-010'), (5, NULL), (6, 'LAP-002')");
+        skuIndex = new SkuIndex(database, 100);
+        skuIndex.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testFindByPrefix_InSkuOrderUpToLimit() {
+        assertEquals(5, skuIndex.size());
+        assertEquals(Arrays.asList(1L, 2L, 6L, 4L), skuIndex.findByPrefix("LAP-", 10));
+        assertEquals(Arrays.asList(1L, 2L), skuIndex.findByPrefix("LAP", 2));
+        assertTrue(skuIndex.findByPrefix("TAB", 10).isEmpty());
+    }
+
+    @Test
+    void testFindBySkus_ExactMatchesIncludingDuplicates() {
+        assertEquals(Arrays.asList(3L, 2L, 6L),
+            Arrays.asList(skuIndex.findBySkus(Arrays.asList("MON-001", "LAP-002", "MISSING", "MON-001")).toArray()));
+    }
+
+    @Test
+    void testPut_KeepsOrderAndIgnoresRepeats() {
+        skuIndex.put("LAP-005", 7L);
+        skuIndex.put("AAA-1", 8L);
+        skuIndex.put("LAP-005", 7L);
+
+        assertEquals(7, skuIndex.size());
+        assertEquals(Arrays.asList(1L, 2L, 6L, 7L, 4L), skuIndex.findByPrefix("LAP-0", 10));
+        assertEquals(Arrays.asList(8L), skuIndex.findByPrefix("A", 10));
+    }
+
+    @Test
+    void testReload_FoldsOverflowIntoArrays() {
+        skuIndex.put("LAP-003", 9L);
+        assertEquals(Arrays.asList(2L, 6L, 9L), skuIndex.findByPrefix("LAP-00", 10).subList(1, 4));
+
+        skuIndex.reload();
+
+        // Not in the table, so dropped once the arrays are rebuilt
+        assertEquals(5, skuIndex.size());
+        assertTrue(skuIndex.findBySkus(Arrays.asList("LAP-003")).isEmpty());
+    }
+}
@@ -0,0 +1,153 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.StockHoldDTO;
+import com.ecommerce.inventoryservice.entity.HoldStatus;
+import com.ecommerce.inventoryservice.entity.StockHold;
+import com.ecommerce.inventoryservice.repository.StockHoldRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockHoldServiceTest {
+
+    @Mock
+    private StockHoldRepository stockHoldRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StockHoldService stockHoldService;
+
+    @BeforeEach
+    void setUp() {
+        OptimisticLockRetry retry = new OptimisticLockRetry(new TransactionTemplate(transactionManager),
+            new SimpleMeterRegistry(), 3, 0);
+        stockHoldService = new StockHoldService(stockHoldRepository, inventoryService, retry, 900, 3600, 100, 64);
+    }
+
+    @Test
+    void testHoldStock_ReservesAndSavesActiveHold() {
+        when(inventoryService.reserveStock(1L, 5)).thenReturn(true);
+        when(stockHoldRepository.saveAndFlush(any(StockHold.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        StockHoldDTO hold = stockHoldService.holdStock(1L, 5, 60L);
+
+        assertNotNull(hold.getHoldId());
+        assertEquals(HoldStatus.ACTIVE, hold.getStatus());
+        assertEquals(5, hold.getQuantity());
+        assertNotNull(hold.getExpiresAt());
+    }
+
+    @Test
+    void testHoldStock_ReturnsNullWithoutSavingWhenStockIsShort() {
+        when(inventoryService.reserveStock(1L, 5)).thenReturn(false);
+
+        assertNull(stockHoldService.holdStock(1L, 5, null));
+        verify(stockHoldRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testConfirmHold_DeductsHeldStock() {
+        StockHold hold = hold("h-1", HoldStatus.ACTIVE);
+        when(stockHoldRepository.findByHoldId("h-1")).thenReturn(Optional.of(hold));
+        when(stockHoldRepository.transition(eq("h-1"), eq(HoldStatus.ACTIVE), eq(HoldStatus.CONFIRMED), any()))
+            .thenReturn(1);
+
+        StockHoldDTO confirmed = stockHoldService.confirmHold("h-1");
+
+        assertEquals(HoldStatus.CONFIRMED, confirmed.getStatus());
+        verify(inventoryService).deductStock(1L, 5);
+        verify(inventoryService, never()).releaseStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void testReleaseHold_ReleasesHeldStock() {
+        StockHold hold = hold("h-1", HoldStatus.ACTIVE);
+        when(stockHoldRepository.findByHoldId("h-1")).thenReturn(Optional.of(hold));
+        when(stockHoldRepository.transition(eq("h-1"), eq(HoldStatus.ACTIVE), eq(HoldStatus.RELEASED), any()))
+            .thenReturn(1);
+
+        StockHoldDTO released = stockHoldService.releaseHold("h-1");
+
+        assertEquals(HoldStatus.RELEASED, released.getStatus());
+        verify(inventoryService).releaseStock(1L, 5);
+    }
+
+    @Test
+    void testReleaseHold_RejectsHoldThatIsNoLongerActive() {
+        when(stockHoldRepository.findByHoldId("h-1")).thenReturn(Optional.of(hold("h-1", HoldStatus.EXPIRED)));
+
+        assertThrows(RuntimeException.class, () -> stockHoldService.releaseHold("h-1"));
+        verify(inventoryService, never()).releaseStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void testReleaseHold_RejectsHoldSettledConcurrently() {
+        when(stockHoldRepository.findByHoldId("h-1")).thenReturn(Optional.of(hold("h-1", HoldStatus.ACTIVE)));
+        when(stockHoldRepository.transition(eq("h-1"), eq(HoldStatus.ACTIVE), eq(HoldStatus.RELEASED), any()))
+            .thenReturn(0);
+
+        assertThrows(RuntimeException.class, () -> stockHoldService.releaseHold("h-1"));
+        verify(inventoryService, never()).releaseStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void testExpireHolds_ReleasesOnlyHoldsThisCallExpired() {
+        StockHold first = hold("h-1", HoldStatus.ACTIVE);
+        StockHold second = hold("h-2", HoldStatus.ACTIVE);
+        StockHold third = hold("h-3", HoldStatus.ACTIVE);
+        when(stockHoldRepository.findByHoldIdInAndStatus(List.of("h-1", "h-2", "h-3"), HoldStatus.ACTIVE))
+            .thenReturn(List.of(first, second, third));
+        when(stockHoldRepository.transition(anyString(), eq(HoldStatus.ACTIVE), eq(HoldStatus.EXPIRED), any()))
+            .thenReturn(1, 1, 0);
+
+        assertEquals(2, stockHoldService.expireHolds(List.of("h-1", "h-2", "h-3")));
+
+        verify(inventoryService).releaseStock(1L, 10);
+    }
+
+    @Test
+    void testSweepExpiredHolds_ExpiresHoldsTheWheelMissed() {
+        StockHold stale = hold("h-9", HoldStatus.ACTIVE);
+        when(stockHoldRepository.findTop500ByStatusAndExpiresAtBeforeOrderByExpiresAt(eq(HoldStatus.ACTIVE), any()))
+            .thenReturn(List.of(stale));
+        when(stockHoldRepository.findByHoldIdInAndStatus(List.of("h-9"), HoldStatus.ACTIVE)).thenReturn(List.of(stale));
+        when(stockHoldRepository.transition(eq("h-9"), eq(HoldStatus.ACTIVE), eq(HoldStatus.EXPIRED), any()))
+            .thenReturn(1);
+
+        stockHoldService.sweepExpiredHolds();
+
+        verify(inventoryService).releaseStock(1L, 5);
+    }
+
+    private StockHold hold(String holdId, HoldStatus status) {
+        StockHold hold = new StockHold();
+        hold.setHoldId(holdId);
+        hold.setProductId(1L);
+        hold.setQuantity(5);
+        hold.setStatus(status);
+        hold.setExpiresAt(LocalDateTime.now().plusMinutes(5));
+        return hold;
+    }
+}
@@ -0,0 +1,211 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.JournalRunDTO;
+import com.ecommerce.inventoryservice.entity.Inventory;
+import com.ecommerce.inventoryservice.entity.MovementType;
+import com.ecommerce.inventoryservice.repository.InventoryRepository;
+import com.ecommerce.inventoryservice.repository.StockMovementRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class StockJournalTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private StockLedger stockLedger;
+    private InventoryService inventoryService;
+    private StripedStockService stripedStock;
+    private StockJournal journal;
+    private JournalReplayService replayService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE scheduler_leases (name VARCHAR(100) PRIMARY KEY, owner VARCHAR(100), expires_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE inventory (product_id BIGINT PRIMARY KEY, quantity INT, reserved_quantity INT, " +
+            "last_restocked_at TIMESTAMP, version BIGINT DEFAULT 0, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE stock_movements (id BIGINT AUTO_INCREMENT PRIMARY KEY, product_id BIGINT, " +
+            "movement_type VARCHAR(20), quantity INT, reserved_quantity INT, recorded_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE inventory_checkpoints (product_id BIGINT PRIMARY KEY, quantity INT, " +
+            "reserved_quantity INT, last_movement_id BIGINT, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE journal_checkpoints (id BIGINT AUTO_INCREMENT PRIMARY KEY, watermark BIGINT, " +
+            "products INT, created_at TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO inventory (product_id, quantity, reserved_quantity) VALUES (1, 0, 0), (2, 0, 0)");
+
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        stockLedger = mock(StockLedger.class);
+        lenient().when(stockLedger.rewriteAll(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        inventoryService = mock(InventoryService.class);
+        stripedStock = mock(StripedStockService.class);
+        journal = new StockJournal(jdbcTemplate, transactionTemplate, mock(StockMovementRepository.class), true, 2);
+        replayService = new JournalReplayService(database, transactionTemplate, journal, stockLedger, inventoryService,
+            stripedStock, mock(DeductionVelocityTracker.class), 60000, 2, 100, 14);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testAppend_WrittenWithCommittedTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            journal.append(1L, MovementType.SET, 100, 0);
+            journal.append(1L, MovementType.RESERVED, 5, null);
+            assertEquals(0, movementCount(), "buffered until commit");
+        });
+
+        assertEquals(2, movementCount());
+    }
+
+    @Test
+    void testAppend_DiscardedWithRolledBackTransaction() {
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            journal.append(1L, MovementType.DEDUCTED, 3, null);
+            throw new IllegalStateException("stock update failed");
+        }));
+
+        assertEquals(0, movementCount());
+    }
+
+    @Test
+    void testAppend_OutsideTransactionQueuedUntilFlushInOrder() {
+        for (int i = 1; i <= 5; i++) {
+            journal.append(2L, MovementType.ADJUSTED, i, null);
+        }
+        assertEquals(0, movementCount());
+
+        journal.flush();
+
+        assertEquals(5, movementCount());
+        assertEquals(5, jdbcTemplate.queryForObject(
+            "SELECT quantity FROM stock_movements WHERE id = (SELECT MAX(id) FROM stock_movements)", Integer.class));
+    }
+
+    @Test
+    void testApply_AppliesMovementsAsRecorded() {
+        int[] level = {0, 0};
+        StockJournal.apply(level, MovementType.SET, 50, 10);
+        StockJournal.apply(level, MovementType.ADJUSTED, -5, null);
+        StockJournal.apply(level, MovementType.RESERVED, 4, null);
+        StockJournal.apply(level, MovementType.RELEASED, 14, null);
+        assertArrayEquals(new int[] {45, 0}, level);
+
+        StockJournal.apply(level, MovementType.RESERVED, 6, null);
+        StockJournal.apply(level, MovementType.DEDUCTED, 8, 6);
+        assertArrayEquals(new int[] {37, 0}, level);
+        // Deductions journaled without the consumed reservation
+        StockJournal.apply(level, MovementType.RESERVED, 2, null);
+        StockJournal.apply(level, MovementType.DEDUCTED, 3, null);
+        StockJournal.apply(level, MovementType.SET, 20, null);
+        assertArrayEquals(new int[] {20, 0}, level);
+    }
+
+    @Test
+    void testLedgerMovements_WrittenWithFlushedDeltas() {
+        InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+        Inventory inventory = new Inventory();
+        inventory.setProductId(1L);
+        inventory.setQuantity(0);
+        inventory.setReservedQuantity(0);
+        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        StockLedger ledger = new StockLedger(inventoryRepository, jdbcTemplate, transactionTemplate, journal, true, 4, 500, 30);
+        ledger.renewLease();
+        transactionTemplate.executeWithoutResult(status -> journal.append(1L, MovementType.SET, 0, 0));
+
+        ledger.adjust(1L, 20);
+        ledger.reserve(1L, 5);
+        ledger.release(1L, 8);
+        ledger.reserve(1L, 4);
+        ledger.deduct(1L, 6);
+        assertEquals(1, movementCount(), "held with the ledger's deltas");
+
+        ledger.flush();
+
+        assertEquals(6, movementCount());
+        assertEquals(5, jdbcTemplate.queryForObject(
+            "SELECT quantity FROM stock_movements WHERE movement_type = 'RELEASED'", Integer.class));
+        assertEquals(4, jdbcTemplate.queryForObject(
+            "SELECT reserved_quantity FROM stock_movements WHERE movement_type = 'DEDUCTED'", Integer.class));
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT quantity, reserved_quantity FROM inventory WHERE product_id = 1");
+        int[] replayed = {0, 0};
+        jdbcTemplate.query("SELECT movement_type, quantity, reserved_quantity FROM stock_movements WHERE product_id = 1 ORDER BY id",
+            rs -> {
+                StockJournal.apply(replayed, MovementType.valueOf(rs.getString("movement_type")), rs.getInt("quantity"),
+                    rs.getObject("reserved_quantity", Integer.class));
+            });
+        assertArrayEquals(new int[] {((Number) row.get("QUANTITY")).intValue(), ((Number) row.get("RESERVED_QUANTITY")).intValue()},
+            replayed);
+        assertArrayEquals(new int[] {14, 0}, replayed);
+    }
+
+    @Test
+    void testRebuild_FromCheckpointAndTail() {
+        transactionTemplate.executeWithoutResult(status -> {
+            journal.append(1L, MovementType.SET, 100, 0);
+            journal.append(1L, MovementType.RESERVED, 10, null);
+            journal.append(2L, MovementType.SET, 40, 2);
+            journal.append(1L, MovementType.DEDUCTED, 7, null);
+        });
+        // Older than the checkpoint lag, so the checkpoint covers them
+        jdbcTemplate.update("UPDATE stock_movements SET recorded_at = ?", Timestamp.valueOf(LocalDateTime.now().minusHours(1)));
+
+        JournalRunDTO checkpoint = replayService.checkpoint();
+        assertEquals(4, checkpoint.getMovements());
+        assertEquals(2, checkpoint.getProducts());
+        Map<String, Object> folded = jdbcTemplate.queryForMap(
+            "SELECT quantity, reserved_quantity FROM inventory_checkpoints WHERE product_id = 1");
+        assertEquals(93, ((Number) folded.get("quantity")).intValue());
+        assertEquals(3, ((Number) folded.get("reserved_quantity")).intValue());
+
+        // Movements after the watermark are replayed on top of the checkpoint
+        journal.append(1L, MovementType.ADJUSTED, 20, null);
+        journal.append(2L, MovementType.RELEASED, 2, null);
+
+        JournalRunDTO rebuild = replayService.rebuild();
+
+        assertEquals(2, rebuild.getMovements());
+        assertEquals(2, rebuild.getProducts());
+        assertEquals(113, jdbcTemplate.queryForObject("SELECT quantity FROM inventory WHERE product_id = 1", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT reserved_quantity FROM inventory WHERE product_id = 1", Integer.class));
+        assertEquals(40, jdbcTemplate.queryForObject("SELECT quantity FROM inventory WHERE product_id = 2", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT reserved_quantity FROM inventory WHERE product_id = 2", Integer.class));
+        verify(stockLedger).rewriteAll(any());
+        verify(stripedStock).resetBuckets();
+        verify(inventoryService).evictAllCachedInventory();
+        verify(inventoryService).loadLowStockIndex();
+    }
+
+    @Test
+    void testCheckpoint_SkipsMovementsInsideLag() {
+        transactionTemplate.executeWithoutResult(status -> journal.append(1L, MovementType.SET, 10, 0));
+
+        JournalRunDTO run = replayService.checkpoint();
+
+        assertEquals(0, run.getMovements());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_checkpoints", Integer.class));
+    }
+
+    private int movementCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_movements", Integer.class);
+    }
+}
@@ -0,0 +1,274 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.entity.Inventory;
+import com.ecommerce.inventoryservice.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockLedgerTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private StockJournal stockJournal;
+
+    private StockLedger stockLedger;
+
+    @BeforeEach
+    void setUp() {
+        stockLedger = new StockLedger(inventoryRepository, jdbcTemplate,
+            new TransactionTemplate(transactionManager), stockJournal, true, 16, 500, 30);
+        when(jdbcTemplate.update(startsWith("UPDATE scheduler_leases"), (Object[]) any())).thenReturn(1);
+        stockLedger.renewLease();
+
+        Inventory inventory = new Inventory();
+        inventory.setProductId(1L);
+        inventory.setQuantity(100);
+        inventory.setReservedQuantity(0);
+        lenient().when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+    }
+
+    @Test
+    void testReserve_OnlyTheNodeHoldingTheLeaseAdmits() {
+        StockLedger otherNode = new StockLedger(inventoryRepository, jdbcTemplate,
+            new TransactionTemplate(transactionManager), stockJournal, true, 16, 500, 30);
+        when(jdbcTemplate.update(startsWith("UPDATE scheduler_leases"), (Object[]) any())).thenReturn(0);
+        when(jdbcTemplate.update(startsWith("INSERT INTO scheduler_leases"), (Object[]) any()))
+            .thenThrow(new DuplicateKeyException("lease held"));
+        otherNode.renewLease();
+
+        assertTrue(stockLedger.reserve(1L, 10));
+        assertThrows(RuntimeException.class, () -> otherNode.reserve(1L, 10));
+        assertTrue(otherNode.level(1L).isEmpty());
+    }
+
+    @Test
+    void testReserve_NeverOversellsUnderContention() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger granted = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            executor.submit(() -> {
+                if (stockLedger.reserve(1L, 1)) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+        assertEquals(100, stockLedger.level(1L).orElseThrow().getReservedQuantity());
+        verify(inventoryRepository, atLeastOnce()).findByProductId(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_CoalescesDeltasIntoOneRow() {
+        stockLedger.reserve(1L, 5);
+        stockLedger.reserve(1L, 3);
+        stockLedger.release(1L, 2);
+        stockLedger.deduct(1L, 4);
+
+        stockLedger.flush();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), captor.capture());
+        List<Object[]> rows = captor.getValue();
+        assertEquals(1, rows.size());
+        assertEquals(-4, rows.get(0)[0]);
+        assertEquals(2, rows.get(0)[1]);
+        assertEquals(1L, rows.get(0)[4]);
+
+        stockLedger.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_RequeuesDeltasOnFailure() {
+        stockLedger.reserve(1L, 5);
+        stockLedger.adjust(1L, 10);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenThrow(new QueryTimeoutException("timeout"))
+            .thenThrow(new QueryTimeoutException("timeout"))
+            .thenReturn(new int[] {1});
+
+        stockLedger.flush();
+        stockLedger.flush();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), captor.capture());
+        Object[] retried = captor.getAllValues().get(2).get(0);
+        assertEquals(10, retried[0]);
+        assertEquals(5, retried[1]);
+        assertNotNull(retried[2]);
+    }
+
+    @Test
+    void testUndoDeduct_RestoresStockAndConsumedReservation() {
+        stockLedger.reserve(1L, 4);
+
+        StockLedger.Level deducted = stockLedger.deduct(1L, 6);
+        assertEquals(4, deducted.getConsumed());
+        stockLedger.undoDeduct(1L, 6, deducted.getConsumed());
+
+        StockLedger.Level level = stockLedger.level(1L).orElseThrow();
+        assertEquals(100, level.getQuantity());
+        assertEquals(4, level.getReservedQuantity());
+    }
+
+    @Test
+    void testDeduct_RejectsBelowZero() {
+        stockLedger.reserve(1L, 10);
+
+        assertThrows(RuntimeException.class, () -> stockLedger.deduct(1L, 101));
+        assertThrows(RuntimeException.class, () -> stockLedger.adjust(1L, -101));
+
+        StockLedger.Level level = stockLedger.level(1L).orElseThrow();
+        assertEquals(100, level.getQuantity());
+        assertEquals(10, level.getReservedQuantity());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_DeadLettersRejectedRowAndWritesTheRest() {
+        Inventory other = new Inventory();
+        other.setProductId(2L);
+        other.setQuantity(50);
+        other.setReservedQuantity(0);
+        when(inventoryRepository.findByProductId(2L)).thenReturn(Optional.of(other));
+        stockLedger.reserve(1L, 5);
+        stockLedger.reserve(2L, 7);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            if (rows.stream().anyMatch(row -> row[4].equals(2L))) {
+                throw new DataIntegrityViolationException("CK_Inventory_ReservedQuantity");
+            }
+            return new int[rows.size()];
+        });
+
+        stockLedger.flush();
+        stockLedger.flush();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), captor.capture());
+        assertEquals(2, captor.getAllValues().get(0).size());
+        assertEquals(Collections.singleton(2L), stockLedger.deadLetters().keySet());
+        assertEquals(7, stockLedger.deadLetters().get(2L)[1]);
+        assertTrue(stockLedger.level(2L).isEmpty());
+        assertEquals(5, stockLedger.level(1L).orElseThrow().getReservedQuantity());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEvict_KeepsEntryWhenWriteFails() {
+        stockLedger.reserve(1L, 5);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenThrow(new QueryTimeoutException("timeout"))
+            .thenThrow(new QueryTimeoutException("timeout"))
+            .thenReturn(new int[] {1});
+
+        stockLedger.evict(List.of(1L));
+
+        assertEquals(5, stockLedger.level(1L).orElseThrow().getReservedQuantity());
+        stockLedger.flush();
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), captor.capture());
+        assertEquals(5, captor.getAllValues().get(2).get(0)[1]);
+    }
+
+    @Test
+    void testReserveAll_PropagatesLoadFailures() {
+        when(inventoryRepository.findByProductId(2L)).thenThrow(new DataAccessResourceFailureException("down"));
+        Map<Long, Integer> requested = new HashMap<>();
+        requested.put(1L, 5);
+        requested.put(2L, 1);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> stockLedger.reserveAll(requested, new HashMap<>()));
+        assertEquals(0, stockLedger.level(1L).orElseThrow().getReservedQuantity());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRewrite_WritesPendingDeltasWithRewriteAndReloads() {
+        stockLedger.reserve(1L, 5);
+
+        String result = stockLedger.rewrite(List.of(1L), () -> {
+            assertFalse(stockLedger.level(1L).isEmpty());
+            return "rewritten";
+        });
+
+        assertEquals("rewritten", result);
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        assertEquals(5, captor.getValue().get(0)[1]);
+        assertTrue(stockLedger.level(1L).isEmpty());
+        stockLedger.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testRewrite_RewritesOfOtherStripesRunConcurrently() throws Exception {
+        CountDownLatch otherRewrite = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> first = executor.submit(() -> stockLedger.rewrite(List.of(1L),
+                () -> awaitQuietly(otherRewrite)));
+
+            stockLedger.rewrite(List.of(2L), () -> {
+                otherRewrite.countDown();
+                return null;
+            });
+
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
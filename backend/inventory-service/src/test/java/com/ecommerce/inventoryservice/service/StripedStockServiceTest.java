@@ -0,0 +1,190 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.InventoryBucketDTO;
+import com.ecommerce.inventoryservice.entity.Inventory;
+import com.ecommerce.inventoryservice.entity.MovementType;
+import com.ecommerce.inventoryservice.repository.InventoryBucketRepository;
+import com.ecommerce.inventoryservice.repository.InventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+// Not transactional, so each service call commits like it does in production
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StripedStockServiceTest {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryBucketRepository bucketRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private TransactionTemplate transactionTemplate;
+    private StripedStockService stripedStock;
+    private final StockJournal stockJournal = mock(StockJournal.class);
+
+    @BeforeEach
+    void setUp() {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(1L);
+        inventory.setQuantity(100);
+        inventory.setReservedQuantity(10);
+        inventory.setReorderLevel(5);
+        inventoryRepository.save(inventory);
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        stripedStock = new StripedStockService(bucketRepository, inventoryRepository, transactionTemplate,
+            new JdbcTemplate(dataSource), mock(StockLedger.class), mock(InventoryAvailabilityCache.class), stockJournal, 4, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bucketRepository.deleteAll();
+        inventoryRepository.deleteAll();
+    }
+
+    @Test
+    void testEnable_SpreadsFreeStockAcrossBuckets() {
+        List<InventoryBucketDTO> buckets = stripedStock.enable(1L, null);
+
+        assertThat(buckets).extracting(InventoryBucketDTO::getAvailable).containsExactly(23, 23, 22, 22);
+        assertThat(stripedStock.isStriped(1L)).isTrue();
+    }
+
+    @Test
+    void testEnable_OtherInstanceDiscoversStripingOnRowMiss() {
+        StripedStockService otherNode = new StripedStockService(bucketRepository, inventoryRepository, transactionTemplate,
+            new JdbcTemplate(dataSource), mock(StockLedger.class), mock(InventoryAvailabilityCache.class), stockJournal, 4, 16);
+        stripedStock.enable(1L, 4);
+
+        assertThat(otherNode.isStriped(1L)).isFalse();
+        // Every free unit sits in a bucket, so the row path cannot take it again
+        assertThat(transactionTemplate.<Integer>execute(status ->
+            inventoryRepository.reserveIfAvailable(1L, 1, LocalDateTime.now()))).isZero();
+        assertThat(otherNode.discover(1L)).isTrue();
+        assertThat(transactionTemplate.<Boolean>execute(status -> otherNode.reserve(1L, 1))).isTrue();
+        assertThat(stripedStock.available(1L)).isEqualTo(89);
+    }
+
+    @Test
+    void testDrainBuckets_KeepsReservationsAndEmptiesBuckets() {
+        stripedStock.enable(1L, 4);
+        assertThat(reserve(5)).isTrue();
+        transactionTemplate.executeWithoutResult(status -> assertThat(stripedStock.deduct(1L, 3)).isTrue());
+
+        transactionTemplate.executeWithoutResult(status -> stripedStock.drainBuckets(List.of(1L, 2L)));
+
+        Inventory row = inventoryRepository.findByProductId(1L).orElseThrow();
+        assertThat(row.getQuantity()).isEqualTo(97);
+        assertThat(row.getReservedQuantity()).isEqualTo(12);
+        assertThat(stripedStock.getBuckets(1L)).allSatisfy(bucket -> {
+            assertThat(bucket.getAvailable()).isZero();
+            assertThat(bucket.getQuantityDelta()).isZero();
+            assertThat(bucket.getReservedDelta()).isZero();
+        });
+    }
+
+    @Test
+    void testReserve_LargerThanAnyBucketFoldsAndReservesFromTotal() {
+        stripedStock.enable(1L, 4);
+
+        assertThat(reserve(30)).isTrue();
+        assertThat(reserve(61)).isFalse();
+        assertThat(reserve(60)).isTrue();
+
+        Inventory row = inventoryRepository.findByProductId(1L).orElseThrow();
+        assertThat(row.getReservedQuantity()).isEqualTo(100);
+        assertThat(stripedStock.available(1L)).isZero();
+    }
+
+    @Test
+    void testReconcile_FoldsDeltasIntoRow() {
+        stripedStock.enable(1L, 4);
+        assertThat(reserve(5)).isTrue();
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(stripedStock.deduct(1L, 3)).isTrue();
+            assertThat(stripedStock.release(1L, 2)).isTrue();
+        });
+        Inventory before = inventoryRepository.findByProductId(1L).orElseThrow();
+        assertThat(stripedStock.level(before).orElseThrow().getQuantity()).isEqualTo(97);
+
+        stripedStock.reconcile(1L);
+
+        Inventory row = inventoryRepository.findByProductId(1L).orElseThrow();
+        assertThat(row.getQuantity()).isEqualTo(97);
+        assertThat(row.getReservedQuantity()).isEqualTo(10);
+        assertThat(stripedStock.available(1L)).isEqualTo(87);
+        assertThat(stripedStock.getBuckets(1L)).allSatisfy(bucket -> assertThat(bucket.getReservedDelta()).isZero());
+    }
+
+    @Test
+    void testReconcile_JournalsReleaseBeyondReservation() {
+        stripedStock.enable(1L, 4);
+        transactionTemplate.executeWithoutResult(status -> assertThat(stripedStock.release(1L, 15)).isTrue());
+
+        stripedStock.reconcile(1L);
+
+        assertThat(inventoryRepository.findByProductId(1L).orElseThrow().getReservedQuantity()).isZero();
+        // The release was journaled in full, so the 5 units the row could not give back are journaled too
+        verify(stockJournal).append(1L, MovementType.RESERVED, 5, null);
+    }
+
+    @Test
+    void testConcurrentReservations_NeverOversell() throws InterruptedException {
+        stripedStock.enable(1L, 4);
+        AtomicInteger reserved = new AtomicInteger();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 120; i++) {
+            pool.execute(() -> {
+                try {
+                    if (reserve(1)) {
+                        reserved.incrementAndGet();
+                    }
+                } catch (RuntimeException ex) {
+                    failures.add(ex);
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(failures).isEmpty();
+
+        stripedStock.disable(1L);
+
+        assertThat(reserved.get()).isEqualTo(90);
+        assertThat(inventoryRepository.findByProductId(1L).orElseThrow().getReservedQuantity()).isEqualTo(100);
+        assertThat(bucketRepository.findByProductIdOrderByBucketIndex(1L)).isEmpty();
+    }
+
+    private boolean reserve(int quantity) {
+        return transactionTemplate.execute(status -> stripedStock.reserve(1L, quantity));
+    }
+}
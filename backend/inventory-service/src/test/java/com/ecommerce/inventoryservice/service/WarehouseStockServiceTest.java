@@ -0,0 +1,139 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.dto.WarehouseReservationDTO;
+import com.ecommerce.inventoryservice.entity.Warehouse;
+import com.ecommerce.inventoryservice.entity.WarehouseStock;
+import com.ecommerce.inventoryservice.repository.WarehouseRepository;
+import com.ecommerce.inventoryservice.repository.WarehouseStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WarehouseStockServiceTest {
+
+    @Mock
+    private WarehouseRepository warehouseRepository;
+
+    @Mock
+    private WarehouseStockRepository warehouseStockRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OptimisticLockRetry optimisticLockRetry;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    private WarehouseStockService warehouseStockService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        warehouseStockService = new WarehouseStockService(warehouseRepository, warehouseStockRepository,
+            new TransactionTemplate(transactionManager), optimisticLockRetry, inventoryService, stockLedger,
+            Collections.singletonList(new MostStockWarehouseStrategy()), "most-stock");
+    }
+
+    @Test
+    void testReserve_LeavesTotalToTheFold() {
+        stock(stock(1L, 1L, 20), stock(2L, 2L, 5));
+        when(warehouseStockRepository.reserveIfAvailable(eq(1L), eq(3), eq(3), any())).thenReturn(1);
+
+        WarehouseReservationDTO reservation = warehouseStockService.reserve(7L, 3, null, null, null);
+
+        assertTrue(reservation.isReserved());
+        assertEquals("WH-1", reservation.getWarehouseCode());
+        verify(transactionManager).commit(any());
+        verify(inventoryService, never()).reserveStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void testFoldPendingReservations_MovesPendingIntoTotal() {
+        WarehouseStock first = stock(1L, 1L, 20);
+        first.setPendingReserved(3);
+        WarehouseStock second = stock(2L, 2L, 5);
+        second.setPendingReserved(2);
+        when(warehouseStockRepository.findProductIdsWithPendingReservations()).thenReturn(List.of(7L));
+        when(warehouseStockRepository.findByProductIdForUpdate(7L)).thenReturn(List.of(first, second));
+
+        warehouseStockService.foldPendingReservations();
+
+        verify(warehouseStockRepository).clearPendingReservations(7L);
+        verify(inventoryService).applyLocatedReservations(7L, 5);
+    }
+
+    @Test
+    void testReserve_RollsBackWhenLedgerTotalIsShort() {
+        when(stockLedger.isEnabled()).thenReturn(true);
+        stock(stock(1L, 1L, 20), stock(2L, 2L, 5));
+        when(warehouseStockRepository.reserveIfAvailable(eq(1L), eq(3), eq(0), any())).thenReturn(1);
+        when(inventoryService.reserveStock(7L, 3)).thenReturn(false);
+
+        WarehouseReservationDTO reservation = warehouseStockService.reserve(7L, 3, null, null, null);
+
+        assertFalse(reservation.isReserved());
+        ArgumentCaptor<TransactionStatus> status = ArgumentCaptor.forClass(TransactionStatus.class);
+        verify(transactionManager).commit(status.capture());
+        assertTrue(status.getValue().isRollbackOnly());
+        verify(warehouseStockRepository, never()).reserveIfAvailable(eq(2L), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void testDeduct_DeductsTotalWithWarehouse() {
+        when(warehouseRepository.findByCode("WH-1")).thenReturn(Optional.of(warehouse(1L)));
+        when(warehouseStockRepository.deduct(eq(1L), eq(7L), eq(2), any())).thenReturn(0);
+
+        assertThrows(RuntimeException.class, () -> warehouseStockService.deduct("WH-1", 7L, 2));
+        verify(inventoryService, never()).deductStock(anyLong(), anyInt());
+
+        when(warehouseStockRepository.deduct(eq(1L), eq(7L), eq(2), any())).thenReturn(1);
+        warehouseStockService.deduct("WH-1", 7L, 2);
+        verify(inventoryService).deductStock(7L, 2);
+    }
+
+    private void stock(WarehouseStock... rows) {
+        List<WarehouseStock> stock = Arrays.asList(rows);
+        when(warehouseStockRepository.findByProductId(7L)).thenReturn(stock);
+        when(warehouseRepository.findByIdIn(any())).thenReturn(Arrays.asList(warehouse(1L), warehouse(2L)));
+    }
+
+    private WarehouseStock stock(Long id, Long warehouseId, int quantity) {
+        WarehouseStock stock = new WarehouseStock();
+        stock.setId(id);
+        stock.setWarehouseId(warehouseId);
+        stock.setProductId(7L);
+        stock.setQuantity(quantity);
+        stock.setReservedQuantity(0);
+        stock.setPendingReserved(0);
+        return stock;
+    }
+
+    private Warehouse warehouse(Long id) {
+        return new Warehouse(id, "WH-" + id, "Warehouse " + id, null, null, null);
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecommerce.inventoryservice.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<List<String>> batches = new ArrayList<>();
+    private HashedTimingWheel<String> wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HashedTimingWheel<>(10, 8, batches::add, clock::get);
+    }
+
+    @Test
+    void testAdvance_ExpiresItemsDueInTheSameSweepAsOneBatch() {
+        wheel.schedule("a", 30);
+        wheel.schedule("b", 25);
+        wheel.schedule("c", 100);
+
+        advanceMillis(20);
+        assertTrue(batches.isEmpty());
+
+        advanceMillis(10);
+        assertEquals(1, batches.size());
+        assertEquals(List.of("a", "b"), batches.get(0));
+    }
+
+    @Test
+    void testAdvance_HandlesDeadlinesBeyondOneRevolution() {
+        // 8 buckets of 10ms: 250ms needs three full turns of the wheel
+        wheel.schedule("late", 250);
+
+        advanceMillis(240);
+        assertTrue(batches.isEmpty());
+
+        advanceMillis(10);
+        assertEquals(List.of(List.of("late")), batches);
+    }
+
+    @Test
+    void testAdvance_FiresOverdueItemsOnTheNextTick() {
+        advanceMillis(50);
+        wheel.schedule("overdue", -1000);
+
+        advanceMillis(10);
+        assertEquals(List.of(List.of("overdue")), batches);
+    }
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        wheel.advance();
+    }
+}
@@ -1,9 +1,12 @@
 package com.ecommerce.orderservice;
 
+import com.ecommerce.common.id.IdGeneratorConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+@SpringBootApplication(scanBasePackageClasses = {OrderServiceApplication.class, IdGeneratorConfig.class})
+@EnableScheduling
 public class OrderServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(OrderServiceApplication.class, args);
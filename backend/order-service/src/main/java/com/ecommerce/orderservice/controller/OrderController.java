@@ -1,14 +1,30 @@
 package com.ecommerce.orderservice.controller;
 
+import com.ecommerce.orderservice.dto.BulkStatusUpdateRequestDTO;
+import com.ecommerce.orderservice.dto.BulkStatusUpdateResponseDTO;
+import com.ecommerce.orderservice.dto.CheckoutRequestDTO;
+import com.ecommerce.orderservice.dto.CheckoutResultDTO;
+import com.ecommerce.orderservice.dto.CheckoutStatus;
 import com.ecommerce.orderservice.dto.OrderDTO;
+import com.ecommerce.orderservice.dto.OrderPageDTO;
+import com.ecommerce.orderservice.dto.OrderRollupDTO;
+import com.ecommerce.orderservice.dto.OrderSummaryPageDTO;
 import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.service.BulkStatusService;
+import com.ecommerce.orderservice.service.CheckoutService;
+import com.ecommerce.orderservice.service.OrderEventStream;
+import com.ecommerce.orderservice.service.OrderRollups;
 import com.ecommerce.orderservice.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -17,6 +33,10 @@ import java.util.List;
 public class OrderController {
     
     private final OrderService orderService;
+    private final CheckoutService checkoutService;
+    private final OrderEventStream orderEventStream;
+    private final BulkStatusService bulkStatusService;
+    private final OrderRollups orderRollups;
     
     // API 38: Create order
     @PostMapping
@@ -39,17 +59,21 @@ public class OrderController {
         return ResponseEntity.ok(order);
     }
     
-    // API 41: Get orders by user
+    // API 41: Get orders by user, newest first, one page at a time
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<OrderDTO>> getOrdersByUserId(@PathVariable Long userId) {
-        List<OrderDTO> orders = orderService.getOrdersByUserId(userId);
+    public ResponseEntity<OrderPageDTO> getOrdersByUserId(@PathVariable Long userId,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "20") int limit) {
+        OrderPageDTO orders = orderService.getOrdersByUserId(userId, cursor, limit);
         return ResponseEntity.ok(orders);
     }
     
-    // API 42: Get orders by status
+    // API 42: Get orders by status, oldest first, one page at a time
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<OrderDTO>> getOrdersByStatus(@PathVariable OrderStatus status) {
-        List<OrderDTO> orders = orderService.getOrdersByStatus(status);
+    public ResponseEntity<OrderPageDTO> getOrdersByStatus(@PathVariable OrderStatus status,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "20") int limit) {
+        OrderPageDTO orders = orderService.getOrdersByStatus(status, cursor, limit);
         return ResponseEntity.ok(orders);
     }
     
@@ -66,4 +90,58 @@ public class OrderController {
         orderService.cancelOrder(id);
         return ResponseEntity.noContent().build();
     }
+    
+    // API 87: Order history for the list page, served from the order summary projection
+    @GetMapping("/user/{userId}/history")
+    public ResponseEntity<OrderSummaryPageDTO> getOrderHistory(@PathVariable Long userId,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = "20") int limit) {
+        OrderSummaryPageDTO history = orderService.getOrderHistory(userId, cursor, limit);
+        return ResponseEntity.ok(history);
+    }
+    
+    // API 88: Checkout: create the order, reserve stock and take payment in one call
+    @PostMapping("/checkout")
+    public ResponseEntity<CheckoutResultDTO> checkout(@Valid @RequestBody CheckoutRequestDTO request) {
+        CheckoutResultDTO result = checkoutService.checkout(request);
+        HttpStatus status = result.getStatus() == CheckoutStatus.COMPLETED ? HttpStatus.CREATED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(result);
+    }
+    
+    // API 89: Stream order status changes (server-sent events)
+    @GetMapping(value = "/events/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return orderEventStream.subscribe(lastEventId);
+    }
+    
+    // API 90: Move many orders to one status, e.g. a shipping wave
+    @PostMapping("/status/bulk")
+    public ResponseEntity<BulkStatusUpdateResponseDTO> updateOrderStatuses(@Valid @RequestBody BulkStatusUpdateRequestDTO request) {
+        BulkStatusUpdateResponseDTO response = bulkStatusService.updateStatus(request.getOrderIds(), request.getStatus());
+        return ResponseEntity.ok(response);
+    }
+    
+    // API 91: Order counts and amounts per day and status, for days in [from, to]
+    @GetMapping("/rollups")
+    public ResponseEntity<List<OrderRollupDTO>> getOrderRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) OrderStatus status) {
+        List<OrderRollupDTO> rollups = orderRollups.getRollups(from, to, status);
+        return ResponseEntity.ok(rollups);
+    }
+    
+    // API 92: Order detail with its items, loaded in one query
+    @GetMapping("/{id}/detail")
+    public ResponseEntity<OrderDTO> getOrderDetail(@PathVariable Long id) {
+        OrderDTO order = orderService.getOrderDetail(id);
+        return ResponseEntity.ok(order);
+    }
+    
+    // API 94: Count orders in a status
+    @GetMapping("/status/{status}/count")
+    public ResponseEntity<Long> countOrdersByStatus(@PathVariable OrderStatus status) {
+        long count = orderService.countOrdersByStatus(status);
+        return ResponseEntity.ok(count);
+    }
 }
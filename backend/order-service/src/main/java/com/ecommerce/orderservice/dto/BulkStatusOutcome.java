@@ -0,0 +1,10 @@
+package com.ecommerce.orderservice.dto;
+
+public enum BulkStatusOutcome {
+    UPDATED,
+    // Already in the requested status
+    UNCHANGED,
+    // The order's status cannot move to the requested one
+    REJECTED,
+    NOT_FOUND
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.orderservice.dto;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResultDTO {
+    private Long orderId;
+    private BulkStatusOutcome outcome;
+    // Status before the update, or the current status if the order was not updated
+    private OrderStatus previousStatus;
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.orderservice.dto;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateRequestDTO {
+    @NotEmpty(message = "At least one order ID is required")
+    private List<@NotNull Long> orderIds;
+    
+    @NotNull(message = "Status is required")
+    private OrderStatus status;
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.orderservice.dto;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateResponseDTO {
+    private OrderStatus status;
+    private int updated;
+    // One entry per distinct requested id, in request order
+    private List<BulkStatusResultDTO> results;
+}
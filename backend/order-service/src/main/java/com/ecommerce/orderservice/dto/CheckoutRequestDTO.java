@@ -0,0 +1,32 @@
+package com.ecommerce.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutRequestDTO {
+    @NotNull(message = "User ID is required")
+    private Long userId;
+    
+    private String shippingAddress;
+    private String billingAddress;
+    private BigDecimal taxAmount;
+    private BigDecimal shippingAmount;
+    private BigDecimal discountAmount;
+    
+    @NotEmpty(message = "At least one item is required")
+    private List<@Valid OrderItemDTO> items;
+    
+    @NotBlank(message = "Payment method is required")
+    private String paymentMethod;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutResultDTO {
+    private CheckoutStatus status;
+    // Null when the checkout failed: the order is cancelled
+    private OrderDTO order;
+    private Long paymentId;
+    private String transactionId;
+    private String failureReason;
+}
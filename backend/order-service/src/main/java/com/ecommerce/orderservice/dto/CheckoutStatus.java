@@ -0,0 +1,6 @@
+package com.ecommerce.orderservice.dto;
+
+public enum CheckoutStatus {
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.orderservice.dto;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDTO {
+    private Long orderId;
+    private String orderNumber;
+    private String orderDate;
+    private OrderStatus status;
+    private BigDecimal totalAmount;
+    private Integer itemCount;
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryPageDTO {
+    private List<OrderSummaryDTO> orders;
+    // Opaque token for the next page, null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * The parts of a payment-service payment that checkout needs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentAuthorizationDTO {
+    private Long id;
+    private String transactionId;
+    private Long orderId;
+    private BigDecimal amount;
+    private String status;
+}
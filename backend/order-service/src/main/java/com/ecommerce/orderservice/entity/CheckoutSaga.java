@@ -0,0 +1,39 @@
+package com.ecommerce.orderservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one checkout, kept so a checkout whose node stops, or whose payment lands after
+ * it gave up, is still finished or compensated by the reconciler.
+ */
+@Entity
+@Table(name = "checkout_sagas", indexes = {
+    @Index(name = "IDX_CheckoutSagas_State_UpdatedAt", columnList = "state, updatedAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutSaga {
+    
+    @Id
+    private Long orderId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private CheckoutSagaState state;
+    
+    // Stock holds still to confirm or release, comma separated
+    @Column(length = 4000)
+    private String holdIds;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
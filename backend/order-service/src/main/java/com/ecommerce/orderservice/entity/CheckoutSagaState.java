@@ -0,0 +1,12 @@
+package com.ecommerce.orderservice.entity;
+
+public enum CheckoutSagaState {
+    // Order committed as PENDING; stock holds and payment in flight
+    STARTED,
+    // Paid; holds still being confirmed
+    CONFIRMING,
+    COMPLETED,
+    // Order cancelled; holds being released and late payments voided
+    COMPENSATING,
+    FAILED
+}
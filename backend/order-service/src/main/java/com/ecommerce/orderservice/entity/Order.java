@@ -2,7 +2,9 @@ package com.ecommerce.orderservice.entity;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
@@ -10,14 +12,19 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "IDX_Orders_UserId_OrderDate_Id", columnList = "userId, orderDate, id"),
+    @Index(name = "IDX_Orders_Status_OrderDate_Id", columnList = "status, orderDate, id"),
+    @Index(name = "IDX_Orders_ClaimedAt", columnList = "claimedAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "order_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true)
@@ -39,7 +46,10 @@ public class Order {
     private String shippingAddress;
     private String billingAddress;
     
+    // Excluded so the two sides do not recurse into each other
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<OrderItem> orderItems;
     
     private LocalDateTime orderDate;
@@ -48,6 +58,10 @@ public class Order {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
+    // Set by the processing pipeline while the order is CONFIRMED and waiting to be processed
+    private String claimedBy;
+    private LocalDateTime claimedAt;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
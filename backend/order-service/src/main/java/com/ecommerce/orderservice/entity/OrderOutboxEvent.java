@@ -0,0 +1,43 @@
+package com.ecommerce.orderservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row for an order status change, written in the same transaction as the change.
+ * Rows are written by OrderOutbox and drained by OutboxRelay with plain JDBC; the id is a
+ * Snowflake id, so rows from every node sort roughly by time.
+ */
+@Entity
+@Table(name = "order_outbox", indexes = {
+    @Index(name = "IDX_OrderOutbox_PublishedAt", columnList = "publishedAt"),
+    @Index(name = "IDX_OrderOutbox_OrderId", columnList = "orderId, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderOutboxEvent {
+    
+    @Id
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long orderId;
+    
+    @Enumerated(EnumType.STRING)
+    private OrderStatus fromStatus;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus toStatus;
+    
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+    
+    // Null until the relay has handed the event to the event bus
+    private LocalDateTime publishedAt;
+}
@@ -0,0 +1,53 @@
+package com.ecommerce.orderservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Order count and amounts of the orders placed on one day that are currently in one status.
+ * Maintained by OrderRollups, which folds {@link OrderRollupDelta} rows into it.
+ */
+@Entity
+@Table(name = "order_rollup")
+@IdClass(OrderRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderRollup {
+    
+    @Id
+    private LocalDate rollupDate;
+    
+    @Id
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+    
+    @Column(nullable = false)
+    private Long orderCount;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal taxAmount;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal shippingAmount;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal discountAmount;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate rollupDate;
+        private OrderStatus status;
+    }
+}
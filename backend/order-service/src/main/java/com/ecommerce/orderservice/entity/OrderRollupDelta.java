@@ -0,0 +1,50 @@
+package com.ecommerce.orderservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Change to one {@link OrderRollup} bucket, appended in the transaction that creates or moves
+ * the order. Appending instead of updating the bucket keeps concurrent orders of the same day
+ * from queueing on one row.
+ */
+@Entity
+@Table(name = "order_rollup_delta", indexes = {
+    @Index(name = "IDX_OrderRollupDelta_RollupDate", columnList = "rollupDate")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderRollupDelta {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private LocalDate rollupDate;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+    
+    @Column(nullable = false)
+    private Long orderCount;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal taxAmount;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal shippingAmount;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal discountAmount;
+}
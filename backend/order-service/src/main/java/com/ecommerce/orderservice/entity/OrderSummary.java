@@ -0,0 +1,65 @@
+package com.ecommerce.orderservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read model for order lists, one row per order, written in the same transaction as the order.
+ * Keyed by the order's id, so it is always inserted rather than merged.
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+    @Index(name = "IDX_OrderSummary_UserId_OrderDate_OrderId", columnList = "userId, orderDate, orderId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary implements Persistable<Long> {
+    
+    @Id
+    private Long orderId;
+    
+    @Column(nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false)
+    private String orderNumber;
+    
+    @Column(nullable = false)
+    private LocalDateTime orderDate;
+    
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+    
+    @Column(nullable = false)
+    private BigDecimal totalAmount;
+    
+    // Units across all lines
+    @Column(nullable = false)
+    private Integer itemCount;
+    
+    @Transient
+    private boolean newSummary = true;
+    
+    @Override
+    public Long getId() {
+        return orderId;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return newSummary;
+    }
+    
+    @PostLoad
+    @PostPersist
+    protected void markPersisted() {
+        newSummary = false;
+    }
+}
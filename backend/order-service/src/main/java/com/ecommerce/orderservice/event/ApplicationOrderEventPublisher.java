@@ -0,0 +1,23 @@
+package com.ecommerce.orderservice.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * In-process event bus: each event is delivered synchronously to the application's
+ * {@code @EventListener} methods for {@link OrderStatusChangedEvent}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApplicationOrderEventPublisher implements OrderEventPublisher {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void publish(List<OrderStatusChangedEvent> events) {
+        events.forEach(applicationEventPublisher::publishEvent);
+    }
+}
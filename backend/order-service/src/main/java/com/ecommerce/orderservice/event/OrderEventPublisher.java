@@ -0,0 +1,12 @@
+package com.ecommerce.orderservice.event;
+
+import java.util.List;
+
+/**
+ * Destination of the outbox relay. Events arrive in outbox order; an exception leaves the
+ * batch in the outbox to be retried. Replace the bean to publish to a message broker.
+ */
+public interface OrderEventPublisher {
+
+    void publish(List<OrderStatusChangedEvent> events);
+}
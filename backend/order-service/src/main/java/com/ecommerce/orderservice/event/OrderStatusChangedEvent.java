@@ -0,0 +1,20 @@
+package com.ecommerce.orderservice.event;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+    // Outbox row id: delivery is at-least-once, so consumers can drop ids they have seen
+    private Long eventId;
+    private Long orderId;
+    private OrderStatus fromStatus;
+    private OrderStatus toStatus;
+    private LocalDateTime occurredAt;
+}
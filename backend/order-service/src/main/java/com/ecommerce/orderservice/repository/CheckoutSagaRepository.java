@@ -0,0 +1,30 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.entity.CheckoutSaga;
+import com.ecommerce.orderservice.entity.CheckoutSagaState;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CheckoutSagaRepository extends JpaRepository<CheckoutSaga, Long> {
+    
+    List<CheckoutSaga> findByStateAndUpdatedAtBeforeOrderByUpdatedAt(CheckoutSagaState state, LocalDateTime before,
+                                                                    Pageable pageable);
+    
+    // Conditional, so the checkout and the reconciler never both move the same saga on
+    @Modifying
+    @Query("UPDATE CheckoutSaga s SET s.state = :to, s.holdIds = :holdIds, s.updatedAt = :now " +
+           "WHERE s.orderId = :orderId AND s.state = :from")
+    int transition(@Param("orderId") Long orderId,
+                   @Param("from") CheckoutSagaState from,
+                   @Param("to") CheckoutSagaState to,
+                   @Param("holdIds") String holdIds,
+                   @Param("now") LocalDateTime now);
+}
@@ -2,16 +2,60 @@ package com.ecommerce.orderservice.repository;
 
 import com.ecommerce.orderservice.entity.Order;
 import com.ecommerce.orderservice.entity.OrderStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     Optional<Order> findByOrderNumber(String orderNumber);
+    
+    // Order detail: the order and its items in one joined query
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<Order> findWithItemsById(Long id);
     List<Order> findByUserId(Long userId);
     List<Order> findByStatus(OrderStatus status);
     List<Order> findByUserIdAndStatus(Long userId, OrderStatus status);
+    
+    // Keyset pages: newest first for a user's history, oldest first for a status queue
+    List<Order> findByUserIdOrderByOrderDateDescIdDesc(Long userId, Pageable pageable);
+    
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId " +
+           "AND (o.orderDate < :orderDate OR (o.orderDate = :orderDate AND o.id < :id)) " +
+           "ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findByUserIdBefore(@Param("userId") Long userId,
+                                   @Param("orderDate") LocalDateTime orderDate,
+                                   @Param("id") Long id,
+                                   Pageable pageable);
+    
+    List<Order> findByStatusOrderByOrderDateAscIdAsc(OrderStatus status, Pageable pageable);
+    
+    long countByStatus(OrderStatus status);
+    
+    @Query("SELECT o FROM Order o WHERE o.status = :status " +
+           "AND (o.orderDate > :orderDate OR (o.orderDate = :orderDate AND o.id > :id)) " +
+           "ORDER BY o.orderDate ASC, o.id ASC")
+    List<Order> findByStatusAfter(@Param("status") OrderStatus status,
+                                  @Param("orderDate") LocalDateTime orderDate,
+                                  @Param("id") Long id,
+                                  Pageable pageable);
+    
+    // Moves an order only if it is still in the status it was read in; 0 rows means someone else moved it first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to, o.shippedDate = :shippedDate, o.deliveredDate = :deliveredDate, " +
+           "o.updatedAt = :now WHERE o.id = :id AND o.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") OrderStatus from,
+                   @Param("to") OrderStatus to,
+                   @Param("shippedDate") LocalDateTime shippedDate,
+                   @Param("deliveredDate") LocalDateTime deliveredDate,
+                   @Param("now") LocalDateTime now);
 }
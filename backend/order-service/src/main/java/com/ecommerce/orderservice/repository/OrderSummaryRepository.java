@@ -0,0 +1,31 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.entity.OrderSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+    
+    List<OrderSummary> findByUserIdOrderByOrderDateDescOrderIdDesc(Long userId, Pageable pageable);
+    
+    @Query("SELECT s FROM OrderSummary s WHERE s.userId = :userId " +
+           "AND (s.orderDate < :orderDate OR (s.orderDate = :orderDate AND s.orderId < :orderId)) " +
+           "ORDER BY s.orderDate DESC, s.orderId DESC")
+    List<OrderSummary> findByUserIdBefore(@Param("userId") Long userId,
+                                          @Param("orderDate") LocalDateTime orderDate,
+                                          @Param("orderId") Long orderId,
+                                          Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.status = :status WHERE s.orderId = :orderId")
+    int updateStatus(@Param("orderId") Long orderId, @Param("status") OrderStatus status);
+}
@@ -0,0 +1,170 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.dto.BulkStatusOutcome;
+import com.ecommerce.orderservice.dto.BulkStatusResultDTO;
+import com.ecommerce.orderservice.dto.BulkStatusUpdateResponseDTO;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.ecommerce.orderservice.entity.OrderStatus.*;
+
+/**
+ * Status transitions for many orders at once, e.g. a fulfillment wave marked SHIPPED.
+ * <p>
+ * Each chunk of ids is moved by one UPDATE guarded by the statuses allowed to precede the
+ * target, in its own transaction with the matching summary, outbox and rollup writes. Chunks
+ * commit independently; a retried request reports already moved orders as UNCHANGED.
+ */
+@Service
+public class BulkStatusService {
+
+    private static final Map<OrderStatus, Set<OrderStatus>> PREDECESSORS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        PREDECESSORS.put(PENDING, EnumSet.noneOf(OrderStatus.class));
+        PREDECESSORS.put(CONFIRMED, EnumSet.of(PENDING));
+        PREDECESSORS.put(PROCESSING, EnumSet.of(PENDING, CONFIRMED));
+        PREDECESSORS.put(SHIPPED, EnumSet.of(CONFIRMED, PROCESSING));
+        PREDECESSORS.put(DELIVERED, EnumSet.of(SHIPPED));
+        PREDECESSORS.put(CANCELLED, EnumSet.of(PENDING, CONFIRMED, PROCESSING));
+        PREDECESSORS.put(REFUNDED, EnumSet.of(SHIPPED, DELIVERED, CANCELLED));
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderOutbox outbox;
+    private final OrderRollups rollups;
+    private final int chunkSize;
+    private final boolean sqlServer;
+
+    public BulkStatusService(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             DataSource dataSource,
+                             OrderOutbox outbox,
+                             OrderRollups rollups,
+                             @Value("${order.bulk-status.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.outbox = outbox;
+        this.rollups = rollups;
+        // SQL Server accepts at most 2100 parameters per statement
+        this.chunkSize = Math.min(chunkSize, 2000);
+        this.sqlServer = OrderProcessingPipeline.isSqlServer(dataSource);
+    }
+
+    public BulkStatusUpdateResponseDTO updateStatus(List<Long> orderIds, OrderStatus status) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<Long, BulkStatusResultDTO> results = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + chunkSize));
+            results.putAll(transactionTemplate.execute(tx -> updateChunk(chunk, status, now)));
+        }
+
+        List<BulkStatusResultDTO> ordered = ids.stream().map(results::get).collect(Collectors.toList());
+        int updated = (int) ordered.stream().filter(result -> result.getOutcome() == BulkStatusOutcome.UPDATED).count();
+        return new BulkStatusUpdateResponseDTO(status, updated, ordered);
+    }
+
+    private Map<Long, BulkStatusResultDTO> updateChunk(List<Long> ids, OrderStatus status, Timestamp now) {
+        Set<OrderStatus> allowed = PREDECESSORS.get(status);
+        Map<Long, OrderStatus> moved = allowed.isEmpty() ? Collections.emptyMap() : transition(ids, status, allowed, now);
+
+        Map<Long, BulkStatusResultDTO> results = new HashMap<>();
+        if (!moved.isEmpty()) {
+            List<Object> args = new ArrayList<>();
+            args.add(status.name());
+            args.addAll(moved.keySet());
+            jdbcTemplate.update("UPDATE order_summary SET status = ? WHERE order_id IN (" + placeholders(moved.size()) + ")",
+                args.toArray());
+            outbox.recordAll(moved, status);
+            rollups.recordTransitions(moved, status);
+            moved.forEach((id, previous) -> results.put(id, new BulkStatusResultDTO(id, BulkStatusOutcome.UPDATED, previous)));
+        }
+
+        // Explain the ids that did not move; usually none or a handful
+        List<Long> remaining = ids.stream().filter(id -> !moved.containsKey(id)).collect(Collectors.toList());
+        if (!remaining.isEmpty()) {
+            Map<Long, OrderStatus> current = new HashMap<>();
+            jdbcTemplate.query("SELECT id, status FROM orders WHERE id IN (" + placeholders(remaining.size()) + ")",
+                (RowCallbackHandler) rs -> current.put(rs.getLong("id"), OrderStatus.valueOf(rs.getString("status"))),
+                remaining.toArray());
+            for (Long id : remaining) {
+                OrderStatus previous = current.get(id);
+                BulkStatusOutcome outcome = previous == null ? BulkStatusOutcome.NOT_FOUND
+                    : previous == status ? BulkStatusOutcome.UNCHANGED : BulkStatusOutcome.REJECTED;
+                results.put(id, new BulkStatusResultDTO(id, outcome, previous));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Moves the orders among {@code ids} whose status is in {@code allowed} and returns the
+     * status each moved order had before.
+     */
+    private Map<Long, OrderStatus> transition(List<Long> ids, OrderStatus status, Set<OrderStatus> allowed,
+                                              Timestamp now) {
+        String set = "UPDATE orders SET status = ?, updated_at = ?" +
+            (status == SHIPPED ? ", shipped_date = COALESCE(shipped_date, ?)" : "") +
+            (status == DELIVERED ? ", delivered_date = COALESCE(delivered_date, ?)" : "");
+        List<Object> setArgs = new ArrayList<>(List.of(status.name(), now));
+        if (status == SHIPPED || status == DELIVERED) {
+            setArgs.add(now);
+        }
+
+        Map<Long, OrderStatus> moved = new LinkedHashMap<>();
+        if (sqlServer) {
+            String sql = set + " OUTPUT inserted.id, deleted.status" + where(ids.size(), allowed.size());
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                    moved.put(rs.getLong(1), OrderStatus.valueOf(rs.getString(2))),
+                args(setArgs, ids, allowed));
+        } else {
+            // Portable fallback: lock the eligible rows first so their previous status stays accurate
+            String select = "SELECT id, status FROM orders" + where(ids.size(), allowed.size()) + " FOR UPDATE";
+            jdbcTemplate.query(select, (RowCallbackHandler) rs ->
+                    moved.put(rs.getLong("id"), OrderStatus.valueOf(rs.getString("status"))),
+                args(Collections.emptyList(), ids, allowed));
+            if (!moved.isEmpty()) {
+                jdbcTemplate.update(set + where(moved.size(), allowed.size()),
+                    args(setArgs, moved.keySet(), allowed));
+            }
+        }
+        return moved;
+    }
+
+    private static String where(int ids, int statuses) {
+        return " WHERE id IN (" + placeholders(ids) + ") AND status IN (" + placeholders(statuses) + ")";
+    }
+
+    private static Object[] args(List<Object> setArgs, Collection<Long> ids, Set<OrderStatus> statuses) {
+        List<Object> args = new ArrayList<>(setArgs);
+        args.addAll(ids);
+        statuses.forEach(status -> args.add(status.name()));
+        return args.toArray();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,371 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.dto.CheckoutRequestDTO;
+import com.ecommerce.orderservice.dto.CheckoutResultDTO;
+import com.ecommerce.orderservice.dto.CheckoutStatus;
+import com.ecommerce.orderservice.dto.OrderDTO;
+import com.ecommerce.orderservice.dto.OrderItemDTO;
+import com.ecommerce.orderservice.dto.PaymentAuthorizationDTO;
+import com.ecommerce.orderservice.entity.CheckoutSaga;
+import com.ecommerce.orderservice.entity.CheckoutSagaState;
+import com.ecommerce.orderservice.repository.CheckoutSagaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Server-side checkout, run as a saga of short transactions. The first commits the order as
+ * PENDING together with its {@link CheckoutSaga}; the processing pipeline leaves orders of a
+ * started saga alone. Stock holds, one per line, and the payment then run concurrently outside
+ * any transaction, so checkout takes as long as the slower call. The calls run on a bounded
+ * pool; when it and its queue are full, the step fails at once and the checkout is compensated
+ * like any other failure. A second transaction records the outcome: on success the holds are
+ * confirmed, which deducts the stock; on failure the order is cancelled, its holds are released
+ * and completed payments for it are voided.
+ * <p>
+ * A call that times out keeps running, and a hold or payment that lands late is released or
+ * voided when it arrives. Holds also release themselves when their TTL runs out. The periodic
+ * {@link #reconcile()} finishes what a stopped node left behind: it fails checkouts stuck in
+ * STARTED, retries hold confirmations and releases, and keeps voiding completed payments of a
+ * failed checkout until the late-payment window has passed.
+ */
+@Slf4j
+@Service
+public class CheckoutService {
+
+    private static final int RECONCILE_BATCH = 100;
+
+    private final OrderService orderService;
+    private final InventoryClient inventoryClient;
+    private final PaymentClient paymentClient;
+    private final CheckoutSagaRepository sagaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long inventoryTimeoutMillis;
+    private final long paymentTimeoutMillis;
+    private final long holdTtlSeconds;
+    private final long sagaTimeoutMillis;
+    private final long latePaymentWindowMillis;
+    private final ThreadPoolExecutor executor;
+
+    public CheckoutService(OrderService orderService,
+                           InventoryClient inventoryClient,
+                           PaymentClient paymentClient,
+                           CheckoutSagaRepository sagaRepository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${checkout.inventory-timeout-ms:2000}") long inventoryTimeoutMillis,
+                           @Value("${checkout.payment-timeout-ms:5000}") long paymentTimeoutMillis,
+                           @Value("${checkout.threads:16}") int threads,
+                           @Value("${checkout.hold-ttl-seconds:900}") long holdTtlSeconds,
+                           @Value("${checkout.saga-timeout-ms:60000}") long sagaTimeoutMillis,
+                           @Value("${checkout.late-payment-window-ms:600000}") long latePaymentWindowMillis) {
+        this.orderService = orderService;
+        this.inventoryClient = inventoryClient;
+        this.paymentClient = paymentClient;
+        this.sagaRepository = sagaRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.inventoryTimeoutMillis = inventoryTimeoutMillis;
+        this.paymentTimeoutMillis = paymentTimeoutMillis;
+        this.holdTtlSeconds = holdTtlSeconds;
+        this.sagaTimeoutMillis = sagaTimeoutMillis;
+        this.latePaymentWindowMillis = latePaymentWindowMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(threads * 4),
+            runnable -> {
+                Thread thread = new Thread(runnable, "checkout-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public CheckoutResultDTO checkout(CheckoutRequestDTO request) {
+        OrderDTO order;
+        try {
+            order = transactionTemplate.execute(status -> {
+                OrderDTO created = orderService.createOrder(toOrder(request));
+                LocalDateTime now = LocalDateTime.now();
+                sagaRepository.save(new CheckoutSaga(created.getId(), CheckoutSagaState.STARTED, null, now, now));
+                return created;
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Checkout for user {} failed", request.getUserId(), ex);
+            return failed(null, "Checkout failed: " + ex.getMessage());
+        }
+
+        Attempt attempt = run(request, order);
+        if (attempt.failure != null) {
+            fail(order.getId(), attempt.holdIds);
+            return failed(attempt.payment, attempt.failure);
+        }
+        if (!transition(order.getId(), CheckoutSagaState.STARTED, CheckoutSagaState.CONFIRMING, attempt.holdIds)) {
+            // The reconciler gave up on this checkout first and cancelled the order
+            compensate(order.getId(), attempt.holdIds);
+            return failed(attempt.payment, "Checkout timed out");
+        }
+        confirmHolds(order.getId(), attempt.holdIds);
+        return new CheckoutResultDTO(CheckoutStatus.COMPLETED, order, attempt.payment.getId(),
+            attempt.payment.getTransactionId(), null);
+    }
+
+    private Attempt run(CheckoutRequestDTO request, OrderDTO order) {
+        Long orderId = order.getId();
+        BigDecimal amount = order.getTotalAmount()
+            .add(order.getTaxAmount())
+            .add(order.getShippingAmount())
+            .subtract(order.getDiscountAmount());
+
+        List<CompletableFuture<String>> holds = new ArrayList<>();
+        for (OrderItemDTO item : request.getItems()) {
+            holds.add(call(() -> inventoryClient.hold(item.getProductId(), item.getQuantity(), holdTtlSeconds),
+                inventoryTimeoutMillis, holdId -> releaseLate(holdId, orderId)));
+        }
+        CompletableFuture<PaymentAuthorizationDTO> payment = call(
+            () -> paymentClient.authorize(orderId, request.getUserId(), amount, request.getPaymentMethod()),
+            paymentTimeoutMillis, late -> voidLate(late, orderId));
+
+        Attempt attempt = new Attempt();
+        for (CompletableFuture<String> hold : holds) {
+            try {
+                String holdId = hold.join();
+                if (holdId != null) {
+                    attempt.holdIds.add(holdId);
+                } else if (attempt.failure == null) {
+                    attempt.failure = "Insufficient stock";
+                }
+            } catch (CompletionException ex) {
+                if (attempt.failure == null) {
+                    attempt.failure = describe("Stock reservation", ex);
+                }
+            }
+        }
+        try {
+            attempt.payment = payment.join();
+            boolean paid = attempt.payment != null && "COMPLETED".equals(attempt.payment.getStatus());
+            if (!paid && attempt.failure == null) {
+                attempt.failure = "Payment declined";
+            }
+        } catch (CompletionException ex) {
+            if (attempt.failure == null) {
+                attempt.failure = describe("Payment", ex);
+            }
+        }
+        return attempt;
+    }
+
+    /**
+     * The timeout applies to a copy, so a call that lands after checkout gave up on it still
+     * reaches {@code onLate}.
+     */
+    private <T> CompletableFuture<T> call(Supplier<T> action, long timeoutMillis, Consumer<T> onLate) {
+        CompletableFuture<T> result;
+        try {
+            result = CompletableFuture.supplyAsync(action, executor);
+        } catch (RejectedExecutionException ex) {
+            // Running it on the request thread would drop both the concurrency and the timeout
+            return CompletableFuture.failedFuture(new RuntimeException("Checkout is at capacity"));
+        }
+        CompletableFuture<T> timed = result.copy().orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        timed.whenComplete((value, ex) -> {
+            if (ex instanceof TimeoutException) {
+                result.thenAccept(onLate);
+            }
+        });
+        return timed;
+    }
+
+    private void releaseLate(String holdId, Long orderId) {
+        if (holdId != null && !settleHold(holdId, inventoryClient::releaseHold, "RELEASED", orderId)) {
+            log.warn("Late stock hold {} for order {} is left to expire", holdId, orderId);
+        }
+    }
+
+    private void voidLate(PaymentAuthorizationDTO payment, Long orderId) {
+        if (payment != null && "COMPLETED".equals(payment.getStatus())) {
+            voidPayment(payment.getId(), orderId);
+        }
+    }
+
+    private void fail(Long orderId, List<String> holdIds) {
+        boolean cancelled = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (sagaRepository.transition(orderId, CheckoutSagaState.STARTED, CheckoutSagaState.COMPENSATING,
+                    join(holdIds), LocalDateTime.now()) == 0) {
+                return false;
+            }
+            orderService.cancelOrder(orderId);
+            return true;
+        }));
+        List<String> unreleased = compensate(orderId, holdIds);
+        if (cancelled) {
+            transition(orderId, CheckoutSagaState.COMPENSATING, CheckoutSagaState.COMPENSATING, unreleased);
+        }
+    }
+
+    /**
+     * Releases the holds and voids every completed payment for the order. Returns the holds
+     * that are still active.
+     */
+    private List<String> compensate(Long orderId, List<String> holdIds) {
+        List<String> unreleased = holdIds.stream()
+            .filter(holdId -> !settleHold(holdId, inventoryClient::releaseHold, "RELEASED", orderId))
+            .collect(Collectors.toList());
+        // The order id is unique to this checkout, so any completed payment for it is ours
+        try {
+            paymentClient.findByOrder(orderId).stream()
+                .filter(payment -> "COMPLETED".equals(payment.getStatus()))
+                .forEach(payment -> voidPayment(payment.getId(), orderId));
+        } catch (RuntimeException ex) {
+            log.warn("Could not look up payments for cancelled order {}", orderId, ex);
+        }
+        return unreleased;
+    }
+
+    private void confirmHolds(Long orderId, List<String> holdIds) {
+        List<String> unconfirmed = holdIds.stream()
+            .filter(holdId -> !settleHold(holdId, inventoryClient::confirmHold, "CONFIRMED", orderId))
+            .collect(Collectors.toList());
+        transition(orderId, CheckoutSagaState.CONFIRMING,
+            unconfirmed.isEmpty() ? CheckoutSagaState.COMPLETED : CheckoutSagaState.CONFIRMING, unconfirmed);
+    }
+
+    /**
+     * Confirms or releases a hold. Returns false while the hold is still active, so the call is
+     * retried; a hold that is no longer active needs nothing more, e.g. because an earlier call
+     * went through and only its response was lost.
+     */
+    private boolean settleHold(String holdId, Consumer<String> action, String settledStatus, Long orderId) {
+        try {
+            action.accept(holdId);
+            return true;
+        } catch (RuntimeException ex) {
+            String status;
+            try {
+                status = inventoryClient.holdStatus(holdId);
+            } catch (RuntimeException lookup) {
+                log.warn("Could not settle stock hold {} for order {}, retrying later", holdId, orderId, ex);
+                return false;
+            }
+            if ("ACTIVE".equals(status)) {
+                log.warn("Could not settle stock hold {} for order {}, retrying later", holdId, orderId, ex);
+                return false;
+            }
+            if (!settledStatus.equals(status) && !("RELEASED".equals(settledStatus) && "EXPIRED".equals(status))) {
+                log.error("Stock hold {} for order {} is {} and needs reconciling", holdId, orderId, status);
+            }
+            return true;
+        }
+    }
+
+    private void voidPayment(Long paymentId, Long orderId) {
+        try {
+            paymentClient.voidPayment(paymentId);
+        } catch (RuntimeException ex) {
+            log.error("Could not void payment {} for cancelled order {}", paymentId, orderId, ex);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${checkout.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        PageRequest batch = PageRequest.of(0, RECONCILE_BATCH);
+        // Checkouts whose node stopped mid-flight; their unknown holds run out on their own
+        for (CheckoutSaga saga : sagaRepository.findByStateAndUpdatedAtBeforeOrderByUpdatedAt(
+                CheckoutSagaState.STARTED, now.minusNanos(sagaTimeoutMillis * 1_000_000), batch)) {
+            reconcile(saga, () -> fail(saga.getOrderId(), List.of()));
+        }
+        for (CheckoutSaga saga : sagaRepository.findByStateAndUpdatedAtBeforeOrderByUpdatedAt(
+                CheckoutSagaState.CONFIRMING, now, batch)) {
+            reconcile(saga, () -> confirmHolds(saga.getOrderId(), split(saga.getHoldIds())));
+        }
+        LocalDateTime windowStart = now.minusNanos(latePaymentWindowMillis * 1_000_000);
+        for (CheckoutSaga saga : sagaRepository.findByStateAndUpdatedAtBeforeOrderByUpdatedAt(
+                CheckoutSagaState.COMPENSATING, now, batch)) {
+            reconcile(saga, () -> {
+                List<String> unreleased = compensate(saga.getOrderId(), split(saga.getHoldIds()));
+                boolean settled = unreleased.isEmpty() && saga.getCreatedAt().isBefore(windowStart);
+                transition(saga.getOrderId(), CheckoutSagaState.COMPENSATING,
+                    settled ? CheckoutSagaState.FAILED : CheckoutSagaState.COMPENSATING, unreleased);
+            });
+        }
+    }
+
+    private void reconcile(CheckoutSaga saga, Runnable step) {
+        try {
+            step.run();
+        } catch (RuntimeException ex) {
+            log.warn("Reconciling checkout of order {} in {} failed", saga.getOrderId(), saga.getState(), ex);
+        }
+    }
+
+    private boolean transition(Long orderId, CheckoutSagaState from, CheckoutSagaState to, List<String> holdIds) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+            sagaRepository.transition(orderId, from, to, join(holdIds), LocalDateTime.now()) == 1));
+    }
+
+    private static String join(List<String> holdIds) {
+        return holdIds.isEmpty() ? null : String.join(",", holdIds);
+    }
+
+    private static List<String> split(String holdIds) {
+        return holdIds == null || holdIds.isEmpty() ? List.of() : Arrays.asList(holdIds.split(","));
+    }
+
+    private static CheckoutResultDTO failed(PaymentAuthorizationDTO payment, String reason) {
+        return new CheckoutResultDTO(CheckoutStatus.FAILED, null,
+            payment != null ? payment.getId() : null,
+            payment != null ? payment.getTransactionId() : null,
+            reason);
+    }
+
+    private static String describe(String step, CompletionException ex) {
+        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof TimeoutException) {
+            return step + " timed out";
+        }
+        return step + " failed: " + cause.getMessage();
+    }
+
+    private static OrderDTO toOrder(CheckoutRequestDTO request) {
+        OrderDTO order = new OrderDTO();
+        order.setUserId(request.getUserId());
+        order.setShippingAddress(request.getShippingAddress());
+        order.setBillingAddress(request.getBillingAddress());
+        order.setTaxAmount(request.getTaxAmount());
+        order.setShippingAmount(request.getShippingAmount());
+        order.setDiscountAmount(request.getDiscountAmount());
+        order.setItems(request.getItems());
+        return order;
+    }
+
+    private static final class Attempt {
+        private final List<String> holdIds = new ArrayList<>();
+        private PaymentAuthorizationDTO payment;
+        private String failure;
+    }
+}
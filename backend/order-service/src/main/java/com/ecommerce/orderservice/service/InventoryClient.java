@@ -0,0 +1,57 @@
+package com.ecommerce.orderservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Stock hold calls to inventory-service. A hold releases itself when its TTL runs out, so a
+ * hold whose outcome checkout never learned cannot keep stock forever.
+ */
+@Component
+public class InventoryClient {
+
+    private final RestTemplate restTemplate;
+
+    public InventoryClient(RestTemplateBuilder restTemplateBuilder,
+                           @Value("${checkout.inventory-url:http://localhost:8085}") String baseUrl,
+                           @Value("${checkout.inventory-timeout-ms:2000}") long timeoutMillis) {
+        this.restTemplate = restTemplateBuilder
+            .rootUri(baseUrl)
+            .setConnectTimeout(Duration.ofMillis(timeoutMillis))
+            .setReadTimeout(Duration.ofMillis(timeoutMillis))
+            .build();
+    }
+
+    /**
+     * Places a hold and returns its id, or null when stock is short.
+     */
+    public String hold(Long productId, int quantity, long ttlSeconds) {
+        try {
+            Map<?, ?> hold = restTemplate.postForObject(
+                "/api/inventory/holds?productId={productId}&quantity={quantity}&ttlSeconds={ttl}",
+                null, Map.class, productId, quantity, ttlSeconds);
+            return hold != null ? (String) hold.get("holdId") : null;
+        } catch (HttpClientErrorException.Conflict ex) {
+            return null;
+        }
+    }
+
+    public void releaseHold(String holdId) {
+        restTemplate.postForObject("/api/inventory/holds/{holdId}/release", null, Map.class, holdId);
+    }
+
+    public void confirmHold(String holdId) {
+        restTemplate.postForObject("/api/inventory/holds/{holdId}/confirm", null, Map.class, holdId);
+    }
+
+    public String holdStatus(String holdId) {
+        Map<?, ?> hold = restTemplate.getForObject("/api/inventory/holds/{holdId}", Map.class, holdId);
+        return hold != null ? (String) hold.get("status") : null;
+    }
+}
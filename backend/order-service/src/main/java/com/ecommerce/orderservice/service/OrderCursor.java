@@ -0,0 +1,43 @@
+package com.ecommerce.orderservice.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in an order listing: the (orderDate, id) of the last row of a page, passed to
+ * clients as an opaque base64url token.
+ */
+@Getter
+@RequiredArgsConstructor
+class OrderCursor {
+
+    private final LocalDateTime orderDate;
+    private final Long id;
+
+    String encode() {
+        String key = orderDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns null for a missing token, meaning the first page.
+     */
+    static OrderCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = key.indexOf('|');
+            return new OrderCursor(LocalDateTime.parse(key.substring(0, separator)),
+                Long.valueOf(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException ex) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
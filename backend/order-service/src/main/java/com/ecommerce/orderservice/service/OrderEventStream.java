@@ -0,0 +1,235 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.event.OrderStatusChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams order status events to server-sent-event subscribers, so other services see status
+ * changes without polling order-service.
+ * <p>
+ * Every node tails the outbox itself while it has subscribers, in {@code published_at, id}
+ * order, so events drained by any node's relay reach every node's subscribers. A commit of this
+ * node's relay triggers a tail at once; other nodes' events arrive within the poll interval.
+ * A relay's {@code published_at} is stamped before it commits, and by its own node's clock, so
+ * each tail re-reads the last {@code commit-grace} of the outbox and drops the ids it has already
+ * seen; ids older than that window are forgotten.
+ * <p>
+ * A client that reconnects with {@code Last-Event-ID} first gets the events it missed, read
+ * back from the outbox: those published since its last event, then those not yet published.
+ * Subscribing, replaying and tailing run on the notifier thread, so live events follow the
+ * replay; live repeats of replayed events are dropped.
+ */
+@Slf4j
+@Component
+public class OrderEventStream {
+
+    private static final String LAST_SQL = "SELECT published_at FROM order_outbox WHERE id = ?";
+    private static final String REPLAY_SQL =
+        "SELECT id, order_id, from_status, to_status, occurred_at, published_at FROM order_outbox WHERE %s " +
+        "ORDER BY CASE WHEN published_at IS NULL THEN 1 ELSE 0 END, published_at, id";
+    private static final String TAIL_SQL =
+        "SELECT id, order_id, from_status, to_status, occurred_at, published_at FROM order_outbox " +
+        "WHERE published_at >= ? ORDER BY published_at, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService notifier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-event-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean woken = new AtomicBoolean();
+    private final long emitterTimeoutMillis;
+    private final long pollIntervalMillis;
+    private final Duration commitGrace;
+    // Tail state, touched only on the notifier thread: ids read within the grace window and
+    // the latest published_at read
+    private final Map<Long, LocalDateTime> seen = new HashMap<>();
+    private LocalDateTime watermark;
+    private ScheduledFuture<?> tailing;
+
+    public OrderEventStream(JdbcTemplate jdbcTemplate,
+                            @Value("${order.outbox.sse-timeout-ms:1800000}") long emitterTimeoutMillis,
+                            @Value("${order.outbox.sse-poll-interval-ms:100}") long pollIntervalMillis,
+                            @Value("${order.outbox.sse-commit-grace-ms:2000}") long commitGraceMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.commitGrace = Duration.ofMillis(commitGraceMillis);
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(new SseEmitter(emitterTimeoutMillis), lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        notifier.execute(() -> {
+            startTailing();
+            subscribers.add(subscriber);
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                replay(subscriber, lastEventId.trim());
+            }
+        });
+        return emitter;
+    }
+
+    // Fires after the local relay commits, when its events are visible to the tail
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        if (subscribers.isEmpty() || !woken.compareAndSet(false, true)) {
+            return;
+        }
+        notifier.execute(() -> {
+            woken.set(false);
+            poll();
+        });
+    }
+
+    private void startTailing() {
+        if (tailing != null) {
+            return;
+        }
+        // Skip what was published before the first subscriber arrived
+        seen.clear();
+        watermark = LocalDateTime.now();
+        try {
+            tail(false);
+        } catch (RuntimeException ex) {
+            log.warn("Reading the order outbox failed, tailing from the grace window", ex);
+        }
+        tailing = notifier.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis,
+            TimeUnit.MILLISECONDS);
+    }
+
+    private void poll() {
+        if (tailing == null) {
+            return;
+        }
+        if (subscribers.isEmpty()) {
+            tailing.cancel(false);
+            tailing = null;
+            return;
+        }
+        try {
+            tail(true);
+        } catch (RuntimeException ex) {
+            log.warn("Tailing the order outbox failed, retrying", ex);
+        }
+    }
+
+    private void tail(boolean deliver) {
+        jdbcTemplate.query(TAIL_SQL, rs -> {
+            LocalDateTime publishedAt = rs.getTimestamp("published_at").toLocalDateTime();
+            OrderStatusChangedEvent event = OutboxRelay.EVENT_MAPPER.mapRow(rs, 0);
+            if (seen.putIfAbsent(event.getEventId(), publishedAt) == null && deliver) {
+                for (Subscriber subscriber : subscribers) {
+                    if (!subscriber.replayed.containsKey(event.getEventId())) {
+                        send(subscriber, event);
+                    } else {
+                        subscriber.replayed.remove(event.getEventId());
+                    }
+                }
+            }
+            if (publishedAt.isAfter(watermark)) {
+                watermark = publishedAt;
+            }
+        }, Timestamp.valueOf(watermark.minus(commitGrace)));
+        // The next tail starts at the new horizon, so nothing older can come back
+        LocalDateTime horizon = watermark.minus(commitGrace);
+        seen.values().removeIf(publishedAt -> publishedAt.isBefore(horizon));
+        subscribers.forEach(subscriber -> subscriber.replayed.values()
+            .removeIf(publishedAt -> publishedAt != null && publishedAt.isBefore(horizon)));
+    }
+
+    private void replay(Subscriber subscriber, String lastEventId) {
+        long lastId;
+        try {
+            lastId = Long.parseLong(lastEventId);
+        } catch (NumberFormatException ex) {
+            log.debug("Ignoring Last-Event-ID {}", lastEventId);
+            return;
+        }
+        List<Timestamp> last = jdbcTemplate.queryForList(LAST_SQL, Timestamp.class, lastId);
+        Object[] args;
+        String where;
+        if (!last.isEmpty() && last.get(0) != null) {
+            where = "(published_at >= ? OR published_at IS NULL) AND id <> ?";
+            args = new Object[] {last.get(0), lastId};
+        } else {
+            // Unknown or purged event: fall back to the time order of Snowflake ids
+            where = "id > ?";
+            args = new Object[] {lastId};
+        }
+        try {
+            jdbcTemplate.query(String.format(REPLAY_SQL, where), rs -> {
+                Timestamp publishedAt = rs.getTimestamp("published_at");
+                OrderStatusChangedEvent event = OutboxRelay.EVENT_MAPPER.mapRow(rs, 0);
+                // The tail has not read these yet and will deliver them again
+                if (!seen.containsKey(event.getEventId())) {
+                    subscriber.replayed.put(event.getEventId(),
+                        publishedAt != null ? publishedAt.toLocalDateTime() : null);
+                }
+                if (!send(subscriber, event)) {
+                    throw new IllegalStateException("Subscriber dropped during replay");
+                }
+            }, args);
+        } catch (IllegalStateException ex) {
+            log.debug("Stopped replaying order events", ex);
+        }
+    }
+
+    private boolean send(Subscriber subscriber, OrderStatusChangedEvent event) {
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                .id(String.valueOf(event.getEventId()))
+                .name("order-status")
+                .data(event));
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Dropping order event subscriber", ex);
+            subscribers.remove(subscriber);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        // Replayed events the tail has yet to read, by published_at (null while unpublished); an
+        // entry goes when the tail reads the event or its published_at falls behind the horizon
+        private final Map<Long, LocalDateTime> replayed = new HashMap<>();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
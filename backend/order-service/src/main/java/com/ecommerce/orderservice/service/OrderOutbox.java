@@ -0,0 +1,69 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.common.id.SnowflakeIdGenerator;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes order status changes to the {@code order_outbox} table. Must be called inside the
+ * transaction that changes the status, so the event exists exactly when the change commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderOutbox {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO order_outbox (id, order_id, from_status, to_status, occurred_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SnowflakeIdGenerator idGenerator;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public void record(Long orderId, OrderStatus from, OrderStatus to) {
+        recordAll(Collections.singletonList(orderId), from, to);
+    }
+
+    public void recordAll(List<Long> orderIds, OrderStatus from, OrderStatus to) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String fromStatus = from != null ? from.name() : null;
+        insert(orderIds.stream()
+            .map(orderId -> new Object[] {idGenerator.nextId(), orderId, fromStatus, to.name(), now})
+            .collect(Collectors.toList()));
+    }
+
+    /**
+     * Records orders moving to {@code to} from the status each one had before.
+     */
+    public void recordAll(Map<Long, OrderStatus> fromByOrderId, OrderStatus to) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        insert(fromByOrderId.entrySet().stream()
+            .map(entry -> new Object[] {idGenerator.nextId(), entry.getKey(), entry.getValue().name(), to.name(), now})
+            .collect(Collectors.toList()));
+    }
+
+    private void insert(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        // Wakes the relay once the transaction commits
+        applicationEventPublisher.publishEvent(Written.INSTANCE);
+    }
+
+    public static final class Written {
+        static final Written INSTANCE = new Written();
+
+        private Written() {
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Background pipeline that moves PENDING orders to CONFIRMED and then PROCESSING.
+ * <p>
+ * A poller claims a batch of PENDING orders by flipping them to CONFIRMED in one statement,
+ * stamping each with this node as {@code claimed_by} and the claim time as {@code claimed_at}.
+ * On SQL Server the claim reads past rows locked by other nodes, so nodes never wait on or
+ * claim each other's batches. Claimed batches go to a bounded worker pool that marks them
+ * PROCESSING. When the pool's queue is full the poller stops claiming until it drains, so
+ * unclaimed orders stay PENDING and free for other nodes. Only the claiming node moves a claim
+ * on, and a claim older than the claim timeout is taken over by {@link #recover()}. Every
+ * transition is recorded in the order outbox and the rollups in the same transaction.
+ */
+@Slf4j
+@Component
+public class OrderProcessingPipeline {
+
+    // Checkout commits its order before payment; the order is claimable once the checkout is paid
+    private static final String NOT_IN_CHECKOUT =
+        "NOT EXISTS (SELECT 1 FROM checkout_sagas s WHERE s.order_id = orders.id AND s.state = 'STARTED')";
+    private static final String CLAIM_SQL =
+        "WITH batch AS (" +
+        "SELECT TOP (?) id, status, updated_at, claimed_by, claimed_at FROM orders WITH (ROWLOCK, UPDLOCK, READPAST) " +
+        "WHERE status = 'PENDING' AND " + NOT_IN_CHECKOUT + " ORDER BY order_date, id) " +
+        "UPDATE batch SET status = 'CONFIRMED', updated_at = ?, claimed_by = ?, claimed_at = ? OUTPUT inserted.id";
+    private static final String CANDIDATES_SQL =
+        "SELECT id FROM orders WHERE status = 'PENDING' AND " + NOT_IN_CHECKOUT +
+        " ORDER BY order_date, id OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+    private static final String CLAIM_ONE_SQL =
+        "UPDATE orders SET status = 'CONFIRMED', updated_at = ?, claimed_by = ?, claimed_at = ? " +
+        "WHERE id = ? AND status = 'PENDING'";
+    private static final String EXPIRED_SQL =
+        "SELECT id FROM orders WHERE status = 'CONFIRMED' AND claimed_at < ?";
+    private static final String TAKE_OVER_SQL =
+        "UPDATE orders SET claimed_by = ?, claimed_at = ? WHERE id = ? AND status = 'CONFIRMED' AND claimed_at < ?";
+    private static final String PROCESS_SQL =
+        "UPDATE orders SET status = 'PROCESSING', updated_at = ?, claimed_by = NULL, claimed_at = NULL " +
+        "WHERE id = ? AND status = 'CONFIRMED' AND claimed_by = ?";
+    private static final String SUMMARY_SQL =
+        "UPDATE order_summary SET status = ? WHERE order_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderOutbox outbox;
+    private final OrderRollups rollups;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long claimTimeoutMillis;
+    private final boolean readPast;
+    private final String owner;
+    private final ThreadPoolExecutor workers;
+    private final Timer claimTimer;
+    private final Timer processTimer;
+    private final Counter claimed;
+    private final Counter processed;
+    private final Counter throttled;
+
+    public OrderProcessingPipeline(JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   DataSource dataSource,
+                                   OrderOutbox outbox,
+                                   OrderRollups rollups,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${order.processing.enabled:true}") boolean enabled,
+                                   @Value("${order.processing.batch-size:100}") int batchSize,
+                                   @Value("${order.processing.threads:4}") int threads,
+                                   @Value("${order.processing.queue-capacity:8}") int queueCapacity,
+                                   @Value("${order.processing.claim-timeout-ms:300000}") long claimTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.outbox = outbox;
+        this.rollups = rollups;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.claimTimeoutMillis = claimTimeoutMillis;
+        this.readPast = isSqlServer(dataSource);
+        this.owner = hostName() + ":" + UUID.randomUUID();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "order-processing-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.claimTimer = Timer.builder("order.pipeline.stage.latency").tag("stage", "claim").register(meterRegistry);
+        this.processTimer = Timer.builder("order.pipeline.stage.latency").tag("stage", "process").register(meterRegistry);
+        this.claimed = meterRegistry.counter("order.pipeline.claimed");
+        this.processed = meterRegistry.counter("order.pipeline.processed");
+        this.throttled = meterRegistry.counter("order.pipeline.throttled");
+        meterRegistry.gauge("order.pipeline.queue.depth", workers, pool -> pool.getQueue().size());
+        meterRegistry.gauge("order.pipeline.active.workers", workers, ThreadPoolExecutor::getActiveCount);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            // Whatever is left stays CONFIRMED and is picked up by recover() on the next start
+            workers.shutdownNow();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.processing.poll-interval-ms:500}")
+    public void poll() {
+        if (!enabled || workers.isShutdown()) {
+            return;
+        }
+        // Keep claiming while there is room in the queue and orders are waiting
+        while (workers.getQueue().remainingCapacity() > 0) {
+            List<Long> batch;
+            try {
+                batch = claimTimer.record(() -> transactionTemplate.execute(status -> claim()));
+            } catch (DataAccessException ex) {
+                log.warn("Claiming pending orders failed", ex);
+                return;
+            }
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+            claimed.increment(batch.size());
+            try {
+                workers.execute(() -> process(batch));
+            } catch (RejectedExecutionException ex) {
+                // Shutting down: the batch is already CONFIRMED and finishes on the next start
+                return;
+            }
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+        throttled.increment();
+    }
+
+    /**
+     * Takes over claims older than the claim timeout, e.g. because their node stopped, and
+     * finishes them. Orders moved to CONFIRMED outside the pipeline have no claim and are left
+     * alone. A batch still queued on its original node no longer matches its owner there, so it
+     * is not processed twice.
+     */
+    @Scheduled(initialDelayString = "${order.processing.recover-delay-ms:30000}",
+               fixedDelayString = "${order.processing.recover-interval-ms:300000}")
+    public void recover() {
+        if (!enabled) {
+            return;
+        }
+        Timestamp expiredBefore = Timestamp.valueOf(LocalDateTime.now().minusNanos(claimTimeoutMillis * 1_000_000));
+        List<Long> stranded = jdbcTemplate.queryForList(EXPIRED_SQL, Long.class, expiredBefore);
+        for (int from = 0; from < stranded.size(); from += batchSize) {
+            List<Long> chunk = stranded.subList(from, Math.min(stranded.size(), from + batchSize));
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Long> taken = transactionTemplate.execute(status ->
+                updateEach(TAKE_OVER_SQL, chunk, id -> new Object[] {owner, now, id, expiredBefore}));
+            if (!taken.isEmpty()) {
+                process(taken);
+            }
+        }
+    }
+
+    List<Long> claim() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> ids;
+        if (readPast) {
+            ids = jdbcTemplate.queryForList(CLAIM_SQL, Long.class, batchSize, now, owner, now);
+        } else {
+            // Portable fallback: each conditional update only succeeds for one node
+            List<Long> candidates = jdbcTemplate.queryForList(CANDIDATES_SQL, Long.class, batchSize);
+            ids = updateEach(CLAIM_ONE_SQL, candidates, id -> new Object[] {now, owner, now, id});
+        }
+        updateSummaries(ids, "CONFIRMED");
+        outbox.recordAll(ids, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        rollups.recordTransitions(ids, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        return ids;
+    }
+
+    void process(List<Long> batch) {
+        processTimer.record(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                    List<Long> moved = updateEach(PROCESS_SQL, batch, id -> new Object[] {now, id, owner});
+                    updateSummaries(moved, "PROCESSING");
+                    outbox.recordAll(moved, OrderStatus.CONFIRMED, OrderStatus.PROCESSING);
+                    rollups.recordTransitions(moved, OrderStatus.CONFIRMED, OrderStatus.PROCESSING);
+                    processed.increment(moved.size());
+                });
+            } catch (DataAccessException ex) {
+                log.warn("Processing a batch of {} orders failed, leaving them CONFIRMED", batch.size(), ex);
+            }
+        });
+    }
+
+    private List<Long> updateEach(String sql, List<Long> ids, Function<Long, Object[]> rowArgs) {
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        List<Object[]> args = ids.stream().map(rowArgs).collect(Collectors.toList());
+        int[][] counts = jdbcTemplate.batchUpdate(sql, args, args.size(),
+            (ps, row) -> {
+                for (int i = 0; i < row.length; i++) {
+                    ps.setObject(i + 1, row[i]);
+                }
+            });
+        List<Long> moved = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            // Drivers may report SUCCESS_NO_INFO (-2) for batched rows that did update
+            if (counts[0][i] != 0) {
+                moved.add(ids.get(i));
+            }
+        }
+        return moved;
+    }
+
+    private void updateSummaries(List<Long> ids, String status) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(SUMMARY_SQL, ids.stream()
+            .map(id -> new Object[] {status, id})
+            .collect(Collectors.toList()));
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return String.valueOf(ProcessHandle.current().pid());
+        }
+    }
+
+    static boolean isSqlServer(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return product != null && product.startsWith("Microsoft SQL Server");
+        } catch (MetaDataAccessException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.dto.OrderRollupDTO;
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Per-day, per-status order counts and amounts, keyed by the day the order was placed.
+ * <p>
+ * Order writes append signed deltas in their own transaction: +1 for the order's new bucket
+ * and -1 for the one it left. A scheduled fold sums the deltas into {@code order_rollup}, and
+ * reads add the few deltas not yet folded, so a range query costs one row per bucket no matter
+ * how many orders it covers.
+ */
+@Slf4j
+@Component
+public class OrderRollups {
+
+    private static final String COLUMNS =
+        "rollup_date, status, order_count, total_amount, tax_amount, shipping_amount, discount_amount";
+    private static final String INSERT_DELTA_SQL =
+        "INSERT INTO order_rollup_delta (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // Deltas for orders changed with plain JDBC, read back from the orders table
+    private static final String INSERT_DELTA_SELECT_SQL =
+        "INSERT INTO order_rollup_delta (" + COLUMNS + ") " +
+        "SELECT CAST(order_date AS DATE), ?, %1$sCOUNT(*), %1$sCOALESCE(SUM(total_amount), 0), " +
+        "%1$sCOALESCE(SUM(tax_amount), 0), %1$sCOALESCE(SUM(shipping_amount), 0), %1$sCOALESCE(SUM(discount_amount), 0) " +
+        "FROM orders WHERE id IN (%2$s) GROUP BY CAST(order_date AS DATE)";
+    private static final String CLAIM_DELTAS_SQL =
+        "SELECT TOP (?) id, " + COLUMNS + " FROM order_rollup_delta WITH (ROWLOCK, UPDLOCK, READPAST) ORDER BY id";
+    private static final String PENDING_DELTAS_SQL =
+        "SELECT id, " + COLUMNS + " FROM order_rollup_delta ORDER BY id OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+    private static final String DELETE_DELTA_SQL =
+        "DELETE FROM order_rollup_delta WHERE id = ?";
+    private static final String ADD_TO_ROLLUP_SQL =
+        "UPDATE order_rollup SET order_count = order_count + ?, total_amount = total_amount + ?, " +
+        "tax_amount = tax_amount + ?, shipping_amount = shipping_amount + ?, discount_amount = discount_amount + ? " +
+        "WHERE rollup_date = ? AND status = ?";
+    private static final String INSERT_ROLLUP_SQL =
+        "INSERT INTO order_rollup (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String RANGE_SQL =
+        "SELECT rollup_date, status, SUM(order_count) AS order_count, SUM(total_amount) AS total_amount, " +
+        "SUM(tax_amount) AS tax_amount, SUM(shipping_amount) AS shipping_amount, SUM(discount_amount) AS discount_amount " +
+        "FROM (SELECT " + COLUMNS + " FROM order_rollup WHERE rollup_date BETWEEN ? AND ?%1$s " +
+        "UNION ALL SELECT " + COLUMNS + " FROM order_rollup_delta WHERE rollup_date BETWEEN ? AND ?%1$s) buckets " +
+        "GROUP BY rollup_date, status ORDER BY rollup_date, status";
+
+    private static final RowMapper<Bucket> BUCKET_MAPPER = (rs, rowNum) -> new Bucket(
+        rs.getDate("rollup_date").toLocalDate(), OrderStatus.valueOf(rs.getString("status")),
+        rs.getLong("order_count"), rs.getBigDecimal("total_amount"), rs.getBigDecimal("tax_amount"),
+        rs.getBigDecimal("shipping_amount"), rs.getBigDecimal("discount_amount"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int foldBatchSize;
+    private final boolean readPast;
+
+    public OrderRollups(JdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate,
+                        DataSource dataSource,
+                        @Value("${order.rollup.fold-batch-size:5000}") int foldBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.foldBatchSize = foldBatchSize;
+        this.readPast = OrderProcessingPipeline.isSqlServer(dataSource);
+    }
+
+    public void recordCreated(Order order) {
+        jdbcTemplate.update(INSERT_DELTA_SQL, delta(order, order.getStatus(), 1));
+    }
+
+    public void recordTransition(Order order, OrderStatus from, OrderStatus to) {
+        List<Object[]> deltas = new ArrayList<>(2);
+        if (from != null) {
+            deltas.add(delta(order, from, -1));
+        }
+        deltas.add(delta(order, to, 1));
+        jdbcTemplate.batchUpdate(INSERT_DELTA_SQL, deltas);
+    }
+
+    /**
+     * Records orders already moved from {@code from} to {@code to} with plain JDBC.
+     */
+    public void recordTransitions(Collection<Long> orderIds, OrderStatus from, OrderStatus to) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        String ids = String.join(", ", Collections.nCopies(orderIds.size(), "?"));
+        List<Object> args = new ArrayList<>();
+        args.add(from.name());
+        args.addAll(orderIds);
+        jdbcTemplate.update(String.format(INSERT_DELTA_SELECT_SQL, "-", ids), args.toArray());
+        args.set(0, to.name());
+        jdbcTemplate.update(String.format(INSERT_DELTA_SELECT_SQL, "", ids), args.toArray());
+    }
+
+    /**
+     * Like {@link #recordTransitions(Collection, OrderStatus, OrderStatus)} for orders that
+     * left different statuses.
+     */
+    public void recordTransitions(Map<Long, OrderStatus> fromByOrderId, OrderStatus to) {
+        fromByOrderId.keySet().stream()
+            .collect(Collectors.groupingBy(fromByOrderId::get))
+            .forEach((from, orderIds) -> recordTransitions(orderIds, from, to));
+    }
+
+    public List<OrderRollupDTO> getRollups(LocalDate from, LocalDate to, OrderStatus status) {
+        List<Object> args = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            args.add(Date.valueOf(from));
+            args.add(Date.valueOf(to));
+            if (status != null) {
+                args.add(status.name());
+            }
+        }
+        String sql = String.format(RANGE_SQL, status != null ? " AND status = ?" : "");
+        return jdbcTemplate.query(sql, BUCKET_MAPPER, args.toArray()).stream()
+            .filter(bucket -> bucket.orderCount != 0)
+            .map(bucket -> new OrderRollupDTO(bucket.date, bucket.status, bucket.orderCount, bucket.totalAmount,
+                bucket.taxAmount, bucket.shippingAmount, bucket.discountAmount))
+            .collect(Collectors.toList());
+    }
+
+    @Scheduled(fixedDelayString = "${order.rollup.fold-interval-ms:1000}")
+    public void fold() {
+        try {
+            Integer folded;
+            do {
+                folded = transactionTemplate.execute(status -> foldBatch());
+            } while (folded != null && folded == foldBatchSize);
+        } catch (DataAccessException ex) {
+            log.warn("Folding order rollup deltas failed, retrying on the next run", ex);
+        }
+    }
+
+    /**
+     * Moves one batch of deltas into the rollup table and returns how many were read. Each
+     * delta counts only if this transaction deleted it, so nodes folding concurrently never
+     * add the same delta twice.
+     */
+    int foldBatch() {
+        List<Long> ids = new ArrayList<>();
+        List<Bucket> deltas = jdbcTemplate.query(readPast ? CLAIM_DELTAS_SQL : PENDING_DELTAS_SQL, (rs, rowNum) -> {
+            ids.add(rs.getLong("id"));
+            return BUCKET_MAPPER.mapRow(rs, rowNum);
+        }, foldBatchSize);
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        int[][] deleted = jdbcTemplate.batchUpdate(DELETE_DELTA_SQL, ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+
+        Map<List<Object>, Bucket> sums = new LinkedHashMap<>();
+        for (int i = 0; i < deltas.size(); i++) {
+            if (deleted[0][i] != 0) {
+                Bucket delta = deltas.get(i);
+                sums.merge(List.of(delta.date, delta.status), delta, Bucket::plus);
+            }
+        }
+        for (Bucket sum : sums.values()) {
+            Object[] amounts = {sum.orderCount, sum.totalAmount, sum.taxAmount, sum.shippingAmount, sum.discountAmount};
+            int updated = jdbcTemplate.update(ADD_TO_ROLLUP_SQL, amounts[0], amounts[1], amounts[2], amounts[3],
+                amounts[4], Date.valueOf(sum.date), sum.status.name());
+            if (updated == 0) {
+                try {
+                    jdbcTemplate.update(INSERT_ROLLUP_SQL, Date.valueOf(sum.date), sum.status.name(),
+                        amounts[0], amounts[1], amounts[2], amounts[3], amounts[4]);
+                } catch (DuplicateKeyException ex) {
+                    // A concurrent fold created the bucket first; its insert has committed by now
+                    jdbcTemplate.update(ADD_TO_ROLLUP_SQL, amounts[0], amounts[1], amounts[2], amounts[3],
+                        amounts[4], Date.valueOf(sum.date), sum.status.name());
+                }
+            }
+        }
+        return deltas.size();
+    }
+
+    private static Object[] delta(Order order, OrderStatus status, int sign) {
+        BigDecimal factor = BigDecimal.valueOf(sign);
+        return new Object[] {
+            Date.valueOf(order.getOrderDate().toLocalDate()),
+            status.name(),
+            sign,
+            amount(order.getTotalAmount()).multiply(factor),
+            amount(order.getTaxAmount()).multiply(factor),
+            amount(order.getShippingAmount()).multiply(factor),
+            amount(order.getDiscountAmount()).multiply(factor)
+        };
+    }
+
+    private static BigDecimal amount(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static final class Bucket {
+        private final LocalDate date;
+        private final OrderStatus status;
+        private final long orderCount;
+        private final BigDecimal totalAmount;
+        private final BigDecimal taxAmount;
+        private final BigDecimal shippingAmount;
+        private final BigDecimal discountAmount;
+
+        private Bucket(LocalDate date, OrderStatus status, long orderCount, BigDecimal totalAmount,
+                       BigDecimal taxAmount, BigDecimal shippingAmount, BigDecimal discountAmount) {
+            this.date = date;
+            this.status = status;
+            this.orderCount = orderCount;
+            this.totalAmount = totalAmount;
+            this.taxAmount = taxAmount;
+            this.shippingAmount = shippingAmount;
+            this.discountAmount = discountAmount;
+        }
+
+        private Bucket plus(Bucket other) {
+            return new Bucket(date, status, orderCount + other.orderCount, totalAmount.add(other.totalAmount),
+                taxAmount.add(other.taxAmount), shippingAmount.add(other.shippingAmount),
+                discountAmount.add(other.discountAmount));
+        }
+    }
+}
@@ -1,20 +1,31 @@
 package com.ecommerce.orderservice.service;
 
+import com.ecommerce.common.id.SnowflakeIdGenerator;
 import com.ecommerce.orderservice.dto.OrderDTO;
 import com.ecommerce.orderservice.dto.OrderItemDTO;
+import com.ecommerce.orderservice.dto.OrderPageDTO;
+import com.ecommerce.orderservice.dto.OrderSummaryDTO;
+import com.ecommerce.orderservice.dto.OrderSummaryPageDTO;
 import com.ecommerce.orderservice.entity.Order;
 import com.ecommerce.orderservice.entity.OrderItem;
 import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.entity.OrderSummary;
+import com.ecommerce.orderservice.repository.OrderItemRepository;
 import com.ecommerce.orderservice.repository.OrderRepository;
+import com.ecommerce.orderservice.repository.OrderSummaryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.sql.*;
 
@@ -22,7 +33,15 @@ import java.sql.*;
 @RequiredArgsConstructor
 public class OrderService {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_TRANSITION_ATTEMPTS = 3;
+    
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final SnowflakeIdGenerator idGenerator;
+    private final OrderOutbox outbox;
+    private final OrderRollups rollups;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     // Hardcoded credentials - security vulnerability
@@ -32,7 +51,7 @@ public class OrderService {
     @Transactional
     public OrderDTO createOrder(OrderDTO orderDTO) {
         Order order = new Order();
-        order.setOrderNumber("ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        order.setOrderNumber(idGenerator.nextId("ORD-"));
         order.setUserId(orderDTO.getUserId());
         order.setStatus(OrderStatus.PENDING);
         order.setShippingAddress(orderDTO.getShippingAddress());
@@ -49,9 +68,12 @@ public class OrderService {
         order.setDiscountAmount(orderDTO.getDiscountAmount() != null ? orderDTO.getDiscountAmount() : BigDecimal.ZERO);
         
         Order savedOrder = orderRepository.save(order);
+        rollups.recordCreated(savedOrder);
         
-        // Create order items
+        // Create order items. Ids come from a pooled sequence, so the order and its items
+        // are written together as batched inserts when the transaction flushes.
         if (orderDTO.getItems() != null) {
+            List<OrderItem> items = new ArrayList<>(orderDTO.getItems().size());
             for (OrderItemDTO itemDTO : orderDTO.getItems()) {
                 OrderItem item = new OrderItem();
                 item.setOrder(savedOrder);
@@ -61,9 +83,18 @@ public class OrderService {
                 item.setQuantity(itemDTO.getQuantity());
                 item.setUnitPrice(itemDTO.getUnitPrice());
                 item.setTotalPrice(itemDTO.getUnitPrice().multiply(BigDecimal.valueOf(itemDTO.getQuantity())));
+                items.add(item);
             }
+            orderItemRepository.saveAll(items);
         }
         
+        int itemCount = orderDTO.getItems() != null
+            ? orderDTO.getItems().stream().mapToInt(OrderItemDTO::getQuantity).sum()
+            : 0;
+        orderSummaryRepository.save(new OrderSummary(savedOrder.getId(), savedOrder.getUserId(),
+            savedOrder.getOrderNumber(), savedOrder.getOrderDate(), savedOrder.getStatus(),
+            savedOrder.getTotalAmount(), itemCount, true));
+        
         return convertToDTO(savedOrder);
     }
     
@@ -93,6 +124,19 @@ public class OrderService {
         return convertToDTO(order);
     }
     
+    @Transactional(readOnly = true)
+    public OrderDTO getOrderDetail(Long id) {
+        Order order = orderRepository.findWithItemsById(id)
+            .orElseThrow(() -> new RuntimeException("Order not found"));
+        OrderDTO dto = convertToDTO(order);
+        // Null only for an order created earlier in the same persistence context
+        dto.setItems(order.getOrderItems() == null ? new ArrayList<>() : order.getOrderItems().stream()
+            .sorted(Comparator.comparing(OrderItem::getId))
+            .map(this::convertToItemDTO)
+            .collect(Collectors.toList()));
+        return dto;
+    }
+    
     public OrderDTO getOrderByNumber(String orderNumber) {
         Order order = orderRepository.findByOrderNumber(orderNumber)
             .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -111,43 +155,94 @@ public class OrderService {
             .collect(Collectors.toList());
     }
     
+    public OrderPageDTO getOrdersByUserId(Long userId, String cursor, int limit) {
+        Pageable page = PageRequest.of(0, pageSize(limit) + 1);
+        OrderCursor key = OrderCursor.decode(cursor);
+        List<Order> orders = key == null
+            ? orderRepository.findByUserIdOrderByOrderDateDescIdDesc(userId, page)
+            : orderRepository.findByUserIdBefore(userId, key.getOrderDate(), key.getId(), page);
+        return toPage(orders, page.getPageSize() - 1);
+    }
+    
+    public OrderPageDTO getOrdersByStatus(OrderStatus status, String cursor, int limit) {
+        Pageable page = PageRequest.of(0, pageSize(limit) + 1);
+        OrderCursor key = OrderCursor.decode(cursor);
+        List<Order> orders = key == null
+            ? orderRepository.findByStatusOrderByOrderDateAscIdAsc(status, page)
+            : orderRepository.findByStatusAfter(status, key.getOrderDate(), key.getId(), page);
+        return toPage(orders, page.getPageSize() - 1);
+    }
+    
+    public long countOrdersByStatus(OrderStatus status) {
+        return orderRepository.countByStatus(status);
+    }
+    
+    /**
+     * Order history for the list page, read only from the order_summary projection.
+     */
+    public OrderSummaryPageDTO getOrderHistory(Long userId, String cursor, int limit) {
+        Pageable page = PageRequest.of(0, pageSize(limit) + 1);
+        OrderCursor key = OrderCursor.decode(cursor);
+        List<OrderSummary> summaries = key == null
+            ? orderSummaryRepository.findByUserIdOrderByOrderDateDescOrderIdDesc(userId, page)
+            : orderSummaryRepository.findByUserIdBefore(userId, key.getOrderDate(), key.getId(), page);
+        String nextCursor = null;
+        if (summaries.size() > page.getPageSize() - 1) {
+            summaries = summaries.subList(0, page.getPageSize() - 1);
+            OrderSummary last = summaries.get(summaries.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getOrderId()).encode();
+        }
+        List<OrderSummaryDTO> dtos = summaries.stream()
+            .map(summary -> new OrderSummaryDTO(summary.getOrderId(), summary.getOrderNumber(),
+                summary.getOrderDate().format(formatter), summary.getStatus(),
+                summary.getTotalAmount(), summary.getItemCount()))
+            .collect(Collectors.toList());
+        return new OrderSummaryPageDTO(dtos, nextCursor);
+    }
+    
     @Transactional
     public OrderDTO updateOrderStatus(Long id, OrderStatus status) {
-        Order order = orderRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Order not found"));
-        order.setStatus(status);
-        
-        if (status == OrderStatus.SHIPPED && order.getShippedDate() == null) {
-            order.setShippedDate(LocalDateTime.now());
-        }
-        if (status == OrderStatus.DELIVERED && order.getDeliveredDate() == null) {
-            order.setDeliveredDate(LocalDateTime.now());
-        }
-        
-        Order updatedOrder = orderRepository.save(order);
-        return convertToDTO(updatedOrder);
+        return convertToDTO(transition(id, status, current -> { }));
     }
     
     @Transactional
     public void cancelOrder(Long id) {
-        Order order = orderRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Order not found"));
-        
-        if (order.getStatus() == OrderStatus.SHIPPED || order.getStatus() == OrderStatus.DELIVERED) {
-            throw new RuntimeException("Cannot cancel order that is already shipped or delivered");
-        }
-        
-        order.setStatus(OrderStatus.CANCELLED);
-        orderRepository.save(order);
+        transition(id, OrderStatus.CANCELLED, current -> {
+            if (current == OrderStatus.SHIPPED || current == OrderStatus.DELIVERED) {
+                throw new RuntimeException("Cannot cancel order that is already shipped or delivered");
+            }
+        });
     }
     
-    // Infinite loop risk
-    public void processOrders() {
-        int x = 1;
-        while(x > 0) {
-            x++;
-            // This will never end
+    /**
+     * Moves the order with an UPDATE conditional on the status just read, so the pipeline and the
+     * bulk updater (which move orders with plain JDBC) cannot slip a transition in between. The guard
+     * and the outbox/rollup deltas only ever see the status the row was actually moved from.
+     */
+    private Order transition(Long id, OrderStatus status, Consumer<OrderStatus> guard) {
+        for (int attempt = 0; attempt < MAX_TRANSITION_ATTEMPTS; attempt++) {
+            Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+            OrderStatus previous = order.getStatus();
+            guard.accept(previous);
+            if (previous == status) {
+                return order;
+            }
+            
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime shippedDate = status == OrderStatus.SHIPPED && order.getShippedDate() == null
+                ? now : order.getShippedDate();
+            LocalDateTime deliveredDate = status == OrderStatus.DELIVERED && order.getDeliveredDate() == null
+                ? now : order.getDeliveredDate();
+            if (orderRepository.transition(id, previous, status, shippedDate, deliveredDate, now) == 1) {
+                orderSummaryRepository.updateStatus(id, status);
+                outbox.record(id, previous, status);
+                rollups.recordTransition(order, previous, status);
+                return orderRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Order not found"));
+            }
         }
+        throw new RuntimeException("Order status was changed concurrently");
     }
     
     // Dead code
@@ -158,6 +253,32 @@ public class OrderService {
         int c = a + b;
     }
     
+    private static int pageSize(int limit) {
+        if (limit < 1) {
+            throw new RuntimeException("Limit must be at least 1");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+    
+    // One extra row is fetched to tell whether another page follows
+    private OrderPageDTO toPage(List<Order> orders, int pageSize) {
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            Order last = orders.get(pageSize - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+        List<OrderDTO> dtos = orders.stream()
+            .map(this::convertToDTO)
+            .collect(Collectors.toList());
+        return new OrderPageDTO(dtos, nextCursor);
+    }
+    
+    private OrderItemDTO convertToItemDTO(OrderItem item) {
+        return new OrderItemDTO(item.getId(), item.getProductId(), item.getProductName(), item.getProductSku(),
+            item.getQuantity(), item.getUnitPrice(), item.getTotalPrice());
+    }
+    
     private OrderDTO convertToDTO(Order order) {
         OrderDTO dto = new OrderDTO();
         dto.setId(order.getId());
@@ -0,0 +1,220 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.event.OrderEventPublisher;
+import com.ecommerce.orderservice.event.OrderStatusChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the order outbox to the {@link OrderEventPublisher} in batches.
+ * <p>
+ * A commit that writes outbox rows wakes the relay on the same node, so events usually go
+ * out within milliseconds. Otherwise the relay polls: immediately again after a full batch,
+ * and with a delay that doubles up to the maximum while the outbox stays empty. Events are
+ * marked published in the transaction that publishes them, so delivery is at-least-once.
+ * <p>
+ * A drain claims orders rather than single events: it locks the oldest pending event of each
+ * order it takes and publishes every pending event of those orders. Another node skips an order
+ * whose oldest event is locked, so one order's events always go out in outbox order. On SQL
+ * Server locked orders are skipped rather than waited on.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    // The oldest pending event of an order; its lock is the claim on the order
+    private static final String OLDEST_PENDING =
+        "published_at IS NULL AND NOT EXISTS (SELECT 1 FROM order_outbox e " +
+        "WHERE e.order_id = o.order_id AND e.published_at IS NULL AND e.id < o.id)";
+    private static final String CLAIM_SQL =
+        "SELECT TOP (?) order_id FROM order_outbox o WITH (ROWLOCK, UPDLOCK, READPAST) " +
+        "WHERE " + OLDEST_PENDING + " ORDER BY id";
+    private static final String PENDING_SQL =
+        "SELECT order_id FROM order_outbox o WHERE " + OLDEST_PENDING + " ORDER BY id OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+    private static final String EVENTS_SQL =
+        "SELECT id, order_id, from_status, to_status, occurred_at FROM order_outbox " +
+        "WHERE published_at IS NULL AND order_id IN (%s) ORDER BY id";
+    private static final String MARK_SQL =
+        "UPDATE order_outbox SET published_at = ? WHERE id = ?";
+    private static final String PURGE_SQL =
+        "DELETE FROM order_outbox WHERE published_at < ?";
+
+    static final RowMapper<OrderStatusChangedEvent> EVENT_MAPPER = (rs, rowNum) -> {
+        String from = rs.getString("from_status");
+        return new OrderStatusChangedEvent(rs.getLong("id"), rs.getLong("order_id"),
+            from != null ? OrderStatus.valueOf(from) : null, OrderStatus.valueOf(rs.getString("to_status")),
+            rs.getTimestamp("occurred_at").toLocalDateTime());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderEventPublisher publisher;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final long retentionHours;
+    private final boolean readPast;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final AtomicBoolean woken = new AtomicBoolean();
+    private final Counter published;
+    private final Timer lag;
+    private ScheduledFuture<?> next;
+    private long idleIntervalMillis;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       DataSource dataSource,
+                       OrderEventPublisher publisher,
+                       MeterRegistry meterRegistry,
+                       @Value("${order.outbox.enabled:true}") boolean enabled,
+                       @Value("${order.outbox.batch-size:500}") int batchSize,
+                       @Value("${order.outbox.min-poll-interval-ms:10}") long minIntervalMillis,
+                       @Value("${order.outbox.max-poll-interval-ms:1000}") long maxIntervalMillis,
+                       @Value("${order.outbox.retention-hours:24}") long retentionHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.publisher = publisher;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxIntervalMillis = maxIntervalMillis;
+        this.retentionHours = retentionHours;
+        this.idleIntervalMillis = minIntervalMillis;
+        this.readPast = OrderProcessingPipeline.isSqlServer(dataSource);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "order-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.published = meterRegistry.counter("order.outbox.published");
+        this.lag = meterRegistry.timer("order.outbox.lag");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            schedule(0);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onWritten(OrderOutbox.Written written) {
+        wakeUp();
+    }
+
+    public void wakeUp() {
+        if (!enabled) {
+            return;
+        }
+        woken.set(true);
+        schedule(0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        int purged = jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours)));
+        if (purged > 0) {
+            log.debug("Purged {} published order events", purged);
+        }
+    }
+
+    /**
+     * Publishes the pending events of up to one batch of orders and returns how many were published.
+     */
+    int drain() {
+        Integer count = transactionTemplate.execute(status -> {
+            List<Long> orderIds = jdbcTemplate.queryForList(readPast ? CLAIM_SQL : PENDING_SQL, Long.class, batchSize);
+            if (orderIds.isEmpty()) {
+                return 0;
+            }
+            List<OrderStatusChangedEvent> events = jdbcTemplate.query(
+                String.format(EVENTS_SQL, String.join(", ", Collections.nCopies(orderIds.size(), "?"))),
+                EVENT_MAPPER, orderIds.toArray());
+            publisher.publish(events);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(MARK_SQL, events.stream()
+                .map(event -> new Object[] {now, event.getEventId()})
+                .collect(Collectors.toList()));
+            events.forEach(event -> lag.record(Duration.between(event.getOccurredAt(), now.toLocalDateTime())));
+            return events.size();
+        });
+        published.increment(count);
+        return count;
+    }
+
+    /**
+     * Delay before the next drain, given how many events the last one published
+     * (negative when it failed).
+     */
+    long nextDelay(int drained) {
+        if (drained >= batchSize || (drained >= 0 && woken.get())) {
+            idleIntervalMillis = minIntervalMillis;
+            return 0;
+        }
+        if (drained > 0) {
+            idleIntervalMillis = minIntervalMillis;
+            return minIntervalMillis;
+        }
+        long delay = idleIntervalMillis;
+        idleIntervalMillis = Math.min(maxIntervalMillis, idleIntervalMillis * 2);
+        return delay;
+    }
+
+    private void run() {
+        woken.set(false);
+        int drained;
+        try {
+            drained = drain();
+        } catch (RuntimeException ex) {
+            log.warn("Relaying order events failed, retrying", ex);
+            drained = -1;
+        }
+        schedule(nextDelay(drained));
+    }
+
+    // Keeps exactly one pending run: the relay thread is single, so drains never overlap
+    private synchronized void schedule(long delayMillis) {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        if (next != null) {
+            next.cancel(false);
+        }
+        next = scheduler.schedule(this::run, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
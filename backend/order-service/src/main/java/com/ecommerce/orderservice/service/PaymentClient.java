@@ -0,0 +1,52 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.dto.PaymentAuthorizationDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Payment calls to payment-service. Voiding a payment uses its refund endpoint.
+ */
+@Component
+public class PaymentClient {
+
+    private final RestTemplate restTemplate;
+
+    public PaymentClient(RestTemplateBuilder restTemplateBuilder,
+                         @Value("${checkout.payment-url:http://localhost:8084}") String baseUrl,
+                         @Value("${checkout.payment-timeout-ms:5000}") long timeoutMillis) {
+        this.restTemplate = restTemplateBuilder
+            .rootUri(baseUrl)
+            .setConnectTimeout(Duration.ofMillis(timeoutMillis))
+            .setReadTimeout(Duration.ofMillis(timeoutMillis))
+            .build();
+    }
+
+    public PaymentAuthorizationDTO authorize(Long orderId, Long userId, BigDecimal amount, String paymentMethod) {
+        Map<String, Object> payment = new HashMap<>();
+        payment.put("orderId", orderId);
+        payment.put("userId", userId);
+        payment.put("amount", amount);
+        payment.put("paymentMethod", paymentMethod);
+        return restTemplate.postForObject("/api/payments", payment, PaymentAuthorizationDTO.class);
+    }
+
+    public List<PaymentAuthorizationDTO> findByOrder(Long orderId) {
+        PaymentAuthorizationDTO[] payments = restTemplate.getForObject("/api/payments/order/{orderId}",
+            PaymentAuthorizationDTO[].class, orderId);
+        return payments != null ? Arrays.asList(payments) : List.of();
+    }
+
+    public void voidPayment(Long paymentId) {
+        restTemplate.postForObject("/api/payments/{id}/refund", null, PaymentAuthorizationDTO.class, paymentId);
+    }
+}
@@ -0,0 +1,128 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.common.id.SnowflakeIdGenerator;
+import com.ecommerce.orderservice.dto.BulkStatusOutcome;
+import com.ecommerce.orderservice.dto.BulkStatusResultDTO;
+import com.ecommerce.orderservice.dto.BulkStatusUpdateResponseDTO;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkStatusServiceTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private BulkStatusService bulkStatusService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, status VARCHAR(50), " +
+            "order_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP, shipped_date TIMESTAMP, delivered_date TIMESTAMP, " +
+            "updated_at TIMESTAMP, total_amount DECIMAL(19, 2) DEFAULT 10, tax_amount DECIMAL(19, 2), " +
+            "shipping_amount DECIMAL(19, 2), discount_amount DECIMAL(19, 2))");
+        jdbcTemplate.execute("CREATE TABLE order_summary (order_id BIGINT PRIMARY KEY, status VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE order_outbox (id BIGINT PRIMARY KEY, order_id BIGINT, " +
+            "from_status VARCHAR(50), to_status VARCHAR(50), occurred_at TIMESTAMP, published_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE order_rollup_delta (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "rollup_date DATE, status VARCHAR(50), order_count BIGINT, total_amount DECIMAL(19, 2), " +
+            "tax_amount DECIMAL(19, 2), shipping_amount DECIMAL(19, 2), discount_amount DECIMAL(19, 2))");
+        OrderOutbox outbox = new OrderOutbox(jdbcTemplate, new SnowflakeIdGenerator(1), event -> { });
+        bulkStatusService = bulkStatusService(outbox, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testUpdateStatus_ReportsAnOutcomePerId() {
+        insert(1L, "PROCESSING");
+        insert(2L, "CANCELLED");
+        insert(3L, "CONFIRMED");
+        insert(4L, "SHIPPED");
+        insert(5L, "PENDING");
+
+        BulkStatusUpdateResponseDTO response =
+            bulkStatusService.updateStatus(List.of(1L, 2L, 3L, 4L, 99L, 3L, 5L), OrderStatus.SHIPPED);
+
+        assertEquals(2, response.getUpdated());
+        assertEquals(List.of(
+                new BulkStatusResultDTO(1L, BulkStatusOutcome.UPDATED, OrderStatus.PROCESSING),
+                new BulkStatusResultDTO(2L, BulkStatusOutcome.REJECTED, OrderStatus.CANCELLED),
+                new BulkStatusResultDTO(3L, BulkStatusOutcome.UPDATED, OrderStatus.CONFIRMED),
+                new BulkStatusResultDTO(4L, BulkStatusOutcome.UNCHANGED, OrderStatus.SHIPPED),
+                new BulkStatusResultDTO(99L, BulkStatusOutcome.NOT_FOUND, null),
+                new BulkStatusResultDTO(5L, BulkStatusOutcome.REJECTED, OrderStatus.PENDING)),
+            response.getResults());
+        assertEquals("SHIPPED", status("order_summary", "order_id", 3L));
+        assertEquals("CANCELLED", status("orders", "id", 2L));
+        assertEquals(List.of("PROCESSING->SHIPPED", "CONFIRMED->SHIPPED"), jdbcTemplate.queryForList(
+            "SELECT from_status || '->' || to_status FROM order_outbox ORDER BY id", String.class));
+        assertEquals(List.of("CONFIRMED:-1", "PROCESSING:-1", "SHIPPED:2"), jdbcTemplate.queryForList(
+            "SELECT status || ':' || SUM(order_count) FROM order_rollup_delta GROUP BY status ORDER BY status",
+            String.class));
+    }
+
+    @Test
+    void testUpdateStatus_StampsDatesOnlyOnce() {
+        insert(1L, "PROCESSING");
+        bulkStatusService.updateStatus(List.of(1L), OrderStatus.SHIPPED);
+        Object shipped = jdbcTemplate.queryForObject("SELECT shipped_date FROM orders WHERE id = 1", Object.class);
+
+        bulkStatusService.updateStatus(List.of(1L), OrderStatus.DELIVERED);
+
+        assertNotNull(shipped);
+        assertEquals(shipped, jdbcTemplate.queryForObject("SELECT shipped_date FROM orders WHERE id = 1", Object.class));
+        assertNotNull(jdbcTemplate.queryForObject("SELECT delivered_date FROM orders WHERE id = 1", Object.class));
+    }
+
+    @Test
+    void testUpdateStatus_LargeWave() {
+        List<Object[]> rows = new ArrayList<>();
+        LongStream.rangeClosed(1, 10_000).forEach(id -> rows.add(new Object[] {id, "PROCESSING"}));
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, status) VALUES (?, ?)", rows);
+        jdbcTemplate.batchUpdate("INSERT INTO order_summary (order_id, status) VALUES (?, ?)", rows);
+        BulkStatusService waves =
+            bulkStatusService(new OrderOutbox(jdbcTemplate, new SnowflakeIdGenerator(2), event -> { }), 1000);
+
+        BulkStatusUpdateResponseDTO response = waves.updateStatus(
+            LongStream.rangeClosed(1, 10_000).boxed().collect(Collectors.toList()), OrderStatus.SHIPPED);
+
+        assertEquals(10_000, response.getUpdated());
+        assertEquals(10_000, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM order_summary WHERE status = 'SHIPPED'", Integer.class));
+        assertEquals(10_000, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_outbox", Integer.class));
+    }
+
+    private BulkStatusService bulkStatusService(OrderOutbox outbox, int chunkSize) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        OrderRollups rollups = new OrderRollups(jdbcTemplate, transactionTemplate, database, 100);
+        return new BulkStatusService(jdbcTemplate, transactionTemplate, database, outbox, rollups, chunkSize);
+    }
+
+    private void insert(Long id, String status) {
+        jdbcTemplate.update("INSERT INTO orders (id, status) VALUES (?, ?)", id, status);
+        jdbcTemplate.update("INSERT INTO order_summary (order_id, status) VALUES (?, ?)", id, status);
+    }
+
+    private String status(String table, String idColumn, Long id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM " + table + " WHERE " + idColumn + " = ?", String.class, id);
+    }
+}
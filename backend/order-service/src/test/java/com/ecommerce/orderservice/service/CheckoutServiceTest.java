@@ -0,0 +1,214 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.dto.CheckoutRequestDTO;
+import com.ecommerce.orderservice.dto.CheckoutResultDTO;
+import com.ecommerce.orderservice.dto.CheckoutStatus;
+import com.ecommerce.orderservice.dto.OrderDTO;
+import com.ecommerce.orderservice.dto.OrderItemDTO;
+import com.ecommerce.orderservice.dto.PaymentAuthorizationDTO;
+import com.ecommerce.orderservice.entity.CheckoutSaga;
+import com.ecommerce.orderservice.entity.CheckoutSagaState;
+import com.ecommerce.orderservice.repository.CheckoutSagaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckoutServiceTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private InventoryClient inventoryClient;
+
+    @Mock
+    private PaymentClient paymentClient;
+
+    @Mock
+    private CheckoutSagaRepository sagaRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CheckoutService checkoutService;
+    private CheckoutRequestDTO request;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(sagaRepository.transition(anyLong(), any(), any(), any(), any())).thenReturn(1);
+        checkoutService = new CheckoutService(orderService, inventoryClient, paymentClient, sagaRepository,
+            new TransactionTemplate(transactionManager), 200, 200, 4, 900, 60000, 600000);
+
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(1L);
+        item.setQuantity(2);
+        item.setUnitPrice(new BigDecimal("50.00"));
+        request = new CheckoutRequestDTO(7L, "1 Main St", "1 Main St", new BigDecimal("8.00"),
+            new BigDecimal("10.00"), null, List.of(item), "CREDIT_CARD");
+
+        OrderDTO order = new OrderDTO();
+        order.setId(42L);
+        order.setTotalAmount(new BigDecimal("100.00"));
+        order.setTaxAmount(new BigDecimal("8.00"));
+        order.setShippingAmount(new BigDecimal("10.00"));
+        order.setDiscountAmount(BigDecimal.ZERO);
+        lenient().when(orderService.createOrder(any(OrderDTO.class))).thenReturn(order);
+    }
+
+    @AfterEach
+    void tearDown() {
+        checkoutService.shutdown();
+    }
+
+    @Test
+    void testCheckout_ConfirmsHoldsWhenStockAndPaymentSucceed() {
+        when(inventoryClient.hold(1L, 2, 900)).thenReturn("H1");
+        when(paymentClient.authorize(42L, 7L, new BigDecimal("118.00"), "CREDIT_CARD"))
+            .thenReturn(payment("COMPLETED"));
+
+        CheckoutResultDTO result = checkoutService.checkout(request);
+
+        assertEquals(CheckoutStatus.COMPLETED, result.getStatus());
+        assertEquals(42L, result.getOrder().getId());
+        assertEquals("TXN-1", result.getTransactionId());
+        verify(sagaRepository).save(argThat(saga -> saga.getState() == CheckoutSagaState.STARTED));
+        verify(sagaRepository).transition(eq(42L), eq(CheckoutSagaState.STARTED), eq(CheckoutSagaState.CONFIRMING),
+            eq("H1"), any());
+        verify(inventoryClient).confirmHold("H1");
+        verify(sagaRepository).transition(eq(42L), eq(CheckoutSagaState.CONFIRMING), eq(CheckoutSagaState.COMPLETED),
+            isNull(), any());
+        verify(orderService, never()).cancelOrder(anyLong());
+        verify(paymentClient, never()).voidPayment(anyLong());
+    }
+
+    @Test
+    void testCheckout_CancelsOrderAndVoidsPaymentWhenStockIsShort() {
+        when(inventoryClient.hold(1L, 2, 900)).thenReturn(null);
+        when(paymentClient.authorize(eq(42L), eq(7L), any(), eq("CREDIT_CARD"))).thenReturn(payment("COMPLETED"));
+        when(paymentClient.findByOrder(42L)).thenReturn(List.of(payment("COMPLETED")));
+
+        CheckoutResultDTO result = checkoutService.checkout(request);
+
+        assertEquals(CheckoutStatus.FAILED, result.getStatus());
+        assertEquals("Insufficient stock", result.getFailureReason());
+        assertNull(result.getOrder());
+        verify(orderService).cancelOrder(42L);
+        verify(sagaRepository).transition(eq(42L), eq(CheckoutSagaState.STARTED), eq(CheckoutSagaState.COMPENSATING),
+            isNull(), any());
+        verify(paymentClient).voidPayment(9L);
+        verify(inventoryClient, never()).releaseHold(anyString());
+    }
+
+    @Test
+    void testCheckout_ReleasesHoldAndVoidsPaymentThatLandsLate() {
+        when(inventoryClient.hold(1L, 2, 900)).thenReturn("H1");
+        when(paymentClient.authorize(eq(42L), eq(7L), any(), eq("CREDIT_CARD"))).thenAnswer(invocation -> {
+            Thread.sleep(1000);
+            return payment("COMPLETED");
+        });
+        when(paymentClient.findByOrder(42L)).thenReturn(List.of());
+
+        long start = System.currentTimeMillis();
+        CheckoutResultDTO result = checkoutService.checkout(request);
+
+        assertTrue(System.currentTimeMillis() - start < 900);
+        assertEquals(CheckoutStatus.FAILED, result.getStatus());
+        assertEquals("Payment timed out", result.getFailureReason());
+        verify(inventoryClient).releaseHold("H1");
+        verify(orderService).cancelOrder(42L);
+        verify(paymentClient, timeout(3000)).voidPayment(9L);
+    }
+
+    @Test
+    void testCheckout_LeavesUnknownHoldToExpire() {
+        when(inventoryClient.hold(1L, 2, 900)).thenThrow(new RuntimeException("connection reset"));
+        when(paymentClient.authorize(eq(42L), eq(7L), any(), eq("CREDIT_CARD"))).thenReturn(payment("COMPLETED"));
+        when(paymentClient.findByOrder(42L)).thenReturn(List.of(payment("COMPLETED")));
+
+        CheckoutResultDTO result = checkoutService.checkout(request);
+
+        assertEquals(CheckoutStatus.FAILED, result.getStatus());
+        assertTrue(result.getFailureReason().startsWith("Stock reservation failed"));
+        verify(inventoryClient, never()).releaseHold(anyString());
+        verify(paymentClient).voidPayment(9L);
+    }
+
+    @Test
+    void testCheckout_FailsFastWhenEveryWorkerIsBusy() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        when(inventoryClient.hold(1L, 2, 900)).thenAnswer(invocation -> {
+            stalled.await();
+            return null;
+        });
+        when(paymentClient.authorize(eq(42L), eq(7L), any(), eq("CREDIT_CARD"))).thenAnswer(invocation -> {
+            stalled.await();
+            return payment("DECLINED");
+        });
+        lenient().when(paymentClient.findByOrder(42L)).thenReturn(List.of());
+        checkoutService.shutdown();
+        // One worker and a queue of four, so the first three checkouts leave no room for the fourth
+        checkoutService = new CheckoutService(orderService, inventoryClient, paymentClient, sagaRepository,
+            new TransactionTemplate(transactionManager), 200, 200, 1, 900, 60000, 600000);
+        try {
+            checkoutService.checkout(request);
+            checkoutService.checkout(request);
+            checkoutService.checkout(request);
+
+            long start = System.currentTimeMillis();
+            CheckoutResultDTO result = checkoutService.checkout(request);
+
+            assertTrue(System.currentTimeMillis() - start < 150);
+            assertEquals(CheckoutStatus.FAILED, result.getStatus());
+            assertEquals("Stock reservation failed: Checkout is at capacity", result.getFailureReason());
+        } finally {
+            stalled.countDown();
+        }
+    }
+
+    @Test
+    void testReconcile_FailsStalledCheckoutAndSettlesAfterLatePaymentWindow() {
+        LocalDateTime longAgo = LocalDateTime.now().minusHours(1);
+        when(sagaRepository.findByStateAndUpdatedAtBeforeOrderByUpdatedAt(eq(CheckoutSagaState.CONFIRMING), any(), any()))
+            .thenReturn(List.of());
+        when(sagaRepository.findByStateAndUpdatedAtBeforeOrderByUpdatedAt(eq(CheckoutSagaState.STARTED), any(), any()))
+            .thenReturn(List.of(new CheckoutSaga(42L, CheckoutSagaState.STARTED, null, longAgo, longAgo)));
+        when(sagaRepository.findByStateAndUpdatedAtBeforeOrderByUpdatedAt(eq(CheckoutSagaState.COMPENSATING), any(), any()))
+            .thenReturn(List.of(new CheckoutSaga(43L, CheckoutSagaState.COMPENSATING, "H7", longAgo, longAgo)));
+        when(paymentClient.findByOrder(42L)).thenReturn(List.of(payment("COMPLETED")));
+        when(paymentClient.findByOrder(43L)).thenReturn(List.of(payment("REFUNDED")));
+        doThrow(new RuntimeException("Hold is not active")).when(inventoryClient).releaseHold("H7");
+        when(inventoryClient.holdStatus("H7")).thenReturn("EXPIRED");
+
+        checkoutService.reconcile();
+
+        verify(orderService).cancelOrder(42L);
+        verify(paymentClient).voidPayment(9L);
+        verify(sagaRepository).transition(eq(43L), eq(CheckoutSagaState.COMPENSATING), eq(CheckoutSagaState.FAILED),
+            isNull(), any());
+    }
+
+    private static PaymentAuthorizationDTO payment(String status) {
+        return new PaymentAuthorizationDTO(9L, "TXN-1", 42L, new BigDecimal("118.00"), status);
+    }
+}
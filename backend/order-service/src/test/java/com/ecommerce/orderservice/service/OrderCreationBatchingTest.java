@@ -0,0 +1,78 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.common.id.IdGeneratorConfig;
+import com.ecommerce.orderservice.dto.OrderDTO;
+import com.ecommerce.orderservice.dto.OrderItemDTO;
+import com.ecommerce.orderservice.repository.OrderItemRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({OrderService.class, OrderOutbox.class, OrderRollups.class, IdGeneratorConfig.class})
+class OrderCreationBatchingTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testCreateOrder_PersistsItemsInBatches() {
+        OrderDTO request = new OrderDTO();
+        request.setUserId(1L);
+        request.setShippingAddress("123 Main St");
+        List<OrderItemDTO> items = new ArrayList<>();
+        for (long productId = 1; productId <= 50; productId++) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId(productId);
+            item.setQuantity(2);
+            item.setUnitPrice(new BigDecimal("1.50"));
+            items.add(item);
+        }
+        request.setItems(items);
+
+        OrderDTO created = orderService.createOrder(request);
+        entityManager.flush();
+
+        assertThat(created.getId()).isNotNull();
+        assertThat(created.getTotalAmount()).isEqualByComparingTo("150.00");
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(52);
+        // A few sequence calls on first use, then one insert batch per table instead of 52 inserts
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+
+        entityManager.clear();
+        assertThat(orderItemRepository.findByOrderId(created.getId())).hasSize(50)
+            .allSatisfy(item -> assertThat(item.getTotalPrice()).isEqualByComparingTo("3.00"));
+    }
+}
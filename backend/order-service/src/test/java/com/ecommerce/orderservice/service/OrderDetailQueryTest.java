@@ -0,0 +1,94 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.common.id.IdGeneratorConfig;
+import com.ecommerce.orderservice.dto.OrderDTO;
+import com.ecommerce.orderservice.dto.OrderItemDTO;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({OrderService.class, OrderOutbox.class, OrderRollups.class, IdGeneratorConfig.class})
+class OrderDetailQueryTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testGetOrderDetail_LoadsOrderAndItemsInOneStatement() {
+        OrderDTO created = orderService.createOrder(order(3));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        OrderDTO detail = orderService.getOrderDetail(created.getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+        assertThat(detail.getOrderNumber()).isEqualTo(created.getOrderNumber());
+        assertThat(detail.getItems()).extracting(OrderItemDTO::getProductId).containsExactly(1L, 2L, 3L);
+        OrderItemDTO first = detail.getItems().get(0);
+        assertThat(first.getId()).isNotNull();
+        assertThat(first.getProductName()).isEqualTo("Product 1");
+        assertThat(first.getTotalPrice()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void testGetOrderDetail_StatementCountDoesNotGrowWithItems() {
+        OrderDTO small = orderService.createOrder(order(1));
+        OrderDTO large = orderService.createOrder(order(40));
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics.clear();
+        orderService.getOrderDetail(small.getId());
+        long smallStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        OrderDTO detail = orderService.getOrderDetail(large.getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(smallStatements);
+        assertThat(detail.getItems()).hasSize(40);
+    }
+
+    private static OrderDTO order(int itemCount) {
+        OrderDTO order = new OrderDTO();
+        order.setUserId(7L);
+        order.setItems(IntStream.rangeClosed(1, itemCount).mapToObj(i -> {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId((long) i);
+            item.setProductName("Product " + i);
+            item.setQuantity(1);
+            item.setUnitPrice(BigDecimal.TEN);
+            return item;
+        }).collect(Collectors.toList()));
+        return order;
+    }
+}
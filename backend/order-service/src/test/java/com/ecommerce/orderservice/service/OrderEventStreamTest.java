@@ -0,0 +1,104 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.common.id.SnowflakeIdGenerator;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventStreamTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private OrderOutbox outbox;
+    private OrderEventStream stream;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE order_outbox (id BIGINT PRIMARY KEY, order_id BIGINT, " +
+            "from_status VARCHAR(50), to_status VARCHAR(50), occurred_at TIMESTAMP, published_at TIMESTAMP)");
+        outbox = new OrderOutbox(jdbcTemplate, new SnowflakeIdGenerator(1), event -> { });
+        stream = new OrderEventStream(jdbcTemplate, 60000, 20, 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.shutdown();
+        database.shutdown();
+    }
+
+    @Test
+    void testSubscribe_StreamsEventsPublishedByAnyNode() throws InterruptedException {
+        outbox.record(1L, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        publish(LocalDateTime.now());
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.subscribe(emitter, null);
+        Thread.sleep(100);
+
+        // Another node's relay drains these; this node's relay never sees them
+        outbox.record(2L, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        outbox.record(3L, OrderStatus.PENDING, OrderStatus.CANCELLED);
+        publish(LocalDateTime.now());
+        // A relay that stamped earlier but committed later
+        outbox.record(4L, OrderStatus.SHIPPED, OrderStatus.DELIVERED);
+        Thread.sleep(100);
+        publish(LocalDateTime.now().minusNanos(300_000_000));
+        Thread.sleep(200);
+
+        assertEquals(List.of(2L, 3L, 4L), orderIds(emitter.ids));
+    }
+
+    @Test
+    void testSubscribe_ReplaysMissedEventsOnce() throws InterruptedException {
+        outbox.record(1L, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        publish(LocalDateTime.now().minusHours(1));
+        long lastEventId = jdbcTemplate.queryForObject("SELECT id FROM order_outbox", Long.class);
+        outbox.record(2L, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        publish(LocalDateTime.now());
+        outbox.record(3L, OrderStatus.PENDING, OrderStatus.CANCELLED);
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.subscribe(emitter, String.valueOf(lastEventId));
+        Thread.sleep(100);
+        publish(LocalDateTime.now());
+        Thread.sleep(200);
+
+        assertEquals(List.of(2L, 3L), orderIds(emitter.ids));
+    }
+
+    private void publish(LocalDateTime publishedAt) {
+        jdbcTemplate.update("UPDATE order_outbox SET published_at = ? WHERE published_at IS NULL",
+            Timestamp.valueOf(publishedAt));
+    }
+
+    private List<Long> orderIds(List<Long> eventIds) {
+        return eventIds.stream()
+            .map(id -> jdbcTemplate.queryForObject("SELECT order_id FROM order_outbox WHERE id = ?", Long.class, id))
+            .collect(Collectors.toList());
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<Long> ids = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            String head = builder.build().iterator().next().getData().toString();
+            ids.add(Long.parseLong(head.substring("id:".length(), head.indexOf('\n'))));
+        }
+    }
+}
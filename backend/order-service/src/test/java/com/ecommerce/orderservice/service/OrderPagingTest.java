@@ -0,0 +1,110 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.common.id.IdGeneratorConfig;
+import com.ecommerce.orderservice.dto.OrderDTO;
+import com.ecommerce.orderservice.dto.OrderPageDTO;
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({OrderService.class, OrderOutbox.class, OrderRollups.class, IdGeneratorConfig.class})
+class OrderPagingTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final List<Long> userOrderIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 12, 0);
+        for (int i = 0; i < 7; i++) {
+            // Orders 2-4 share a timestamp so the id breaks the tie
+            LocalDateTime orderDate = i >= 2 && i <= 4 ? base.plusMinutes(2) : base.plusMinutes(i);
+            userOrderIds.add(persist(1L, i % 2 == 0 ? OrderStatus.PENDING : OrderStatus.SHIPPED, orderDate));
+        }
+        persist(2L, OrderStatus.PENDING, base);
+        entityManager.clear();
+    }
+
+    @Test
+    void testGetOrdersByUserId_WalksPagesNewestFirst() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            OrderPageDTO page = orderService.getOrdersByUserId(1L, cursor, 3);
+            seen.addAll(ids(page));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).containsExactly(userOrderIds.get(6), userOrderIds.get(5), userOrderIds.get(4),
+            userOrderIds.get(3), userOrderIds.get(2), userOrderIds.get(1), userOrderIds.get(0));
+    }
+
+    @Test
+    void testGetOrdersByStatus_WalksPagesOldestFirst() {
+        OrderPageDTO first = orderService.getOrdersByStatus(OrderStatus.PENDING, null, 2);
+        OrderPageDTO second = orderService.getOrdersByStatus(OrderStatus.PENDING, first.getNextCursor(), 2);
+        OrderPageDTO third = orderService.getOrdersByStatus(OrderStatus.PENDING, second.getNextCursor(), 2);
+
+        assertThat(ids(first)).hasSize(2);
+        assertThat(ids(second)).containsExactly(userOrderIds.get(2), userOrderIds.get(4));
+        assertThat(ids(third)).containsExactly(userOrderIds.get(6));
+        assertThat(third.getNextCursor()).isNull();
+    }
+
+    @Test
+    void testCountOrdersByStatus_CountsEveryOrderInStatus() {
+        assertThat(orderService.countOrdersByStatus(OrderStatus.PENDING)).isEqualTo(5);
+        assertThat(orderService.countOrdersByStatus(OrderStatus.SHIPPED)).isEqualTo(3);
+        assertThat(orderService.countOrdersByStatus(OrderStatus.CANCELLED)).isZero();
+    }
+
+    @Test
+    void testGetOrdersByUserId_RejectsBadInput() {
+        assertThrows(RuntimeException.class, () -> orderService.getOrdersByUserId(1L, "not a cursor", 3));
+        assertThrows(RuntimeException.class, () -> orderService.getOrdersByUserId(1L, null, 0));
+        assertThat(orderService.getOrdersByUserId(1L, null, 1000).getOrders()).hasSize(7);
+    }
+
+    private Long persist(Long userId, OrderStatus status, LocalDateTime orderDate) {
+        Order order = new Order();
+        order.setOrderNumber("ORD-" + userId + "-" + userOrderIds.size() + "-" + status);
+        order.setUserId(userId);
+        order.setStatus(status);
+        order.setTotalAmount(BigDecimal.TEN);
+        Long id = entityManager.persistAndGetId(order, Long.class);
+        entityManager.flush();
+        // orderDate is stamped on persist, so set the test value afterwards
+        entityManager.getEntityManager().createQuery("UPDATE Order o SET o.orderDate = :date WHERE o.id = :id")
+            .setParameter("date", orderDate)
+            .setParameter("id", id)
+            .executeUpdate();
+        return id;
+    }
+
+    private static List<Long> ids(OrderPageDTO page) {
+        return page.getOrders().stream().map(OrderDTO::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,208 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.common.id.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderProcessingPipelineTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<OrderProcessingPipeline> pipelines = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        meterRegistry = new SimpleMeterRegistry();
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, status VARCHAR(50), " +
+            "order_date TIMESTAMP, updated_at TIMESTAMP, claimed_by VARCHAR(255), claimed_at TIMESTAMP, total_amount DECIMAL(19, 2) DEFAULT 10, " +
+            "tax_amount DECIMAL(19, 2), shipping_amount DECIMAL(19, 2), discount_amount DECIMAL(19, 2))");
+        jdbcTemplate.execute("CREATE TABLE checkout_sagas (order_id BIGINT PRIMARY KEY, state VARCHAR(20))");
+        jdbcTemplate.execute("CREATE TABLE order_summary (order_id BIGINT PRIMARY KEY, status VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE order_outbox (id BIGINT PRIMARY KEY, order_id BIGINT, " +
+            "from_status VARCHAR(50), to_status VARCHAR(50), occurred_at TIMESTAMP, published_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE order_rollup_delta (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "rollup_date DATE, status VARCHAR(50), order_count BIGINT, total_amount DECIMAL(19, 2), " +
+            "tax_amount DECIMAL(19, 2), shipping_amount DECIMAL(19, 2), discount_amount DECIMAL(19, 2))");
+        for (long id = 1; id <= 250; id++) {
+            String status = id % 50 == 0 ? "SHIPPED" : "PENDING";
+            jdbcTemplate.update("INSERT INTO orders (id, status, order_date, updated_at) " +
+                "VALUES (?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", id, status);
+            jdbcTemplate.update("INSERT INTO order_summary VALUES (?, ?)", id, status);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (OrderProcessingPipeline pipeline : pipelines) {
+            pipeline.shutdown();
+        }
+        database.shutdown();
+    }
+
+    @Test
+    void testPoll_MovesPendingOrdersToProcessing() throws InterruptedException {
+        OrderProcessingPipeline pipeline = pipeline(100, 8);
+
+        pipeline.poll();
+        pipeline.shutdown();
+
+        assertEquals(245, count("orders", "PROCESSING"));
+        assertEquals(245, count("order_summary", "PROCESSING"));
+        assertEquals(5, count("orders", "SHIPPED"));
+        assertEquals(245, outbox("PENDING", "CONFIRMED"));
+        assertEquals(245, outbox("CONFIRMED", "PROCESSING"));
+        assertEquals(245, jdbcTemplate.queryForObject(
+            "SELECT SUM(order_count) FROM order_rollup_delta WHERE status = 'PROCESSING'", Integer.class));
+        assertEquals(-245, jdbcTemplate.queryForObject(
+            "SELECT SUM(order_count) FROM order_rollup_delta WHERE status = 'PENDING'", Integer.class));
+        assertEquals(245.0, meterRegistry.counter("order.pipeline.processed").count());
+        assertEquals(3, meterRegistry.timer("order.pipeline.stage.latency", "stage", "claim").count());
+    }
+
+    @Test
+    void testClaim_ConcurrentNodesNeverShareAnOrder() throws Exception {
+        List<OrderProcessingPipeline> nodes = List.of(pipeline(10, 8), pipeline(10, 8), pipeline(10, 8));
+        Set<Long> claimed = ConcurrentHashMap.newKeySet();
+        List<Long> duplicates = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(nodes.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (OrderProcessingPipeline node : nodes) {
+                futures.add(executor.submit(() -> {
+                    List<Long> batch;
+                    do {
+                        batch = transactionTemplate.execute(status -> node.claim());
+                        for (Long id : batch) {
+                            if (!claimed.add(id)) {
+                                synchronized (duplicates) {
+                                    duplicates.add(id);
+                                }
+                            }
+                        }
+                    } while (!batch.isEmpty());
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(duplicates.isEmpty());
+        assertEquals(245, claimed.size());
+        assertEquals(245, count("orders", "CONFIRMED"));
+    }
+
+    @Test
+    void testPoll_StopsClaimingWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        // Holds the worker inside its first batch until released
+        TransactionTemplate blockingWorkers = new TransactionTemplate(transactionTemplate.getTransactionManager()) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                if (Thread.currentThread().getName().startsWith("order-processing")) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.execute(action);
+            }
+        };
+        OrderProcessingPipeline pipeline = pipeline(blockingWorkers, 10, 1);
+
+        // One batch held by the worker and one queued: the rest stay PENDING for other nodes
+        pipeline.poll();
+        assertEquals(20, count("orders", "CONFIRMED"));
+        assertEquals(225, count("orders", "PENDING"));
+        assertEquals(1.0, meterRegistry.counter("order.pipeline.throttled").count());
+        assertEquals(1.0, meterRegistry.get("order.pipeline.queue.depth").gauge().value());
+
+        release.countDown();
+        pipeline.shutdown();
+        assertEquals(20, count("orders", "PROCESSING"));
+    }
+
+    @Test
+    void testClaim_SkipsOrdersOfUnpaidCheckouts() {
+        jdbcTemplate.update("INSERT INTO checkout_sagas VALUES (1, 'STARTED'), (2, 'CONFIRMING')");
+        OrderProcessingPipeline pipeline = pipeline(3, 8);
+
+        List<Long> batch = transactionTemplate.execute(status -> pipeline.claim());
+
+        assertEquals(List.of(2L, 3L, 4L), batch);
+    }
+
+    @Test
+    void testRecover_TakesOverOnlyExpiredClaims() {
+        OrderProcessingPipeline stopped = pipeline(10, 8);
+        OrderProcessingPipeline live = pipeline(10, 8);
+        List<Long> stranded = transactionTemplate.execute(status -> stopped.claim());
+        List<Long> fresh = transactionTemplate.execute(status -> live.claim());
+        jdbcTemplate.update("UPDATE orders SET claimed_at = DATEADD('MINUTE', -10, claimed_at) WHERE id IN (" +
+            stranded.stream().map(String::valueOf).collect(Collectors.joining(", ")) + ")");
+        // Confirmed by hand, outside the pipeline
+        jdbcTemplate.update("UPDATE orders SET status = 'CONFIRMED', updated_at = DATEADD('MINUTE', -10, updated_at) WHERE id = 249");
+
+        live.recover();
+        stopped.process(stranded);
+
+        assertEquals(10, count("orders", "PROCESSING"));
+        assertEquals(10, outbox("CONFIRMED", "PROCESSING"));
+        assertEquals(11, count("orders", "CONFIRMED"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE status = 'PROCESSING' " +
+            "AND (claimed_by IS NOT NULL OR claimed_at IS NOT NULL)", Integer.class));
+        live.process(fresh);
+        assertEquals(20, count("orders", "PROCESSING"));
+    }
+
+    private OrderProcessingPipeline pipeline(int batchSize, int queueCapacity) {
+        return pipeline(transactionTemplate, batchSize, queueCapacity);
+    }
+
+    private OrderProcessingPipeline pipeline(TransactionTemplate transactions, int batchSize, int queueCapacity) {
+        OrderOutbox outbox = new OrderOutbox(jdbcTemplate, new SnowflakeIdGenerator(pipelines.size()), event -> { });
+        OrderRollups rollups = new OrderRollups(jdbcTemplate, transactions, database, 100);
+        OrderProcessingPipeline pipeline = new OrderProcessingPipeline(jdbcTemplate, transactions, database,
+            outbox, rollups, meterRegistry, true, batchSize, 1, queueCapacity, 300000);
+        pipelines.add(pipeline);
+        return pipeline;
+    }
+
+    private int outbox(String from, String to) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_outbox WHERE from_status = ? AND to_status = ?",
+            Integer.class, from, to);
+    }
+
+    private int count(String table, String status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE status = ?", Integer.class, status);
+    }
+}
@@ -0,0 +1,170 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.common.id.IdGeneratorConfig;
+import com.ecommerce.orderservice.dto.OrderDTO;
+import com.ecommerce.orderservice.dto.OrderItemDTO;
+import com.ecommerce.orderservice.dto.OrderRollupDTO;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({OrderService.class, OrderOutbox.class, OrderRollups.class, IdGeneratorConfig.class})
+class OrderRollupsTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRollups orderRollups;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void testRollupsFollowOrderWrites() {
+        OrderDTO shipped = orderService.createOrder(order(3, "2.00"));
+        OrderDTO cancelled = orderService.createOrder(order(1, "1.00"));
+        orderService.createOrder(order(2, "0.50"));
+        orderService.createOrder(order(5, "0.00"));
+        orderService.updateOrderStatus(shipped.getId(), OrderStatus.SHIPPED);
+        orderService.cancelOrder(cancelled.getId());
+        entityManager.flush();
+
+        List<OrderRollupDTO> beforeFold = today(null);
+        assertThat(beforeFold).extracting(OrderRollupDTO::getStatus, OrderRollupDTO::getOrderCount)
+            .containsExactly(
+                tuple(OrderStatus.CANCELLED, 1L),
+                tuple(OrderStatus.PENDING, 2L),
+                tuple(OrderStatus.SHIPPED, 1L));
+        OrderRollupDTO pending = beforeFold.get(1);
+        assertThat(pending.getTotalAmount()).isEqualByComparingTo("70.00");
+        assertThat(pending.getTaxAmount()).isEqualByComparingTo("0.50");
+
+        orderRollups.fold();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_rollup_delta", Integer.class)).isZero();
+        assertThat(today(null)).isEqualTo(beforeFold);
+        assertThat(today(OrderStatus.SHIPPED)).singleElement()
+            .satisfies(rollup -> assertThat(rollup.getTotalAmount()).isEqualByComparingTo("30.00"));
+    }
+
+    @Test
+    void testFold_AddsLaterDeltasToExistingBuckets() {
+        orderService.createOrder(order(1, "1.00"));
+        entityManager.flush();
+        orderRollups.fold();
+
+        OrderDTO second = orderService.createOrder(order(4, "1.00"));
+        entityManager.flush();
+        // Pipeline and bulk updates record transitions from the orders table
+        jdbcTemplate.update("UPDATE orders SET status = 'CONFIRMED' WHERE id = ?", second.getId());
+        orderRollups.recordTransitions(List.of(second.getId()), OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        orderRollups.fold();
+        orderRollups.fold();
+
+        assertThat(today(OrderStatus.PENDING)).singleElement()
+            .satisfies(rollup -> {
+                assertThat(rollup.getOrderCount()).isEqualTo(1L);
+                assertThat(rollup.getTotalAmount()).isEqualByComparingTo("10.00");
+            });
+        assertThat(today(OrderStatus.CONFIRMED)).singleElement()
+            .satisfies(rollup -> assertThat(rollup.getTotalAmount()).isEqualByComparingTo("40.00"));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_rollup", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void testFold_AddsToBucketInsertedByConcurrentFold() {
+        orderService.createOrder(order(2, "1.00"));
+        entityManager.flush();
+        // Another fold inserts the same bucket just before this one does
+        JdbcTemplate racing = new JdbcTemplate(dataSource) {
+            private boolean raced;
+
+            @Override
+            public int update(String sql, Object... args) {
+                if (!raced && sql.startsWith("INSERT INTO order_rollup (")) {
+                    raced = true;
+                    super.update(sql, args);
+                }
+                return super.update(sql, args);
+            }
+        };
+
+        new OrderRollups(racing, transactionTemplate, dataSource, 100).fold();
+
+        assertThat(today(OrderStatus.PENDING)).singleElement()
+            .satisfies(rollup -> {
+                assertThat(rollup.getOrderCount()).isEqualTo(2L);
+                assertThat(rollup.getTotalAmount()).isEqualByComparingTo("40.00");
+            });
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_rollup", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void testTransitionsRecordTheStatusTheRowActuallyLeft() {
+        OrderDTO confirmed = orderService.createOrder(order(1, "1.00"));
+        OrderDTO shipped = orderService.createOrder(order(2, "1.00"));
+        entityManager.flush();
+        // The pipeline and bulk updater move orders behind the loaded (still PENDING) entities
+        jdbcTemplate.update("UPDATE orders SET status = 'CONFIRMED' WHERE id = ?", confirmed.getId());
+        orderRollups.recordTransitions(List.of(confirmed.getId()), OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        jdbcTemplate.update("UPDATE orders SET status = 'SHIPPED' WHERE id = ?", shipped.getId());
+        orderRollups.recordTransitions(List.of(shipped.getId()), OrderStatus.PENDING, OrderStatus.SHIPPED);
+
+        assertThat(orderService.updateOrderStatus(confirmed.getId(), OrderStatus.PROCESSING).getStatus())
+            .isEqualTo(OrderStatus.PROCESSING);
+        assertThatThrownBy(() -> orderService.cancelOrder(shipped.getId()))
+            .hasMessage("Cannot cancel order that is already shipped or delivered");
+
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT from_status || '->' || to_status FROM order_outbox WHERE order_id = ?", String.class,
+            confirmed.getId())).containsExactly("CONFIRMED->PROCESSING");
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class,
+            shipped.getId())).isEqualTo("SHIPPED");
+        assertThat(today(null)).filteredOn(rollup -> rollup.getOrderCount() != 0)
+            .extracting(OrderRollupDTO::getStatus, OrderRollupDTO::getOrderCount)
+            .containsExactly(
+                tuple(OrderStatus.PROCESSING, 1L),
+                tuple(OrderStatus.SHIPPED, 1L));
+    }
+
+    private List<OrderRollupDTO> today(OrderStatus status) {
+        return orderRollups.getRollups(LocalDate.now().minusDays(1), LocalDate.now(), status);
+    }
+
+    private static OrderDTO order(int quantity, String tax) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(1L);
+        item.setQuantity(quantity);
+        item.setUnitPrice(BigDecimal.TEN);
+        OrderDTO order = new OrderDTO();
+        order.setUserId(7L);
+        order.setTaxAmount(new BigDecimal(tax));
+        order.setItems(List.of(item));
+        return order;
+    }
+}
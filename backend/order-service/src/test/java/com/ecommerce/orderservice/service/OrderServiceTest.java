@@ -23,6 +23,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -132,25 +133,27 @@ class OrderServiceTest {
     @Test
     void testUpdateOrderStatus_Success() {
         when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
-        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(orderRepository.transition(eq(1L), eq(OrderStatus.PENDING), eq(OrderStatus.CONFIRMED), any(), any(), any()))
+            .thenReturn(1);
 
         OrderDTO result = orderService.updateOrderStatus(1L, OrderStatus.CONFIRMED);
 
         assertNotNull(result);
-        verify(orderRepository, times(1)).findById(1L);
-        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(orderRepository, times(2)).findById(1L);
+        verify(orderRepository, never()).save(any(Order.class));
     }
 
     @Test
     void testCancelOrder_Success() {
         when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
-        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(orderRepository.transition(eq(1L), eq(OrderStatus.PENDING), eq(OrderStatus.CANCELLED), any(), any(), any()))
+            .thenReturn(1);
 
         OrderDTO result = orderService.cancelOrder(1L);
 
         assertNotNull(result);
-        verify(orderRepository, times(1)).findById(1L);
-        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(orderRepository, times(2)).findById(1L);
+        verify(orderRepository, never()).save(any(Order.class));
     }
 
     @Test
@@ -159,7 +162,7 @@ class OrderServiceTest {
         when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
 
         assertThrows(RuntimeException.class, () -> orderService.cancelOrder(1L));
-        verify(orderRepository, never()).save(any(Order.class));
+        verify(orderRepository, never()).transition(any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -0,0 +1,106 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.common.id.IdGeneratorConfig;
+import com.ecommerce.orderservice.dto.OrderDTO;
+import com.ecommerce.orderservice.dto.OrderItemDTO;
+import com.ecommerce.orderservice.dto.OrderSummaryDTO;
+import com.ecommerce.orderservice.dto.OrderSummaryPageDTO;
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.entity.OrderSummary;
+import com.ecommerce.orderservice.repository.OrderSummaryRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({OrderService.class, OrderOutbox.class, OrderRollups.class, IdGeneratorConfig.class})
+class OrderSummaryProjectionTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testSummaryFollowsOrderWrites() {
+        OrderDTO first = orderService.createOrder(order(7L, 2, 3));
+        OrderDTO second = orderService.createOrder(order(7L, 1));
+        orderService.updateOrderStatus(first.getId(), OrderStatus.SHIPPED);
+        orderService.cancelOrder(second.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        OrderSummary summary = orderSummaryRepository.findById(first.getId()).orElseThrow();
+        assertThat(summary.getOrderNumber()).isEqualTo(first.getOrderNumber());
+        assertThat(summary.getItemCount()).isEqualTo(5);
+        assertThat(summary.getTotalAmount()).isEqualByComparingTo("50.00");
+        assertThat(summary.getStatus()).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(orderSummaryRepository.findById(second.getId()).orElseThrow().getStatus())
+            .isEqualTo(OrderStatus.CANCELLED);
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT from_status, to_status FROM order_outbox WHERE published_at IS NULL ORDER BY id"))
+            .extracting(row -> row.get("FROM_STATUS") + "->" + row.get("TO_STATUS"))
+            .containsExactly("PENDING->SHIPPED", "PENDING->CANCELLED");
+    }
+
+    @Test
+    void testGetOrderHistory_ReadsOnlyTheProjection() {
+        OrderDTO first = orderService.createOrder(order(7L, 1));
+        OrderDTO second = orderService.createOrder(order(7L, 4));
+        orderService.createOrder(order(8L, 1));
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        OrderSummaryPageDTO page = orderService.getOrderHistory(7L, null, 1);
+        OrderSummaryPageDTO last = orderService.getOrderHistory(7L, page.getNextCursor(), 1);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityStatistics(Order.class.getName()).getLoadCount()).isZero();
+        OrderSummaryDTO newest = page.getOrders().get(0);
+        assertThat(newest.getOrderId()).isEqualTo(second.getId());
+        assertThat(newest.getItemCount()).isEqualTo(4);
+        assertThat(last.getOrders()).extracting(OrderSummaryDTO::getOrderId).containsExactly(first.getId());
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    private static OrderDTO order(Long userId, int... quantities) {
+        OrderDTO order = new OrderDTO();
+        order.setUserId(userId);
+        order.setItems(Arrays.stream(quantities).mapToObj(quantity -> {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId((long) quantity);
+            item.setQuantity(quantity);
+            item.setUnitPrice(BigDecimal.TEN);
+            return item;
+        }).collect(Collectors.toList()));
+        return order;
+    }
+}
@@ -0,0 +1,120 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.common.id.SnowflakeIdGenerator;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.event.OrderEventPublisher;
+import com.ecommerce.orderservice.event.OrderStatusChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxRelayTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private OrderOutbox outbox;
+    private OutboxRelay relay;
+    private final List<OrderStatusChangedEvent> received = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        jdbcTemplate.execute("CREATE TABLE order_outbox (id BIGINT PRIMARY KEY, order_id BIGINT, " +
+            "from_status VARCHAR(50), to_status VARCHAR(50), occurred_at TIMESTAMP, published_at TIMESTAMP)");
+        outbox = new OrderOutbox(jdbcTemplate, new SnowflakeIdGenerator(1), event -> { });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (relay != null) {
+            relay.shutdown();
+        }
+        database.shutdown();
+    }
+
+    @Test
+    void testDrain_PublishesEveryPendingEventOfTheClaimedOrders() {
+        relay = relay(received::addAll, 3);
+        outbox.recordAll(List.of(1L, 2L, 3L, 4L), OrderStatus.PROCESSING, OrderStatus.SHIPPED);
+        outbox.record(1L, OrderStatus.SHIPPED, OrderStatus.DELIVERED);
+
+        assertEquals(4, relay.drain());
+        assertEquals(1, relay.drain());
+        assertEquals(0, relay.drain());
+
+        assertEquals(List.of(1L, 2L, 3L, 1L, 4L),
+            received.stream().map(OrderStatusChangedEvent::getOrderId).collect(Collectors.toList()));
+        assertEquals(OrderStatus.DELIVERED, received.get(3).getToStatus());
+        assertEquals(0, unpublished());
+    }
+
+    @Test
+    void testDrain_FailedPublishLeavesEventsForRetry() {
+        relay = relay(events -> {
+            throw new IllegalStateException("bus unavailable");
+        }, 10);
+        outbox.recordAll(List.of(1L, 2L), OrderStatus.PROCESSING, OrderStatus.CANCELLED);
+
+        assertThrows(IllegalStateException.class, relay::drain);
+        assertEquals(2, unpublished());
+    }
+
+    @Test
+    void testNextDelay_AdaptsToBacklog() {
+        relay = relay(received::addAll, 10);
+
+        assertEquals(0, relay.nextDelay(10));
+        assertEquals(10, relay.nextDelay(4));
+        assertEquals(10, relay.nextDelay(0));
+        assertEquals(20, relay.nextDelay(0));
+        assertEquals(40, relay.nextDelay(-1));
+        assertEquals(80, relay.nextDelay(0));
+        assertEquals(80, relay.nextDelay(0));
+        assertEquals(10, relay.nextDelay(1));
+    }
+
+    @Test
+    void testWakeUp_DeliversWithoutWaitingForThePollInterval() throws InterruptedException {
+        CountDownLatch delivered = new CountDownLatch(1);
+        relay = new OutboxRelay(jdbcTemplate, transactionTemplate, database, events -> {
+            received.addAll(events);
+            delivered.countDown();
+        }, new SimpleMeterRegistry(), true, 10, 10, 60000, 24);
+        relay.start();
+        // Let the relay back off: its next poll is then at least 270ms away
+        Thread.sleep(1000);
+
+        outbox.record(42L, OrderStatus.PENDING, OrderStatus.CANCELLED);
+        relay.wakeUp();
+
+        assertTrue(delivered.await(150, TimeUnit.MILLISECONDS));
+        assertEquals(42L, received.get(0).getOrderId());
+    }
+
+    private OutboxRelay relay(OrderEventPublisher publisher, int batchSize) {
+        return new OutboxRelay(jdbcTemplate, transactionTemplate, database, publisher, new SimpleMeterRegistry(),
+            false, batchSize, 10, 80, 24);
+    }
+
+    private int unpublished() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_outbox WHERE published_at IS NULL", Integer.class);
+    }
+}
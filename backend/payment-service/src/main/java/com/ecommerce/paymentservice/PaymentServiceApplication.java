@@ -1,9 +1,10 @@
 package com.ecommerce.paymentservice;
 
+import com.ecommerce.common.id.IdGeneratorConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
+@SpringBootApplication(scanBasePackageClasses = {PaymentServiceApplication.class, IdGeneratorConfig.class})
 public class PaymentServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(PaymentServiceApplication.class, args);
@@ -1,5 +1,6 @@
 package com.ecommerce.paymentservice.service;
 
+import com.ecommerce.common.id.SnowflakeIdGenerator;
 import com.ecommerce.paymentservice.dto.PaymentDTO;
 import com.ecommerce.paymentservice.entity.Payment;
 import com.ecommerce.paymentservice.entity.PaymentStatus;
@@ -11,7 +12,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,12 +19,13 @@ import java.util.stream.Collectors;
 public class PaymentService {
     
     private final PaymentRepository paymentRepository;
+    private final SnowflakeIdGenerator idGenerator;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     @Transactional
     public PaymentDTO processPayment(PaymentDTO paymentDTO) {
         Payment payment = new Payment();
-        payment.setTransactionId("TXN-" + UUID.randomUUID().toString().substring(0, 12).toUpperCase());
+        payment.setTransactionId(idGenerator.nextId("TXN-"));
         payment.setOrderId(paymentDTO.getOrderId());
         payment.setUserId(paymentDTO.getUserId());
         payment.setAmount(paymentDTO.getAmount());
@@ -4,6 +4,8 @@ export interface Inventory {
   productName?: string;
   quantityAvailable: number;
   quantityReserved: number;
+  availableQuantity?: number;
+  lowStock?: boolean;
   reorderLevel: number;
   reorderQuantity: number;
   lastRestocked?: Date;
@@ -18,3 +20,12 @@ export interface InventoryCreate {
   reorderLevel: number;
   reorderQuantity: number;
 }
+
+export interface StockHold {
+  holdId: string;
+  productId: number;
+  quantity: number;
+  status: 'ACTIVE' | 'CONFIRMED' | 'RELEASED' | 'EXPIRED';
+  expiresAt: string;
+  createdAt?: string;
+}
@@ -34,6 +34,25 @@ export interface Order {
   updatedAt?: Date;
 }
 
+export interface OrderPage {
+  orders: Order[];
+  nextCursor: string | null;
+}
+
+export interface OrderSummary {
+  orderId: number;
+  orderNumber: string;
+  orderDate: string;
+  status: OrderStatus;
+  totalAmount: number;
+  itemCount: number;
+}
+
+export interface OrderSummaryPage {
+  orders: OrderSummary[];
+  nextCursor: string | null;
+}
+
 export interface OrderCreate {
   userId: number;
   shippingAddress: string;
@@ -42,3 +61,15 @@ export interface OrderCreate {
   taxAmount: number;
   shippingAmount: number;
 }
+
+export interface CheckoutRequest extends OrderCreate {
+  paymentMethod: string;
+}
+
+export interface CheckoutResult {
+  status: 'COMPLETED' | 'FAILED';
+  order: Order | null;
+  paymentId: number | null;
+  transactionId: string | null;
+  failureReason: string | null;
+}
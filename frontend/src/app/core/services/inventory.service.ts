@@ -1,8 +1,8 @@
-import { Injectable } from '@angular/core';
+import { Injectable, NgZone } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { environment } from '../../../environments/environment';
-import { Inventory, InventoryCreate } from '../models/inventory.model';
+import { Inventory, InventoryCreate, StockHold } from '../models/inventory.model';
 
 @Injectable({
   providedIn: 'root'
@@ -10,7 +10,7 @@ import { Inventory, InventoryCreate } from '../models/inventory.model';
 export class InventoryService {
   private apiUrl = `${environment.apiUrl}/inventory`;
 
-  constructor(private http: HttpClient) {}
+  constructor(private http: HttpClient, private zone: NgZone) {}
 
   createInventory(inventory: InventoryCreate): Observable<Inventory> {
     return this.http.post<Inventory>(this.apiUrl, inventory);
@@ -32,14 +32,43 @@ export class InventoryService {
     return this.http.get<Inventory[]>(`${this.apiUrl}/low-stock`);
   }
 
+  streamLowStockChanges(): Observable<{ type: 'low-stock' | 'restocked'; item: Inventory }> {
+    return new Observable(subscriber => {
+      const source = new EventSource(`${this.apiUrl}/low-stock/stream`);
+      const forward = (type: 'low-stock' | 'restocked') => (event: MessageEvent) =>
+        this.zone.run(() => subscriber.next({ type, item: JSON.parse(event.data) }));
+      source.addEventListener('low-stock', forward('low-stock'));
+      source.addEventListener('restocked', forward('restocked'));
+      return () => source.close();
+    });
+  }
+
   updateStock(productId: number, quantity: number): Observable<Inventory> {
     const params = new HttpParams().set('quantity', quantity.toString());
     return this.http.patch<Inventory>(`${this.apiUrl}/product/${productId}/stock`, null, { params });
   }
 
-  reserveStock(productId: number, quantity: number): Observable<Inventory> {
+  reserveStock(productId: number, quantity: number): Observable<boolean> {
     const params = new HttpParams().set('quantity', quantity.toString());
-    return this.http.post<Inventory>(`${this.apiUrl}/product/${productId}/reserve`, null, { params });
+    return this.http.post<boolean>(`${this.apiUrl}/product/${productId}/reserve`, null, { params });
+  }
+
+  createHold(productId: number, quantity: number, ttlSeconds?: number): Observable<StockHold> {
+    let params = new HttpParams()
+      .set('productId', productId.toString())
+      .set('quantity', quantity.toString());
+    if (ttlSeconds) {
+      params = params.set('ttlSeconds', ttlSeconds.toString());
+    }
+    return this.http.post<StockHold>(`${this.apiUrl}/holds`, null, { params });
+  }
+
+  releaseHold(holdId: string): Observable<StockHold> {
+    return this.http.post<StockHold>(`${this.apiUrl}/holds/${holdId}/release`, null);
+  }
+
+  confirmHold(holdId: string): Observable<StockHold> {
+    return this.http.post<StockHold>(`${this.apiUrl}/holds/${holdId}/confirm`, null);
   }
 
   releaseStock(productId: number, quantity: number): Observable<Inventory> {
@@ -2,7 +2,9 @@ import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { environment } from '../../../environments/environment';
-import { Order, OrderCreate, OrderStatus } from '../models/order.model';
+import {
+  CheckoutRequest, CheckoutResult, Order, OrderCreate, OrderPage, OrderStatus, OrderSummaryPage
+} from '../models/order.model';
 
 @Injectable({
   providedIn: 'root'
@@ -16,20 +18,40 @@ export class OrderService {
     return this.http.post<Order>(this.apiUrl, order);
   }
 
+  // Creates the order, reserves stock and takes payment in one call
+  checkout(request: CheckoutRequest): Observable<CheckoutResult> {
+    return this.http.post<CheckoutResult>(`${this.apiUrl}/checkout`, request);
+  }
+
   getOrderById(id: number): Observable<Order> {
     return this.http.get<Order>(`${this.apiUrl}/${id}`);
   }
 
+  // Same as getOrderById, with the order's items
+  getOrderDetail(id: number): Observable<Order> {
+    return this.http.get<Order>(`${this.apiUrl}/${id}/detail`);
+  }
+
   getOrderByNumber(orderNumber: string): Observable<Order> {
     return this.http.get<Order>(`${this.apiUrl}/number/${orderNumber}`);
   }
 
-  getOrdersByUser(userId: number): Observable<Order[]> {
-    return this.http.get<Order[]>(`${this.apiUrl}/user/${userId}`);
+  getOrdersByUser(userId: number, cursor?: string, limit = 20): Observable<OrderPage> {
+    return this.http.get<OrderPage>(`${this.apiUrl}/user/${userId}`, { params: this.pageParams(cursor, limit) });
+  }
+
+  getOrderHistory(userId: number, cursor?: string, limit = 20): Observable<OrderSummaryPage> {
+    return this.http.get<OrderSummaryPage>(`${this.apiUrl}/user/${userId}/history`, {
+      params: this.pageParams(cursor, limit)
+    });
+  }
+
+  getOrdersByStatus(status: OrderStatus, cursor?: string, limit = 20): Observable<OrderPage> {
+    return this.http.get<OrderPage>(`${this.apiUrl}/status/${status}`, { params: this.pageParams(cursor, limit) });
   }
 
-  getOrdersByStatus(status: OrderStatus): Observable<Order[]> {
-    return this.http.get<Order[]>(`${this.apiUrl}/status/${status}`);
+  countOrdersByStatus(status: OrderStatus): Observable<number> {
+    return this.http.get<number>(`${this.apiUrl}/status/${status}/count`);
   }
 
   updateOrderStatus(id: number, status: OrderStatus): Observable<Order> {
@@ -40,4 +62,12 @@ export class OrderService {
   cancelOrder(id: number): Observable<Order> {
     return this.http.post<Order>(`${this.apiUrl}/${id}/cancel`, null);
   }
+
+  private pageParams(cursor: string | undefined, limit: number): HttpParams {
+    let params = new HttpParams().set('limit', limit);
+    if (cursor) {
+      params = params.set('cursor', cursor);
+    }
+    return params;
+  }
 }
@@ -1,4 +1,5 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
+import { Subscription } from 'rxjs';
 import { UserService } from '../../../core/services/user.service';
 import { ProductService } from '../../../core/services/product.service';
 import { OrderService } from '../../../core/services/order.service';
@@ -13,12 +14,13 @@ import { Inventory } from '../../../core/models/inventory.model';
   templateUrl: './admin-dashboard.component.html',
   styleUrls: ['./admin-dashboard.component.css']
 })
-export class AdminDashboardComponent implements OnInit {
+export class AdminDashboardComponent implements OnInit, OnDestroy {
   users: User[] = [];
   products: Product[] = [];
   lowStockItems: Inventory[] = [];
   pendingOrdersCount = 0;
   loading = false;
+  private lowStockSubscription?: Subscription;
 
   constructor(
     private userService: UserService,
@@ -29,6 +31,18 @@ export class AdminDashboardComponent implements OnInit {
 
   ngOnInit(): void {
     this.loadDashboardData();
+    this.watchLowStock();
+  }
+
+  ngOnDestroy(): void {
+    this.lowStockSubscription?.unsubscribe();
+  }
+
+  watchLowStock(): void {
+    this.lowStockSubscription = this.inventoryService.streamLowStockChanges().subscribe(change => {
+      const others = this.lowStockItems.filter(item => item.productId !== change.item.productId);
+      this.lowStockItems = change.type === 'low-stock' ? [...others, change.item] : others;
+    });
   }
 
   loadDashboardData(): void {
@@ -67,9 +81,9 @@ export class AdminDashboardComponent implements OnInit {
     });
 
     // Load pending orders count
-    this.orderService.getOrdersByStatus(OrderStatus.PENDING).subscribe({
-      next: (orders) => {
-        this.pendingOrdersCount = orders.length;
+    this.orderService.countOrdersByStatus(OrderStatus.PENDING).subscribe({
+      next: (count) => {
+        this.pendingOrdersCount = count;
       },
       error: (error) => {
         console.error('Failed to load orders:', error);
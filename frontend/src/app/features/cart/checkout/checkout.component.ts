@@ -3,11 +3,10 @@ import { Router } from '@angular/router';
 import { FormBuilder, FormGroup, Validators } from '@angular/forms';
 import { CartService } from '../../../core/services/cart.service';
 import { OrderService } from '../../../core/services/order.service';
-import { PaymentService } from '../../../core/services/payment.service';
 import { AuthService } from '../../../core/services/auth.service';
 import { UserService } from '../../../core/services/user.service';
 import { Address } from '../../../core/models/address.model';
-import { OrderCreate } from '../../../core/models/order.model';
+import { CheckoutRequest } from '../../../core/models/order.model';
 import { PaymentMethod } from '../../../core/models/payment.model';
 
 @Component({
@@ -27,7 +26,6 @@ export class CheckoutComponent implements OnInit {
     private fb: FormBuilder,
     private cartService: CartService,
     private orderService: OrderService,
-    private paymentService: PaymentService,
     private authService: AuthService,
     private userService: UserService,
     private router: Router
@@ -102,7 +100,7 @@ export class CheckoutComponent implements OnInit {
     this.loading = true;
     this.error = '';
 
-    const orderData: OrderCreate = {
+    const checkoutData: CheckoutRequest = {
       userId: currentUser.id,
       shippingAddress: this.checkoutForm.value.shippingAddress,
       billingAddress: this.checkoutForm.value.billingAddress,
@@ -114,30 +112,17 @@ export class CheckoutComponent implements OnInit {
         unitPrice: item.price
       })),
       taxAmount: this.taxAmount,
-      shippingAmount: this.shippingAmount
+      shippingAmount: this.shippingAmount,
+      paymentMethod: this.checkoutForm.value.paymentMethod
     };
 
-    this.orderService.createOrder(orderData).subscribe({
-      next: (order) => {
-        // Process payment
-        this.paymentService.processPayment({
-          orderId: order.id,
-          userId: currentUser.id,
-          amount: this.totalAmount,
-          paymentMethod: this.checkoutForm.value.paymentMethod
-        }).subscribe({
-          next: () => {
-            this.cartService.clearCart();
-            this.router.navigate(['/orders', order.id]);
-          },
-          error: (error) => {
-            this.error = error.message || 'Payment failed';
-            this.loading = false;
-          }
-        });
+    this.orderService.checkout(checkoutData).subscribe({
+      next: (result) => {
+        this.cartService.clearCart();
+        this.router.navigate(['/orders', result.order!.id]);
       },
       error: (error) => {
-        this.error = error.message || 'Failed to place order';
+        this.error = error.error?.failureReason || error.message || 'Failed to place order';
         this.loading = false;
       }
     });
@@ -33,7 +33,7 @@ export class OrderDetailComponent implements OnInit {
 
   loadOrder(id: number): void {
     this.loading = true;
-    this.orderService.getOrderById(id).subscribe({
+    this.orderService.getOrderDetail(id).subscribe({
       next: (order) => {
         this.order = order;
         this.loading = false;
@@ -2,7 +2,7 @@ import { Component, OnInit } from '@angular/core';
 import { Router } from '@angular/router';
 import { OrderService } from '../../../core/services/order.service';
 import { AuthService } from '../../../core/services/auth.service';
-import { Order } from '../../../core/models/order.model';
+import { OrderSummary } from '../../../core/models/order.model';
 
 @Component({
   selector: 'app-order-list',
@@ -10,7 +10,9 @@ import { Order } from '../../../core/models/order.model';
   styleUrls: ['./order-list.component.css']
 })
 export class OrderListComponent implements OnInit {
-  orders: Order[] = [];
+  orders: OrderSummary[] = [];
+  nextCursor: string | null = null;
+  userId?: number;
   loading = false;
   error = '';
 
@@ -23,17 +25,21 @@ export class OrderListComponent implements OnInit {
   ngOnInit(): void {
     const currentUser = this.authService.getCurrentUser();
     if (currentUser) {
-      this.loadOrders(currentUser.id);
+      this.userId = currentUser.id;
+      this.loadOrders();
     }
   }
 
-  loadOrders(userId: number): void {
+  // Pages arrive newest first; each call appends the next one
+  loadOrders(): void {
+    if (this.userId === undefined) {
+      return;
+    }
     this.loading = true;
-    this.orderService.getOrdersByUser(userId).subscribe({
-      next: (orders) => {
-        this.orders = orders.sort((a, b) => 
-          new Date(b.createdAt!).getTime() - new Date(a.createdAt!).getTime()
-        );
+    this.orderService.getOrderHistory(this.userId, this.nextCursor ?? undefined).subscribe({
+      next: (page) => {
+        this.orders = this.orders.concat(page.orders);
+        this.nextCursor = page.nextCursor;
         this.loading = false;
       },
       error: (error) => {